@@ -0,0 +1,42 @@
+package com.revenat.jmemcached.benchmark;
+
+import java.util.Random;
+
+/**
+ * Generator of the keys and values used by benchmarks. Uses fixed seed, so
+ * that every run measures the same content.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+final class BenchmarkData {
+	static final long TTL = 60_000L;
+
+	private static final String KEY_ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789:_";
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Returns ASCII key of the specified length, which is different for each
+	 * {@code index}.
+	 */
+	static String key(int length, int index) {
+		Random random = new Random(index);
+		StringBuilder key = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			key.append(KEY_ALPHABET.charAt(random.nextInt(KEY_ALPHABET.length())));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Returns value of the specified length filled with random bytes, so that
+	 * it can not be compressed.
+	 */
+	static byte[] value(int length) {
+		byte[] value = new byte[length];
+		new Random(length).nextBytes(value);
+		return value;
+	}
+}
@@ -0,0 +1,117 @@
+package com.revenat.jmemcached.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.revenat.jmemcached.protocol.impl.RequestConverter;
+import com.revenat.jmemcached.protocol.impl.ResponseConverter;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Request;
+import com.revenat.jmemcached.protocol.model.Response;
+import com.revenat.jmemcached.protocol.model.Status;
+
+/**
+ * Measures batch writing and reading of the request/response exchange with
+ * the specified share of {@link Command#GET} requests, while the rest of them
+ * are {@link Command#PUT} and {@link Command#REMOVE} ones. Results are
+ * reported per single request or response of the batch.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandMixBenchmark {
+	private static final int BATCH_SIZE = 100;
+	private static final int KEY_SIZE = 32;
+
+	@Param({ "100", "90", "50" })
+	private int getPercentage;
+
+	@Param({ "16", "1024" })
+	private int valueSize;
+
+	private final RequestConverter requestConverter = new RequestConverter();
+	private final ResponseConverter responseConverter = new ResponseConverter();
+	private List<Request> requests;
+	private List<Response> responses;
+	private byte[] encodedRequests;
+	private byte[] encodedResponses;
+	private ByteArrayOutputStream output;
+
+	@Setup
+	public void setUp() throws IOException {
+		byte[] value = BenchmarkData.value(valueSize);
+		requests = new ArrayList<>(BATCH_SIZE);
+		responses = new ArrayList<>(BATCH_SIZE);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			String key = BenchmarkData.key(KEY_SIZE, i);
+			if (i % 100 < getPercentage) {
+				requests.add(Request.withKey(Command.GET, key));
+				responses.add(i % 10 == 0 ? Response.empty(Status.NOT_FOUND) : Response.withData(Status.GOTTEN, value));
+			} else if (i % 4 == 0) {
+				requests.add(Request.withKey(Command.REMOVE, key));
+				responses.add(Response.empty(Status.REMOVED));
+			} else {
+				requests.add(Request.withKeyAndData(Command.PUT, key, value, i % 2 == 0 ? BenchmarkData.TTL : null));
+				responses.add(Response.empty(Status.ADDED));
+			}
+		}
+		output = new ByteArrayOutputStream(BATCH_SIZE * (valueSize + KEY_SIZE + 32));
+
+		requestConverter.writeAll(output, requests);
+		encodedRequests = output.toByteArray();
+		output.reset();
+		responseConverter.writeAll(output, responses);
+		encodedResponses = output.toByteArray();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public int writeRequests() throws IOException {
+		output.reset();
+		requestConverter.writeAll(output, requests);
+		return output.size();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<Request> readRequests() throws IOException {
+		return requestConverter.readAll(new ByteArrayInputStream(encodedRequests), BATCH_SIZE);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public int writeResponses() throws IOException {
+		output.reset();
+		responseConverter.writeAll(output, responses);
+		return output.size();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<Response> readResponses() throws IOException {
+		return responseConverter.readAll(new ByteArrayInputStream(encodedResponses), BATCH_SIZE);
+	}
+}
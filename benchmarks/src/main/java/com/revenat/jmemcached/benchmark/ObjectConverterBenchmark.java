@@ -0,0 +1,104 @@
+package com.revenat.jmemcached.benchmark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.revenat.jmemcached.protocol.ObjectDeserializer;
+import com.revenat.jmemcached.protocol.ObjectSerializer;
+import com.revenat.jmemcached.protocol.impl.BinaryObjectConverter;
+import com.revenat.jmemcached.protocol.impl.ObjectConverter;
+
+/**
+ * Measures serialization and deserialization of the cached values by
+ * {@link ObjectConverter}, which uses Java serialization, in comparison with
+ * {@link BinaryObjectConverter}.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ObjectConverterBenchmark {
+
+	/**
+	 * Kind of the serialized value
+	 */
+	public enum ValueType {
+		STRING, BYTES, LIST
+	}
+
+	@Param({ "ObjectConverter", "BinaryObjectConverter" })
+	private String converterType;
+
+	@Param
+	private ValueType valueType;
+
+	@Param({ "16", "1024", "65536" })
+	private int valueSize;
+
+	private ObjectSerializer serializer;
+	private ObjectDeserializer deserializer;
+	private Serializable value;
+	private byte[] serializedValue;
+
+	@Setup
+	public void setUp() {
+		if ("ObjectConverter".equals(converterType)) {
+			ObjectConverter converter = new ObjectConverter();
+			serializer = converter;
+			deserializer = converter;
+		} else {
+			BinaryObjectConverter converter = new BinaryObjectConverter();
+			serializer = converter;
+			deserializer = converter;
+		}
+		value = createValue();
+		serializedValue = serializer.toByteArray(value);
+	}
+
+	private Serializable createValue() {
+		switch (valueType) {
+		case STRING:
+			return BenchmarkData.key(valueSize, 0);
+		case BYTES:
+			return BenchmarkData.value(valueSize);
+		case LIST:
+			Long[] numbers = new Long[Math.max(1, valueSize / Long.BYTES)];
+			for (int i = 0; i < numbers.length; i++) {
+				numbers[i] = (long) i;
+			}
+			return new ArrayList<>(Arrays.asList(numbers));
+		default:
+			throw new IllegalStateException("Unknown value type: " + valueType);
+		}
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return serializer.toByteArray(value);
+	}
+
+	@Benchmark
+	public Optional<Serializable> deserialize() {
+		return deserializer.fromByteArray(serializedValue);
+	}
+}
@@ -0,0 +1,97 @@
+package com.revenat.jmemcached.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.revenat.jmemcached.protocol.impl.RequestConverter;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * Measures writing and reading of the single {@link Command#PUT} and
+ * {@link Command#GET} requests by {@link RequestConverter} for different key
+ * and value sizes, with and without ttl.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestConverterBenchmark {
+
+	@Param({ "8", "64", "127" })
+	private int keySize;
+
+	@Param({ "16", "1024", "65536", "4194304" })
+	private int valueSize;
+
+	@Param({ "true", "false" })
+	private boolean ttl;
+
+	private final RequestConverter converter = new RequestConverter();
+	private Request putRequest;
+	private Request getRequest;
+	private byte[] encodedPutRequest;
+	private byte[] encodedGetRequest;
+	private ByteArrayOutputStream output;
+
+	@Setup
+	public void setUp() throws IOException {
+		String key = BenchmarkData.key(keySize, 0);
+		putRequest = Request.withKeyAndData(Command.PUT, key, BenchmarkData.value(valueSize),
+				ttl ? BenchmarkData.TTL : null);
+		getRequest = Request.withKey(Command.GET, key);
+		output = new ByteArrayOutputStream(valueSize + keySize + 32);
+
+		encodedPutRequest = encode(putRequest);
+		encodedGetRequest = encode(getRequest);
+	}
+
+	private byte[] encode(Request request) throws IOException {
+		output.reset();
+		converter.writeTo(output, request);
+		return output.toByteArray();
+	}
+
+	@Benchmark
+	public int writePut() throws IOException {
+		output.reset();
+		converter.writeTo(output, putRequest);
+		return output.size();
+	}
+
+	@Benchmark
+	public Request readPut() throws IOException {
+		return converter.readFrom(new ByteArrayInputStream(encodedPutRequest));
+	}
+
+	@Benchmark
+	public int writeGet() throws IOException {
+		output.reset();
+		converter.writeTo(output, getRequest);
+		return output.size();
+	}
+
+	@Benchmark
+	public Request readGet() throws IOException {
+		return converter.readFrom(new ByteArrayInputStream(encodedGetRequest));
+	}
+}
@@ -0,0 +1,67 @@
+package com.revenat.jmemcached.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.revenat.jmemcached.protocol.impl.ResponseConverter;
+import com.revenat.jmemcached.protocol.model.Response;
+import com.revenat.jmemcached.protocol.model.Status;
+
+/**
+ * Measures writing and reading of the {@link Status#GOTTEN} responses by
+ * {@link ResponseConverter} for different value sizes.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseConverterBenchmark {
+
+	@Param({ "16", "1024", "65536", "4194304" })
+	private int valueSize;
+
+	private final ResponseConverter converter = new ResponseConverter();
+	private Response response;
+	private byte[] encodedResponse;
+	private ByteArrayOutputStream output;
+
+	@Setup
+	public void setUp() throws IOException {
+		response = Response.withData(Status.GOTTEN, BenchmarkData.value(valueSize));
+		output = new ByteArrayOutputStream(valueSize + 32);
+
+		converter.writeTo(output, response);
+		encodedResponse = output.toByteArray();
+	}
+
+	@Benchmark
+	public int write() throws IOException {
+		output.reset();
+		converter.writeTo(output, response);
+		return output.size();
+	}
+
+	@Benchmark
+	public Response read() throws IOException {
+		return converter.readFrom(new ByteArrayInputStream(encodedResponse));
+	}
+}
@@ -0,0 +1,52 @@
+package com.revenat.jmemcached.protocol;
+
+import java.io.IOException;
+
+import com.revenat.jmemcached.protocol.model.Request;
+import com.revenat.jmemcached.protocol.model.Response;
+
+/**
+ * Connection-scoped component responsible for reading and writing
+ * {@link Request} and {@link Response} objects over the single connection.
+ * Unlike stateless readers and writers, session keeps its buffers between
+ * frames, so implementations are not required to be thread-safe.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface ProtocolSession {
+
+	/**
+	 * Reads next {@link Request} object from the connection, sending any pending
+	 * written frames first.
+	 * @throws IOException
+	 */
+	Request readRequest() throws IOException;
+
+	/**
+	 * Writes specified {@link Request} object into the connection. Frame may stay
+	 * buffered until {@link #flush()} or next read operation.
+	 * @throws IOException
+	 */
+	void writeRequest(Request request) throws IOException;
+
+	/**
+	 * Reads next {@link Response} object from the connection, sending any pending
+	 * written frames first.
+	 * @throws IOException
+	 */
+	Response readResponse() throws IOException;
+
+	/**
+	 * Writes specified {@link Response} object into the connection. Frame may stay
+	 * buffered until {@link #flush()} or next read operation.
+	 * @throws IOException
+	 */
+	void writeResponse(Response response) throws IOException;
+
+	/**
+	 * Sends all buffered frames.
+	 * @throws IOException
+	 */
+	void flush() throws IOException;
+}
@@ -0,0 +1,24 @@
+package com.revenat.jmemcached.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * Responsible for reading several pipelined {@link Request} objects from
+ * {@link InputStream}
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface RequestBatchReader {
+
+	/**
+	 * Reads exactly {@code count} {@link Request} objects from the provided
+	 * {@link InputStream} in order they were written.
+	 * @throws IOException
+	 */
+	List<Request> readAll(InputStream input, int count) throws IOException;
+}
@@ -0,0 +1,25 @@
+package com.revenat.jmemcached.protocol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * Responsible for writing several {@link Request} objects into
+ * {@link OutputStream} back-to-back, so they can be pipelined without
+ * waiting for responses
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface RequestBatchWriter {
+
+	/**
+	 * Writes all specified {@link Request} objects into specified
+	 * {@link OutputStream} in order, flushing it only once at the end.
+	 * @throws IOException
+	 */
+	void writeAll(OutputStream output, List<Request> requests) throws IOException;
+}
@@ -0,0 +1,25 @@
+package com.revenat.jmemcached.protocol;
+
+import java.nio.ByteBuffer;
+
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * Responsible for reading {@link Request} object directly from {@link ByteBuffer}
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface RequestBufferReader {
+
+	/**
+	 * Reads a {@link Request} object from the provided {@link ByteBuffer}
+	 * starting at its current position. On success buffer's position is moved
+	 * right after the read frame.
+	 * 
+	 * @throws java.nio.BufferUnderflowException if buffer does not contain
+	 *                                           complete frame, in such case
+	 *                                           buffer's position stays unchanged
+	 */
+	Request readFrom(ByteBuffer buffer);
+}
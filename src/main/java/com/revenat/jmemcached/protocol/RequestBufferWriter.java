@@ -0,0 +1,31 @@
+package com.revenat.jmemcached.protocol;
+
+import java.nio.ByteBuffer;
+
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * Responsible for writing {@link Request} object directly into {@link ByteBuffer}
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface RequestBufferWriter {
+
+	/**
+	 * Returns exact number of bytes specified {@link Request} object occupies
+	 * when written by this writer.
+	 */
+	int encodedSize(Request request);
+
+	/**
+	 * Writes specified {@link Request} object into specified {@link ByteBuffer}
+	 * starting at its current position.
+	 * 
+	 * @throws java.nio.BufferOverflowException if buffer has less than
+	 *                                          {@link #encodedSize(Request)}
+	 *                                          bytes remaining, in such case
+	 *                                          nothing is written
+	 */
+	void writeTo(ByteBuffer buffer, Request request);
+}
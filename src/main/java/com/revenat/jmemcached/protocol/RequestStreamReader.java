@@ -0,0 +1,25 @@
+package com.revenat.jmemcached.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.revenat.jmemcached.protocol.model.StreamedRequest;
+
+/**
+ * Responsible for reading request from {@link InputStream} without loading its
+ * data into memory
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface RequestStreamReader {
+
+	/**
+	 * Reads header of the request from the provided {@link InputStream}. Data of
+	 * the returned {@link StreamedRequest} is read from the same
+	 * {@code input}, so it should be read or closed before reading next
+	 * request.
+	 * @throws IOException
+	 */
+	StreamedRequest readStreamed(InputStream input) throws IOException;
+}
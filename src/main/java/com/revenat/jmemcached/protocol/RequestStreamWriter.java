@@ -0,0 +1,34 @@
+package com.revenat.jmemcached.protocol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Key;
+
+/**
+ * Responsible for writing {@link com.revenat.jmemcached.protocol.model.Request
+ * Request} object, whose data is too large to be kept in memory, into
+ * {@link OutputStream} piece by piece
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface RequestStreamWriter {
+
+	/**
+	 * Writes header of the request with specified {@link Command}, {@code key}
+	 * and optional {@code ttl} into provided {@link OutputStream} and returns
+	 * stream for writing request data. Request is complete when returned stream
+	 * is closed, which doesn't close provided {@code output}.
+	 * @throws IOException
+	 */
+	OutputStream openDataStream(OutputStream output, Command command, String key, Long ttl) throws IOException;
+
+	/**
+	 * Does the same as {@link #openDataStream(OutputStream, Command, String, Long)}
+	 * for the request with specified {@link Key}.
+	 * @throws IOException
+	 */
+	OutputStream openDataStream(OutputStream output, Command command, Key key, Long ttl) throws IOException;
+}
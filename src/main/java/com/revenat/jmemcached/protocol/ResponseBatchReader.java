@@ -0,0 +1,24 @@
+package com.revenat.jmemcached.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.revenat.jmemcached.protocol.model.Response;
+
+/**
+ * Responsible for reading several pipelined {@link Response} objects from
+ * {@link InputStream}
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface ResponseBatchReader {
+
+	/**
+	 * Reads exactly {@code count} {@link Response} objects from the provided
+	 * {@link InputStream} in order they were written.
+	 * @throws IOException
+	 */
+	List<Response> readAll(InputStream input, int count) throws IOException;
+}
@@ -0,0 +1,24 @@
+package com.revenat.jmemcached.protocol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.revenat.jmemcached.protocol.model.Response;
+
+/**
+ * Responsible for writing several {@link Response} objects into
+ * {@link OutputStream} back-to-back
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface ResponseBatchWriter {
+
+	/**
+	 * Writes all specified {@link Response} objects into specified
+	 * {@link OutputStream} in order, flushing it only once at the end.
+	 * @throws IOException
+	 */
+	void writeAll(OutputStream output, List<Response> responses) throws IOException;
+}
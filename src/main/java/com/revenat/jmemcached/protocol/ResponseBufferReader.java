@@ -0,0 +1,25 @@
+package com.revenat.jmemcached.protocol;
+
+import java.nio.ByteBuffer;
+
+import com.revenat.jmemcached.protocol.model.Response;
+
+/**
+ * Responsible for reading response directly from {@link ByteBuffer}
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface ResponseBufferReader {
+
+	/**
+	 * Reads a {@link Response} object from the provided {@link ByteBuffer}
+	 * starting at its current position. On success buffer's position is moved
+	 * right after the read frame.
+	 * 
+	 * @throws java.nio.BufferUnderflowException if buffer does not contain
+	 *                                           complete frame, in such case
+	 *                                           buffer's position stays unchanged
+	 */
+	Response readFrom(ByteBuffer buffer);
+}
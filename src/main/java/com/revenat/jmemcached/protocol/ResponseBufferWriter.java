@@ -0,0 +1,31 @@
+package com.revenat.jmemcached.protocol;
+
+import java.nio.ByteBuffer;
+
+import com.revenat.jmemcached.protocol.model.Response;
+
+/**
+ * Responsible for writing response directly into {@link ByteBuffer}
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface ResponseBufferWriter {
+
+	/**
+	 * Returns exact number of bytes specified {@link Response} object occupies
+	 * when written by this writer.
+	 */
+	int encodedSize(Response response);
+
+	/**
+	 * Writes specified {@link Response} object into specified {@link ByteBuffer}
+	 * starting at its current position.
+	 * 
+	 * @throws java.nio.BufferOverflowException if buffer has less than
+	 *                                          {@link #encodedSize(Response)}
+	 *                                          bytes remaining, in such case
+	 *                                          nothing is written
+	 */
+	void writeTo(ByteBuffer buffer, Response response);
+}
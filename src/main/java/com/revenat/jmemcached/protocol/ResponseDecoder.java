@@ -0,0 +1,39 @@
+package com.revenat.jmemcached.protocol;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import com.revenat.jmemcached.protocol.model.Response;
+
+/**
+ * Responsible for incremental decoding of {@link Response} objects from chunks
+ * of bytes as they arrive from non-blocking channel. Implementations are
+ * stateful, so one instance should be used per connection.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface ResponseDecoder {
+
+	/**
+	 * Consumes bytes from the specified {@code chunk} until one complete
+	 * {@link Response} is decoded or chunk has no bytes remaining. Bytes that
+	 * follow decoded frame stay in the chunk for the next invocation.
+	 * 
+	 * @param chunk buffer with next portion of bytes
+	 * @return {@link Optional} with decoded {@link Response} or empty one if more
+	 *         bytes are required to complete current frame
+	 */
+	Optional<Response> decode(ByteBuffer chunk);
+
+	/**
+	 * Returns {@code true} if some bytes of not yet completed frame have been
+	 * consumed already.
+	 */
+	boolean hasPartialFrame();
+
+	/**
+	 * Discards any partially decoded frame.
+	 */
+	void reset();
+}
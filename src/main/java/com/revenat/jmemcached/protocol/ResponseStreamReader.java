@@ -0,0 +1,25 @@
+package com.revenat.jmemcached.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.revenat.jmemcached.protocol.model.StreamedResponse;
+
+/**
+ * Responsible for reading response from {@link InputStream} without loading
+ * its data into memory
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface ResponseStreamReader {
+
+	/**
+	 * Reads header of the response from the provided {@link InputStream}. Data
+	 * of the returned {@link StreamedResponse} is read from the same
+	 * {@code input}, so it should be read or closed before reading next
+	 * response.
+	 * @throws IOException
+	 */
+	StreamedResponse readStreamed(InputStream input) throws IOException;
+}
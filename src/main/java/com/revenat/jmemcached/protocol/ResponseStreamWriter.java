@@ -0,0 +1,26 @@
+package com.revenat.jmemcached.protocol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.revenat.jmemcached.protocol.model.Status;
+
+/**
+ * Responsible for writing {@link com.revenat.jmemcached.protocol.model.Response
+ * Response} object, whose data is too large to be kept in memory, into
+ * {@link OutputStream} piece by piece
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface ResponseStreamWriter {
+
+	/**
+	 * Writes header of the response with specified {@link Status} into provided
+	 * {@link OutputStream} and returns stream for writing response data.
+	 * Response is complete when returned stream is closed, which doesn't close
+	 * provided {@code output}.
+	 * @throws IOException
+	 */
+	OutputStream openDataStream(OutputStream output, Status status) throws IOException;
+}
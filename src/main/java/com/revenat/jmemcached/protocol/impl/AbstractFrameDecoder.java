@@ -0,0 +1,162 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+/**
+ * Component with methods common for all incremental frame decoders. Keeps
+ * partially read numbers and byte blocks between invocations, so frame parts
+ * that span several chunks are never buffered twice: numbers are accumulated
+ * in place and blocks are copied directly into the array of their final size.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+abstract class AbstractFrameDecoder extends AbstractPackageConverter {
+	private long number;
+	private int numberBytesRead;
+
+	private byte[] block;
+	private int blockBytesRead;
+
+	private ByteArrayOutputStream chunks;
+
+	/**
+	 * Tries to read big-endian number of the specified {@code size} in bytes.
+	 * 
+	 * @return {@code true} if number is read completely and can be obtained using
+	 *         {@link #getNumber()}, {@code false} if chunk has no more bytes
+	 */
+	protected boolean readNumber(ByteBuffer chunk, int size) {
+		if (numberBytesRead == 0 && chunk.remaining() >= size && chunk.order() == ByteOrder.BIG_ENDIAN) {
+			number = readWholeNumber(chunk, size);
+			numberBytesRead = size;
+		}
+		while (numberBytesRead < size && chunk.hasRemaining()) {
+			number = (number << 8) | (chunk.get() & 0xFF);
+			numberBytesRead++;
+		}
+		return numberBytesRead == size;
+	}
+
+	private static long readWholeNumber(ByteBuffer chunk, int size) {
+		switch (size) {
+		case Long.BYTES:
+			return chunk.getLong();
+		case Integer.BYTES:
+			return chunk.getInt();
+		default:
+			long value = 0;
+			for (int i = 0; i < size; i++) {
+				value = (value << 8) | (chunk.get() & 0xFF);
+			}
+			return value;
+		}
+	}
+
+	/**
+	 * Tries to read variable-length number of the compact frame layout.
+	 * 
+	 * @return {@code true} if number is read completely and can be obtained using
+	 *         {@link #getNumber()}, {@code false} if chunk has no more bytes
+	 * @throws JMemcachedException if number is longer than
+	 *                             {@link VarInt#MAX_BYTES}
+	 */
+	protected boolean readVarNumber(ByteBuffer chunk) {
+		while (chunk.hasRemaining()) {
+			if (numberBytesRead == VarInt.MAX_BYTES) {
+				throw new JMemcachedException("Variable-length number is longer than " + VarInt.MAX_BYTES + " bytes");
+			}
+			byte b = chunk.get();
+			number |= (long) (b & 0x7F) << (7 * numberBytesRead);
+			numberBytesRead++;
+			if ((b & 0x80) == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns number read by the last successful {@link #readNumber(ByteBuffer, int)}
+	 * or {@link #readVarNumber(ByteBuffer)} invocation and prepares for reading
+	 * the next one.
+	 */
+	protected long getNumber() {
+		long value = number;
+		number = 0;
+		numberBytesRead = 0;
+		return value;
+	}
+
+	/**
+	 * Starts reading of a new block of bytes with specified {@code length}.
+	 * 
+	 * @throws JMemcachedException if specified {@code length} is negative
+	 */
+	protected void startBlock(int length) {
+		if (length < 0) {
+			throw new JMemcachedException("Invalid block length: " + length);
+		}
+		block = new byte[length];
+		blockBytesRead = 0;
+	}
+
+	/**
+	 * Copies as many bytes of the current block as the specified {@code chunk}
+	 * has.
+	 * 
+	 * @return {@code true} if block is read completely and can be obtained using
+	 *         {@link #takeBlock()}, {@code false} otherwise
+	 */
+	protected boolean readBlock(ByteBuffer chunk) {
+		int count = Math.min(chunk.remaining(), block.length - blockBytesRead);
+		chunk.get(block, blockBytesRead, count);
+		blockBytesRead += count;
+		return blockBytesRead == block.length;
+	}
+
+	/**
+	 * Returns completely read block of bytes, releasing decoder's reference to
+	 * it.
+	 */
+	protected byte[] takeBlock() {
+		byte[] value = block;
+		block = null;
+		blockBytesRead = 0;
+		return value;
+	}
+
+	/**
+	 * Appends completely read chunk of the chunked data block.
+	 */
+	protected void appendChunk(byte[] chunk) {
+		if (chunks == null) {
+			chunks = new ByteArrayOutputStream(chunk.length);
+		}
+		chunks.write(chunk, 0, chunk.length);
+	}
+
+	/**
+	 * Returns data assembled from all chunks appended since previous invocation.
+	 */
+	protected byte[] takeChunks() {
+		byte[] value = chunks != null ? chunks.toByteArray() : new byte[0];
+		chunks = null;
+		return value;
+	}
+
+	/**
+	 * Discards partially read number, block and chunks.
+	 */
+	protected void resetState() {
+		number = 0;
+		numberBytesRead = 0;
+		block = null;
+		blockBytesRead = 0;
+		chunks = null;
+	}
+}
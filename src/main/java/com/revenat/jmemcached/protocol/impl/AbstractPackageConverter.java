@@ -1,6 +1,28 @@
 package com.revenat.jmemcached.protocol.impl;
 
+import static java.util.Objects.requireNonNull;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
+
 import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.impl.PayloadCompressor.PayloadSource;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.DirectPayload;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.PayloadAllocator;
+import com.revenat.jmemcached.protocol.model.Request;
 import com.revenat.jmemcached.protocol.model.Version;
 
 /**
@@ -10,27 +32,399 @@ import com.revenat.jmemcached.protocol.model.Version;
  *
  */
 abstract class AbstractPackageConverter {
-	private static final Version CURRENT_VERSION = Version.VERSION_1_0;
+	/**
+	 * Protocol used by converters created without handshake, which write
+	 * {@link Version#VERSION_1_0} frames and don't restrict features, for peers
+	 * that are upgraded together. Compact lengths change layout of every frame,
+	 * so they are used only if negotiated explicitly
+	 */
+	private static final Handshake WITHOUT_NEGOTIATION = Handshake.of(Version.VERSION_1_0,
+			EnumSet.complementOf(EnumSet.of(Feature.COMPACT_LENGTHS)));
+	/**
+	 * Size of the buffer used to coalesce frames written in a batch
+	 */
+	protected static final int BATCH_BUFFER_SIZE = 8192;
+	/**
+	 * Upper bound for the initial capacity of the list of entries read from the
+	 * frame, so that corrupted entries count doesn't cause huge allocation
+	 */
+	private static final int MAX_INITIAL_ENTRIES_CAPACITY = 1024;
+
+	private final PayloadCompressor compressor;
+	private final Handshake handshake;
+
+	/**
+	 * Creates converter that writes data blocks as is.
+	 */
+	protected AbstractPackageConverter() {
+		this.compressor = null;
+		this.handshake = WITHOUT_NEGOTIATION;
+	}
+
+	/**
+	 * Creates converter that compresses written data blocks using specified
+	 * {@code compressor}.
+	 * 
+	 * @throws NullPointerException if {@code compressor} is {@code null}
+	 */
+	protected AbstractPackageConverter(PayloadCompressor compressor) {
+		this.compressor = requireNonNull(compressor, "compressor can not be null");
+		this.handshake = WITHOUT_NEGOTIATION;
+	}
 
 	/**
-	 * Checks whether provided {@code versionByte} represents currently supported
-	 * protocol {@link Version}
+	 * Creates converter that writes frames of the negotiated protocol version
+	 * and uses only negotiated features, writing data blocks as is.
+	 * 
+	 * @param handshake result of the {@link Handshake#negotiate(Handshake)}
+	 * @throws NullPointerException if {@code handshake} is {@code null}
+	 */
+	protected AbstractPackageConverter(Handshake handshake) {
+		this.compressor = null;
+		this.handshake = requireNonNull(handshake, "handshake can not be null");
+	}
+
+	/**
+	 * Creates converter that writes frames of the negotiated protocol version
+	 * and uses only negotiated features, compressing written data blocks using
+	 * specified {@code compressor} if {@link Feature#COMPRESSION} is
+	 * negotiated.
+	 * 
+	 * @param handshake result of the {@link Handshake#negotiate(Handshake)}
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	protected AbstractPackageConverter(PayloadCompressor compressor, Handshake handshake) {
+		this.compressor = requireNonNull(compressor, "compressor can not be null");
+		this.handshake = requireNonNull(handshake, "handshake can not be null");
+	}
+
+	/**
+	 * Checks whether provided {@code versionByte} represents supported protocol
+	 * {@link Version}, which is any version starting from
+	 * {@link Version#VERSION_1_0}, so that frames of legacy peers are read
+	 * regardless of the negotiated version.
 	 * 
 	 * @param versionByte byte of the protocol version to check
 	 * @throws JMemcachedConfigException if protocol version assumed by the provided
 	 *                                   {@code versionByte} is not supported.
 	 */
-	protected void checkProtocolVersion(byte versionByte) {
+	protected static void checkProtocolVersion(byte versionByte) {
 		Version protocolVersion = Version.valueOf(versionByte);
-		if (protocolVersion != CURRENT_VERSION) {
+		if (protocolVersion.compareTo(Version.VERSION_1_0) < 0) {
 			throw new JMemcachedConfigException("Unsupported protocol version: " + protocolVersion);
 		}
 	}
 
 	/**
-	 * Returns version's byte of the currently supported protocol {@link Version}
+	 * Returns version's byte of the protocol {@link Version} used by this
+	 * converter
 	 */
 	protected byte getVersionByte() {
-		return CURRENT_VERSION.getByteCode();
+		return handshake.getVersion().getByteCode();
+	}
+
+	/**
+	 * Checks that package, which has correlation id, entries or cas token, can
+	 * be written using features negotiated for this converter.
+	 * 
+	 * @throws JMemcachedException if package uses feature that is not
+	 *                             negotiated
+	 */
+	protected void checkFeatures(boolean hasCorrelationId, boolean hasEntries, boolean hasCasToken) {
+		checkFeature(Feature.CORRELATION_IDS, hasCorrelationId);
+		checkFeature(Feature.BATCHING, hasEntries);
+		checkFeature(Feature.CAS_TOKENS, hasCasToken);
+	}
+
+	/**
+	 * Checks that specified {@code request} is valid for its command and can be
+	 * written using features negotiated for this converter.
+	 * 
+	 * @throws JMemcachedException if request is not valid or uses feature that
+	 *                             is not negotiated
+	 */
+	protected void checkRequest(Request request) {
+		RequestConverter.checkCasToken(request);
+		RequestConverter.checkCounter(request);
+		RequestConverter.checkTouch(request);
+		checkFeatures(request.hasCorrelationId(), request.hasEntries(), request.hasCasToken());
+		checkFeature(Feature.COUNTERS, request.getCommand().isCounter());
+		checkFeature(Feature.TOUCH, request.hasTtl() && !request.hasData());
+		checkFeature(Feature.QUIET_COMMANDS, request.getCommand().isQuiet() || request.getCommand() == Command.NOOP);
+	}
+
+	/**
+	 * Checks that specified {@code feature} is negotiated if it is
+	 * {@code used}.
+	 * 
+	 * @throws JMemcachedException if feature is used, but not negotiated
+	 */
+	protected void checkFeature(Feature feature, boolean used) {
+		if (used && !handshake.hasFeature(feature)) {
+			throw new JMemcachedException(
+					"Feature " + feature + " is not negotiated for protocol version " + handshake.getVersion());
+		}
+	}
+
+	/**
+	 * Checks whether frames written by this converter should use compact
+	 * layout, where ttl and data lengths are written as variable-length
+	 * numbers.
+	 */
+	protected boolean usesCompactLayout() {
+		return handshake.hasFeature(Feature.COMPACT_LENGTHS);
+	}
+
+	/**
+	 * Returns number of bytes taken by the specified data block {@code length}
+	 * in the frame.
+	 */
+	protected static int lengthSize(int length, boolean compact) {
+		return compact ? VarInt.sizeOf(length) : Integer.BYTES;
+	}
+
+	/**
+	 * Returns number of bytes taken by the specified {@code ttl} in the frame.
+	 */
+	protected static int ttlSize(long ttl, boolean compact) {
+		return compact ? VarInt.sizeOf(VarInt.encodeTtl(ttl)) : Long.BYTES;
+	}
+
+	protected static void writeLength(DataOutput output, int length, boolean compact) throws IOException {
+		if (compact) {
+			VarInt.write(output, length);
+		} else {
+			output.writeInt(length);
+		}
+	}
+
+	protected static void writeLength(ByteBuffer buffer, int length, boolean compact) {
+		if (compact) {
+			VarInt.write(buffer, length);
+		} else {
+			buffer.putInt(length);
+		}
+	}
+
+	protected static void writeTtl(DataOutput output, long ttl, boolean compact) throws IOException {
+		if (compact) {
+			VarInt.write(output, VarInt.encodeTtl(ttl));
+		} else {
+			output.writeLong(ttl);
+		}
+	}
+
+	protected static void writeTtl(ByteBuffer buffer, long ttl, boolean compact) {
+		if (compact) {
+			VarInt.write(buffer, VarInt.encodeTtl(ttl));
+		} else {
+			buffer.putLong(ttl);
+		}
+	}
+
+	protected static long readTtl(DataInput input, boolean compact) throws IOException {
+		return compact ? VarInt.decodeTtl(VarInt.read(input)) : input.readLong();
+	}
+
+	protected static long readTtl(ByteBuffer buffer, boolean compact) {
+		return compact ? VarInt.decodeTtl(VarInt.read(buffer)) : buffer.getLong();
+	}
+
+	/**
+	 * Reads length of the data block, which is not validated when it is
+	 * written as fixed-size number.
+	 * 
+	 * @throws JMemcachedException if compact length is invalid
+	 */
+	protected static int readLength(DataInput input, boolean compact) throws IOException {
+		return compact ? VarInt.toLength(VarInt.read(input)) : input.readInt();
+	}
+
+	/**
+	 * Reads length of the data block, which is not validated when it is
+	 * written as fixed-size number.
+	 * 
+	 * @throws JMemcachedException if compact length is invalid
+	 */
+	protected static int readLength(ByteBuffer buffer, boolean compact) {
+		return compact ? VarInt.toLength(VarInt.read(buffer)) : buffer.getInt();
+	}
+
+	/**
+	 * Checks that entries count read from the multi-key frame is valid.
+	 * 
+	 * @return specified {@code entriesCount}
+	 * @throws JMemcachedException if specified {@code entriesCount} is negative
+	 */
+	protected static int checkEntriesCount(int entriesCount) {
+		if (entriesCount < 0) {
+			throw new JMemcachedException("Invalid entries count: " + entriesCount);
+		}
+		return entriesCount;
+	}
+
+	/**
+	 * Returns initial capacity for the list that is going to hold specified
+	 * number of entries read from the frame.
+	 */
+	protected static int initialCapacityFor(int entriesCount) {
+		return Math.min(entriesCount, MAX_INITIAL_ENTRIES_CAPACITY);
+	}
+
+	/**
+	 * Reads length-prefixed data block from the specified {@code buffer},
+	 * checking that the whole block is available before allocating an array for
+	 * it.
+	 * 
+	 * @throws BufferUnderflowException if buffer does not contain the whole block
+	 * @throws JMemcachedException      if read data length is negative
+	 */
+	protected static byte[] readData(ByteBuffer buffer, boolean compact) {
+		int dataLength = readLength(buffer, compact);
+		if (dataLength < 0) {
+			throw new JMemcachedException("Invalid data length: " + dataLength);
+		}
+		if (buffer.remaining() < dataLength) {
+			throw new BufferUnderflowException();
+		}
+		byte[] data = new byte[dataLength];
+		buffer.get(data);
+		return data;
+	}
+
+	/**
+	 * Reads data block from the specified {@code buffer}, assembling it from
+	 * chunks or decompressing it if necessary. Chunk lengths are always written
+	 * as fixed-size numbers.
+	 * 
+	 * @throws BufferUnderflowException if buffer does not contain the whole block
+	 * @throws JMemcachedException      if block is corrupted
+	 */
+	protected static byte[] readData(ByteBuffer buffer, boolean chunked, boolean compressed, boolean compact) {
+		if (chunked) {
+			return readChunks(buffer);
+		}
+		return restoreData(readData(buffer, compact), compressed);
+	}
+
+	/**
+	 * Reads data block from the specified {@code buffer} into the
+	 * {@link DirectPayload} obtained from the specified {@code allocator}.
+	 * Plain data is copied from buffer to payload directly, while chunked or
+	 * compressed data is assembled on the heap first.
+	 * 
+	 * @throws BufferUnderflowException if buffer does not contain the whole block
+	 * @throws JMemcachedException      if block is corrupted
+	 */
+	protected static DirectPayload readPayload(ByteBuffer buffer, boolean chunked, boolean compressed,
+			boolean compact, PayloadAllocator allocator) {
+		if (chunked || compressed) {
+			byte[] data = readData(buffer, chunked, compressed, compact);
+			DirectPayload payload = allocator.allocate(data.length);
+			payload.writableBuffer().put(data);
+			return payload;
+		}
+		int dataLength = readLength(buffer, compact);
+		if (dataLength < 0) {
+			throw new JMemcachedException("Invalid data length: " + dataLength);
+		}
+		if (buffer.remaining() < dataLength) {
+			throw new BufferUnderflowException();
+		}
+		ByteBuffer source = buffer.duplicate();
+		source.limit(source.position() + dataLength);
+		DirectPayload payload = allocator.allocate(dataLength);
+		payload.writableBuffer().put(source);
+		buffer.position(source.limit());
+		return payload;
+	}
+
+	/**
+	 * Checks all chunks of the data block before allocating an array for the
+	 * whole block and copying chunks into it.
+	 */
+	private static byte[] readChunks(ByteBuffer buffer) {
+		int startPosition = buffer.position();
+		long dataLength = 0;
+		for (int chunkLength = buffer.getInt(); chunkLength != 0; chunkLength = buffer.getInt()) {
+			if (chunkLength < 0) {
+				throw new JMemcachedException("Invalid chunk length: " + chunkLength);
+			}
+			if (buffer.remaining() < chunkLength) {
+				throw new BufferUnderflowException();
+			}
+			buffer.position(buffer.position() + chunkLength);
+			dataLength += chunkLength;
+		}
+		if (dataLength > Integer.MAX_VALUE) {
+			throw new JMemcachedException("Data block is too large: " + dataLength + " bytes");
+		}
+
+		byte[] data = new byte[(int) dataLength];
+		buffer.position(startPosition);
+		int offset = 0;
+		for (int chunkLength = buffer.getInt(); chunkLength != 0; chunkLength = buffer.getInt()) {
+			buffer.get(data, offset, chunkLength);
+			offset += chunkLength;
+		}
+		return data;
+	}
+
+	/**
+	 * Compresses data block of the specified length if compression is enabled
+	 * and negotiated for this converter.
+	 * 
+	 * @return compressed data block or {@code null} if data should be written
+	 *         as is
+	 * @throws IOException
+	 */
+	protected byte[] compressData(int dataLength, PayloadSource source) throws IOException {
+		return compressor != null && handshake.hasFeature(Feature.COMPRESSION) ? compressor.compress(dataLength, source)
+				: null;
+	}
+
+	/**
+	 * Returns original data of the data block read from the frame,
+	 * decompressing it if block was written compressed.
+	 * 
+	 * @throws JMemcachedException if compressed block is corrupted
+	 */
+	protected static byte[] restoreData(byte[] block, boolean compressed) {
+		return compressed ? PayloadCompressor.decompress(block) : block;
+	}
+
+	/**
+	 * Reads data block of the frame from the specified {@code dataInput} into
+	 * memory, assembling it from chunks or decompressing it if necessary.
+	 * 
+	 * @throws IOException
+	 */
+	protected static byte[] readData(DataInputStream dataInput, boolean chunked, boolean compressed,
+			boolean compact) throws IOException {
+		if (chunked) {
+			return IOUtils.toByteArray(DataBlockInputStream.chunked(dataInput));
+		}
+		int dataLength = readLength(dataInput, compact);
+		return restoreData(IOUtils.readFully(dataInput, dataLength), compressed);
+	}
+
+	/**
+	 * Opens stream that reads data block of the frame directly from the
+	 * specified {@code dataInput}, decompressing it if necessary.
+	 * 
+	 * @throws IOException
+	 */
+	protected static InputStream openData(DataInputStream dataInput, boolean chunked, boolean compressed,
+			boolean compact) throws IOException {
+		if (chunked) {
+			return DataBlockInputStream.chunked(dataInput);
+		}
+		DataBlockInputStream block = DataBlockInputStream.fixed(dataInput, readLength(dataInput, compact));
+		if (!compressed) {
+			return block;
+		}
+		// original data length is not needed when data is not materialized
+		new DataInputStream(block).readInt();
+		return new InflaterInputStream(block);
 	}
 }
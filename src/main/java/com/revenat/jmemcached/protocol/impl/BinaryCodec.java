@@ -0,0 +1,32 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads values of the single user class in compact binary form for
+ * {@link BinaryObjectConverter}. Implementations should read exactly the same
+ * fields they write, in the same order.
+ * 
+ * @author Vitaly Dragun
+ *
+ * @param <T> type of the values this codec is responsible for
+ */
+public interface BinaryCodec<T> {
+
+	/**
+	 * Writes fields of the specified {@code value} into {@code output}.
+	 * 
+	 * @throws IOException
+	 */
+	void write(T value, DataOutput output) throws IOException;
+
+	/**
+	 * Reads value previously written by {@link #write(Object, DataOutput)} from
+	 * {@code input}.
+	 * 
+	 * @throws IOException
+	 */
+	T read(DataInput input) throws IOException;
+}
@@ -0,0 +1,302 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.ObjectDeserializer;
+import com.revenat.jmemcached.protocol.ObjectSerializer;
+
+/**
+ * Component responsible for serialization and deserialization of objects using
+ * compact tagged binary encoding. Serialized value starts with one-byte type
+ * tag followed by:
+ * <ul>
+ * <li>UTF-8 bytes for {@link String}</li>
+ * <li>big-endian value for boxed primitives</li>
+ * <li>raw bytes for {@code byte[]}</li>
+ * <li>4-byte type identifier and fields written by registered
+ * {@link BinaryCodec} for user classes</li>
+ * </ul>
+ * Objects of any other {@link Serializable} class are serialized by
+ * {@link ObjectConverter} using standard Java {@code serialization} mechanism,
+ * whose stream header never clashes with type tags, so values written by
+ * {@link ObjectConverter} can be read by this converter as well. When Java
+ * {@code serialization} is disabled, only supported JDK types and registered
+ * classes are written and read, so registered classes serve as allow-list and
+ * no classes are ever loaded by name during deserialization.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class BinaryObjectConverter implements ObjectSerializer, ObjectDeserializer {
+	private static final byte TAG_STRING = 1;
+	private static final byte TAG_BYTES = 2;
+	private static final byte TAG_INTEGER = 3;
+	private static final byte TAG_LONG = 4;
+	private static final byte TAG_SHORT = 5;
+	private static final byte TAG_BYTE = 6;
+	private static final byte TAG_BOOLEAN = 7;
+	private static final byte TAG_CHARACTER = 8;
+	private static final byte TAG_FLOAT = 9;
+	private static final byte TAG_DOUBLE = 10;
+	private static final byte TAG_REGISTERED = 11;
+
+	private static final int TAG_SIZE = 1;
+	private static final int REGISTERED_HEADER_SIZE = TAG_SIZE + Integer.BYTES;
+
+	private final ObjectConverter fallbackConverter = new ObjectConverter();
+	private final Map<Class<?>, Registration<?>> registrationsByType = new ConcurrentHashMap<>();
+	private final Map<Integer, Registration<?>> registrationsById = new ConcurrentHashMap<>();
+	private final boolean javaSerializationEnabled;
+
+	/**
+	 * Creates converter that uses standard Java {@code serialization} for
+	 * objects of unsupported classes.
+	 */
+	public BinaryObjectConverter() {
+		this(true);
+	}
+
+	/**
+	 * @param javaSerializationEnabled whether standard Java {@code serialization}
+	 *                                 should be used for objects of unsupported
+	 *                                 classes, if {@code false} such objects are
+	 *                                 rejected
+	 */
+	public BinaryObjectConverter(boolean javaSerializationEnabled) {
+		this.javaSerializationEnabled = javaSerializationEnabled;
+	}
+
+	/**
+	 * Registers specified user class with {@link BinaryCodec} that writes all its
+	 * non-static, non-transient fields. Field values of non-primitive types are
+	 * serialized by this converter, so their classes should be supported as
+	 * well.
+	 * 
+	 * @param typeId non-negative identifier of the class
+	 * @param type   class to register, should declare constructor without
+	 *               parameters
+	 * @throws NullPointerException      if {@code type} is {@code null}
+	 * @throws JMemcachedConfigException if {@code typeId} is negative, either
+	 *                                   {@code typeId} or {@code type} is
+	 *                                   already registered or {@code type}
+	 *                                   can not be instantiated
+	 * @see #register(int, Class, BinaryCodec)
+	 */
+	public <T extends Serializable> void register(int typeId, Class<T> type) {
+		requireNonNull(type, "type can not be null");
+		register(typeId, type, new ReflectiveBinaryCodec<>(type, this));
+	}
+
+	/**
+	 * Registers {@link BinaryCodec} for the specified user class. Type identifier
+	 * is written into every serialized value instead of the class name, so the
+	 * same identifiers should be registered on both sides of the connection.
+	 * Codec is used only for objects of exactly this class, objects of its
+	 * subclasses are serialized using standard Java {@code serialization}.
+	 * 
+	 * @param typeId non-negative identifier of the class
+	 * @param type   class to register codec for
+	 * @param codec  codec to write and read class objects
+	 * @throws NullPointerException      if {@code type} or {@code codec} is
+	 *                                   {@code null}
+	 * @throws JMemcachedConfigException if {@code typeId} is negative or either
+	 *                                   {@code typeId} or {@code type} is
+	 *                                   already registered
+	 */
+	public synchronized <T extends Serializable> void register(int typeId, Class<T> type, BinaryCodec<T> codec) {
+		requireNonNull(type, "type can not be null");
+		requireNonNull(codec, "codec can not be null");
+		if (typeId < 0) {
+			throw new JMemcachedConfigException("typeId should not be negative: " + typeId);
+		}
+		if (registrationsById.containsKey(typeId) || registrationsByType.containsKey(type)) {
+			throw new JMemcachedConfigException(
+					"Codec for class " + type.getName() + " or typeId " + typeId + " is already registered");
+		}
+
+		Registration<T> registration = new Registration<>(typeId, type, codec);
+		registrationsById.put(typeId, registration);
+		registrationsByType.put(type, registration);
+	}
+
+	/**
+	 * Serializes object into byte array using compact binary encoding, if its
+	 * class is supported, or standard Java {@code serialization} mechanism
+	 * otherwise.
+	 * 
+	 * @param object object to serialize
+	 * @return array with serialized object data
+	 * @throws NullPointerException if specified {@code object} is {@code null}
+	 * @throws JMemcachedException  if specified {@code object} is neither of
+	 *                              supported class nor implement
+	 *                              {@link Serializable} interface, or if it is
+	 *                              not of supported class and Java
+	 *                              {@code serialization} is disabled.
+	 */
+	@Override
+	public byte[] toByteArray(Object object) {
+		requireNonNull(object, "Object to serialize can not be null");
+		Class<?> type = object.getClass();
+
+		if (type == String.class) {
+			return serializeString((String) object);
+		} else if (type == byte[].class) {
+			return serializeBytes((byte[]) object);
+		} else if (type == Integer.class) {
+			return allocate(TAG_INTEGER, Integer.BYTES).putInt((Integer) object).array();
+		} else if (type == Long.class) {
+			return allocate(TAG_LONG, Long.BYTES).putLong((Long) object).array();
+		} else if (type == Short.class) {
+			return allocate(TAG_SHORT, Short.BYTES).putShort((Short) object).array();
+		} else if (type == Byte.class) {
+			return allocate(TAG_BYTE, Byte.BYTES).put((Byte) object).array();
+		} else if (type == Boolean.class) {
+			return allocate(TAG_BOOLEAN, Byte.BYTES).put((byte) ((Boolean) object ? 1 : 0)).array();
+		} else if (type == Character.class) {
+			return allocate(TAG_CHARACTER, Character.BYTES).putChar((Character) object).array();
+		} else if (type == Float.class) {
+			return allocate(TAG_FLOAT, Float.BYTES).putFloat((Float) object).array();
+		} else if (type == Double.class) {
+			return allocate(TAG_DOUBLE, Double.BYTES).putDouble((Double) object).array();
+		}
+
+		Registration<?> registration = registrationsByType.get(type);
+		if (registration != null) {
+			return serializeRegistered(registration, object);
+		}
+		if (!javaSerializationEnabled) {
+			throw new JMemcachedException("Class " + type.getName() + " is not registered");
+		}
+		return fallbackConverter.toByteArray(object);
+	}
+
+	private static ByteBuffer allocate(byte tag, int valueSize) {
+		return ByteBuffer.allocate(TAG_SIZE + valueSize).put(tag);
+	}
+
+	private static byte[] serializeString(String string) {
+		byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+		byte[] result = new byte[TAG_SIZE + stringBytes.length];
+		result[0] = TAG_STRING;
+		System.arraycopy(stringBytes, 0, result, TAG_SIZE, stringBytes.length);
+		return result;
+	}
+
+	private static byte[] serializeBytes(byte[] bytes) {
+		byte[] result = new byte[TAG_SIZE + bytes.length];
+		result[0] = TAG_BYTES;
+		System.arraycopy(bytes, 0, result, TAG_SIZE, bytes.length);
+		return result;
+	}
+
+	private static byte[] serializeRegistered(Registration<?> registration, Object object) {
+		try {
+			ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+			DataOutputStream dataOutput = new DataOutputStream(byteOutput);
+			dataOutput.writeByte(TAG_REGISTERED);
+			dataOutput.writeInt(registration.typeId);
+			registration.write(object, dataOutput);
+			dataOutput.flush();
+			return byteOutput.toByteArray();
+		} catch (IOException e) {
+			throw new JMemcachedException("Can not serialize object into byte array: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Deserialize object from byte array, written either by this converter or
+	 * by {@link ObjectConverter}.
+	 * 
+	 * @param data array of data to deserialize object from
+	 * @return {@link Optional} that contains deserialized object or empty one if
+	 *         the specified {@code data} array is null or empty.
+	 * @throws JMemcachedException if some error occurs during deserialization.
+	 */
+	@Override
+	public Optional<Serializable> fromByteArray(byte[] data) {
+		if (data == null || data.length == 0) {
+			return Optional.empty();
+		}
+
+		return Optional.of(deserialize(data));
+	}
+
+	private Serializable deserialize(byte[] data) {
+		ByteBuffer value = ByteBuffer.wrap(data, TAG_SIZE, data.length - TAG_SIZE);
+		try {
+			switch (data[0]) {
+			case TAG_STRING:
+				return new String(data, TAG_SIZE, data.length - TAG_SIZE, StandardCharsets.UTF_8);
+			case TAG_BYTES:
+				return Arrays.copyOfRange(data, TAG_SIZE, data.length);
+			case TAG_INTEGER:
+				return value.getInt();
+			case TAG_LONG:
+				return value.getLong();
+			case TAG_SHORT:
+				return value.getShort();
+			case TAG_BYTE:
+				return value.get();
+			case TAG_BOOLEAN:
+				return value.get() != 0;
+			case TAG_CHARACTER:
+				return value.getChar();
+			case TAG_FLOAT:
+				return value.getFloat();
+			case TAG_DOUBLE:
+				return value.getDouble();
+			case TAG_REGISTERED:
+				return deserializeRegistered(data, value.getInt());
+			default:
+				if (!javaSerializationEnabled) {
+					throw new JMemcachedException("Unknown type tag: " + data[0]);
+				}
+				return fallbackConverter.fromByteArray(data).get();
+			}
+		} catch (JMemcachedException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new JMemcachedException("Can not deserialize object from byte array: " + e.getMessage(), e);
+		}
+	}
+
+	private Serializable deserializeRegistered(byte[] data, int typeId) throws IOException {
+		Registration<?> registration = registrationsById.get(typeId);
+		if (registration == null) {
+			throw new JMemcachedException("No codec registered for typeId " + typeId);
+		}
+		return registration.codec.read(new DataInputStream(new ByteArrayInputStream(data, REGISTERED_HEADER_SIZE,
+				data.length - REGISTERED_HEADER_SIZE)));
+	}
+
+	private static final class Registration<T extends Serializable> {
+		private final int typeId;
+		private final Class<T> type;
+		private final BinaryCodec<T> codec;
+
+		private Registration(int typeId, Class<T> type, BinaryCodec<T> codec) {
+			this.typeId = typeId;
+			this.type = type;
+			this.codec = codec;
+		}
+
+		private void write(Object object, DataOutputStream dataOutput) throws IOException {
+			codec.write(type.cast(object), dataOutput);
+		}
+	}
+}
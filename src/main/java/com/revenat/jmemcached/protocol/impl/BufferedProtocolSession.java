@@ -0,0 +1,224 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.protocol.ProtocolSession;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Request;
+import com.revenat.jmemcached.protocol.model.Response;
+
+/**
+ * {@link ProtocolSession} implementation that owns reusable read-ahead and
+ * write buffers for the whole lifetime of the connection. Frames are read from
+ * the connection in large blocks and decoded by incremental decoders straight
+ * from the read-ahead buffer, while written frames are encoded into the write
+ * buffer and sent in one block on {@link #flush()}. Frames that do not fit
+ * into the write buffer are streamed through the same buffer, which is sent
+ * each time it fills up, while large data blocks are sent to the connection
+ * directly, so that writing large frames doesn't allocate either.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class BufferedProtocolSession implements ProtocolSession {
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final InputStream input;
+	private final OutputStream output;
+	private final ByteBuffer readBuffer;
+	private final ByteBuffer writeBuffer;
+	/**
+	 * Stream over the write buffer used to write frames that do not fit into it
+	 */
+	private final DataOutputStream frameOutput;
+	/**
+	 * Whether bytes were sent into the connection since it was last flushed
+	 */
+	private boolean sentSinceFlush;
+
+	private final RequestFrameDecoder requestDecoder = new RequestFrameDecoder();
+	private final ResponseFrameDecoder responseDecoder = new ResponseFrameDecoder();
+	private final RequestBufferConverter requestBufferConverter;
+	private final ResponseBufferConverter responseBufferConverter;
+	private final RequestConverter requestConverter;
+	private final ResponseConverter responseConverter;
+
+	public BufferedProtocolSession(InputStream input, OutputStream output) {
+		this(input, output, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates new session over the specified connection streams.
+	 * 
+	 * @param input      connection's input stream
+	 * @param output     connection's output stream
+	 * @param bufferSize size of each of the read-ahead and write buffers
+	 * @throws NullPointerException      if any of the streams is {@code null}
+	 * @throws JMemcachedConfigException if {@code bufferSize} is not positive
+	 */
+	public BufferedProtocolSession(InputStream input, OutputStream output, int bufferSize) {
+		this(input, output, bufferSize, new RequestBufferConverter(), new ResponseBufferConverter(),
+				new RequestConverter(), new ResponseConverter());
+	}
+
+	/**
+	 * Creates new session over the specified connection streams, which writes
+	 * frames of the protocol negotiated by the {@link HandshakeConverter
+	 * handshake}.
+	 * 
+	 * @param input      connection's input stream
+	 * @param output     connection's output stream
+	 * @param bufferSize size of each of the read-ahead and write buffers
+	 * @param handshake  negotiated handshake of the connection
+	 * @throws NullPointerException      if any of the streams or
+	 *                                   {@code handshake} is {@code null}
+	 * @throws JMemcachedConfigException if {@code bufferSize} is not positive
+	 */
+	public BufferedProtocolSession(InputStream input, OutputStream output, int bufferSize, Handshake handshake) {
+		this(input, output, bufferSize, new RequestBufferConverter(handshake), new ResponseBufferConverter(handshake),
+				new RequestConverter(handshake), new ResponseConverter(handshake));
+	}
+
+	private BufferedProtocolSession(InputStream input, OutputStream output, int bufferSize,
+			RequestBufferConverter requestBufferConverter, ResponseBufferConverter responseBufferConverter,
+			RequestConverter requestConverter, ResponseConverter responseConverter) {
+		this.input = requireNonNull(input, "input can not be null");
+		this.output = requireNonNull(output, "output can not be null");
+		if (bufferSize <= 0) {
+			throw new JMemcachedConfigException("bufferSize should be positive: " + bufferSize);
+		}
+		this.readBuffer = ByteBuffer.allocate(bufferSize);
+		this.readBuffer.flip();
+		this.writeBuffer = ByteBuffer.allocate(bufferSize);
+		this.frameOutput = new DataOutputStream(new WriteBufferOutputStream());
+		this.requestBufferConverter = requestBufferConverter;
+		this.responseBufferConverter = responseBufferConverter;
+		this.requestConverter = requestConverter;
+		this.responseConverter = responseConverter;
+	}
+
+	@Override
+	public Request readRequest() throws IOException {
+		flush();
+		Optional<Request> request = requestDecoder.decode(readBuffer);
+		while (!request.isPresent()) {
+			fillReadBuffer();
+			request = requestDecoder.decode(readBuffer);
+		}
+		return request.get();
+	}
+
+	@Override
+	public Response readResponse() throws IOException {
+		flush();
+		Optional<Response> response = responseDecoder.decode(readBuffer);
+		while (!response.isPresent()) {
+			fillReadBuffer();
+			response = responseDecoder.decode(readBuffer);
+		}
+		return response.get();
+	}
+
+	/**
+	 * Reads next block of bytes from the connection into the read-ahead buffer,
+	 * which is expected to be fully consumed by decoder at this point.
+	 */
+	private void fillReadBuffer() throws IOException {
+		readBuffer.clear();
+		int count = input.read(readBuffer.array(), 0, readBuffer.capacity());
+		if (count < 0) {
+			readBuffer.limit(0);
+			throw new EOFException("Connection closed while reading frame");
+		}
+		readBuffer.limit(count);
+	}
+
+	@Override
+	public void writeRequest(Request request) throws IOException {
+		int size = requestBufferConverter.encodedSize(request);
+		if (prepareWriteBuffer(size)) {
+			requestBufferConverter.writeTo(writeBuffer, request);
+		} else {
+			requestConverter.write(frameOutput, request);
+		}
+	}
+
+	@Override
+	public void writeResponse(Response response) throws IOException {
+		int size = responseBufferConverter.encodedSize(response);
+		if (prepareWriteBuffer(size)) {
+			responseBufferConverter.writeTo(writeBuffer, response);
+		} else {
+			responseConverter.write(frameOutput, response);
+		}
+	}
+
+	/**
+	 * Makes room for the frame of the specified {@code size} in the write buffer,
+	 * sending its current content if necessary.
+	 * 
+	 * @return {@code true} if frame fits into the write buffer, {@code false} if
+	 *         it should be streamed through {@link #frameOutput}
+	 */
+	private boolean prepareWriteBuffer(int size) throws IOException {
+		if (size > writeBuffer.remaining()) {
+			sendWriteBuffer();
+		}
+		return size <= writeBuffer.remaining();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		sendWriteBuffer();
+		if (sentSinceFlush) {
+			output.flush();
+			sentSinceFlush = false;
+		}
+	}
+
+	private void sendWriteBuffer() throws IOException {
+		if (writeBuffer.position() > 0) {
+			output.write(writeBuffer.array(), 0, writeBuffer.position());
+			writeBuffer.clear();
+			sentSinceFlush = true;
+		}
+	}
+
+	/**
+	 * Stream that appends written bytes to the write buffer, sending it into the
+	 * connection when it is full. Blocks that are not smaller than the buffer
+	 * are sent directly after its current content.
+	 */
+	private class WriteBufferOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) throws IOException {
+			if (!writeBuffer.hasRemaining()) {
+				sendWriteBuffer();
+			}
+			writeBuffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			if (length > writeBuffer.remaining()) {
+				sendWriteBuffer();
+			}
+			if (length >= writeBuffer.capacity()) {
+				output.write(bytes, offset, length);
+				sentSinceFlush = true;
+			} else {
+				writeBuffer.put(bytes, offset, length);
+			}
+		}
+	}
+}
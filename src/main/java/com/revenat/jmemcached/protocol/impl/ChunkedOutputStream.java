@@ -0,0 +1,104 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link OutputStream} that writes data block of unknown length as a sequence
+ * of chunks, each prefixed with its length - 4 bytes, terminated by a chunk of
+ * zero length. Chunk is never longer than the buffer of this stream, so
+ * arbitrary large data is written using constant amount of memory. Closing
+ * this stream completes the data block, but doesn't close underlying stream.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+class ChunkedOutputStream extends OutputStream {
+	static final int DEFAULT_CHUNK_SIZE = 8192;
+
+	private final DataOutputStream output;
+	private final byte[] buffer;
+	private int count;
+	private boolean closed;
+
+	ChunkedOutputStream(DataOutputStream output) {
+		this(output, DEFAULT_CHUNK_SIZE);
+	}
+
+	ChunkedOutputStream(DataOutputStream output, int chunkSize) {
+		this.output = output;
+		this.buffer = new byte[chunkSize];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		buffer[count++] = (byte) b;
+		if (count == buffer.length) {
+			writeBufferedChunk();
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		while (len > 0) {
+			if (count == 0 && len >= buffer.length) {
+				writeChunk(b, off, buffer.length);
+				off += buffer.length;
+				len -= buffer.length;
+			} else {
+				int copied = Math.min(len, buffer.length - count);
+				System.arraycopy(b, off, buffer, count, copied);
+				count += copied;
+				off += copied;
+				len -= copied;
+				if (count == buffer.length) {
+					writeBufferedChunk();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes buffered bytes as a separate chunk and flushes underlying stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		writeBufferedChunk();
+		output.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			writeBufferedChunk();
+			output.writeInt(0);
+			output.flush();
+			closed = true;
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+	private void writeBufferedChunk() throws IOException {
+		if (count > 0) {
+			writeChunk(buffer, 0, count);
+			count = 0;
+		}
+	}
+
+	private void writeChunk(byte[] b, int off, int len) throws IOException {
+		output.writeInt(len);
+		output.write(b, off, len);
+	}
+}
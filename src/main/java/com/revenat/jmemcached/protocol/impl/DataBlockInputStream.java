@@ -0,0 +1,112 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+/**
+ * {@link InputStream} that reads single data block of the frame directly from
+ * the connection, either block of known length or sequence of chunks written by
+ * {@link ChunkedOutputStream}. Closing this stream skips unread part of the
+ * block, so that next frame can be read, but doesn't close underlying stream.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+class DataBlockInputStream extends InputStream {
+	private final DataInputStream input;
+	private final boolean chunked;
+	private int remaining;
+	private boolean finished;
+
+	private DataBlockInputStream(DataInputStream input, boolean chunked, int length) {
+		this.input = input;
+		this.chunked = chunked;
+		this.remaining = length;
+	}
+
+	/**
+	 * Creates stream that reads sequence of chunks terminated by a chunk of zero
+	 * length.
+	 */
+	static DataBlockInputStream chunked(DataInputStream input) {
+		return new DataBlockInputStream(input, true, 0);
+	}
+
+	/**
+	 * Creates stream that reads block of the specified {@code length}.
+	 * 
+	 * @throws JMemcachedException if {@code length} is negative
+	 */
+	static DataBlockInputStream fixed(DataInputStream input, int length) {
+		if (length < 0) {
+			throw new JMemcachedException("Invalid data length: " + length);
+		}
+		return new DataBlockInputStream(input, false, length);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!hasMoreData()) {
+			return -1;
+		}
+		int b = input.read();
+		if (b < 0) {
+			throw new EOFException("Connection closed while reading data block");
+		}
+		remaining--;
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!hasMoreData()) {
+			return -1;
+		}
+		int count = input.read(b, off, Math.min(len, remaining));
+		if (count < 0) {
+			throw new EOFException("Connection closed while reading data block");
+		}
+		remaining -= count;
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return Math.min(remaining, input.available());
+	}
+
+	@Override
+	public void close() throws IOException {
+		while (hasMoreData()) {
+			long skipped = input.skip(remaining);
+			if (skipped > 0) {
+				remaining -= (int) skipped;
+			} else {
+				read();
+			}
+		}
+	}
+
+	private boolean hasMoreData() throws IOException {
+		while (remaining == 0 && !finished) {
+			if (!chunked) {
+				finished = true;
+			} else {
+				int chunkLength = input.readInt();
+				if (chunkLength < 0) {
+					throw new JMemcachedException("Invalid chunk length: " + chunkLength);
+				}
+				remaining = chunkLength;
+				finished = chunkLength == 0;
+			}
+		}
+		return remaining > 0;
+	}
+}
@@ -0,0 +1,133 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Version;
+
+/**
+ * Component responsible for writing and reading handshake frame, which opens
+ * connection of the protocol {@link Version#VERSION_1_1} and later. Frame
+ * contains protocol version - 1 byte, followed by feature bits - 4 bytes.
+ * <p>
+ * Client writes its {@link Handshake} right after connecting and reads the
+ * negotiated one from the server. Server peeks the first byte of the
+ * connection with {@link #isHandshake(byte)}: legacy clients start sending
+ * {@link Version#VERSION_1_0} requests right away and are served with
+ * {@link Handshake#LEGACY}, while for other clients server reads their
+ * handshake, {@link Handshake#negotiate(Handshake) negotiates} it with its own
+ * one and writes the result back. Both sides then create converters with the
+ * negotiated handshake.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class HandshakeConverter {
+	/**
+	 * Version byte and feature bits
+	 */
+	public static final int FRAME_SIZE = 1 + Integer.BYTES;
+
+	/**
+	 * Checks whether connection which starts with the specified
+	 * {@code firstByte} is opened with handshake frame rather than with legacy
+	 * request frame.
+	 */
+	public static boolean isHandshake(byte firstByte) {
+		return (firstByte & 0xFF) > (Version.VERSION_1_0.getByteCode() & 0xFF);
+	}
+
+	/**
+	 * Writes handshake frame into the specified {@code output}.
+	 * 
+	 * @throws NullPointerException if {@code handshake} is {@code null}
+	 * @throws JMemcachedException  if handshake version does not support
+	 *                              handshake frame
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream output, Handshake handshake) throws IOException {
+		checkVersion(handshake);
+		DataOutputStream dataOutput = new DataOutputStream(output);
+		dataOutput.writeByte(handshake.getVersion().getByteCode());
+		dataOutput.writeInt(Feature.toBits(handshake.getFeatures()));
+		dataOutput.flush();
+	}
+
+	/**
+	 * Writes handshake frame into the specified {@code buffer}.
+	 * 
+	 * @throws NullPointerException     if {@code handshake} is {@code null}
+	 * @throws JMemcachedException      if handshake version does not support
+	 *                                  handshake frame
+	 * @throws BufferOverflowException if buffer has less than
+	 *                                  {@link #FRAME_SIZE} bytes remaining
+	 */
+	public void writeTo(ByteBuffer buffer, Handshake handshake) {
+		checkVersion(handshake);
+		if (buffer.remaining() < FRAME_SIZE) {
+			throw new BufferOverflowException();
+		}
+		buffer.put(handshake.getVersion().getByteCode());
+		buffer.putInt(Feature.toBits(handshake.getFeatures()));
+	}
+
+	private static void checkVersion(Handshake handshake) {
+		requireNonNull(handshake, "handshake can not be null");
+		if (!isHandshake(handshake.getVersion().getByteCode())) {
+			throw new JMemcachedException("Handshake is not supported by protocol version " + handshake.getVersion());
+		}
+	}
+
+	/**
+	 * Reads handshake frame from the specified {@code input}.
+	 * 
+	 * @throws JMemcachedException if frame is not a handshake frame
+	 * @throws IOException
+	 */
+	public Handshake readFrom(InputStream input) throws IOException {
+		DataInputStream dataInput = new DataInputStream(input);
+		byte versionByte = dataInput.readByte();
+		return buildHandshake(versionByte, dataInput.readInt());
+	}
+
+	/**
+	 * Reads handshake frame from the specified {@code buffer}.
+	 * 
+	 * @throws BufferUnderflowException if buffer does not contain the whole
+	 *                                  frame, in which case buffer position is
+	 *                                  left unchanged
+	 * @throws JMemcachedException      if frame is not a handshake frame
+	 */
+	public Handshake readFrom(ByteBuffer buffer) {
+		if (buffer.remaining() < FRAME_SIZE) {
+			throw new BufferUnderflowException();
+		}
+		byte versionByte = buffer.get();
+		return buildHandshake(versionByte, buffer.getInt());
+	}
+
+	/**
+	 * Peer of the newer protocol version, unknown to this implementation, is
+	 * treated as peer of the latest known version, since negotiation results in
+	 * the older of two versions anyway.
+	 */
+	private static Handshake buildHandshake(byte versionByte, int featureBits) {
+		if (!isHandshake(versionByte)) {
+			throw new JMemcachedException("Invalid handshake version byte: " + versionByte);
+		}
+		Version version = (versionByte & 0xFF) > (Version.latest().getByteCode() & 0xFF) ? Version.latest()
+				: Version.valueOf(versionByte);
+		return Handshake.of(version, Feature.fromBits(featureBits));
+	}
+}
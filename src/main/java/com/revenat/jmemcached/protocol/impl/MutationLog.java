@@ -0,0 +1,406 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * Append-only log of the cache mutations, which keeps cache durable between
+ * snapshots. Each {@link Request} is written as record with length - 4 bytes
+ * and {@link CRC32} checksum - 4 bytes of the frame, followed by the frame
+ * written by {@link RequestConverter}, so that record torn by a crash is
+ * detected and cut off when log is opened. Corrupted record followed by other
+ * records can not be caused by a crash and is never cut off, since that would
+ * lose records that were committed after it.
+ * <p>
+ * Appends are group-committed: records of the requests appended concurrently
+ * are collected while previous group is written, and then the whole group is
+ * written by one of the appending threads with a single write and at most one
+ * {@link FileChannel#force(boolean) force}, as defined by {@link FsyncPolicy}.
+ * Requests should be appended after they are applied to the cache, so that
+ * {@link #compact(Iterable)} does not lose them. Thread-safe.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class MutationLog implements Closeable {
+	/**
+	 * Length and checksum of the frame
+	 */
+	static final int RECORD_HEADER_SIZE = 8;
+	public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1000;
+	/**
+	 * Commands whose requests can be replayed in order regardless of the cache
+	 * state, along with their quiet variants
+	 */
+	private static final Set<Command> LOGGED_COMMANDS = EnumSet.of(Command.PUT, Command.REMOVE, Command.CLEAR,
+			Command.MPUT);
+
+	/**
+	 * Defines when data written into the log is forced to the storage device.
+	 */
+	public enum FsyncPolicy {
+		/**
+		 * Force each group, so that appended request is durable once
+		 * {@link MutationLog#append(Request)} returns
+		 */
+		EVERY_COMMIT,
+		/**
+		 * Force group only if fsync interval has passed since the previous
+		 * force, so that requests appended within the interval before the
+		 * crash of the operating system may be lost
+		 */
+		INTERVAL,
+		/**
+		 * Leave forcing to the operating system, so that appended requests
+		 * survive crash of the process, but not of the operating system
+		 */
+		NEVER
+	}
+
+	private final Path file;
+	private final FsyncPolicy fsyncPolicy;
+	private final long fsyncIntervalNanos;
+	private final RequestConverter converter = new RequestConverter();
+
+	/**
+	 * Guards records, which are not committed yet, and their sequence
+	 */
+	private final Object pendingLock = new Object();
+	private List<ByteBuffer> pending = new ArrayList<>();
+	private long appendedSequence;
+	private boolean closed;
+
+	/**
+	 * Guards the file, held by the thread that commits the group
+	 */
+	private final Object commitLock = new Object();
+	private volatile long committedSequence;
+	private volatile IOException failure;
+	private FileChannel channel;
+	private long lastForceNanos = System.nanoTime();
+
+	/**
+	 * Opens log stored in the specified {@code file}, creating it if
+	 * necessary, which forces each group commit.
+	 * 
+	 * @throws NullPointerException if {@code file} is {@code null}
+	 * @throws IOException
+	 */
+	public MutationLog(Path file) throws IOException {
+		this(file, FsyncPolicy.EVERY_COMMIT, DEFAULT_FSYNC_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Opens log stored in the specified {@code file}, creating it if
+	 * necessary, and cuts off its tail that does not contain complete records.
+	 * 
+	 * @param fsyncIntervalMillis minimal interval between forces if
+	 *                            {@code fsyncPolicy} is
+	 *                            {@link FsyncPolicy#INTERVAL}
+	 * @throws NullPointerException      if {@code file} or {@code fsyncPolicy}
+	 *                                   is {@code null}
+	 * @throws JMemcachedConfigException if {@code fsyncIntervalMillis} is
+	 *                                   negative
+	 * @throws JMemcachedException       if log contains corrupted record that
+	 *                                   is not the last one
+	 * @throws IOException
+	 */
+	public MutationLog(Path file, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) throws IOException {
+		this.file = requireNonNull(file, "file can not be null");
+		this.fsyncPolicy = requireNonNull(fsyncPolicy, "fsyncPolicy can not be null");
+		if (fsyncIntervalMillis < 0) {
+			throw new JMemcachedConfigException("fsyncIntervalMillis can not be negative: " + fsyncIntervalMillis);
+		}
+		this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			long validLength = readRecords(null);
+			channel.truncate(validLength);
+			channel.position(validLength);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Appends specified {@code request} to the log and waits until the group it
+	 * belongs to is committed.
+	 * 
+	 * @throws NullPointerException if {@code request} is {@code null}
+	 * @throws JMemcachedException  if command of the request is not
+	 *                              {@link Command#PUT}, {@link Command#REMOVE},
+	 *                              {@link Command#CLEAR}, {@link Command#MPUT} or
+	 *                              their quiet variant, or if log is closed
+	 * @throws IOException          if request or previous group could not be
+	 *                              written, after which log can not be used
+	 */
+	public void append(Request request) throws IOException {
+		ByteBuffer record = encode(request);
+		long sequence;
+		synchronized (pendingLock) {
+			checkNotClosed();
+			pending.add(record);
+			sequence = ++appendedSequence;
+		}
+		synchronized (commitLock) {
+			if (committedSequence < sequence) {
+				commitPending();
+			}
+		}
+		if (committedSequence < sequence) {
+			throw new IOException("Mutation log failed to write previous records", failure);
+		}
+	}
+
+	private ByteBuffer encode(Request request) throws IOException {
+		requireNonNull(request, "request can not be null");
+		checkLogged(request.getCommand());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, request);
+		byte[] frame = output.toByteArray();
+		CRC32 checksum = new CRC32();
+		checksum.update(frame);
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + frame.length);
+		record.putInt(frame.length).putInt((int) checksum.getValue()).put(frame).flip();
+		return record;
+	}
+
+	private static void checkLogged(Command command) {
+		if (!LOGGED_COMMANDS.contains(command.getBaseCommand())) {
+			throw new JMemcachedException("Command " + command + " can not be written into mutation log");
+		}
+	}
+
+	/**
+	 * Writes and forces all pending records. Invoked while holding commit lock.
+	 */
+	private void commitPending() throws IOException {
+		checkNotFailed();
+		List<ByteBuffer> group;
+		long groupSequence;
+		synchronized (pendingLock) {
+			group = pending;
+			pending = new ArrayList<>();
+			groupSequence = appendedSequence;
+		}
+		if (group.isEmpty()) {
+			return;
+		}
+		try {
+			ByteBuffer[] records = group.toArray(new ByteBuffer[group.size()]);
+			ByteBuffer last = records[records.length - 1];
+			while (last.hasRemaining()) {
+				channel.write(records);
+			}
+			if (fsyncPolicy == FsyncPolicy.EVERY_COMMIT || (fsyncPolicy == FsyncPolicy.INTERVAL
+					&& System.nanoTime() - lastForceNanos >= fsyncIntervalNanos)) {
+				force();
+			}
+			committedSequence = groupSequence;
+		} catch (IOException e) {
+			failure = e;
+			throw e;
+		}
+	}
+
+	private void force() throws IOException {
+		channel.force(false);
+		lastForceNanos = System.nanoTime();
+	}
+
+	/**
+	 * Forces all committed records to the storage device regardless of the
+	 * {@link FsyncPolicy}, which is useful for the {@link FsyncPolicy#INTERVAL}
+	 * policy when no requests are appended for a while.
+	 * 
+	 * @throws IOException
+	 */
+	public void sync() throws IOException {
+		synchronized (commitLock) {
+			checkNotFailed();
+			if (channel.isOpen()) {
+				force();
+			}
+		}
+	}
+
+	/**
+	 * Reads all committed requests from the log in the order they were
+	 * appended and passes them to the specified {@code consumer}. Should be
+	 * invoked before requests are appended to restore cache after restart.
+	 * 
+	 * @return number of replayed requests
+	 * @throws NullPointerException if {@code consumer} is {@code null}
+	 * @throws IOException
+	 */
+	public long replay(Consumer<Request> consumer) throws IOException {
+		requireNonNull(consumer, "consumer can not be null");
+		long[] count = new long[1];
+		synchronized (commitLock) {
+			checkNotFailed();
+			readRecords(frame -> {
+				consumer.accept(readRequest(frame));
+				count[0]++;
+			});
+		}
+		return count[0];
+	}
+
+	private Request readRequest(byte[] frame) {
+		try {
+			return converter.readFrom(new ByteArrayInputStream(frame));
+		} catch (IOException e) {
+			throw new JMemcachedException("Corrupted mutation log record", e);
+		}
+	}
+
+	/**
+	 * Reads records from the start of the log until its end or the incomplete
+	 * or corrupted last record, passing their frames to the specified
+	 * {@code frameConsumer} if it is not {@code null}.
+	 * 
+	 * @return length of the log part that consists of complete records
+	 * @throws JMemcachedException if corrupted record is followed by other data
+	 */
+	private long readRecords(Consumer<byte[]> frameConsumer) throws IOException {
+		long logLength = channel.size();
+		long position = 0;
+		CRC32 checksum = new CRC32();
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			while (logLength - position >= RECORD_HEADER_SIZE) {
+				int frameLength = input.readInt();
+				int expectedChecksum = input.readInt();
+				long frameSpace = logLength - position - RECORD_HEADER_SIZE;
+				if (frameLength > frameSpace) {
+					break;
+				}
+				if (frameLength <= 0) {
+					throw new JMemcachedException("Corrupted mutation log record at offset " + position);
+				}
+				byte[] frame = new byte[frameLength];
+				input.readFully(frame);
+				checksum.reset();
+				checksum.update(frame);
+				if ((int) checksum.getValue() != expectedChecksum) {
+					if (frameLength < frameSpace) {
+						throw new JMemcachedException("Corrupted mutation log record at offset " + position);
+					}
+					break;
+				}
+				if (frameConsumer != null) {
+					frameConsumer.accept(frame);
+				}
+				position += RECORD_HEADER_SIZE + frameLength;
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Replaces content of the log with the specified {@code state} requests,
+	 * usually {@link Command#PUT} requests of all entries of the cache, so that
+	 * log does not grow indefinitely. Log is rewritten into temporary file,
+	 * which then atomically replaces the log, so the previous content is kept
+	 * if compaction fails. Appends wait until compaction is completed, and
+	 * requests appended before it starts are expected to be included into the
+	 * {@code state}.
+	 * 
+	 * @return number of requests written into the compacted log
+	 * @throws NullPointerException if {@code state} is {@code null}
+	 * @throws JMemcachedException  if any of the requests can not be written
+	 *                              into the log, or if log is closed
+	 * @throws IOException
+	 */
+	public long compact(Iterable<Request> state) throws IOException {
+		requireNonNull(state, "state can not be null");
+		synchronized (commitLock) {
+			checkNotFailed();
+			synchronized (pendingLock) {
+				checkNotClosed();
+			}
+			Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+			long count = 0;
+			try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				for (Request request : state) {
+					ByteBuffer record = encode(request);
+					while (record.hasRemaining()) {
+						target.write(record);
+					}
+					count++;
+				}
+				target.force(true);
+			} catch (IOException | RuntimeException e) {
+				Files.deleteIfExists(compacted);
+				throw e;
+			}
+			Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			channel.close();
+			channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			channel.position(channel.size());
+			return count;
+		}
+	}
+
+	/**
+	 * Commits pending records, forces the log and closes it. Requests can not
+	 * be appended afterwards.
+	 * 
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (commitLock) {
+			synchronized (pendingLock) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+			}
+			try {
+				commitPending();
+				force();
+			} finally {
+				channel.close();
+			}
+		}
+	}
+
+	private void checkNotClosed() {
+		if (closed) {
+			throw new JMemcachedException("Mutation log is closed");
+		}
+	}
+
+	private void checkNotFailed() throws IOException {
+		if (failure != null) {
+			throw new IOException("Mutation log failed to write previous records", failure);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+/**
+ * Component responsible for compression of the data blocks written by
+ * converters. Compressed block contains original data length - 4 bytes,
+ * followed by data compressed with {@link Deflater}. Data shorter than
+ * configured threshold, as well as data that doesn't get smaller after
+ * compression, is written as is.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class PayloadCompressor {
+	public static final int DEFAULT_THRESHOLD = 1024;
+	/**
+	 * Maximal ratio of the original data length to the length of its
+	 * compressed stream that {@link Deflater} can achieve, so that data length
+	 * declared by the corrupted or malicious block can't cause huge allocation
+	 */
+	static final int MAX_EXPANSION_RATIO = 1032;
+
+	private final int threshold;
+	private final int level;
+
+	/**
+	 * Creates compressor with {@link #DEFAULT_THRESHOLD} and fastest
+	 * compression level.
+	 */
+	public PayloadCompressor() {
+		this(DEFAULT_THRESHOLD, Deflater.BEST_SPEED);
+	}
+
+	/**
+	 * @param threshold minimal length of the data in bytes to compress
+	 * @param level     {@link Deflater} compression level, from 0 to 9 or -1 for
+	 *                  default level
+	 * @throws JMemcachedConfigException if {@code threshold} is negative or
+	 *                                   {@code level} is invalid
+	 */
+	public PayloadCompressor(int threshold, int level) {
+		if (threshold < 0) {
+			throw new JMemcachedConfigException("threshold should not be negative: " + threshold);
+		}
+		if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+			throw new JMemcachedConfigException("Invalid compression level: " + level);
+		}
+		this.threshold = threshold;
+		this.level = level;
+	}
+
+	/**
+	 * Compresses data of the specified length written by {@code source}.
+	 * 
+	 * @return compressed block or {@code null} if data should be written as is
+	 * @throws IOException
+	 */
+	byte[] compress(int dataLength, PayloadSource source) throws IOException {
+		if (dataLength < threshold) {
+			return null;
+		}
+
+		ByteArrayOutputStream byteOutput = new ByteArrayOutputStream(dataLength / 2 + Integer.BYTES);
+		new DataOutputStream(byteOutput).writeInt(dataLength);
+		Deflater deflater = new Deflater(level);
+		try (DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(byteOutput, deflater)) {
+			source.writeTo(deflaterOutput);
+		} finally {
+			deflater.end();
+		}
+
+		return byteOutput.size() < dataLength ? byteOutput.toByteArray() : null;
+	}
+
+	/**
+	 * Restores original data from the block produced by
+	 * {@link #compress(int, PayloadSource)}.
+	 * 
+	 * @throws JMemcachedException if block is corrupted, declares data length
+	 *                             that its compressed stream can't expand to
+	 *                             or contains bytes after the end of its
+	 *                             compressed stream
+	 */
+	static byte[] decompress(byte[] block) {
+		if (block.length < Integer.BYTES) {
+			throw new JMemcachedException("Invalid compressed data block length: " + block.length);
+		}
+		int dataLength = ByteBuffer.wrap(block).getInt();
+		if (dataLength < 0) {
+			throw new JMemcachedException("Invalid data length: " + dataLength);
+		}
+		long compressedLength = block.length - Integer.BYTES;
+		if (dataLength > compressedLength * MAX_EXPANSION_RATIO) {
+			throw new JMemcachedException(
+					"Compressed data block of " + compressedLength + " bytes can not expand to " + dataLength + " bytes");
+		}
+
+		byte[] data = new byte[dataLength];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(block, Integer.BYTES, block.length - Integer.BYTES);
+			int offset = 0;
+			while (offset < dataLength) {
+				int count = inflater.inflate(data, offset, dataLength - offset);
+				if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					throw new JMemcachedException("Compressed data block is truncated");
+				}
+				offset += count;
+			}
+			checkFinished(inflater);
+			return data;
+		} catch (DataFormatException e) {
+			throw new JMemcachedException("Can not decompress data block: " + e.getMessage(), e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Checks that compressed stream ends right after the declared data length
+	 * is restored, reaching the end of the stream if only its trailer is left,
+	 * and that block has no bytes after the end of the stream.
+	 */
+	private static void checkFinished(Inflater inflater) throws DataFormatException {
+		if (!inflater.finished() && inflater.inflate(new byte[1]) != 0) {
+			throw new JMemcachedException("Compressed data block is longer than declared data length");
+		}
+		if (!inflater.finished()) {
+			throw new JMemcachedException("Compressed data block is truncated");
+		}
+		if (inflater.getRemaining() > 0) {
+			throw new JMemcachedException(
+					"Compressed data block has " + inflater.getRemaining() + " bytes after its end");
+		}
+	}
+
+	/**
+	 * Source of the data to compress, such as
+	 * {@link com.revenat.jmemcached.protocol.model.Request#writeDataTo(OutputStream)}
+	 */
+	@FunctionalInterface
+	interface PayloadSource {
+
+		void writeTo(OutputStream output) throws IOException;
+	}
+}
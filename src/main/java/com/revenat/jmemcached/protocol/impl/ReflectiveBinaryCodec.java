@@ -0,0 +1,176 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+/**
+ * {@link BinaryCodec} that writes all non-static, non-transient fields of the
+ * class, including inherited ones, without any field names. Fields and
+ * constructor are resolved once when codec is created, so encoding values of
+ * the same class does not involve any class or field lookups. Primitive fields
+ * are written as is, values of other fields are written as length-prefixed
+ * arrays produced by the owning {@link BinaryObjectConverter}.
+ * 
+ * @author Vitaly Dragun
+ *
+ * @param <T> type of the values this codec is responsible for
+ */
+class ReflectiveBinaryCodec<T> implements BinaryCodec<T> {
+	private static final int NULL_LENGTH = -1;
+
+	private final Constructor<T> constructor;
+	private final Field[] fields;
+	private final BinaryObjectConverter converter;
+
+	/**
+	 * @throws JMemcachedConfigException if {@code type} is abstract or has no
+	 *                                   constructor without parameters
+	 */
+	ReflectiveBinaryCodec(Class<T> type, BinaryObjectConverter converter) {
+		if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+			throw new JMemcachedConfigException("Class " + type.getName() + " should not be abstract");
+		}
+		try {
+			this.constructor = type.getDeclaredConstructor();
+			this.constructor.setAccessible(true);
+		} catch (NoSuchMethodException e) {
+			throw new JMemcachedConfigException(
+					"Class " + type.getName() + " should declare constructor without parameters", e);
+		}
+		this.fields = resolveFields(type);
+		this.converter = converter;
+	}
+
+	private static Field[] resolveFields(Class<?> type) {
+		List<Field> result = new ArrayList<>();
+		for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+			List<Field> declared = new ArrayList<>();
+			for (Field field : current.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+					field.setAccessible(true);
+					declared.add(field);
+				}
+			}
+			// declared fields are returned in no particular order
+			declared.sort(Comparator.comparing(Field::getName));
+			result.addAll(0, declared);
+		}
+		return result.toArray(new Field[result.size()]);
+	}
+
+	@Override
+	public void write(T value, DataOutput output) throws IOException {
+		try {
+			for (Field field : fields) {
+				writeField(field, value, output);
+			}
+		} catch (IllegalAccessException e) {
+			throw new JMemcachedException("Can not read field value: " + e.getMessage(), e);
+		}
+	}
+
+	private void writeField(Field field, T value, DataOutput output) throws IOException, IllegalAccessException {
+		Class<?> type = field.getType();
+		if (type == int.class) {
+			output.writeInt(field.getInt(value));
+		} else if (type == long.class) {
+			output.writeLong(field.getLong(value));
+		} else if (type == boolean.class) {
+			output.writeBoolean(field.getBoolean(value));
+		} else if (type == double.class) {
+			output.writeDouble(field.getDouble(value));
+		} else if (type == float.class) {
+			output.writeFloat(field.getFloat(value));
+		} else if (type == short.class) {
+			output.writeShort(field.getShort(value));
+		} else if (type == byte.class) {
+			output.writeByte(field.getByte(value));
+		} else if (type == char.class) {
+			output.writeChar(field.getChar(value));
+		} else {
+			writeObject(field.get(value), output);
+		}
+	}
+
+	private void writeObject(Object object, DataOutput output) throws IOException {
+		if (object == null) {
+			output.writeInt(NULL_LENGTH);
+		} else {
+			byte[] data = converter.toByteArray(object);
+			output.writeInt(data.length);
+			output.write(data);
+		}
+	}
+
+	@Override
+	public T read(DataInput input) throws IOException {
+		try {
+			T value = constructor.newInstance();
+			for (Field field : fields) {
+				readField(field, value, input);
+			}
+			return value;
+		} catch (ReflectiveOperationException | IllegalArgumentException e) {
+			throw new JMemcachedException("Can not restore object of class "
+					+ constructor.getDeclaringClass().getName() + ": " + e.getMessage(), e);
+		}
+	}
+
+	private void readField(Field field, T value, DataInput input) throws IOException, IllegalAccessException {
+		Class<?> type = field.getType();
+		if (type == int.class) {
+			field.setInt(value, input.readInt());
+		} else if (type == long.class) {
+			field.setLong(value, input.readLong());
+		} else if (type == boolean.class) {
+			field.setBoolean(value, input.readBoolean());
+		} else if (type == double.class) {
+			field.setDouble(value, input.readDouble());
+		} else if (type == float.class) {
+			field.setFloat(value, input.readFloat());
+		} else if (type == short.class) {
+			field.setShort(value, input.readShort());
+		} else if (type == byte.class) {
+			field.setByte(value, input.readByte());
+		} else if (type == char.class) {
+			field.setChar(value, input.readChar());
+		} else {
+			field.set(value, readObject(input));
+		}
+	}
+
+	private Object readObject(DataInput input) throws IOException {
+		int length = input.readInt();
+		if (length == NULL_LENGTH) {
+			return null;
+		}
+		if (length < 0 || length > remaining(input)) {
+			throw new JMemcachedException("Invalid length of the field value: " + length);
+		}
+		byte[] data = new byte[length];
+		input.readFully(data);
+		return converter.fromByteArray(data).orElse(null);
+	}
+
+	/**
+	 * Returns number of bytes left in the specified {@code input}, so that
+	 * length prefix of the field value can be checked before array for it is
+	 * allocated. {@link BinaryObjectConverter} passes array-backed stream, for
+	 * which this number is exact; for other inputs length is not limited.
+	 */
+	private static int remaining(DataInput input) throws IOException {
+		return input instanceof InputStream ? ((InputStream) input).available() : Integer.MAX_VALUE;
+	}
+}
@@ -0,0 +1,272 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.CHUNKED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.COMPACT_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.COMPRESSED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.CORRELATION_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.DATA_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.ENTRIES_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.KEY_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.TTL_FLAG;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.RequestBufferReader;
+import com.revenat.jmemcached.protocol.RequestBufferWriter;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.DirectPayload;
+import com.revenat.jmemcached.protocol.model.Entry;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Key;
+import com.revenat.jmemcached.protocol.model.PayloadAllocator;
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * Component responsible for writing {@link Request} object into the
+ * {@link ByteBuffer} and reading {@link Request} object from the
+ * {@link ByteBuffer}. Uses the same frame layout as {@link RequestConverter}
+ * but works with heap or direct buffers without any intermediate streams.
+ * Data is always written as is, so that encoded size is known upfront, while
+ * data compressed by {@link PayloadCompressor} is restored transparently.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class RequestBufferConverter extends AbstractPackageConverter implements RequestBufferReader, RequestBufferWriter {
+	/**
+	 * Version, command and flags bytes
+	 */
+	static final int HEADER_SIZE = 3;
+
+	/**
+	 * Allocator of the payloads request data is read into or {@code null} if
+	 * data is read into heap arrays
+	 */
+	private final PayloadAllocator allocator;
+
+	/**
+	 * Creates converter that writes requests without restricting features.
+	 */
+	public RequestBufferConverter() {
+		super();
+		this.allocator = null;
+	}
+
+	/**
+	 * Creates converter that writes requests of the negotiated protocol version
+	 * and rejects requests which use features that are not negotiated.
+	 * 
+	 * @throws NullPointerException if {@code handshake} is {@code null}
+	 */
+	public RequestBufferConverter(Handshake handshake) {
+		super(handshake);
+		this.allocator = null;
+	}
+
+	/**
+	 * Creates converter that works as {@link #RequestBufferConverter(Handshake)}
+	 * and reads data of the requests, except for data of their entries, into
+	 * {@link DirectPayload payloads} obtained from the specified
+	 * {@code allocator} instead of heap arrays. Caller should
+	 * {@link Request#release() release} such requests.
+	 * 
+	 * @throws NullPointerException if either {@code handshake} or
+	 *                              {@code allocator} is {@code null}
+	 */
+	public RequestBufferConverter(Handshake handshake, PayloadAllocator allocator) {
+		super(handshake);
+		this.allocator = requireNonNull(allocator, "allocator can not be null");
+	}
+
+	@Override
+	public int encodedSize(Request request) {
+		boolean compact = usesCompactLayout(request);
+		int size = HEADER_SIZE;
+		if (request.hasCorrelationId()) {
+			size += Integer.BYTES;
+		}
+		if (request.hasKey()) {
+			size += 1 + request.getRawKey().length();
+		}
+		if (request.hasCasToken()) {
+			size += Long.BYTES;
+		}
+		if (request.hasTtl()) {
+			size += ttlSize(request.getTtl(), compact);
+		}
+		if (request.hasData()) {
+			size += lengthSize(request.getDataLength(), compact) + request.getDataLength();
+		}
+		if (request.hasEntries()) {
+			size += Integer.BYTES;
+			List<Entry> entries = request.getEntries();
+			for (int i = 0; i < entries.size(); i++) {
+				size += encodedSize(entries.get(i), compact);
+			}
+		}
+		return size;
+	}
+
+	private static int encodedSize(Entry entry, boolean compact) {
+		int size = 1 + 1 + entry.getRawKey().length();
+		if (entry.hasTtl()) {
+			size += ttlSize(entry.getTtl(), compact);
+		}
+		if (entry.hasData()) {
+			size += lengthSize(entry.getDataLength(), compact) + entry.getDataLength();
+		}
+		return size;
+	}
+
+	private boolean usesCompactLayout(Request request) {
+		return usesCompactLayout() && RequestConverter.fitsCompactLayout(request);
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer, Request request) {
+		if (buffer.remaining() < encodedSize(request)) {
+			throw new BufferOverflowException();
+		}
+		checkRequest(request);
+		boolean compact = usesCompactLayout(request);
+
+		buffer.put(getVersionByte());
+		buffer.put(request.getCommand().getByteCode());
+		buffer.put((byte) (RequestConverter.generateFlagsFor(request) | (compact ? COMPACT_FLAG : 0)));
+
+		if (request.hasCorrelationId()) {
+			buffer.putInt(request.getCorrelationId());
+		}
+		if (request.hasKey()) {
+			writeKey(buffer, request.getRawKey());
+		}
+		if (request.hasCasToken()) {
+			buffer.putLong(request.getCasToken());
+		}
+		if (request.hasTtl()) {
+			writeTtl(buffer, request.getTtl(), compact);
+		}
+		if (request.hasData()) {
+			writeData(buffer, request.getDataBuffer(), compact);
+		}
+		if (request.hasEntries()) {
+			buffer.putInt(request.getEntries().size());
+			for (Entry entry : request.getEntries()) {
+				writeEntry(buffer, entry, compact);
+			}
+		}
+	}
+
+	private static void writeEntry(ByteBuffer buffer, Entry entry, boolean compact) {
+		buffer.put(RequestConverter.generateFlagsFor(entry));
+		writeKey(buffer, entry.getRawKey());
+		if (entry.hasTtl()) {
+			writeTtl(buffer, entry.getTtl(), compact);
+		}
+		if (entry.hasData()) {
+			writeData(buffer, entry.getDataBuffer(), compact);
+		}
+	}
+
+	private static void writeKey(ByteBuffer buffer, Key key) {
+		buffer.put((byte) key.length());
+		key.writeTo(buffer);
+	}
+
+	private static void writeData(ByteBuffer buffer, ByteBuffer data, boolean compact) {
+		writeLength(buffer, data.remaining(), compact);
+		buffer.put(data);
+	}
+
+	@Override
+	public Request readFrom(ByteBuffer buffer) {
+		int startPosition = buffer.position();
+		try {
+			checkProtocolVersion(buffer.get());
+
+			byte cmdByte = buffer.get();
+			byte flagByte = buffer.get();
+			if ((flagByte & CORRELATION_FLAG) != 0) {
+				int correlationId = buffer.getInt();
+				return buildRequest(cmdByte, flagByte, buffer).withCorrelationId(correlationId);
+			}
+
+			return buildRequest(cmdByte, flagByte, buffer);
+		} catch (BufferUnderflowException e) {
+			buffer.position(startPosition);
+			throw e;
+		}
+	}
+
+	private Request buildRequest(byte cmdByte, byte flagByte, ByteBuffer buffer) {
+		boolean hasKey = (flagByte & KEY_FLAG) != 0;
+		boolean hasTtl = (flagByte & TTL_FLAG) != 0;
+		boolean hasData = (flagByte & DATA_FLAG) != 0;
+		boolean hasEntries = (flagByte & ENTRIES_FLAG) != 0;
+		boolean compact = (flagByte & COMPACT_FLAG) != 0;
+		Command command = Command.valueOf(cmdByte);
+
+		if (hasEntries) {
+			return Request.withEntries(command, readEntries(buffer, compact));
+		} else if (!hasKey) {
+			return Request.empty(command);
+		}
+
+		Key key = readKey(buffer);
+		Long casToken = RequestConverter.hasCasToken(command, flagByte) ? buffer.getLong() : null;
+		Long ttl = hasTtl ? readTtl(buffer, compact) : null;
+		Request request;
+		if (hasData && allocator != null) {
+			DirectPayload payload = readPayload(buffer, (flagByte & CHUNKED_FLAG) != 0,
+					(flagByte & COMPRESSED_FLAG) != 0, compact, allocator);
+			request = Request.withRawKeyAndPayload(command, key, payload, ttl);
+		} else if (hasData) {
+			byte[] data = readData(buffer, (flagByte & CHUNKED_FLAG) != 0, (flagByte & COMPRESSED_FLAG) != 0,
+					compact);
+			request = Request.withRawKeyAndData(command, key, data, ttl);
+		} else if (ttl != null) {
+			request = Request.withRawKeyAndTtl(command, key, ttl);
+		} else {
+			request = Request.withRawKey(command, key);
+		}
+		return casToken != null ? request.withCasToken(casToken) : request;
+	}
+
+	private static List<Entry> readEntries(ByteBuffer buffer, boolean compact) {
+		int entriesCount = checkEntriesCount(buffer.getInt());
+		List<Entry> entries = new ArrayList<>(initialCapacityFor(entriesCount));
+		for (int i = 0; i < entriesCount; i++) {
+			byte entryFlags = RequestConverter.checkEntryFlags(buffer.get());
+			Key key = readKey(buffer);
+			Long ttl = (entryFlags & TTL_FLAG) != 0 ? readTtl(buffer, compact) : null;
+			if ((entryFlags & DATA_FLAG) != 0) {
+				byte[] data = readData(buffer, (entryFlags & CHUNKED_FLAG) != 0,
+						(entryFlags & COMPRESSED_FLAG) != 0, compact);
+				entries.add(Entry.withRawKeyAndData(key, data, ttl));
+			} else {
+				entries.add(Entry.withRawKey(key));
+			}
+		}
+		return entries;
+	}
+
+	private static Key readKey(ByteBuffer buffer) {
+		int keyLength = buffer.get();
+		if (keyLength < 0) {
+			throw new JMemcachedException("Invalid key length: " + keyLength);
+		}
+		if (buffer.remaining() < keyLength) {
+			throw new BufferUnderflowException();
+		}
+		byte[] key = new byte[keyLength];
+		buffer.get(key);
+		return Key.of(key);
+	}
+}
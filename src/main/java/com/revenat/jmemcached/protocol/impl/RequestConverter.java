@@ -1,19 +1,33 @@
 package com.revenat.jmemcached.protocol.impl;
 
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 
 import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.RequestBatchReader;
+import com.revenat.jmemcached.protocol.RequestBatchWriter;
 import com.revenat.jmemcached.protocol.RequestReader;
+import com.revenat.jmemcached.protocol.RequestStreamReader;
+import com.revenat.jmemcached.protocol.RequestStreamWriter;
 import com.revenat.jmemcached.protocol.RequestWriter;
 import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Entry;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Key;
 import com.revenat.jmemcached.protocol.model.Request;
+import com.revenat.jmemcached.protocol.model.StreamedRequest;
 
 /**
  * Component responsible for writing {@link Request} object into the {@link OutputStream}
@@ -22,10 +36,13 @@ import com.revenat.jmemcached.protocol.model.Request;
  * @author Vitaly Dragun
  *
  */
-public class RequestConverter extends AbstractPackageConverter implements RequestReader, RequestWriter {
-	public static final int MAX_KEY_LENGTH = 127;
+public class RequestConverter extends AbstractPackageConverter
+		implements RequestReader, RequestWriter, RequestBatchReader, RequestBatchWriter, RequestStreamReader,
+		RequestStreamWriter {
+	public static final int MAX_KEY_LENGTH = Key.MAX_LENGTH;
 	/**
-	 * This bit combination means request contains key length - 1 bite and key value  - var. number of bites
+	 * This bit combination means request contains key length - 1 bite and key value  - var. number of bites,
+	 * followed by cas token - 8 bites if it is a {@link Command#CAS} request
 	 */
 	static final byte KEY_FLAG = 0b00000001;
 	/**
@@ -36,23 +53,191 @@ public class RequestConverter extends AbstractPackageConverter implements Reques
 	 * This bit combination means request contains data length -  4 bites, data value - var. number of bites
 	 */
 	static final byte DATA_FLAG = 0b00000100;
+	/**
+	 * This bit combination means request contains entries count - 4 bites and entries - var. number of bites,
+	 * where each entry is written as its own flags byte followed by key, ttl and data parts
+	 */
+	static final byte ENTRIES_FLAG = 0b00001000;
+	/**
+	 * This bit combination means data of the request or entry is compressed by {@link PayloadCompressor}
+	 */
+	static final byte COMPRESSED_FLAG = 0b00010000;
+	/**
+	 * This bit combination means data of the request or entry is written as a sequence of chunks, each prefixed
+	 * with its length - 4 bites, terminated by a chunk of zero length
+	 */
+	static final byte CHUNKED_FLAG = 0b00100000;
+	/**
+	 * This bit combination means request contains correlation id - 4 bites, right after the flags byte
+	 */
+	static final byte CORRELATION_FLAG = 0b01000000;
+	/**
+	 * This bit combination means ttl and data lengths of the request and its entries are written as
+	 * variable-length numbers, see {@link VarInt}
+	 */
+	static final byte COMPACT_FLAG = (byte) 0b10000000;
+
+	/**
+	 * Creates converter that writes request data as is.
+	 */
+	public RequestConverter() {
+		super();
+	}
+
+	/**
+	 * Creates converter that compresses written request data using specified
+	 * {@code compressor}. Compressed data is read by any request reader.
+	 * 
+	 * @throws NullPointerException if {@code compressor} is {@code null}
+	 */
+	public RequestConverter(PayloadCompressor compressor) {
+		super(compressor);
+	}
+
+	/**
+	 * Creates converter that writes requests of the negotiated protocol version
+	 * and rejects requests which use features that are not negotiated, writing
+	 * request data as is.
+	 * 
+	 * @throws NullPointerException if {@code handshake} is {@code null}
+	 */
+	public RequestConverter(Handshake handshake) {
+		super(handshake);
+	}
+
+	/**
+	 * Creates converter that writes requests of the negotiated protocol version
+	 * and compresses written request data using specified {@code compressor},
+	 * if compression is negotiated.
+	 * 
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	public RequestConverter(PayloadCompressor compressor, Handshake handshake) {
+		super(compressor, handshake);
+	}
 
 	@Override
 	public void writeTo(OutputStream output, Request request) throws IOException {
 		DataOutputStream dataOutput = new DataOutputStream(output);
 		
+		write(dataOutput, request);
+
+		dataOutput.flush();
+	}
+
+	/**
+	 * Writes all specified requests through a single buffered stream, so that
+	 * small frames are coalesced and the underlying {@code output} is flushed
+	 * only once.
+	 */
+	@Override
+	public void writeAll(OutputStream output, List<Request> requests) throws IOException {
+		DataOutputStream dataOutput = new DataOutputStream(new BufferedOutputStream(output, BATCH_BUFFER_SIZE));
+
+		for (Request request : requests) {
+			write(dataOutput, request);
+		}
+
+		dataOutput.flush();
+	}
+
+	/**
+	 * Writes specified {@code request} into the {@code dataOutput} without
+	 * flushing it, so that caller which owns the stream can reuse it for all
+	 * frames of the connection.
+	 */
+	void write(DataOutputStream dataOutput, Request request) throws IOException {
+		checkRequest(request);
+		boolean compact = usesCompactLayout() && fitsCompactLayout(request);
+		byte[] compressedData = request.hasData() ? compressData(request.getDataLength(), request::writeDataTo) : null;
+
 		dataOutput.writeByte(getVersionByte());
 		dataOutput.writeByte(request.getCommand().getByteCode());
-		dataOutput.writeByte(generateFlagsFor(request));
+		dataOutput.writeByte(generateFlagsFor(request) | compressedFlagFor(compressedData) | (compact ? COMPACT_FLAG : 0));
+		if (request.hasCorrelationId()) {
+			dataOutput.writeInt(request.getCorrelationId());
+		}
 		
 		writeKeyIfPresent(request, dataOutput);
-		writeTtlIfPresent(request, dataOutput);
-		writeDataIfPresent(request, dataOutput);
+		writeCasTokenIfPresent(request, dataOutput);
+		writeTtlIfPresent(request, dataOutput, compact);
+		writeDataIfPresent(request, compressedData, dataOutput, compact);
+		writeEntriesIfPresent(request, dataOutput, compact);
+	}
 
-		dataOutput.flush();
+	/**
+	 * Checks that request carries cas token if and only if it is a
+	 * {@link Command#CAS} request, which should have key and data as well.
+	 * Presence of the cas token in the frame is implied by the command, so
+	 * that it takes no flag.
+	 * 
+	 * @throws JMemcachedException if request is not valid
+	 */
+	static void checkCasToken(Request request) {
+		if (request.getCommand() == Command.CAS) {
+			if (!request.hasKey() || !request.hasData() || !request.hasCasToken()) {
+				throw new JMemcachedException("CAS request should carry key, data and cas token: " + request);
+			}
+		} else if (request.hasCasToken()) {
+			throw new JMemcachedException("Only CAS request can carry cas token: " + request);
+		}
+	}
+
+	/**
+	 * Checks that counter request carries key and data with delta and optional
+	 * initial value.
+	 * 
+	 * @throws JMemcachedException if request is not valid
+	 */
+	static void checkCounter(Request request) {
+		if (request.getCommand().isCounter() && !request.hasCounterOperand()) {
+			throw new JMemcachedException(
+					request.getCommand() + " request should carry key and counter delta: " + request);
+		}
+	}
+
+	/**
+	 * Checks that {@link Command#TOUCH} or {@link Command#GAT} request carries
+	 * key and ttl without data.
+	 * 
+	 * @throws JMemcachedException if request is not valid
+	 */
+	static void checkTouch(Request request) {
+		if (request.getCommand().isTouch() && (!request.hasKey() || !request.hasTtl() || request.hasData())) {
+			throw new JMemcachedException(
+					request.getCommand() + " request should carry key and ttl without data: " + request);
+		}
+	}
+
+	/**
+	 * Checks whether frame with the specified command and flags carries cas
+	 * token right after the key.
+	 */
+	static boolean hasCasToken(Command command, byte flagByte) {
+		return command == Command.CAS && (flagByte & KEY_FLAG) != 0;
 	}
 
-	private int generateFlagsFor(Request request) {
+	/**
+	 * Checks whether all ttl values of the request can be written in compact
+	 * layout without loss.
+	 */
+	static boolean fitsCompactLayout(Request request) {
+		if (request.hasTtl() && !VarInt.isCompact(request.getTtl())) {
+			return false;
+		}
+		for (Entry entry : request.getEntries()) {
+			if (entry.hasTtl() && !VarInt.isCompact(entry.getTtl())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte compressedFlagFor(byte[] compressedData) {
+		return compressedData != null ? COMPRESSED_FLAG : 0;
+	}
+
+	static byte generateFlagsFor(Request request) {
 		byte requestFlags = 0b00000000;
 		
 		if (request.hasKey()) {
@@ -64,10 +249,29 @@ public class RequestConverter extends AbstractPackageConverter implements Reques
 		if (request.hasData()) {
 			requestFlags = (byte) (requestFlags | DATA_FLAG);
 		}
+		if (request.hasEntries()) {
+			requestFlags = (byte) (requestFlags | ENTRIES_FLAG);
+		}
+		if (request.hasCorrelationId()) {
+			requestFlags = (byte) (requestFlags | CORRELATION_FLAG);
+		}
 		
 		return requestFlags;
 	}
 
+	static byte generateFlagsFor(Entry entry) {
+		byte entryFlags = KEY_FLAG;
+
+		if (entry.hasTtl()) {
+			entryFlags = (byte) (entryFlags | TTL_FLAG);
+		}
+		if (entry.hasData()) {
+			entryFlags = (byte) (entryFlags | DATA_FLAG);
+		}
+
+		return entryFlags;
+	}
+
 	private void writeKeyIfPresent(Request request, DataOutputStream dataOutput) throws IOException {
 		if (request.hasKey()) {
 			writeKey(dataOutput, request);
@@ -75,75 +279,268 @@ public class RequestConverter extends AbstractPackageConverter implements Reques
 	}
 	
 	private void writeKey(DataOutputStream dataOutput, Request request) throws IOException {
-		byte[] key = request.getKey().getBytes(StandardCharsets.US_ASCII);
-		if (key.length > MAX_KEY_LENGTH) {
-			throw new JMemcachedException("Key length should be <= "+ MAX_KEY_LENGTH +" bytes for key = " + request.getKey());
+		writeKey(dataOutput, request.getRawKey());
+	}
+
+	private void writeKey(DataOutputStream dataOutput, Key key) throws IOException {
+		dataOutput.writeByte(key.length());
+		key.writeTo(dataOutput);
+	}
+
+	private Key readKey(DataInputStream dataInput) throws IOException {
+		byte keyLength = dataInput.readByte();
+		return Key.of(IOUtils.readFully(dataInput, keyLength));
+	}
+
+	private void writeCasTokenIfPresent(Request request, DataOutputStream dataOutput) throws IOException {
+		if (request.hasCasToken()) {
+			dataOutput.writeLong(request.getCasToken());
 		}
-		dataOutput.writeByte(key.length);
-		dataOutput.write(key);
 	}
 
-	private void writeTtlIfPresent(Request request, DataOutputStream dataOutput) throws IOException {
+	private void writeTtlIfPresent(Request request, DataOutputStream dataOutput, boolean compact)
+			throws IOException {
 		if (request.hasTtl()) {
-			dataOutput.writeLong(request.getTtl());
+			writeTtl(dataOutput, request.getTtl(), compact);
 		}
 	}
 
-	private void writeDataIfPresent(Request request, DataOutputStream dataOutput) throws IOException {
-		if (request.hasData()) {
-			dataOutput.writeInt(request.getData().length);
-			dataOutput.write(request.getData());
+	private void writeDataIfPresent(Request request, byte[] compressedData, DataOutputStream dataOutput,
+			boolean compact) throws IOException {
+		if (compressedData != null) {
+			writeLength(dataOutput, compressedData.length, compact);
+			dataOutput.write(compressedData);
+		} else if (request.hasData()) {
+			writeLength(dataOutput, request.getDataLength(), compact);
+			request.writeDataTo(dataOutput);
+		}
+	}
+
+	private void writeEntriesIfPresent(Request request, DataOutputStream dataOutput, boolean compact)
+			throws IOException {
+		if (request.hasEntries()) {
+			dataOutput.writeInt(request.getEntries().size());
+			for (Entry entry : request.getEntries()) {
+				writeEntry(dataOutput, entry, compact);
+			}
+		}
+	}
+
+	private void writeEntry(DataOutputStream dataOutput, Entry entry, boolean compact) throws IOException {
+		byte[] compressedData = entry.hasData() ? compressData(entry.getDataLength(), entry::writeDataTo) : null;
+
+		dataOutput.writeByte(generateFlagsFor(entry) | compressedFlagFor(compressedData));
+		writeKey(dataOutput, entry.getRawKey());
+		if (entry.hasTtl()) {
+			writeTtl(dataOutput, entry.getTtl(), compact);
+		}
+		if (compressedData != null) {
+			writeLength(dataOutput, compressedData.length, compact);
+			dataOutput.write(compressedData);
+		} else if (entry.hasData()) {
+			writeLength(dataOutput, entry.getDataLength(), compact);
+			entry.writeDataTo(dataOutput);
 		}
 	}
 
+	/**
+	 * Writes header of the request and returns stream that writes request data
+	 * in chunks of bounded size, so that data of any length can be written
+	 * without loading it into memory.
+	 * 
+	 * @throws NullPointerException if {@code command} or {@code key} is null
+	 * @throws JMemcachedException  if {@code key} is too long
+	 */
+	@Override
+	public OutputStream openDataStream(OutputStream output, Command command, String key, Long ttl)
+			throws IOException {
+		requireNonNull(command, "command can not be null");
+		return openDataStream(output, command, Key.of(key), ttl);
+	}
+
+	/**
+	 * Writes header of the request and returns stream that writes request data
+	 * in chunks of bounded size.
+	 * 
+	 * @throws NullPointerException if {@code command} or {@code key} is null
+	 * @throws JMemcachedException  if {@code command} is {@link Command#CAS},
+	 *                              which requires cas token, or counter
+	 *                              command, which requires counter delta
+	 */
+	@Override
+	public OutputStream openDataStream(OutputStream output, Command command, Key key, Long ttl)
+			throws IOException {
+		requireNonNull(command, "command can not be null");
+		requireNonNull(key, "key can not be null");
+		if (command == Command.CAS || command.isCounter()) {
+			throw new JMemcachedException(command + " request can not be written as stream");
+		}
+		checkFeature(Feature.CHUNKED_DATA, true);
+		DataOutputStream dataOutput = new DataOutputStream(output);
+
+		dataOutput.writeByte(getVersionByte());
+		dataOutput.writeByte(command.getByteCode());
+		dataOutput.writeByte(KEY_FLAG | DATA_FLAG | CHUNKED_FLAG | (ttl != null ? TTL_FLAG : 0));
+		writeKey(dataOutput, key);
+		if (ttl != null) {
+			dataOutput.writeLong(ttl);
+		}
+
+		return new ChunkedOutputStream(dataOutput);
+	}
+
 	@Override
 	public Request readFrom(InputStream input) throws IOException {
+		return read(new DataInputStream(input));
+	}
+
+	@Override
+	public List<Request> readAll(InputStream input, int count) throws IOException {
 		DataInputStream dataInput = new DataInputStream(input);
-		
+		List<Request> requests = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			requests.add(read(dataInput));
+		}
+
+		return requests;
+	}
+
+	/**
+	 * Reads header of the request, leaving its data, whether chunked or not, in
+	 * the {@code input}.
+	 * 
+	 * @throws JMemcachedException if request contains entries
+	 */
+	@Override
+	public StreamedRequest readStreamed(InputStream input) throws IOException {
+		DataInputStream dataInput = new DataInputStream(input);
+		checkProtocolVersion(dataInput.readByte());
+		Command command = Command.valueOf(dataInput.readByte());
+		byte flagByte = dataInput.readByte();
+		if ((flagByte & ENTRIES_FLAG) != 0) {
+			throw new JMemcachedException("Request with entries can not be read as stream");
+		}
+		Integer correlationId = (flagByte & CORRELATION_FLAG) != 0 ? dataInput.readInt() : null;
+		if ((flagByte & KEY_FLAG) == 0) {
+			return new StreamedRequest(command, null, null, new ByteArrayInputStream(new byte[0]), correlationId,
+					null);
+		}
+
+		Key key = readKey(dataInput);
+		Long casToken = hasCasToken(command, flagByte) ? dataInput.readLong() : null;
+		boolean compact = (flagByte & COMPACT_FLAG) != 0;
+		Long ttl = (flagByte & TTL_FLAG) != 0 ? readTtl(dataInput, compact) : null;
+		if ((flagByte & DATA_FLAG) == 0) {
+			return new StreamedRequest(command, key, ttl, new ByteArrayInputStream(new byte[0]), correlationId,
+					casToken);
+		}
+		InputStream data = openData(dataInput, (flagByte & CHUNKED_FLAG) != 0, (flagByte & COMPRESSED_FLAG) != 0,
+				compact);
+
+		return new StreamedRequest(command, key, ttl, data, correlationId, casToken);
+	}
+
+	private Request read(DataInputStream dataInput) throws IOException {
 		byte versionByte = dataInput.readByte();
 		checkProtocolVersion(versionByte);
 		
 		byte cmdByte = dataInput.readByte();
 		byte flagByte = dataInput.readByte();
+		if ((flagByte & CORRELATION_FLAG) != 0) {
+			int correlationId = dataInput.readInt();
+			return buildRequest(cmdByte, flagByte, dataInput).withCorrelationId(correlationId);
+		}
 		
 		return buildRequest(cmdByte, flagByte, dataInput);
 	}
 
 	private Request buildRequest(byte cmdByte, byte flagByte, DataInputStream dataInput) throws IOException {
 		boolean hasKey = (flagByte & KEY_FLAG) != 0;
-		boolean hasTtl = (flagByte & TTL_FLAG) != 0;
 		boolean hasData = (flagByte & DATA_FLAG) != 0;
+		boolean hasEntries = (flagByte & ENTRIES_FLAG) != 0;
 		
-		if (hasKey && hasData) {
-			return buildRequestWithData(cmdByte, hasTtl, dataInput);
+		if (hasEntries) {
+			return buildRequestWithEntries(cmdByte, flagByte, dataInput);
+		} else if (hasKey && hasData) {
+			return buildRequestWithData(cmdByte, flagByte, dataInput);
 		} else if (hasKey) {
-			return buildRequestWithKey(cmdByte, dataInput);
+			return buildRequestWithKey(cmdByte, flagByte, dataInput);
 		} else {
 			return buildEmptyRequest(cmdByte);
 		}
 	}
 
-	protected Request buildRequestWithData(byte cmdByte, boolean hasTtl, DataInputStream dataInput) throws IOException {
-		byte keyLength = dataInput.readByte();
-		byte[] keyValue = IOUtils.readFully(dataInput, keyLength);
+	protected Request buildRequestWithData(byte cmdByte, byte flagByte, DataInputStream dataInput)
+			throws IOException {
+		boolean compact = (flagByte & COMPACT_FLAG) != 0;
+		Command command = Command.valueOf(cmdByte);
+		Key key = readKey(dataInput);
+		Long casToken = hasCasToken(command, flagByte) ? dataInput.readLong() : null;
 		Long ttl = null;
-		if (hasTtl) {
-			ttl = dataInput.readLong();
+		if ((flagByte & TTL_FLAG) != 0) {
+			ttl = readTtl(dataInput, compact);
 		}
-		int dataLength = dataInput.readInt();
-		byte[] data = IOUtils.readFully(dataInput, dataLength);
+		byte[] data = readData(dataInput, (flagByte & CHUNKED_FLAG) != 0, (flagByte & COMPRESSED_FLAG) != 0, compact);
 		
-		return Request.withKeyAndData(Command.valueOf(cmdByte), new String(keyValue, StandardCharsets.US_ASCII), data, ttl);
+		Request request = Request.withRawKeyAndData(command, key, data, ttl);
+		return casToken != null ? request.withCasToken(casToken) : request;
 	}
 
-	protected Request buildRequestWithKey(byte cmdByte, DataInputStream dataInput) throws IOException {
-		byte keyLength = dataInput.readByte();
-		byte[] keyValue = IOUtils.readFully(dataInput, keyLength);
-		
-		return Request.withKey(Command.valueOf(cmdByte), new String(keyValue, StandardCharsets.US_ASCII));
+	protected Request buildRequestWithKey(byte cmdByte, byte flagByte, DataInputStream dataInput)
+			throws IOException {
+		Command command = Command.valueOf(cmdByte);
+		Key key = readKey(dataInput);
+		Long casToken = hasCasToken(command, flagByte) ? dataInput.readLong() : null;
+		Request request = (flagByte & TTL_FLAG) != 0
+				? Request.withRawKeyAndTtl(command, key, readTtl(dataInput, (flagByte & COMPACT_FLAG) != 0))
+				: Request.withRawKey(command, key);
+		return casToken != null ? request.withCasToken(casToken) : request;
 	}
 	
 	protected Request buildEmptyRequest(byte cmdByte) {
 		return Request.empty(Command.valueOf(cmdByte));
 	}
+
+	protected Request buildRequestWithEntries(byte cmdByte, byte flagByte, DataInputStream dataInput)
+			throws IOException {
+		boolean compact = (flagByte & COMPACT_FLAG) != 0;
+		int entriesCount = checkEntriesCount(dataInput.readInt());
+		List<Entry> entries = new ArrayList<>(initialCapacityFor(entriesCount));
+		for (int i = 0; i < entriesCount; i++) {
+			entries.add(readEntry(dataInput, compact));
+		}
+
+		return Request.withEntries(Command.valueOf(cmdByte), entries);
+	}
+
+	private Entry readEntry(DataInputStream dataInput, boolean compact) throws IOException {
+		byte entryFlags = checkEntryFlags(dataInput.readByte());
+		Key key = readKey(dataInput);
+		Long ttl = null;
+		if ((entryFlags & TTL_FLAG) != 0) {
+			ttl = readTtl(dataInput, compact);
+		}
+		if ((entryFlags & DATA_FLAG) != 0) {
+			byte[] data = readData(dataInput, (entryFlags & CHUNKED_FLAG) != 0, (entryFlags & COMPRESSED_FLAG) != 0,
+					compact);
+			return Entry.withRawKeyAndData(key, data, ttl);
+		}
+
+		return Entry.withRawKey(key);
+	}
+
+	/**
+	 * Checks that the specified {@code entryFlags} describe a valid entry of
+	 * the multi-key request: the one that has a key, no nested entries and no
+	 * correlation id or layout of its own.
+	 * 
+	 * @throws JMemcachedException if flags describe invalid entry
+	 */
+	static byte checkEntryFlags(byte entryFlags) {
+		if ((entryFlags & KEY_FLAG) == 0 || (entryFlags & (ENTRIES_FLAG | CORRELATION_FLAG | COMPACT_FLAG)) != 0) {
+			throw new JMemcachedException("Invalid request entry flags: " + entryFlags);
+		}
+		return entryFlags;
+	}
 }
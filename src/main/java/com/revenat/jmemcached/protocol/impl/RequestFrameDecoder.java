@@ -0,0 +1,296 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.CHUNKED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.COMPACT_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.COMPRESSED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.CORRELATION_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.DATA_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.ENTRIES_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.KEY_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.TTL_FLAG;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.revenat.jmemcached.protocol.RequestDecoder;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Entry;
+import com.revenat.jmemcached.protocol.model.Key;
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * Resumable state machine that decodes {@link Request} objects, written in
+ * {@link RequestConverter} frame layout, from arbitrary chunks of bytes. Not
+ * thread-safe, one instance should be used per connection.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class RequestFrameDecoder extends AbstractFrameDecoder implements RequestDecoder {
+
+	private enum State {
+		VERSION, COMMAND, FLAGS, CORRELATION_ID, ENTRIES_COUNT, ENTRY_FLAGS, KEY_LENGTH, KEY, CAS_TOKEN, TTL, DATA_LENGTH,
+		DATA, CHUNK
+	}
+
+	/**
+	 * Reading of the chunked data block starts with DATA_LENGTH state, which
+	 * reads length of each chunk, and goes through CHUNK state for each chunk
+	 * until chunk of zero length is read.
+	 */
+	private State state = State.VERSION;
+	private Command command;
+	private Integer correlationId;
+	/**
+	 * Flags of the frame itself or of the entry being decoded
+	 */
+	private byte flags;
+	/**
+	 * Whether frame lengths and ttl are written in compact layout
+	 */
+	private boolean compact;
+	private Key key;
+	private Long casToken;
+	private Long ttl;
+	private List<Entry> entries;
+	private int entriesLeft;
+
+	@Override
+	public Optional<Request> decode(ByteBuffer chunk) {
+		try {
+			return decodeFrame(chunk);
+		} catch (RuntimeException e) {
+			reset();
+			throw e;
+		}
+	}
+
+	private Optional<Request> decodeFrame(ByteBuffer chunk) {
+		for (;;) {
+			Request request = null;
+			switch (state) {
+			case VERSION:
+				if (!chunk.hasRemaining()) {
+					return Optional.empty();
+				}
+				checkProtocolVersion(chunk.get());
+				state = State.COMMAND;
+				break;
+			case COMMAND:
+				if (!chunk.hasRemaining()) {
+					return Optional.empty();
+				}
+				command = Command.valueOf(chunk.get());
+				state = State.FLAGS;
+				break;
+			case FLAGS:
+				if (!chunk.hasRemaining()) {
+					return Optional.empty();
+				}
+				flags = chunk.get();
+				compact = hasFlag(COMPACT_FLAG);
+				if (hasFlag(CORRELATION_FLAG)) {
+					state = State.CORRELATION_ID;
+				} else {
+					request = startBody();
+				}
+				break;
+			case CORRELATION_ID:
+				if (!readNumber(chunk, Integer.BYTES)) {
+					return Optional.empty();
+				}
+				correlationId = (int) getNumber();
+				request = startBody();
+				break;
+			case ENTRIES_COUNT:
+				if (!readNumber(chunk, Integer.BYTES)) {
+					return Optional.empty();
+				}
+				entriesLeft = checkEntriesCount((int) getNumber());
+				entries = new ArrayList<>(initialCapacityFor(entriesLeft));
+				if (entriesLeft == 0) {
+					request = Request.withEntries(command, entries);
+				} else {
+					state = State.ENTRY_FLAGS;
+				}
+				break;
+			case ENTRY_FLAGS:
+				if (!chunk.hasRemaining()) {
+					return Optional.empty();
+				}
+				flags = RequestConverter.checkEntryFlags(chunk.get());
+				state = State.KEY_LENGTH;
+				break;
+			case KEY_LENGTH:
+				if (!chunk.hasRemaining()) {
+					return Optional.empty();
+				}
+				startBlock(chunk.get());
+				state = State.KEY;
+				break;
+			case KEY:
+				if (!readBlock(chunk)) {
+					return Optional.empty();
+				}
+				key = Key.of(takeBlock());
+				if (entries == null && RequestConverter.hasCasToken(command, flags)) {
+					state = State.CAS_TOKEN;
+				} else {
+					request = startValue();
+				}
+				break;
+			case CAS_TOKEN:
+				if (!readNumber(chunk, Long.BYTES)) {
+					return Optional.empty();
+				}
+				casToken = getNumber();
+				request = startValue();
+				break;
+			case TTL:
+				if (!(compact ? readVarNumber(chunk) : readNumber(chunk, Long.BYTES))) {
+					return Optional.empty();
+				}
+				ttl = compact ? VarInt.decodeTtl(getNumber()) : getNumber();
+				if (hasFlag(DATA_FLAG)) {
+					state = State.DATA_LENGTH;
+				} else {
+					request = completeBody(null);
+				}
+				break;
+			case DATA_LENGTH:
+				if (!readDataLength(chunk)) {
+					return Optional.empty();
+				}
+				int length = hasCompactDataLength() ? VarInt.toLength(getNumber()) : (int) getNumber();
+				if (!hasFlag(CHUNKED_FLAG)) {
+					startBlock(length);
+					state = State.DATA;
+				} else if (length != 0) {
+					startBlock(length);
+					state = State.CHUNK;
+				} else {
+					request = completeBody(takeChunks());
+				}
+				break;
+			case DATA:
+				if (!readBlock(chunk)) {
+					return Optional.empty();
+				}
+				request = completeBody(restoreData(takeBlock(), hasFlag(COMPRESSED_FLAG)));
+				break;
+			case CHUNK:
+				if (!readBlock(chunk)) {
+					return Optional.empty();
+				}
+				appendChunk(takeBlock());
+				state = State.DATA_LENGTH;
+				break;
+			}
+			if (request != null) {
+				Request decoded = correlationId != null ? request.withCorrelationId(correlationId) : request;
+				reset();
+				return Optional.of(decoded);
+			}
+		}
+	}
+
+	/**
+	 * Starts decoding of the frame part that follows its header.
+	 * 
+	 * @return decoded {@link Request} if it has no more parts or {@code null}
+	 */
+	private Request startBody() {
+		if (hasFlag(ENTRIES_FLAG)) {
+			state = State.ENTRIES_COUNT;
+		} else if (hasFlag(KEY_FLAG)) {
+			state = State.KEY_LENGTH;
+		} else {
+			return Request.empty(command);
+		}
+		return null;
+	}
+
+	/**
+	 * Reads length of the data block or of the next chunk. Chunk lengths are
+	 * always written as fixed-size numbers, while length of the data block
+	 * that is not chunked is written as variable-length number in compact
+	 * frames.
+	 */
+	private boolean readDataLength(ByteBuffer chunk) {
+		return hasCompactDataLength() ? readVarNumber(chunk) : readNumber(chunk, Integer.BYTES);
+	}
+
+	private boolean hasCompactDataLength() {
+		return compact && !hasFlag(CHUNKED_FLAG);
+	}
+
+	/**
+	 * Starts decoding of the ttl and data that follow the key.
+	 * 
+	 * @return decoded {@link Request} if it has no more parts or {@code null}
+	 */
+	private Request startValue() {
+		if (hasFlag(TTL_FLAG)) {
+			state = State.TTL;
+		} else if (hasFlag(DATA_FLAG)) {
+			state = State.DATA_LENGTH;
+		} else {
+			return completeBody(null);
+		}
+		return null;
+	}
+
+	private boolean hasFlag(byte flag) {
+		return (flags & flag) != 0;
+	}
+
+	/**
+	 * Completes key/ttl/data part of the frame or of the entry being decoded.
+	 * 
+	 * @return decoded {@link Request} or {@code null} if more entries follow
+	 */
+	private Request completeBody(byte[] data) {
+		if (entries == null) {
+			Request request;
+			if (data != null) {
+				request = Request.withRawKeyAndData(command, key, data, ttl);
+			} else if (ttl != null) {
+				request = Request.withRawKeyAndTtl(command, key, ttl);
+			} else {
+				request = Request.withRawKey(command, key);
+			}
+			return casToken != null ? request.withCasToken(casToken) : request;
+		}
+
+		entries.add(data == null ? Entry.withRawKey(key) : Entry.withRawKeyAndData(key, data, ttl));
+		key = null;
+		ttl = null;
+		if (--entriesLeft == 0) {
+			return Request.withEntries(command, entries);
+		}
+		state = State.ENTRY_FLAGS;
+		return null;
+	}
+
+	@Override
+	public boolean hasPartialFrame() {
+		return state != State.VERSION;
+	}
+
+	@Override
+	public void reset() {
+		resetState();
+		state = State.VERSION;
+		command = null;
+		correlationId = null;
+		flags = 0;
+		compact = false;
+		key = null;
+		casToken = null;
+		ttl = null;
+		entries = null;
+		entriesLeft = 0;
+	}
+}
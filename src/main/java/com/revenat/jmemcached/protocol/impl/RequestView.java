@@ -0,0 +1,323 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static com.revenat.jmemcached.protocol.impl.AbstractPackageConverter.checkProtocolVersion;
+import static com.revenat.jmemcached.protocol.impl.AbstractPackageConverter.readLength;
+import static com.revenat.jmemcached.protocol.impl.AbstractPackageConverter.readTtl;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.CHUNKED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.COMPACT_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.COMPRESSED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.CORRELATION_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.DATA_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.ENTRIES_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.KEY_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.TTL_FLAG;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Key;
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * Reusable flyweight view of the single-key request frame, written in
+ * {@link RequestConverter} frame layout, that reads command, key, ttl and data
+ * directly from the underlying {@link ByteBuffer}. Wrapping a frame and
+ * accessing its parts doesn't allocate any objects, unless stated otherwise,
+ * so the same view can be used to decode all requests of the connection. View
+ * is valid until content of the wrapped buffer is changed. Not thread-safe.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class RequestView {
+	private ByteBuffer buffer;
+	private Command command;
+	private byte flags;
+	private int correlationId;
+	private int keyOffset;
+	private int keyLength;
+	private long casToken;
+	private long ttl;
+	private int dataOffset;
+	private int dataLength;
+
+	/**
+	 * Wraps request frame that starts at the current position of the specified
+	 * {@code buffer} and moves buffer position to the end of the frame. If frame
+	 * can not be wrapped, buffer position is left unchanged and view is reset
+	 * to the state of the newly created one, wrapping no frame until the next
+	 * successful call.
+	 * 
+	 * @return this view
+	 * @throws BufferUnderflowException if buffer does not contain the whole
+	 *                                  frame
+	 * @throws JMemcachedException      if frame is malformed or contains
+	 *                                  entries, chunked or compressed data,
+	 *                                  which should be read using
+	 *                                  {@link RequestBufferConverter}
+	 */
+	public RequestView wrap(ByteBuffer buffer) {
+		int startPosition = buffer.position();
+		try {
+			parse(buffer);
+			this.buffer = buffer;
+			return this;
+		} catch (RuntimeException e) {
+			buffer.position(startPosition);
+			reset();
+			throw e;
+		}
+	}
+
+	private void reset() {
+		buffer = null;
+		command = null;
+		flags = 0;
+		correlationId = 0;
+		keyOffset = 0;
+		keyLength = 0;
+		casToken = 0;
+		ttl = 0;
+		dataOffset = 0;
+		dataLength = 0;
+	}
+
+	private void parse(ByteBuffer buffer) {
+		checkProtocolVersion(buffer.get());
+		command = Command.valueOf(buffer.get());
+		flags = buffer.get();
+		if ((flags & (ENTRIES_FLAG | CHUNKED_FLAG | COMPRESSED_FLAG)) != 0) {
+			throw new JMemcachedException("Request with flags " + flags + " can not be wrapped by view");
+		}
+		correlationId = hasCorrelationId() ? buffer.getInt() : 0;
+		keyOffset = 0;
+		keyLength = 0;
+		casToken = 0;
+		ttl = 0;
+		dataOffset = 0;
+		dataLength = 0;
+		if (!hasKey()) {
+			return;
+		}
+
+		keyLength = buffer.get();
+		if (keyLength < 0) {
+			throw new JMemcachedException("Invalid key length: " + keyLength);
+		}
+		keyOffset = skip(buffer, keyLength);
+		if (hasCasToken()) {
+			casToken = buffer.getLong();
+		}
+		boolean compact = (flags & COMPACT_FLAG) != 0;
+		if (hasTtl()) {
+			ttl = readTtl(buffer, compact);
+		}
+		if (hasData()) {
+			dataLength = readLength(buffer, compact);
+			if (dataLength < 0) {
+				throw new JMemcachedException("Invalid data length: " + dataLength);
+			}
+			dataOffset = skip(buffer, dataLength);
+		}
+	}
+
+	private static int skip(ByteBuffer buffer, int length) {
+		int offset = buffer.position();
+		if (buffer.remaining() < length) {
+			throw new BufferUnderflowException();
+		}
+		buffer.position(offset + length);
+		return offset;
+	}
+
+	public Command getCommand() {
+		return command;
+	}
+
+	public boolean hasCorrelationId() {
+		return (flags & CORRELATION_FLAG) != 0;
+	}
+
+	/**
+	 * Returns correlation id of the request or {@code 0} if request has no
+	 * correlation id.
+	 */
+	public int getCorrelationId() {
+		return correlationId;
+	}
+
+	public boolean hasKey() {
+		return (flags & KEY_FLAG) != 0;
+	}
+
+	/**
+	 * Returns {@code true} if request carries cas token, which only
+	 * {@link Command#CAS} requests do.
+	 */
+	public boolean hasCasToken() {
+		return RequestConverter.hasCasToken(command, flags);
+	}
+
+	/**
+	 * Returns cas token of the request or {@code 0} if request has no cas
+	 * token.
+	 */
+	public long getCasToken() {
+		return casToken;
+	}
+
+	public boolean hasTtl() {
+		return (flags & TTL_FLAG) != 0 && hasKey();
+	}
+
+	public boolean hasData() {
+		return (flags & (KEY_FLAG | DATA_FLAG)) == (KEY_FLAG | DATA_FLAG);
+	}
+
+	public int getKeyLength() {
+		return keyLength;
+	}
+
+	/**
+	 * Returns key byte at the specified {@code index}.
+	 * 
+	 * @throws IndexOutOfBoundsException if index is not within key bounds
+	 */
+	public byte getKeyByte(int index) {
+		if (index < 0 || index >= keyLength) {
+			throw new IndexOutOfBoundsException("Key index: " + index);
+		}
+		return buffer.get(keyOffset + index);
+	}
+
+	/**
+	 * Checks whether key of the request consists of the specified ASCII
+	 * {@code keyBytes}.
+	 */
+	public boolean keyEquals(byte[] keyBytes) {
+		if (keyBytes.length != keyLength) {
+			return false;
+		}
+		for (int i = 0; i < keyLength; i++) {
+			if (buffer.get(keyOffset + i) != keyBytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether key of the request is equal to the specified {@link Key}.
+	 */
+	public boolean keyEquals(Key key) {
+		if (key.length() != keyLength) {
+			return false;
+		}
+		for (int i = 0; i < keyLength; i++) {
+			if (buffer.get(keyOffset + i) != key.byteAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns key of the request as a new {@link Key}, or {@code null} if
+	 * request has no key.
+	 */
+	public Key getRawKey() {
+		if (!hasKey()) {
+			return null;
+		}
+		byte[] key = new byte[keyLength];
+		copyKeyTo(ByteBuffer.wrap(key));
+		return Key.of(key);
+	}
+
+	/**
+	 * Returns key of the request as a new {@link String}, or {@code null} if
+	 * request has no key.
+	 */
+	public String getKey() {
+		if (!hasKey()) {
+			return null;
+		}
+		if (buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + keyOffset, keyLength,
+					StandardCharsets.US_ASCII);
+		}
+		byte[] key = new byte[keyLength];
+		copy(keyOffset, keyLength, ByteBuffer.wrap(key));
+		return new String(key, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Returns ttl of the request or {@code 0} if request has no ttl.
+	 */
+	public long getTtl() {
+		return ttl;
+	}
+
+	public int getDataLength() {
+		return dataLength;
+	}
+
+	/**
+	 * Copies key bytes of the request into the specified {@code target} buffer.
+	 * 
+	 * @throws java.nio.BufferOverflowException if target buffer has not enough
+	 *                                          space
+	 */
+	public void copyKeyTo(ByteBuffer target) {
+		copy(keyOffset, keyLength, target);
+	}
+
+	/**
+	 * Copies data of the request into the specified {@code target} buffer.
+	 * 
+	 * @throws java.nio.BufferOverflowException if target buffer has not enough
+	 *                                          space
+	 */
+	public void copyDataTo(ByteBuffer target) {
+		copy(dataOffset, dataLength, target);
+	}
+
+	private void copy(int offset, int length, ByteBuffer target) {
+		int position = buffer.position();
+		int limit = buffer.limit();
+		try {
+			buffer.limit(offset + length).position(offset);
+			target.put(buffer);
+		} finally {
+			buffer.limit(limit).position(position);
+		}
+	}
+
+	/**
+	 * Creates new {@link Request} object with the content of the wrapped frame.
+	 */
+	public Request toRequest() {
+		Request request = toRequestWithoutIdentifiers();
+		if (hasCasToken()) {
+			request = request.withCasToken(casToken);
+		}
+		return hasCorrelationId() ? request.withCorrelationId(correlationId) : request;
+	}
+
+	private Request toRequestWithoutIdentifiers() {
+		if (hasData()) {
+			byte[] data = new byte[dataLength];
+			copyDataTo(ByteBuffer.wrap(data));
+			return Request.withRawKeyAndData(command, getRawKey(), data, hasTtl() ? ttl : null);
+		} else if (hasTtl()) {
+			return Request.withRawKeyAndTtl(command, getRawKey(), ttl);
+		} else if (hasKey()) {
+			return Request.withRawKey(command, getRawKey());
+		} else {
+			return Request.empty(command);
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.CAS_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.CHUNKED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.COMPACT_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.COMPRESSED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.CORRELATION_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.DATA_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.ENTRIES_FLAG;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.revenat.jmemcached.protocol.ResponseBufferReader;
+import com.revenat.jmemcached.protocol.ResponseBufferWriter;
+import com.revenat.jmemcached.protocol.model.DirectPayload;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.PayloadAllocator;
+import com.revenat.jmemcached.protocol.model.Response;
+import com.revenat.jmemcached.protocol.model.Status;
+
+/**
+ * Component responsible for writing {@link Response} object into the
+ * {@link ByteBuffer} and reading {@link Response} object from the
+ * {@link ByteBuffer}. Uses the same frame layout as {@link ResponseConverter}
+ * but works with heap or direct buffers without any intermediate streams.
+ * Data is always written as is, so that encoded size is known upfront, while
+ * data compressed by {@link PayloadCompressor} is restored transparently.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class ResponseBufferConverter extends AbstractPackageConverter implements ResponseBufferReader, ResponseBufferWriter {
+	/**
+	 * Version, status and flags bytes
+	 */
+	static final int HEADER_SIZE = 3;
+	/**
+	 * Status and flags bytes that start frame body and each of its entries
+	 */
+	private static final int BODY_HEADER_SIZE = 2;
+
+	/**
+	 * Allocator of the payloads response data is read into or {@code null} if
+	 * data is read into heap arrays
+	 */
+	private final PayloadAllocator allocator;
+
+	/**
+	 * Creates converter that writes responses without restricting features.
+	 */
+	public ResponseBufferConverter() {
+		super();
+		this.allocator = null;
+	}
+
+	/**
+	 * Creates converter that writes responses of the negotiated protocol
+	 * version and rejects responses which use features that are not
+	 * negotiated.
+	 * 
+	 * @throws NullPointerException if {@code handshake} is {@code null}
+	 */
+	public ResponseBufferConverter(Handshake handshake) {
+		super(handshake);
+		this.allocator = null;
+	}
+
+	/**
+	 * Creates converter that works as
+	 * {@link #ResponseBufferConverter(Handshake)} and reads data of the
+	 * responses, except for data of their entries, into {@link DirectPayload
+	 * payloads} obtained from the specified {@code allocator} instead of heap
+	 * arrays. Caller should {@link Response#release() release} such responses.
+	 * 
+	 * @throws NullPointerException if either {@code handshake} or
+	 *                              {@code allocator} is {@code null}
+	 */
+	public ResponseBufferConverter(Handshake handshake, PayloadAllocator allocator) {
+		super(handshake);
+		this.allocator = requireNonNull(allocator, "allocator can not be null");
+	}
+
+	@Override
+	public int encodedSize(Response response) {
+		int size = HEADER_SIZE - BODY_HEADER_SIZE + bodySize(response, usesCompactLayout());
+		if (response.hasCorrelationId()) {
+			size += Integer.BYTES;
+		}
+		return size;
+	}
+
+	private static int bodySize(Response response, boolean compact) {
+		int size = BODY_HEADER_SIZE;
+		if (response.hasCasToken()) {
+			size += Long.BYTES;
+		}
+		if (response.hasData()) {
+			size += lengthSize(response.getDataLength(), compact) + response.getDataLength();
+		}
+		if (response.hasEntries()) {
+			size += Integer.BYTES;
+			List<Response> entries = response.getEntries();
+			for (int i = 0; i < entries.size(); i++) {
+				size += bodySize(entries.get(i), compact);
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer, Response response) {
+		if (buffer.remaining() < encodedSize(response)) {
+			throw new BufferOverflowException();
+		}
+		checkFeatures(response.hasCorrelationId(), response.hasEntries(), ResponseConverter.hasCasTokens(response));
+
+		buffer.put(getVersionByte());
+		writeBody(buffer, response, true, usesCompactLayout());
+	}
+
+	private static void writeBody(ByteBuffer buffer, Response response, boolean topLevel, boolean compact) {
+		boolean withCorrelationId = topLevel && response.hasCorrelationId();
+		buffer.put(response.getStatus().getByteCode());
+		buffer.put((byte) (ResponseConverter.generateFlagsFor(response) | (withCorrelationId ? CORRELATION_FLAG : 0)
+				| (topLevel && compact ? COMPACT_FLAG : 0)));
+		if (withCorrelationId) {
+			buffer.putInt(response.getCorrelationId());
+		}
+		if (response.hasCasToken()) {
+			buffer.putLong(response.getCasToken());
+		}
+		if (response.hasData()) {
+			writeLength(buffer, response.getDataLength(), compact);
+			buffer.put(response.getDataBuffer());
+		}
+		if (response.hasEntries()) {
+			buffer.putInt(response.getEntries().size());
+			for (Response entry : response.getEntries()) {
+				writeBody(buffer, entry, false, compact);
+			}
+		}
+	}
+
+	@Override
+	public Response readFrom(ByteBuffer buffer) {
+		int startPosition = buffer.position();
+		try {
+			checkProtocolVersion(buffer.get());
+
+			byte statusByte = buffer.get();
+			byte flagByte = buffer.get();
+			Integer correlationId = (flagByte & CORRELATION_FLAG) != 0 ? buffer.getInt() : null;
+			Long casToken = readCasToken(flagByte, buffer);
+			boolean compact = (flagByte & COMPACT_FLAG) != 0;
+			Response response;
+			if ((flagByte & ENTRIES_FLAG) != 0) {
+				response = Response.withEntries(Status.valueOf(statusByte), readEntries(buffer, compact));
+			} else {
+				response = buildResponse(statusByte, flagByte, buffer, compact, allocator);
+			}
+			if (casToken != null) {
+				response = response.withCasToken(casToken);
+			}
+			return correlationId != null ? response.withCorrelationId(correlationId) : response;
+		} catch (BufferUnderflowException e) {
+			buffer.position(startPosition);
+			throw e;
+		}
+	}
+
+	private static List<Response> readEntries(ByteBuffer buffer, boolean compact) {
+		int entriesCount = checkEntriesCount(buffer.getInt());
+		List<Response> entries = new ArrayList<>(initialCapacityFor(entriesCount));
+		for (int i = 0; i < entriesCount; i++) {
+			byte statusByte = buffer.get();
+			byte flagByte = ResponseConverter.checkEntryFlags(buffer.get());
+			Long casToken = readCasToken(flagByte, buffer);
+			Response entry = buildResponse(statusByte, flagByte, buffer, compact, null);
+			entries.add(casToken != null ? entry.withCasToken(casToken) : entry);
+		}
+		return entries;
+	}
+
+	private static Long readCasToken(byte flagByte, ByteBuffer buffer) {
+		return (flagByte & CAS_FLAG) != 0 ? buffer.getLong() : null;
+	}
+
+	private static Response buildResponse(byte statusByte, byte flagByte, ByteBuffer buffer, boolean compact,
+			PayloadAllocator allocator) {
+		if ((flagByte & DATA_FLAG) == 0) {
+			return Response.empty(Status.valueOf(statusByte));
+		} else if (allocator != null) {
+			Status status = Status.valueOf(statusByte);
+			DirectPayload payload = readPayload(buffer, (flagByte & CHUNKED_FLAG) != 0,
+					(flagByte & COMPRESSED_FLAG) != 0, compact, allocator);
+			return Response.withPayload(status, payload);
+		} else {
+			byte[] data = readData(buffer, (flagByte & CHUNKED_FLAG) != 0, (flagByte & COMPRESSED_FLAG) != 0,
+					compact);
+			return Response.withData(Status.valueOf(statusByte), data);
+		}
+	}
+}
@@ -1,17 +1,29 @@
 package com.revenat.jmemcached.protocol.impl;
 
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
-import org.apache.commons.io.IOUtils;
-
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.ResponseBatchReader;
+import com.revenat.jmemcached.protocol.ResponseBatchWriter;
 import com.revenat.jmemcached.protocol.ResponseReader;
+import com.revenat.jmemcached.protocol.ResponseStreamReader;
+import com.revenat.jmemcached.protocol.ResponseStreamWriter;
 import com.revenat.jmemcached.protocol.ResponseWriter;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
 import com.revenat.jmemcached.protocol.model.Response;
 import com.revenat.jmemcached.protocol.model.Status;
+import com.revenat.jmemcached.protocol.model.StreamedResponse;
 
 /**
  * Component responsible for writing {@link Response} object into the {@link OutputStream}
@@ -20,43 +32,329 @@ import com.revenat.jmemcached.protocol.model.Status;
  * @author Vitaly Dragun
  *
  */
-public class ResponseConverter extends AbstractPackageConverter implements ResponseReader, ResponseWriter {
+public class ResponseConverter extends AbstractPackageConverter
+		implements ResponseReader, ResponseWriter, ResponseBatchReader, ResponseBatchWriter, ResponseStreamReader,
+		ResponseStreamWriter {
+	/**
+	 * This bit combination means response contains data length - 4 bites, data value - var. number of bites
+	 */
+	static final byte DATA_FLAG = 0b00000001;
+	/**
+	 * This bit combination means response contains entries count - 4 bites and entries - var. number of bites,
+	 * where each entry is written as its own status and flags bytes followed by data part
+	 */
+	static final byte ENTRIES_FLAG = 0b00000010;
+	/**
+	 * This bit combination means data of the response or entry is compressed by {@link PayloadCompressor}
+	 */
+	static final byte COMPRESSED_FLAG = 0b00000100;
+	/**
+	 * This bit combination means data of the response or entry is written as a sequence of chunks, each prefixed
+	 * with its length - 4 bites, terminated by a chunk of zero length
+	 */
+	static final byte CHUNKED_FLAG = 0b00001000;
+	/**
+	 * This bit combination means response contains correlation id - 4 bites, right after the flags byte. Entries
+	 * of the response never contain it
+	 */
+	static final byte CORRELATION_FLAG = 0b00010000;
+	/**
+	 * This bit combination means data lengths of the response and its entries are written as variable-length
+	 * numbers, see {@link VarInt}. Entries of the response never contain it
+	 */
+	static final byte COMPACT_FLAG = 0b00100000;
+	/**
+	 * This bit combination means response or entry contains cas token - 8 bites, right after the flags byte and
+	 * correlation id, if any
+	 */
+	static final byte CAS_FLAG = 0b01000000;
+
+	/**
+	 * Creates converter that writes response data as is.
+	 */
+	public ResponseConverter() {
+		super();
+	}
+
+	/**
+	 * Creates converter that compresses written response data using specified
+	 * {@code compressor}. Compressed data is read by any response reader.
+	 * 
+	 * @throws NullPointerException if {@code compressor} is {@code null}
+	 */
+	public ResponseConverter(PayloadCompressor compressor) {
+		super(compressor);
+	}
+
+	/**
+	 * Creates converter that writes responses of the negotiated protocol
+	 * version and rejects responses which use features that are not
+	 * negotiated, writing response data as is.
+	 * 
+	 * @throws NullPointerException if {@code handshake} is {@code null}
+	 */
+	public ResponseConverter(Handshake handshake) {
+		super(handshake);
+	}
+
+	/**
+	 * Creates converter that writes responses of the negotiated protocol
+	 * version and compresses written response data using specified
+	 * {@code compressor}, if compression is negotiated.
+	 * 
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	public ResponseConverter(PayloadCompressor compressor, Handshake handshake) {
+		super(compressor, handshake);
+	}
 
 	@Override
 	public void writeTo(OutputStream output, Response response) throws IOException {
 		DataOutputStream dataOutput = new DataOutputStream(output);
 		
-		dataOutput.writeByte(getVersionByte());
-		dataOutput.writeByte(response.getStatus().getByteCode());
-		dataOutput.writeByte(response.hasData() ? 1 : 0);
-		writeDataIfAny(response, dataOutput);
+		write(dataOutput, response);
 		
 		dataOutput.flush();
 	}
 
-	private void writeDataIfAny(Response response, DataOutputStream dataOutput) throws IOException {
+	/**
+	 * Writes all specified responses through a single buffered stream, so that
+	 * small frames are coalesced and the underlying {@code output} is flushed
+	 * only once.
+	 */
+	@Override
+	public void writeAll(OutputStream output, List<Response> responses) throws IOException {
+		DataOutputStream dataOutput = new DataOutputStream(new BufferedOutputStream(output, BATCH_BUFFER_SIZE));
+
+		for (Response response : responses) {
+			write(dataOutput, response);
+		}
+
+		dataOutput.flush();
+	}
+
+	/**
+	 * Writes specified {@code response} into the {@code dataOutput} without
+	 * flushing it, so that caller which owns the stream can reuse it for all
+	 * frames of the connection.
+	 */
+	void write(DataOutputStream dataOutput, Response response) throws IOException {
+		checkFeatures(response.hasCorrelationId(), response.hasEntries(), hasCasTokens(response));
+		dataOutput.writeByte(getVersionByte());
+		writeBody(dataOutput, response, true, usesCompactLayout());
+	}
+
+	/**
+	 * Writes status, flags and data of the response or of its entry, where
+	 * only top-level response carries correlation id and compact flag.
+	 */
+	private void writeBody(DataOutputStream dataOutput, Response response, boolean topLevel, boolean compact)
+			throws IOException {
+		boolean withCorrelationId = topLevel && response.hasCorrelationId();
+		byte[] compressedData = response.hasData() ? compressData(response.getDataLength(), response::writeDataTo)
+				: null;
+
+		dataOutput.writeByte(response.getStatus().getByteCode());
+		dataOutput.writeByte(generateFlagsFor(response) | compressedFlagFor(compressedData)
+				| (withCorrelationId ? CORRELATION_FLAG : 0) | (topLevel && compact ? COMPACT_FLAG : 0));
+		if (withCorrelationId) {
+			dataOutput.writeInt(response.getCorrelationId());
+		}
+		if (response.hasCasToken()) {
+			dataOutput.writeLong(response.getCasToken());
+		}
+		writeDataIfAny(response, compressedData, dataOutput, compact);
+		writeEntriesIfAny(response, dataOutput, compact);
+	}
+
+	/**
+	 * Checks whether response or any of its entries carries cas token.
+	 */
+	static boolean hasCasTokens(Response response) {
+		if (response.hasCasToken()) {
+			return true;
+		}
+		for (Response entry : response.getEntries()) {
+			if (entry.hasCasToken()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static byte generateFlagsFor(Response response) {
+		byte responseFlags = 0b00000000;
+
 		if (response.hasData()) {
-			dataOutput.writeInt(response.getData().length);
-			dataOutput.write(response.getData());
+			responseFlags = (byte) (responseFlags | DATA_FLAG);
+		}
+		if (response.hasEntries()) {
+			responseFlags = (byte) (responseFlags | ENTRIES_FLAG);
+		}
+		if (response.hasCasToken()) {
+			responseFlags = (byte) (responseFlags | CAS_FLAG);
+		}
+
+		return responseFlags;
+	}
+
+	private static byte compressedFlagFor(byte[] compressedData) {
+		return compressedData != null ? COMPRESSED_FLAG : 0;
+	}
+
+	private void writeDataIfAny(Response response, byte[] compressedData, DataOutputStream dataOutput,
+			boolean compact) throws IOException {
+		if (compressedData != null) {
+			writeLength(dataOutput, compressedData.length, compact);
+			dataOutput.write(compressedData);
+		} else if (response.hasData()) {
+			writeLength(dataOutput, response.getDataLength(), compact);
+			response.writeDataTo(dataOutput);
 		}
 	}
 
+	private void writeEntriesIfAny(Response response, DataOutputStream dataOutput, boolean compact)
+			throws IOException {
+		if (response.hasEntries()) {
+			dataOutput.writeInt(response.getEntries().size());
+			for (Response entry : response.getEntries()) {
+				writeBody(dataOutput, entry, false, compact);
+			}
+		}
+	}
+
+	/**
+	 * Writes header of the response and returns stream that writes response
+	 * data in chunks of bounded size, so that data of any length can be written
+	 * without loading it into memory.
+	 * 
+	 * @throws NullPointerException if {@code status} is null
+	 */
+	@Override
+	public OutputStream openDataStream(OutputStream output, Status status) throws IOException {
+		requireNonNull(status, "status can not be null");
+		checkFeature(Feature.CHUNKED_DATA, true);
+		DataOutputStream dataOutput = new DataOutputStream(output);
+
+		dataOutput.writeByte(getVersionByte());
+		dataOutput.writeByte(status.getByteCode());
+		dataOutput.writeByte(DATA_FLAG | CHUNKED_FLAG);
+
+		return new ChunkedOutputStream(dataOutput);
+	}
+
 	@Override
 	public Response readFrom(InputStream input) throws IOException {
+		return read(new DataInputStream(input));
+	}
+
+	@Override
+	public List<Response> readAll(InputStream input, int count) throws IOException {
 		DataInputStream dataInput = new DataInputStream(input);
-		
+		List<Response> responses = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			responses.add(read(dataInput));
+		}
+
+		return responses;
+	}
+
+	/**
+	 * Reads status of the response, leaving its data, whether chunked or not, in
+	 * the {@code input}.
+	 * 
+	 * @throws JMemcachedException if response contains entries
+	 */
+	@Override
+	public StreamedResponse readStreamed(InputStream input) throws IOException {
+		DataInputStream dataInput = new DataInputStream(input);
+		checkProtocolVersion(dataInput.readByte());
+		Status status = Status.valueOf(dataInput.readByte());
+		byte flagByte = dataInput.readByte();
+		if ((flagByte & ENTRIES_FLAG) != 0) {
+			throw new JMemcachedException("Response with entries can not be read as stream");
+		}
+		Integer correlationId = (flagByte & CORRELATION_FLAG) != 0 ? dataInput.readInt() : null;
+		Long casToken = (flagByte & CAS_FLAG) != 0 ? dataInput.readLong() : null;
+		if ((flagByte & DATA_FLAG) == 0) {
+			return new StreamedResponse(status, new ByteArrayInputStream(new byte[0]), correlationId, casToken);
+		}
+
+		InputStream data = openData(dataInput, (flagByte & CHUNKED_FLAG) != 0, (flagByte & COMPRESSED_FLAG) != 0,
+				(flagByte & COMPACT_FLAG) != 0);
+		return new StreamedResponse(status, data, correlationId, casToken);
+	}
+
+	private Response read(DataInputStream dataInput) throws IOException {
 		byte versionByte = dataInput.readByte();
 		checkProtocolVersion(versionByte);
 		
 		byte statusByte = dataInput.readByte();
-		byte dataFlag = dataInput.readByte();
-		if (dataFlag == 0) {
-			return Response.empty(Status.valueOf(statusByte));
+		byte flagByte = dataInput.readByte();
+		if ((flagByte & CORRELATION_FLAG) != 0) {
+			int correlationId = dataInput.readInt();
+			return buildResponse(statusByte, flagByte, dataInput).withCorrelationId(correlationId);
+		}
+		return buildResponse(statusByte, flagByte, dataInput);
+	}
+
+	private Response buildResponse(byte statusByte, byte flagByte, DataInputStream dataInput) throws IOException {
+		boolean compact = (flagByte & COMPACT_FLAG) != 0;
+		if ((flagByte & ENTRIES_FLAG) != 0) {
+			Long casToken = (flagByte & CAS_FLAG) != 0 ? dataInput.readLong() : null;
+			Response response = buildResponseWithEntries(statusByte, dataInput, compact);
+			return casToken != null ? response.withCasToken(casToken) : response;
+		} else {
+			return buildResponseBody(statusByte, flagByte, dataInput, compact);
+		}
+	}
+
+	private Response buildResponseWithEntries(byte statusByte, DataInputStream dataInput, boolean compact)
+			throws IOException {
+		int entriesCount = checkEntriesCount(dataInput.readInt());
+		List<Response> entries = new ArrayList<>(initialCapacityFor(entriesCount));
+		for (int i = 0; i < entriesCount; i++) {
+			byte entryStatusByte = dataInput.readByte();
+			byte entryFlagByte = checkEntryFlags(dataInput.readByte());
+			entries.add(buildResponseBody(entryStatusByte, entryFlagByte, dataInput, compact));
+		}
+
+		return Response.withEntries(Status.valueOf(statusByte), entries);
+	}
+
+	private Response buildResponseBody(byte statusByte, byte flagByte, DataInputStream dataInput, boolean compact)
+			throws IOException {
+		Long casToken = (flagByte & CAS_FLAG) != 0 ? dataInput.readLong() : null;
+		Response response;
+		if ((flagByte & DATA_FLAG) == 0) {
+			response = Response.empty(Status.valueOf(statusByte));
 		} else {
-			int dataLength = dataInput.readInt();
-			byte[] data = IOUtils.readFully(dataInput, dataLength);
+			byte[] data = readData(dataInput, (flagByte & CHUNKED_FLAG) != 0, (flagByte & COMPRESSED_FLAG) != 0,
+					compact);
 			
-			return Response.withData(Status.valueOf(statusByte), data);
+			response = Response.withData(Status.valueOf(statusByte), data);
+		}
+		return casToken != null ? response.withCasToken(casToken) : response;
+	}
+
+	/**
+	 * Checks that the specified {@code entryFlags} describe a valid entry of
+	 * the multi-key response: the one that has no nested entries and no
+	 * correlation id or layout of its own.
+	 * 
+	 * @throws JMemcachedException if flags describe invalid entry
+	 */
+	static byte checkEntryFlags(byte entryFlags) {
+		if ((entryFlags & ENTRIES_FLAG) != 0) {
+			throw new JMemcachedException("Response entry can not contain entries itself");
+		}
+		if ((entryFlags & CORRELATION_FLAG) != 0) {
+			throw new JMemcachedException("Response entry can not contain correlation id");
+		}
+		if ((entryFlags & COMPACT_FLAG) != 0) {
+			throw new JMemcachedException("Response entry can not define layout of its own");
 		}
+		return entryFlags;
 	}
 }
@@ -0,0 +1,287 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.CAS_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.CHUNKED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.COMPACT_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.COMPRESSED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.CORRELATION_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.DATA_FLAG;
+import static com.revenat.jmemcached.protocol.impl.ResponseConverter.ENTRIES_FLAG;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.revenat.jmemcached.protocol.ResponseDecoder;
+import com.revenat.jmemcached.protocol.model.Response;
+import com.revenat.jmemcached.protocol.model.Status;
+
+/**
+ * Resumable state machine that decodes {@link Response} objects, written in
+ * {@link ResponseConverter} frame layout, from arbitrary chunks of bytes. Not
+ * thread-safe, one instance should be used per connection.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class ResponseFrameDecoder extends AbstractFrameDecoder implements ResponseDecoder {
+
+	private enum State {
+		VERSION, STATUS, FLAGS, CORRELATION_ID, CAS_TOKEN, ENTRIES_COUNT, ENTRY_STATUS, ENTRY_FLAGS, DATA_LENGTH, DATA,
+		CHUNK
+	}
+
+	/**
+	 * Reading of the chunked data block starts with DATA_LENGTH state, which
+	 * reads length of each chunk, and goes through CHUNK state for each chunk
+	 * until chunk of zero length is read.
+	 */
+	private State state = State.VERSION;
+	private Status status;
+	private Integer correlationId;
+	private Long casToken;
+	/**
+	 * Flags of the frame itself
+	 */
+	private byte flags;
+	private Status entryStatus;
+	private byte entryFlags;
+	private Long entryCasToken;
+	private List<Response> entries;
+	private int entriesLeft;
+	private boolean dataCompressed;
+	private boolean dataChunked;
+
+	@Override
+	public Optional<Response> decode(ByteBuffer chunk) {
+		try {
+			return decodeFrame(chunk);
+		} catch (RuntimeException e) {
+			reset();
+			throw e;
+		}
+	}
+
+	private Optional<Response> decodeFrame(ByteBuffer chunk) {
+		for (;;) {
+			Response response = null;
+			switch (state) {
+			case VERSION:
+				if (!chunk.hasRemaining()) {
+					return Optional.empty();
+				}
+				checkProtocolVersion(chunk.get());
+				state = State.STATUS;
+				break;
+			case STATUS:
+				if (!chunk.hasRemaining()) {
+					return Optional.empty();
+				}
+				status = Status.valueOf(chunk.get());
+				state = State.FLAGS;
+				break;
+			case FLAGS:
+				if (!chunk.hasRemaining()) {
+					return Optional.empty();
+				}
+				flags = chunk.get();
+				if ((flags & CORRELATION_FLAG) != 0) {
+					state = State.CORRELATION_ID;
+				} else {
+					response = continueHeader();
+				}
+				break;
+			case CORRELATION_ID:
+				if (!readNumber(chunk, Integer.BYTES)) {
+					return Optional.empty();
+				}
+				correlationId = (int) getNumber();
+				response = continueHeader();
+				break;
+			case CAS_TOKEN:
+				if (!readNumber(chunk, Long.BYTES)) {
+					return Optional.empty();
+				}
+				if (entries == null) {
+					casToken = getNumber();
+					response = startBody();
+				} else {
+					entryCasToken = getNumber();
+					response = startEntryBody();
+				}
+				break;
+			case ENTRIES_COUNT:
+				if (!readNumber(chunk, Integer.BYTES)) {
+					return Optional.empty();
+				}
+				entriesLeft = checkEntriesCount((int) getNumber());
+				entries = new ArrayList<>(initialCapacityFor(entriesLeft));
+				if (entriesLeft == 0) {
+					response = Response.withEntries(status, entries);
+				} else {
+					state = State.ENTRY_STATUS;
+				}
+				break;
+			case ENTRY_STATUS:
+				if (!chunk.hasRemaining()) {
+					return Optional.empty();
+				}
+				entryStatus = Status.valueOf(chunk.get());
+				state = State.ENTRY_FLAGS;
+				break;
+			case ENTRY_FLAGS:
+				if (!chunk.hasRemaining()) {
+					return Optional.empty();
+				}
+				entryFlags = ResponseConverter.checkEntryFlags(chunk.get());
+				if ((entryFlags & CAS_FLAG) != 0) {
+					state = State.CAS_TOKEN;
+				} else {
+					response = startEntryBody();
+				}
+				break;
+			case DATA_LENGTH:
+				if (!readDataLength(chunk)) {
+					return Optional.empty();
+				}
+				int length = hasCompactDataLength() ? VarInt.toLength(getNumber()) : (int) getNumber();
+				if (!dataChunked) {
+					startBlock(length);
+					state = State.DATA;
+				} else if (length != 0) {
+					startBlock(length);
+					state = State.CHUNK;
+				} else {
+					response = completeBody(takeChunks());
+				}
+				break;
+			case DATA:
+				if (!readBlock(chunk)) {
+					return Optional.empty();
+				}
+				response = completeBody(restoreData(takeBlock(), dataCompressed));
+				break;
+			case CHUNK:
+				if (!readBlock(chunk)) {
+					return Optional.empty();
+				}
+				appendChunk(takeBlock());
+				state = State.DATA_LENGTH;
+				break;
+			}
+			if (response != null) {
+				if (casToken != null) {
+					response = response.withCasToken(casToken);
+				}
+				Response decoded = correlationId != null ? response.withCorrelationId(correlationId) : response;
+				reset();
+				return Optional.of(decoded);
+			}
+		}
+	}
+
+	/**
+	 * Continues decoding of the frame header with cas token, if any.
+	 * 
+	 * @return decoded {@link Response} if it has no more parts or {@code null}
+	 */
+	private Response continueHeader() {
+		if ((flags & CAS_FLAG) != 0) {
+			state = State.CAS_TOKEN;
+			return null;
+		}
+		return startBody();
+	}
+
+	/**
+	 * Starts decoding of the frame part that follows its header.
+	 * 
+	 * @return decoded {@link Response} if it has no more parts or {@code null}
+	 */
+	private Response startBody() {
+		if ((flags & ENTRIES_FLAG) != 0) {
+			state = State.ENTRIES_COUNT;
+		} else if ((flags & DATA_FLAG) != 0) {
+			dataCompressed = (flags & COMPRESSED_FLAG) != 0;
+			dataChunked = (flags & CHUNKED_FLAG) != 0;
+			state = State.DATA_LENGTH;
+		} else {
+			return completeBody(null);
+		}
+		return null;
+	}
+
+	/**
+	 * Reads length of the data block or of the next chunk. Chunk lengths are
+	 * always written as fixed-size numbers, while length of the data block
+	 * that is not chunked is written as variable-length number in compact
+	 * frames.
+	 */
+	private boolean readDataLength(ByteBuffer chunk) {
+		return hasCompactDataLength() ? readVarNumber(chunk) : readNumber(chunk, Integer.BYTES);
+	}
+
+	private boolean hasCompactDataLength() {
+		return (flags & COMPACT_FLAG) != 0 && !dataChunked;
+	}
+
+	/**
+	 * Starts decoding of the entry part that follows its flags and cas token.
+	 * 
+	 * @return decoded {@link Response} if it has no more parts or {@code null}
+	 */
+	private Response startEntryBody() {
+		if ((entryFlags & DATA_FLAG) != 0) {
+			dataCompressed = (entryFlags & COMPRESSED_FLAG) != 0;
+			dataChunked = (entryFlags & CHUNKED_FLAG) != 0;
+			state = State.DATA_LENGTH;
+			return null;
+		}
+		return completeBody(null);
+	}
+
+	/**
+	 * Completes data part of the frame or of the entry being decoded.
+	 * 
+	 * @return decoded {@link Response} or {@code null} if more entries follow
+	 */
+	private Response completeBody(byte[] data) {
+		if (entries == null) {
+			return data == null ? Response.empty(status) : Response.withData(status, data);
+		}
+
+		Response entry = data == null ? Response.empty(entryStatus) : Response.withData(entryStatus, data);
+		entries.add(entryCasToken != null ? entry.withCasToken(entryCasToken) : entry);
+		entryStatus = null;
+		entryFlags = 0;
+		entryCasToken = null;
+		if (--entriesLeft == 0) {
+			return Response.withEntries(status, entries);
+		}
+		state = State.ENTRY_STATUS;
+		return null;
+	}
+
+	@Override
+	public boolean hasPartialFrame() {
+		return state != State.VERSION;
+	}
+
+	@Override
+	public void reset() {
+		resetState();
+		state = State.VERSION;
+		status = null;
+		correlationId = null;
+		casToken = null;
+		flags = 0;
+		entryStatus = null;
+		entryFlags = 0;
+		entryCasToken = null;
+		entries = null;
+		entriesLeft = 0;
+		dataCompressed = false;
+		dataChunked = false;
+	}
+}
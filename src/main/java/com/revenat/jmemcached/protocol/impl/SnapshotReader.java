@@ -0,0 +1,186 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static com.revenat.jmemcached.protocol.impl.SnapshotWriter.FORMAT_VERSION;
+import static com.revenat.jmemcached.protocol.impl.SnapshotWriter.HEADER_SIZE;
+import static com.revenat.jmemcached.protocol.impl.SnapshotWriter.MAGIC;
+import static com.revenat.jmemcached.protocol.impl.SnapshotWriter.SEGMENT_INDEX_SIZE;
+import static com.revenat.jmemcached.protocol.impl.SnapshotWriter.TRAILER_SIZE;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.impl.SnapshotWriter.Segment;
+import com.revenat.jmemcached.protocol.model.Command;
+
+/**
+ * Component responsible for loading cache entries from the snapshot file
+ * written by {@link SnapshotWriter}. Segments of the file are mapped into
+ * memory and loaded in parallel, each by its own {@link RequestView}, and
+ * entries that are already expired are skipped without touching their data.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class SnapshotReader implements Closeable {
+	private final FileChannel channel;
+	private final List<Segment> segments;
+	private final long entriesCount;
+
+	/**
+	 * Callback that receives entries loaded from the snapshot.
+	 */
+	@FunctionalInterface
+	public interface EntryLoader {
+		/**
+		 * Loads single entry, which is {@link Command#PUT} request whose
+		 * {@link RequestView#getTtl() ttl}, if present, is absolute expiration
+		 * time in milliseconds since the epoch. View is valid only until this
+		 * method returns, so key and data should be copied. Invoked
+		 * concurrently for entries of different segments.
+		 */
+		void load(RequestView entry);
+	}
+
+	/**
+	 * Opens snapshot stored in the specified {@code file} and reads its index.
+	 * 
+	 * @throws NullPointerException if {@code file} is {@code null}
+	 * @throws JMemcachedException  if file is not a complete snapshot
+	 * @throws IOException
+	 */
+	public SnapshotReader(Path file) throws IOException {
+		requireNonNull(file, "file can not be null");
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			this.segments = readIndex(channel);
+		} catch (JMemcachedException | IOException e) {
+			channel.close();
+			throw e;
+		}
+		long count = 0;
+		for (Segment segment : segments) {
+			count += segment.entries;
+		}
+		this.entriesCount = count;
+	}
+
+	private static List<Segment> readIndex(FileChannel channel) throws IOException {
+		long fileSize = channel.size();
+		if (fileSize < HEADER_SIZE + Integer.BYTES + TRAILER_SIZE) {
+			throw new JMemcachedException("Corrupted snapshot: file is too short");
+		}
+		ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+		if (header.getInt() != MAGIC || header.get() != FORMAT_VERSION) {
+			throw new JMemcachedException("Not a snapshot or unsupported snapshot format");
+		}
+		ByteBuffer trailer = readFully(channel, fileSize - TRAILER_SIZE, TRAILER_SIZE);
+		long indexOffset = trailer.getLong();
+		if (trailer.getInt() != MAGIC || indexOffset < HEADER_SIZE
+				|| indexOffset > fileSize - TRAILER_SIZE - Integer.BYTES) {
+			throw new JMemcachedException("Corrupted snapshot: snapshot was not completed");
+		}
+		ByteBuffer index = readFully(channel, indexOffset, (int) (fileSize - TRAILER_SIZE - indexOffset));
+		int segmentsCount = index.getInt();
+		if (segmentsCount < 0 || index.remaining() != (long) segmentsCount * SEGMENT_INDEX_SIZE) {
+			throw new JMemcachedException("Corrupted snapshot: invalid segments count " + segmentsCount);
+		}
+		List<Segment> segments = new ArrayList<>(segmentsCount);
+		for (int i = 0; i < segmentsCount; i++) {
+			long offset = index.getLong();
+			int length = index.getInt();
+			int entries = index.getInt();
+			if (offset < HEADER_SIZE || length < 0 || entries < 0 || offset + length > indexOffset) {
+				throw new JMemcachedException("Corrupted snapshot: invalid segment " + i);
+			}
+			segments.add(new Segment(offset, length, entries));
+		}
+		return segments;
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new JMemcachedException("Corrupted snapshot: unexpected end of file");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Returns number of entries in the snapshot, including expired ones.
+	 */
+	public long getEntriesCount() {
+		return entriesCount;
+	}
+
+	/**
+	 * Loads entries that are not expired at the moment into the specified
+	 * {@code loader}.
+	 * 
+	 * @return number of loaded entries
+	 * @see #load(EntryLoader, long)
+	 */
+	public long load(EntryLoader loader) throws IOException {
+		return load(loader, System.currentTimeMillis());
+	}
+
+	/**
+	 * Loads entries whose expiration time is after the specified {@code now}
+	 * into the specified {@code loader}. Segments are loaded in parallel using
+	 * {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}, so
+	 * loader should be thread-safe.
+	 * 
+	 * @param now current time in milliseconds since the epoch
+	 * @return number of loaded entries
+	 * @throws NullPointerException if {@code loader} is {@code null}
+	 * @throws JMemcachedException  if snapshot is corrupted
+	 * @throws IOException
+	 */
+	public long load(EntryLoader loader, long now) throws IOException {
+		requireNonNull(loader, "loader can not be null");
+		List<MappedByteBuffer> mappings = new ArrayList<>(segments.size());
+		for (Segment segment : segments) {
+			mappings.add(channel.map(MapMode.READ_ONLY, segment.offset, segment.length));
+		}
+		return mappings.parallelStream().mapToLong(mapping -> loadSegment(mapping, loader, now)).sum();
+	}
+
+	private static long loadSegment(ByteBuffer segment, EntryLoader loader, long now) {
+		RequestView entry = new RequestView();
+		long loaded = 0;
+		try {
+			while (segment.hasRemaining()) {
+				entry.wrap(segment);
+				if (entry.getCommand() != Command.PUT || !entry.hasData()) {
+					throw new JMemcachedException("Corrupted snapshot: unexpected frame " + entry.getCommand());
+				}
+				if (!entry.hasTtl() || entry.getTtl() > now) {
+					loader.load(entry);
+					loaded++;
+				}
+			}
+		} catch (BufferUnderflowException e) {
+			throw new JMemcachedException("Corrupted snapshot: truncated entry", e);
+		}
+		return loaded;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
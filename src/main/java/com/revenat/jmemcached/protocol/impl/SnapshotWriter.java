@@ -0,0 +1,219 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Key;
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * Component responsible for dumping cache entries into the snapshot file, which
+ * is loaded by {@link SnapshotReader} after restart. Each entry is written as
+ * {@link Command#PUT} frame in {@link RequestConverter} layout, where ttl
+ * holds absolute expiration time in milliseconds since the epoch instead of
+ * time-to-live, so that entries expired while cache was down can be skipped.
+ * Frames are written through {@link MappedByteBuffer} into segments, which are
+ * listed in the index at the end of the file, so that segments can be mapped
+ * and loaded in parallel.
+ * <p>
+ * File starts with {@link #MAGIC} and format version - 8 bytes, followed by
+ * segments, index with count of segments - 4 bytes and offset - 8 bytes,
+ * length - 4 bytes and entries count - 4 bytes of each segment, and ends with
+ * offset of the index - 8 bytes and {@link #MAGIC}, so that file which was not
+ * closed properly is rejected. Snapshot should be written into temporary file
+ * and moved over the previous one after it is closed. Not thread-safe.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class SnapshotWriter implements Closeable {
+	/**
+	 * 'JMSN' in ASCII
+	 */
+	static final int MAGIC = 0x4A4D534E;
+	static final byte FORMAT_VERSION = 1;
+	/**
+	 * Magic, format version and 3 reserved bytes
+	 */
+	static final int HEADER_SIZE = 8;
+	/**
+	 * Offset of the index and magic
+	 */
+	static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+	/**
+	 * Offset, length and entries count of the segment
+	 */
+	static final int SEGMENT_INDEX_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private final RequestBufferConverter converter = new RequestBufferConverter();
+	private final FileChannel channel;
+	private final int segmentSize;
+	private final List<Segment> segments = new ArrayList<>();
+	private MappedByteBuffer mapping;
+	private long segmentOffset = HEADER_SIZE;
+	private int segmentEntries;
+	private long entriesCount;
+	private boolean closed;
+
+	/**
+	 * Creates writer that writes snapshot into the specified {@code file} in
+	 * segments of {@link #DEFAULT_SEGMENT_SIZE}, replacing its content.
+	 * 
+	 * @throws NullPointerException if {@code file} is {@code null}
+	 * @throws IOException
+	 */
+	public SnapshotWriter(Path file) throws IOException {
+		this(file, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Creates writer that writes snapshot into the specified {@code file} in
+	 * segments of {@code segmentSize} bytes, replacing its content. Entry whose
+	 * frame is longer than segment size gets a segment of its own.
+	 * 
+	 * @throws NullPointerException      if {@code file} is {@code null}
+	 * @throws JMemcachedConfigException if {@code segmentSize} is not positive
+	 * @throws IOException
+	 */
+	public SnapshotWriter(Path file, int segmentSize) throws IOException {
+		requireNonNull(file, "file can not be null");
+		if (segmentSize <= 0) {
+			throw new JMemcachedConfigException("segmentSize should be positive: " + segmentSize);
+		}
+		this.segmentSize = segmentSize;
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).put(FORMAT_VERSION).flip();
+		channel.write(header, 0);
+	}
+
+	/**
+	 * Writes entry with the specified {@code key} and remaining bytes of the
+	 * {@code data} buffer, without changing its position.
+	 * 
+	 * @param expiresAt optional, absolute expiration time of the entry in
+	 *                  milliseconds since the epoch
+	 * @throws NullPointerException if {@code key} or {@code data} is
+	 *                              {@code null}
+	 * @throws JMemcachedException  if writer is closed or entry is too large
+	 * @throws IOException
+	 */
+	public void write(Key key, ByteBuffer data, Long expiresAt) throws IOException {
+		requireNonNull(key, "key can not be null");
+		requireNonNull(data, "data can not be null");
+		checkNotClosed();
+		Request request = Request.withRawKeyAndData(Command.PUT, key, toArray(data), expiresAt);
+		int frameSize = converter.encodedSize(request);
+		if (frameSize < 0) {
+			throw new JMemcachedException("Entry is too large: " + data.remaining() + " bytes of data");
+		}
+		ensureCapacity(frameSize);
+		converter.writeTo(mapping, request);
+		segmentEntries++;
+		entriesCount++;
+	}
+
+	private static byte[] toArray(ByteBuffer data) {
+		if (data.hasArray() && data.arrayOffset() + data.position() == 0 && data.remaining() == data.array().length) {
+			return data.array();
+		}
+		byte[] array = new byte[data.remaining()];
+		data.duplicate().get(array);
+		return array;
+	}
+
+	private void ensureCapacity(int frameSize) throws IOException {
+		if (mapping != null && mapping.remaining() >= frameSize) {
+			return;
+		}
+		finishSegment();
+		mapping = channel.map(MapMode.READ_WRITE, segmentOffset, Math.max(segmentSize, frameSize));
+	}
+
+	private void finishSegment() {
+		if (mapping == null) {
+			return;
+		}
+		mapping.force();
+		if (segmentEntries > 0) {
+			segments.add(new Segment(segmentOffset, mapping.position(), segmentEntries));
+		}
+		segmentOffset += mapping.position();
+		segmentEntries = 0;
+		mapping = null;
+	}
+
+	/**
+	 * Returns number of entries written so far.
+	 */
+	public long getEntriesCount() {
+		return entriesCount;
+	}
+
+	/**
+	 * Writes index of the segments, cuts off unused space of the last segment
+	 * and closes the file.
+	 * 
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			finishSegment();
+			ByteBuffer index = ByteBuffer.allocate(Integer.BYTES + segments.size() * SEGMENT_INDEX_SIZE + TRAILER_SIZE);
+			index.putInt(segments.size());
+			for (Segment segment : segments) {
+				index.putLong(segment.offset).putInt(segment.length).putInt(segment.entries);
+			}
+			index.putLong(segmentOffset).putInt(MAGIC).flip();
+			long position = segmentOffset;
+			while (index.hasRemaining()) {
+				position += channel.write(index, position);
+			}
+			channel.truncate(position);
+			channel.force(true);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void checkNotClosed() {
+		if (closed) {
+			throw new JMemcachedException("Snapshot writer is closed");
+		}
+	}
+
+	/**
+	 * Location and entries count of the segment, as listed in the index
+	 */
+	static final class Segment {
+		final long offset;
+		final int length;
+		final int entries;
+
+		Segment(long offset, int length, int entries) {
+			this.offset = offset;
+			this.length = length;
+			this.entries = entries;
+		}
+	}
+}
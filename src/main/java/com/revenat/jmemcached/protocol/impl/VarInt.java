@@ -0,0 +1,154 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+/**
+ * Utility methods for variable-length numbers used by the compact frame
+ * layout. Number is written in groups of 7 bits, starting from the lowest
+ * ones, where the highest bit of each byte tells whether more bytes follow,
+ * so that numbers below 128 take 1 byte and any {@code long} takes at most
+ * {@link #MAX_BYTES} bytes.
+ * <p>
+ * Ttl is written as variable-length number with the lowest bit telling its
+ * unit: whole seconds are written in seconds, the rest in milliseconds. The
+ * other bits hold zigzag-encoded ttl, so that small negative ttl is compact
+ * as well.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+final class VarInt {
+	/**
+	 * Maximum number of bytes of the variable-length {@code long}
+	 */
+	static final int MAX_BYTES = 10;
+
+	private static final long MILLIS_IN_SECOND = 1000;
+	private static final long SECONDS_UNIT = 1;
+	/**
+	 * Ttl in milliseconds should fit into 62 bits to leave room for the sign
+	 * and unit bits
+	 */
+	private static final long MAX_MILLIS_TTL = (1L << 62) - 1;
+	private static final long MIN_MILLIS_TTL = -(1L << 62);
+
+	private VarInt() {
+	}
+
+	/**
+	 * Returns number of bytes of the specified variable-length {@code value}.
+	 */
+	static int sizeOf(long value) {
+		int size = 1;
+		while ((value & ~0x7FL) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	static void write(DataOutput output, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			output.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		output.writeByte((int) value);
+	}
+
+	/**
+	 * @throws java.nio.BufferOverflowException if buffer has not enough space
+	 */
+	static void write(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * @throws JMemcachedException if number is longer than {@link #MAX_BYTES}
+	 * @throws IOException
+	 */
+	static long read(DataInput input) throws IOException {
+		long value = 0;
+		for (int i = 0; i < MAX_BYTES; i++) {
+			byte b = input.readByte();
+			value |= (long) (b & 0x7F) << (7 * i);
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new JMemcachedException("Variable-length number is longer than " + MAX_BYTES + " bytes");
+	}
+
+	/**
+	 * @throws BufferUnderflowException if buffer does not contain the whole
+	 *                                  number
+	 * @throws JMemcachedException      if number is longer than
+	 *                                  {@link #MAX_BYTES}
+	 */
+	static long read(ByteBuffer buffer) {
+		long value = 0;
+		for (int i = 0; i < MAX_BYTES; i++) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << (7 * i);
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new JMemcachedException("Variable-length number is longer than " + MAX_BYTES + " bytes");
+	}
+
+	/**
+	 * Converts variable-length number read from the frame into the length of
+	 * the data block.
+	 * 
+	 * @throws JMemcachedException if value is not a valid length
+	 */
+	static int toLength(long value) {
+		if (value < 0 || value > Integer.MAX_VALUE) {
+			throw new JMemcachedException("Invalid data length: " + value);
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Checks whether specified {@code ttl} can be written in compact form
+	 * without loss, which is true for any ttl in whole seconds and for ttl
+	 * in milliseconds within range of 62 bits.
+	 */
+	static boolean isCompact(long ttl) {
+		return ttl % MILLIS_IN_SECOND == 0 || (ttl >= MIN_MILLIS_TTL && ttl <= MAX_MILLIS_TTL);
+	}
+
+	/**
+	 * Returns variable-length number that represents specified {@code ttl},
+	 * which should be {@link #isCompact(long) compact}.
+	 */
+	static long encodeTtl(long ttl) {
+		if (ttl % MILLIS_IN_SECOND == 0) {
+			return zigzag(ttl / MILLIS_IN_SECOND) << 1 | SECONDS_UNIT;
+		}
+		return zigzag(ttl) << 1;
+	}
+
+	static long decodeTtl(long value) {
+		long ttl = unzigzag(value >>> 1);
+		return (value & SECONDS_UNIT) != 0 ? ttl * MILLIS_IN_SECOND : ttl;
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,86 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Status;
+
+/**
+ * {@link ProtocolMetrics} implementation that accumulates measurements in
+ * memory using lock-free counters and histograms, which don't allocate any
+ * objects while recording. Accumulated measurements can be obtained with
+ * {@link #snapshot()} at any time.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class DefaultProtocolMetrics implements ProtocolMetrics {
+	private static final Command[] COMMANDS = Command.values();
+	private static final Status[] STATUSES = Status.values();
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final OperationMetrics[] requests = new OperationMetrics[DIRECTIONS.length];
+	private final OperationMetrics[] responses = new OperationMetrics[DIRECTIONS.length];
+	/**
+	 * Objects are not counted by any key, so their only key is direction
+	 */
+	private final OperationMetrics[] objects = new OperationMetrics[DIRECTIONS.length];
+
+	public DefaultProtocolMetrics() {
+		for (Direction direction : DIRECTIONS) {
+			requests[direction.ordinal()] = new OperationMetrics(COMMANDS.length);
+			responses[direction.ordinal()] = new OperationMetrics(STATUSES.length);
+			objects[direction.ordinal()] = new OperationMetrics(1);
+		}
+	}
+
+	@Override
+	public void recordRequest(Direction direction, Command command, int frameSize, int dataSize,
+			long latencyNanos) {
+		requests[direction.ordinal()].record(command.ordinal(), frameSize, dataSize, latencyNanos);
+	}
+
+	@Override
+	public void recordRequestFailure(Direction direction, Command command) {
+		requests[direction.ordinal()]
+				.recordFailure(command != null ? command.ordinal() : OperationMetrics.UNKNOWN_KEY);
+	}
+
+	@Override
+	public void recordResponse(Direction direction, Status status, int frameSize, int dataSize,
+			long latencyNanos) {
+		responses[direction.ordinal()].record(status.ordinal(), frameSize, dataSize, latencyNanos);
+	}
+
+	@Override
+	public void recordResponseFailure(Direction direction, Status status) {
+		responses[direction.ordinal()]
+				.recordFailure(status != null ? status.ordinal() : OperationMetrics.UNKNOWN_KEY);
+	}
+
+	@Override
+	public void recordObject(Direction direction, int size, long latencyNanos) {
+		objects[direction.ordinal()].record(0, size, size, latencyNanos);
+	}
+
+	@Override
+	public void recordObjectFailure(Direction direction) {
+		objects[direction.ordinal()].recordFailure(0);
+	}
+
+	/**
+	 * Returns snapshot of the measurements accumulated so far.
+	 */
+	public MetricsSnapshot snapshot() {
+		Map<Direction, OperationSnapshot<Command>> requestSnapshots = new EnumMap<>(Direction.class);
+		Map<Direction, OperationSnapshot<Status>> responseSnapshots = new EnumMap<>(Direction.class);
+		Map<Direction, OperationSnapshot<Direction>> objectSnapshots = new EnumMap<>(Direction.class);
+		for (Direction direction : DIRECTIONS) {
+			requestSnapshots.put(direction, requests[direction.ordinal()].snapshot(COMMANDS));
+			responseSnapshots.put(direction, responses[direction.ordinal()].snapshot(STATUSES));
+			objectSnapshots.put(direction, objects[direction.ordinal()].snapshot(new Direction[] { direction }));
+		}
+		return new MetricsSnapshot(requestSnapshots, responseSnapshots, objectSnapshots);
+	}
+}
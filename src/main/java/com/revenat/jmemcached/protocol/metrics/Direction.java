@@ -0,0 +1,13 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+/**
+ * Direction of the recorded protocol operation: reading (decoding, deserializing)
+ * or writing (encoding, serializing).
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public enum Direction {
+	READ,
+	WRITE
+}
@@ -0,0 +1,53 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import java.util.List;
+
+import com.revenat.jmemcached.protocol.impl.RequestBufferConverter;
+import com.revenat.jmemcached.protocol.impl.ResponseBufferConverter;
+import com.revenat.jmemcached.protocol.model.Entry;
+import com.revenat.jmemcached.protocol.model.Request;
+import com.revenat.jmemcached.protocol.model.Response;
+
+/**
+ * Utility methods that compute sizes of the frames from their content without
+ * allocating any objects. Frame size is computed by the buffer converter of
+ * the layout used by metered peer, which is {@link #DEFAULT_REQUEST_SIZES} or
+ * {@link #DEFAULT_RESPONSE_SIZES} unless decorator is created with the
+ * negotiated {@link com.revenat.jmemcached.protocol.model.Handshake}. Frame
+ * size is computed for the uncompressed data, so it can exceed the number of
+ * bytes actually transferred for the compressed frames.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+final class FrameSizes {
+	/**
+	 * Computes sizes of the request frames written without negotiation
+	 */
+	static final RequestBufferConverter DEFAULT_REQUEST_SIZES = new RequestBufferConverter();
+	/**
+	 * Computes sizes of the response frames written without negotiation
+	 */
+	static final ResponseBufferConverter DEFAULT_RESPONSE_SIZES = new ResponseBufferConverter();
+
+	private FrameSizes() {
+	}
+
+	static int dataSizeOf(Request request) {
+		int size = request.getDataLength();
+		List<Entry> entries = request.getEntries();
+		for (int i = 0; i < entries.size(); i++) {
+			size += entries.get(i).getDataLength();
+		}
+		return size;
+	}
+
+	static int dataSizeOf(Response response) {
+		int size = response.getDataLength();
+		List<Response> entries = response.getEntries();
+		for (int i = 0; i < entries.size(); i++) {
+			size += entries.get(i).getDataLength();
+		}
+		return size;
+	}
+}
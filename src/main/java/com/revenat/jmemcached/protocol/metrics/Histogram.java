@@ -0,0 +1,53 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values with power of two buckets: bucket
+ * {@code i} counts values from {@code 2^(i-1)} to {@code 2^i - 1}, while
+ * bucket {@code 0} counts zeros. Recording a value doesn't allocate any
+ * objects, negative values are recorded as zeros.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+final class Histogram {
+	static final int BUCKET_COUNT = Long.SIZE;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	Histogram() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	void record(long value) {
+		long recorded = Math.max(value, 0);
+		buckets[bucketOf(recorded)].increment();
+		sum.add(recorded);
+		max.accumulate(recorded);
+	}
+
+	static int bucketOf(long value) {
+		return Long.SIZE - Long.numberOfLeadingZeros(value);
+	}
+
+	/**
+	 * Returns the largest value counted by bucket with the specified index.
+	 */
+	static long upperBoundOf(int bucket) {
+		return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+
+	HistogramSnapshot snapshot() {
+		long[] counts = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets[i].sum();
+		}
+		return new HistogramSnapshot(counts, sum.sum(), max.get());
+	}
+}
@@ -0,0 +1,79 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+/**
+ * This immutable component represents state of the histogram of latencies or
+ * sizes at the moment the snapshot was taken. Percentiles are approximated by
+ * the upper bound of the power of two bucket they fall into, so they are
+ * accurate within factor of two.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class HistogramSnapshot {
+	private final long[] bucketCounts;
+	private final long count;
+	private final long sum;
+	private final long max;
+
+	HistogramSnapshot(long[] bucketCounts, long sum, long max) {
+		this.bucketCounts = bucketCounts;
+		this.sum = sum;
+		this.max = max;
+		long total = 0;
+		for (long bucketCount : bucketCounts) {
+			total += bucketCount;
+		}
+		this.count = total;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getSum() {
+		return sum;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns mean of the recorded values or {@code 0} if there are no values.
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * Returns approximate value below which specified {@code percentile} of the
+	 * recorded values fall, or {@code 0} if there are no values.
+	 * 
+	 * @param percentile percentile from 0 to 100
+	 * @throws IllegalArgumentException if {@code percentile} is out of range
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile should be from 0 to 100: " + percentile);
+		}
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < bucketCounts.length; i++) {
+			seen += bucketCounts[i];
+			if (seen >= rank) {
+				return Math.min(Histogram.upperBoundOf(i), max);
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, mean=%.1f, p50=%d, p99=%d, max=%d", count, getMean(), getPercentile(50),
+				getPercentile(99), max);
+	}
+}
@@ -0,0 +1,42 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+import com.revenat.jmemcached.protocol.ObjectDeserializer;
+
+/**
+ * {@link ObjectDeserializer} decorator that records size of every
+ * deserialized object, latency of deserialization and failures in the
+ * provided {@link ProtocolMetrics}.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class MeteredObjectDeserializer implements ObjectDeserializer {
+	private final ObjectDeserializer delegate;
+	private final ProtocolMetrics metrics;
+
+	public MeteredObjectDeserializer(ObjectDeserializer delegate, ProtocolMetrics metrics) {
+		this.delegate = requireNonNull(delegate, "delegate can not be null");
+		this.metrics = requireNonNull(metrics, "metrics can not be null");
+	}
+
+	@Override
+	public Optional<Serializable> fromByteArray(byte[] data) {
+		long start = System.nanoTime();
+		Optional<Serializable> object;
+		try {
+			object = delegate.fromByteArray(data);
+		} catch (RuntimeException e) {
+			metrics.recordObjectFailure(Direction.READ);
+			throw e;
+		}
+		long latency = System.nanoTime() - start;
+
+		metrics.recordObject(Direction.READ, data != null ? data.length : 0, latency);
+		return object;
+	}
+}
@@ -0,0 +1,39 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import com.revenat.jmemcached.protocol.ObjectSerializer;
+
+/**
+ * {@link ObjectSerializer} decorator that records size of every serialized
+ * object, latency of serialization and failures in the provided
+ * {@link ProtocolMetrics}.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class MeteredObjectSerializer implements ObjectSerializer {
+	private final ObjectSerializer delegate;
+	private final ProtocolMetrics metrics;
+
+	public MeteredObjectSerializer(ObjectSerializer delegate, ProtocolMetrics metrics) {
+		this.delegate = requireNonNull(delegate, "delegate can not be null");
+		this.metrics = requireNonNull(metrics, "metrics can not be null");
+	}
+
+	@Override
+	public byte[] toByteArray(Object object) {
+		long start = System.nanoTime();
+		byte[] data;
+		try {
+			data = delegate.toByteArray(object);
+		} catch (RuntimeException e) {
+			metrics.recordObjectFailure(Direction.WRITE);
+			throw e;
+		}
+		long latency = System.nanoTime() - start;
+
+		metrics.recordObject(Direction.WRITE, data != null ? data.length : 0, latency);
+		return data;
+	}
+}
@@ -0,0 +1,73 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.revenat.jmemcached.protocol.RequestReader;
+import com.revenat.jmemcached.protocol.impl.RequestBufferConverter;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * {@link RequestReader} decorator that records every read request, its size,
+ * latency and failures in the provided {@link ProtocolMetrics}.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class MeteredRequestReader implements RequestReader {
+	private final RequestReader delegate;
+	private final ProtocolMetrics metrics;
+	private final RequestBufferConverter frameSizes;
+
+	/**
+	 * Creates decorator that records sizes of the frames of the protocol
+	 * version 1.0 written without negotiation.
+	 * 
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	public MeteredRequestReader(RequestReader delegate, ProtocolMetrics metrics) {
+		this(delegate, metrics, FrameSizes.DEFAULT_REQUEST_SIZES);
+	}
+
+	/**
+	 * Creates decorator that records sizes of the frames of the protocol
+	 * negotiated by the specified {@code handshake}, so that they follow
+	 * negotiated layout, such as compact lengths.
+	 * 
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	public MeteredRequestReader(RequestReader delegate, ProtocolMetrics metrics, Handshake handshake) {
+		this(delegate, metrics, new RequestBufferConverter(handshake));
+	}
+
+	private MeteredRequestReader(RequestReader delegate, ProtocolMetrics metrics, RequestBufferConverter frameSizes) {
+		this.delegate = requireNonNull(delegate, "delegate can not be null");
+		this.metrics = requireNonNull(metrics, "metrics can not be null");
+		this.frameSizes = frameSizes;
+	}
+
+	/**
+	 * Reads request using decorated reader. Failures are recorded without
+	 * Command, since it can't be known, and include {@link java.io.EOFException}
+	 * thrown by the reader when connection is closed.
+	 */
+	@Override
+	public Request readFrom(InputStream input) throws IOException {
+		long start = System.nanoTime();
+		Request request;
+		try {
+			request = delegate.readFrom(input);
+		} catch (IOException | RuntimeException e) {
+			metrics.recordRequestFailure(Direction.READ, null);
+			throw e;
+		}
+		long latency = System.nanoTime() - start;
+
+		metrics.recordRequest(Direction.READ, request.getCommand(), frameSizes.encodedSize(request),
+				FrameSizes.dataSizeOf(request), latency);
+		return request;
+	}
+}
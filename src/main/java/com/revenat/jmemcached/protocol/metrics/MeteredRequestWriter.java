@@ -0,0 +1,66 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.revenat.jmemcached.protocol.RequestWriter;
+import com.revenat.jmemcached.protocol.impl.RequestBufferConverter;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Request;
+
+/**
+ * {@link RequestWriter} decorator that records every written request, its
+ * size, latency and failures in the provided {@link ProtocolMetrics}.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class MeteredRequestWriter implements RequestWriter {
+	private final RequestWriter delegate;
+	private final ProtocolMetrics metrics;
+	private final RequestBufferConverter frameSizes;
+
+	/**
+	 * Creates decorator that records sizes of the frames of the protocol
+	 * version 1.0 written without negotiation.
+	 * 
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	public MeteredRequestWriter(RequestWriter delegate, ProtocolMetrics metrics) {
+		this(delegate, metrics, FrameSizes.DEFAULT_REQUEST_SIZES);
+	}
+
+	/**
+	 * Creates decorator that records sizes of the frames of the protocol
+	 * negotiated by the specified {@code handshake}, so that they follow
+	 * negotiated layout, such as compact lengths.
+	 * 
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	public MeteredRequestWriter(RequestWriter delegate, ProtocolMetrics metrics, Handshake handshake) {
+		this(delegate, metrics, new RequestBufferConverter(handshake));
+	}
+
+	private MeteredRequestWriter(RequestWriter delegate, ProtocolMetrics metrics, RequestBufferConverter frameSizes) {
+		this.delegate = requireNonNull(delegate, "delegate can not be null");
+		this.metrics = requireNonNull(metrics, "metrics can not be null");
+		this.frameSizes = frameSizes;
+	}
+
+	@Override
+	public void writeTo(OutputStream output, Request request) throws IOException {
+		long start = System.nanoTime();
+		try {
+			delegate.writeTo(output, request);
+		} catch (IOException | RuntimeException e) {
+			metrics.recordRequestFailure(Direction.WRITE, request != null ? request.getCommand() : null);
+			throw e;
+		}
+		long latency = System.nanoTime() - start;
+
+		metrics.recordRequest(Direction.WRITE, request.getCommand(), frameSizes.encodedSize(request),
+				FrameSizes.dataSizeOf(request), latency);
+	}
+}
@@ -0,0 +1,73 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.revenat.jmemcached.protocol.ResponseReader;
+import com.revenat.jmemcached.protocol.impl.ResponseBufferConverter;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Response;
+
+/**
+ * {@link ResponseReader} decorator that records every read response, its size,
+ * latency and failures in the provided {@link ProtocolMetrics}.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class MeteredResponseReader implements ResponseReader {
+	private final ResponseReader delegate;
+	private final ProtocolMetrics metrics;
+	private final ResponseBufferConverter frameSizes;
+
+	/**
+	 * Creates decorator that records sizes of the frames of the protocol
+	 * version 1.0 written without negotiation.
+	 * 
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	public MeteredResponseReader(ResponseReader delegate, ProtocolMetrics metrics) {
+		this(delegate, metrics, FrameSizes.DEFAULT_RESPONSE_SIZES);
+	}
+
+	/**
+	 * Creates decorator that records sizes of the frames of the protocol
+	 * negotiated by the specified {@code handshake}, so that they follow
+	 * negotiated layout, such as compact lengths.
+	 * 
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	public MeteredResponseReader(ResponseReader delegate, ProtocolMetrics metrics, Handshake handshake) {
+		this(delegate, metrics, new ResponseBufferConverter(handshake));
+	}
+
+	private MeteredResponseReader(ResponseReader delegate, ProtocolMetrics metrics, ResponseBufferConverter frameSizes) {
+		this.delegate = requireNonNull(delegate, "delegate can not be null");
+		this.metrics = requireNonNull(metrics, "metrics can not be null");
+		this.frameSizes = frameSizes;
+	}
+
+	/**
+	 * Reads response using decorated reader. Failures are recorded without
+	 * Status, since it can't be known, and include {@link java.io.EOFException}
+	 * thrown by the reader when connection is closed.
+	 */
+	@Override
+	public Response readFrom(InputStream input) throws IOException {
+		long start = System.nanoTime();
+		Response response;
+		try {
+			response = delegate.readFrom(input);
+		} catch (IOException | RuntimeException e) {
+			metrics.recordResponseFailure(Direction.READ, null);
+			throw e;
+		}
+		long latency = System.nanoTime() - start;
+
+		metrics.recordResponse(Direction.READ, response.getStatus(), frameSizes.encodedSize(response),
+				FrameSizes.dataSizeOf(response), latency);
+		return response;
+	}
+}
@@ -0,0 +1,66 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.revenat.jmemcached.protocol.ResponseWriter;
+import com.revenat.jmemcached.protocol.impl.ResponseBufferConverter;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Response;
+
+/**
+ * {@link ResponseWriter} decorator that records every written response, its
+ * size, latency and failures in the provided {@link ProtocolMetrics}.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class MeteredResponseWriter implements ResponseWriter {
+	private final ResponseWriter delegate;
+	private final ProtocolMetrics metrics;
+	private final ResponseBufferConverter frameSizes;
+
+	/**
+	 * Creates decorator that records sizes of the frames of the protocol
+	 * version 1.0 written without negotiation.
+	 * 
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	public MeteredResponseWriter(ResponseWriter delegate, ProtocolMetrics metrics) {
+		this(delegate, metrics, FrameSizes.DEFAULT_RESPONSE_SIZES);
+	}
+
+	/**
+	 * Creates decorator that records sizes of the frames of the protocol
+	 * negotiated by the specified {@code handshake}, so that they follow
+	 * negotiated layout, such as compact lengths.
+	 * 
+	 * @throws NullPointerException if any of the parameters is {@code null}
+	 */
+	public MeteredResponseWriter(ResponseWriter delegate, ProtocolMetrics metrics, Handshake handshake) {
+		this(delegate, metrics, new ResponseBufferConverter(handshake));
+	}
+
+	private MeteredResponseWriter(ResponseWriter delegate, ProtocolMetrics metrics, ResponseBufferConverter frameSizes) {
+		this.delegate = requireNonNull(delegate, "delegate can not be null");
+		this.metrics = requireNonNull(metrics, "metrics can not be null");
+		this.frameSizes = frameSizes;
+	}
+
+	@Override
+	public void writeTo(OutputStream output, Response response) throws IOException {
+		long start = System.nanoTime();
+		try {
+			delegate.writeTo(output, response);
+		} catch (IOException | RuntimeException e) {
+			metrics.recordResponseFailure(Direction.WRITE, response != null ? response.getStatus() : null);
+			throw e;
+		}
+		long latency = System.nanoTime() - start;
+
+		metrics.recordResponse(Direction.WRITE, response.getStatus(), frameSizes.encodedSize(response),
+				FrameSizes.dataSizeOf(response), latency);
+	}
+}
@@ -0,0 +1,58 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import java.util.Map;
+
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Status;
+
+/**
+ * This immutable component represents all measurements accumulated by
+ * {@link DefaultProtocolMetrics} at the moment the snapshot was taken. Since
+ * measurements are recorded concurrently, snapshot is not guaranteed to be
+ * consistent across different operations.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class MetricsSnapshot {
+	private final Map<Direction, OperationSnapshot<Command>> requests;
+	private final Map<Direction, OperationSnapshot<Status>> responses;
+	private final Map<Direction, OperationSnapshot<Direction>> objects;
+
+	MetricsSnapshot(Map<Direction, OperationSnapshot<Command>> requests,
+			Map<Direction, OperationSnapshot<Status>> responses,
+			Map<Direction, OperationSnapshot<Direction>> objects) {
+		this.requests = requests;
+		this.responses = responses;
+		this.objects = objects;
+	}
+
+	/**
+	 * Returns measurements of the requests read or written, counted by
+	 * {@link Command}.
+	 */
+	public OperationSnapshot<Command> getRequests(Direction direction) {
+		return requests.get(direction);
+	}
+
+	/**
+	 * Returns measurements of the responses read or written, counted by
+	 * {@link Status}.
+	 */
+	public OperationSnapshot<Status> getResponses(Direction direction) {
+		return responses.get(direction);
+	}
+
+	/**
+	 * Returns measurements of the objects deserialized ({@link Direction#READ})
+	 * or serialized ({@link Direction#WRITE}), counted by their direction.
+	 */
+	public OperationSnapshot<Direction> getObjects(Direction direction) {
+		return objects.get(direction);
+	}
+
+	@Override
+	public String toString() {
+		return "requests=" + requests + ", responses=" + responses + ", objects=" + objects;
+	}
+}
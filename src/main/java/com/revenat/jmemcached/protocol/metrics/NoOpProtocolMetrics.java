@@ -0,0 +1,45 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Status;
+
+/**
+ * {@link ProtocolMetrics} implementation that ignores all measurements.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+final class NoOpProtocolMetrics implements ProtocolMetrics {
+
+	@Override
+	public void recordRequest(Direction direction, Command command, int frameSize, int dataSize,
+			long latencyNanos) {
+		// does nothing
+	}
+
+	@Override
+	public void recordRequestFailure(Direction direction, Command command) {
+		// does nothing
+	}
+
+	@Override
+	public void recordResponse(Direction direction, Status status, int frameSize, int dataSize,
+			long latencyNanos) {
+		// does nothing
+	}
+
+	@Override
+	public void recordResponseFailure(Direction direction, Status status) {
+		// does nothing
+	}
+
+	@Override
+	public void recordObject(Direction direction, int size, long latencyNanos) {
+		// does nothing
+	}
+
+	@Override
+	public void recordObjectFailure(Direction direction) {
+		// does nothing
+	}
+}
@@ -0,0 +1,72 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free accumulator of the measurements of one kind of operation, such
+ * as reading of requests. Successful and failed operations are counted per key,
+ * such as {@link com.revenat.jmemcached.protocol.model.Command Command} of the
+ * request, which is identified by its index, while failures with unknown key
+ * are counted separately.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+final class OperationMetrics {
+	static final int UNKNOWN_KEY = -1;
+
+	private final LongAdder[] counts;
+	private final LongAdder[] failures;
+	private final LongAdder unknownFailures = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private final Histogram latency = new Histogram();
+	private final Histogram sizes = new Histogram();
+
+	OperationMetrics(int keyCount) {
+		counts = newAdders(keyCount);
+		failures = newAdders(keyCount);
+	}
+
+	private static LongAdder[] newAdders(int count) {
+		LongAdder[] adders = new LongAdder[count];
+		for (int i = 0; i < count; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+
+	void record(int key, int frameSize, int dataSize, long latencyNanos) {
+		counts[key].increment();
+		bytes.add(frameSize);
+		sizes.record(dataSize);
+		latency.record(latencyNanos);
+	}
+
+	/**
+	 * @param key index of the key or {@link #UNKNOWN_KEY}
+	 */
+	void recordFailure(int key) {
+		if (key == UNKNOWN_KEY) {
+			unknownFailures.increment();
+		} else {
+			failures[key].increment();
+		}
+	}
+
+	/**
+	 * Creates snapshot of the accumulated measurements, where key with index
+	 * {@code i} is {@code keys[i]}.
+	 */
+	<K> OperationSnapshot<K> snapshot(K[] keys) {
+		Map<K, Long> countsByKey = new LinkedHashMap<>();
+		Map<K, Long> failuresByKey = new LinkedHashMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			countsByKey.put(keys[i], counts[i].sum());
+			failuresByKey.put(keys[i], failures[i].sum());
+		}
+		return new OperationSnapshot<>(countsByKey, failuresByKey, unknownFailures.sum(), bytes.sum(),
+				latency.snapshot(), sizes.snapshot());
+	}
+}
@@ -0,0 +1,109 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * This immutable component represents measurements of one kind of operation,
+ * such as reading of requests, at the moment the snapshot was taken.
+ * 
+ * @author Vitaly Dragun
+ *
+ * @param <K> type of the key operations are counted by, such as
+ *            {@link com.revenat.jmemcached.protocol.model.Command Command}
+ */
+public class OperationSnapshot<K> {
+	private final Map<K, Long> counts;
+	private final Map<K, Long> failures;
+	private final long unknownFailures;
+	private final long bytes;
+	private final HistogramSnapshot latency;
+	private final HistogramSnapshot sizes;
+
+	OperationSnapshot(Map<K, Long> counts, Map<K, Long> failures, long unknownFailures, long bytes,
+			HistogramSnapshot latency, HistogramSnapshot sizes) {
+		this.counts = Collections.unmodifiableMap(counts);
+		this.failures = Collections.unmodifiableMap(failures);
+		this.unknownFailures = unknownFailures;
+		this.bytes = bytes;
+		this.latency = latency;
+		this.sizes = sizes;
+	}
+
+	/**
+	 * Returns total number of the successful operations.
+	 */
+	public long getCount() {
+		return latency.getCount();
+	}
+
+	/**
+	 * Returns number of the successful operations with the specified
+	 * {@code key}.
+	 */
+	public long getCount(K key) {
+		return counts.getOrDefault(key, 0L);
+	}
+
+	/**
+	 * Returns unmodifiable map of the numbers of the successful operations by
+	 * their keys.
+	 */
+	public Map<K, Long> getCounts() {
+		return counts;
+	}
+
+	/**
+	 * Returns total number of the failed operations, including ones with
+	 * unknown key.
+	 */
+	public long getFailureCount() {
+		long total = unknownFailures;
+		for (long failureCount : failures.values()) {
+			total += failureCount;
+		}
+		return total;
+	}
+
+	/**
+	 * Returns number of the failed operations with the specified {@code key}.
+	 */
+	public long getFailureCount(K key) {
+		return failures.getOrDefault(key, 0L);
+	}
+
+	/**
+	 * Returns number of the failed operations whose key is unknown, such as
+	 * requests that could not be decoded.
+	 */
+	public long getUnknownFailureCount() {
+		return unknownFailures;
+	}
+
+	/**
+	 * Returns total size of the frames or serialized objects in bytes.
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns histogram of the operation latencies in nanoseconds.
+	 */
+	public HistogramSnapshot getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Returns histogram of the data or serialized object sizes in bytes.
+	 */
+	public HistogramSnapshot getSizes() {
+		return sizes;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, failures=%d, bytes=%d, latency ns: [%s], sizes: [%s]", getCount(),
+				getFailureCount(), bytes, latency, sizes);
+	}
+}
@@ -0,0 +1,78 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Status;
+
+/**
+ * Service provider interface that receives measurements of the protocol
+ * operations from the metered decorators, such as {@link MeteredRequestReader}.
+ * Methods are called on the hot path by any number of threads, so
+ * implementations should be thread-safe, should not block and should not
+ * allocate objects. {@link #NO_OP} implementation ignores all measurements,
+ * while {@link DefaultProtocolMetrics} accumulates them in memory.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface ProtocolMetrics {
+	/**
+	 * Implementation that ignores all measurements
+	 */
+	ProtocolMetrics NO_OP = new NoOpProtocolMetrics();
+
+	/**
+	 * Records successfully read or written request.
+	 * 
+	 * @param direction    direction of the operation
+	 * @param command      command of the request
+	 * @param frameSize    size of the request frame in bytes
+	 * @param dataSize     total size of the data carried by the request in bytes
+	 * @param latencyNanos duration of the operation in nanoseconds
+	 */
+	void recordRequest(Direction direction, Command command, int frameSize, int dataSize, long latencyNanos);
+
+	/**
+	 * Records request that failed to be read or written.
+	 * 
+	 * @param direction direction of the operation
+	 * @param command   command of the request or {@code null} if it is unknown,
+	 *                  as it is for the requests failed to be read
+	 */
+	void recordRequestFailure(Direction direction, Command command);
+
+	/**
+	 * Records successfully read or written response.
+	 * 
+	 * @param direction    direction of the operation
+	 * @param status       status of the response
+	 * @param frameSize    size of the response frame in bytes
+	 * @param dataSize     total size of the data carried by the response in
+	 *                     bytes
+	 * @param latencyNanos duration of the operation in nanoseconds
+	 */
+	void recordResponse(Direction direction, Status status, int frameSize, int dataSize, long latencyNanos);
+
+	/**
+	 * Records response that failed to be read or written.
+	 * 
+	 * @param direction direction of the operation
+	 * @param status    status of the response or {@code null} if it is unknown,
+	 *                  as it is for the responses failed to be read
+	 */
+	void recordResponseFailure(Direction direction, Status status);
+
+	/**
+	 * Records successfully deserialized ({@link Direction#READ}) or serialized
+	 * ({@link Direction#WRITE}) object.
+	 * 
+	 * @param direction    direction of the operation
+	 * @param size         size of the serialized object in bytes
+	 * @param latencyNanos duration of the operation in nanoseconds
+	 */
+	void recordObject(Direction direction, int size, long latencyNanos);
+
+	/**
+	 * Records object that failed to be deserialized or serialized.
+	 */
+	void recordObjectFailure(Direction direction);
+}
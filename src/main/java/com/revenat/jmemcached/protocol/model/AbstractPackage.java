@@ -1,30 +1,131 @@
 package com.revenat.jmemcached.protocol.model;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
  * This component represent protocol's abstract package (frame) that holds
- * some kind of data as array of bytes.
+ * some kind of data as array of bytes or as {@link DirectPayload} kept outside
+ * of the Java heap. Package takes ownership of the array or of the payload
+ * reference it was created with, so callers should not modify them afterwards.
  * 
  * @author Vitaly Dragun
  *
  */
 abstract class AbstractPackage {
+	/**
+	 * Size of the array direct payload is copied through when written into
+	 * {@link OutputStream}
+	 */
+	private static final int COPY_BUFFER_SIZE = 8192;
+
 	private final byte[] data;
+	private final DirectPayload payload;
 
 	AbstractPackage(byte[] data) {
 		this.data = data != null ? data : new byte[0];
+		this.payload = null;
 	}
 
 	AbstractPackage() {
 		this(new byte[0]);
 	}
 
+	AbstractPackage(DirectPayload payload) {
+		this.data = null;
+		this.payload = payload;
+	}
+
+	/**
+	 * Creates package that shares data with the specified {@code source}
+	 * package.
+	 */
+	AbstractPackage(AbstractPackage source) {
+		this.data = source.data;
+		this.payload = source.payload;
+	}
+
+	/**
+	 * Returns copy of the data of this package. Prefer {@link #getDataLength()},
+	 * {@link #getDataBuffer()} or {@link #writeDataTo(OutputStream)} when data is
+	 * only inspected or sent, since they do not copy it.
+	 */
 	public byte[] getData() {
+		if (payload != null) {
+			byte[] copy = new byte[payload.length()];
+			payload.buffer().get(copy);
+			return copy;
+		}
 		return Arrays.copyOf(data, data.length);
 	}
-	
+
+	public final int getDataLength() {
+		return payload != null ? payload.length() : data.length;
+	}
+
+	/**
+	 * Returns read-only {@link ByteBuffer} view of the data of this package,
+	 * positioned at its first byte, which is direct if package data is
+	 * {@link #isDirect() direct}.
+	 */
+	public final ByteBuffer getDataBuffer() {
+		return payload != null ? payload.buffer() : ByteBuffer.wrap(data).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Writes data of this package into the specified {@link OutputStream}
+	 * without copying heap data. Direct data is copied through the small array.
+	 * 
+	 * @throws IOException
+	 */
+	public final void writeDataTo(OutputStream output) throws IOException {
+		if (payload == null) {
+			output.write(data);
+			return;
+		}
+		ByteBuffer source = payload.buffer();
+		byte[] chunk = new byte[Math.min(source.remaining(), COPY_BUFFER_SIZE)];
+		while (source.hasRemaining()) {
+			int length = Math.min(source.remaining(), chunk.length);
+			source.get(chunk, 0, length);
+			output.write(chunk, 0, length);
+		}
+	}
+
 	public final boolean hasData() {
-		return data.length > 0;
+		return getDataLength() > 0;
+	}
+
+	/**
+	 * Returns {@code true} if data of this package is kept in
+	 * {@link DirectPayload} outside of the Java heap.
+	 */
+	public final boolean isDirect() {
+		return payload != null;
+	}
+
+	/**
+	 * Returns {@link DirectPayload} that holds data of this package or
+	 * {@code null} if data is kept in the Java heap.
+	 */
+	public final DirectPayload getPayload() {
+		return payload;
+	}
+
+	/**
+	 * Releases reference to the {@link DirectPayload} this package was created
+	 * with, if any. Copies of the package, such as ones created with
+	 * correlation id, share the same reference, so only one of them should be
+	 * released.
+	 * 
+	 * @return {@code true} if payload memory is freed by this invocation
+	 * @throws com.revenat.jmemcached.exception.JMemcachedException if payload
+	 *                                                             is already
+	 *                                                             released
+	 */
+	public final boolean release() {
+		return payload != null && payload.release();
 	}
 }
@@ -15,12 +15,93 @@ public enum Command {
 	
 	GET(2),
 	
-	REMOVE(3);
+	REMOVE(3),
+	
+	/**
+	 * Gets several keys at once, keys are carried as request {@link Entry entries}
+	 */
+	MGET(4),
+	
+	/**
+	 * Puts several key/data/ttl triples at once, triples are carried as request
+	 * {@link Entry entries}
+	 */
+	MPUT(5),
+
+	/**
+	 * Puts data only if entry was not modified since its cas token, carried by
+	 * the request, was obtained, see {@link Request#withCasToken(long)}
+	 */
+	CAS(6),
+
+	/**
+	 * Increments counter by the delta carried by the request, see
+	 * {@link Request#withDelta(Command, String, long)} and {@link Counter}
+	 */
+	INCR(7),
+
+	/**
+	 * Decrements counter by the delta carried by the request, see
+	 * {@link Request#withDelta(Command, String, long)} and {@link Counter}
+	 */
+	DECR(8),
+
+	/**
+	 * Sets new ttl of the entry without resending its data, ttl is carried by
+	 * the request, see {@link Request#withKeyAndTtl(Command, String, long)}
+	 */
+	TOUCH(9),
+
+	/**
+	 * Gets data of the entry and sets its new ttl, carried by the request, at
+	 * once, see {@link Request#withKeyAndTtl(Command, String, long)}
+	 */
+	GAT(10),
+
+	/**
+	 * Quiet variant of {@link #PUT}, see {@link #isReplyRequired(Status)}
+	 */
+	PUTQ(11, PUT),
+
+	/**
+	 * Quiet variant of {@link #REMOVE}, see {@link #isReplyRequired(Status)}
+	 */
+	REMOVEQ(12, REMOVE),
+
+	/**
+	 * Quiet variant of {@link #MPUT}, see {@link #isReplyRequired(Status)}
+	 */
+	MPUTQ(13, MPUT),
+
+	/**
+	 * Does nothing and is always replied, so that once the reply is received
+	 * all replies to preceding requests, including failures of the quiet
+	 * ones, are received as well
+	 */
+	NOOP(14);
 
 	private byte code;
+	private final Command baseCommand;
+	/**
+	 * Lookup table indexed by unsigned byte code, so that decoding doesn't
+	 * iterate over the copy of the {@link #values()} array
+	 */
+	private static final Command[] BY_BYTE_CODE = new Command[256];
+
+	static {
+		for (Command command : values()) {
+			BY_BYTE_CODE[command.code & 0xFF] = command;
+		}
+	}
 
 	Command(int code) {
 		this.code = (byte) code;
+		this.baseCommand = this;
+	}
+
+	Command(int code, Command baseCommand) {
+		this.code = (byte) code;
+		this.baseCommand = baseCommand;
 	}
 
 	/**
@@ -30,6 +111,54 @@ public enum Command {
 		return code;
 	}
 
+	/**
+	 * Returns {@code true} if this command operates on several keys carried as
+	 * request {@link Entry entries}.
+	 */
+	public boolean isMultiKey() {
+		return baseCommand == MGET || baseCommand == MPUT;
+	}
+
+	/**
+	 * Returns command this quiet command is a variant of, or this command
+	 * itself if it is not quiet.
+	 */
+	public Command getBaseCommand() {
+		return baseCommand;
+	}
+
+	/**
+	 * Returns {@code true} if this is a quiet variant of the mutation command,
+	 * to which server replies only if it fails.
+	 */
+	public boolean isQuiet() {
+		return baseCommand != this;
+	}
+
+	/**
+	 * Checks whether server should reply to this command when it completes with
+	 * the specified {@code status}. Quiet commands are replied only if they
+	 * fail, other commands are always replied.
+	 */
+	public boolean isReplyRequired(Status status) {
+		return !isQuiet() || status.isFailure();
+	}
+
+	/**
+	 * Returns {@code true} if this command updates {@link Counter counter}.
+	 */
+	public boolean isCounter() {
+		return this == INCR || this == DECR;
+	}
+
+	/**
+	 * Returns {@code true} if this command sets new ttl of the entry carried
+	 * by the request without data.
+	 */
+	public boolean isTouch() {
+		return this == TOUCH || this == GAT;
+	}
+
 	/**
 	 * Returns {@link Command} instance that corresponds with provided
 	 * {@code byteCode} value.
@@ -39,10 +168,9 @@ public enum Command {
 	 *                             provided {@code byteCode} value
 	 */
 	public static Command valueOf(byte byteCode) {
-		for (Command command : values()) {
-			if (command.getByteCode() == byteCode) {
-				return command;
-			}
+		Command command = BY_BYTE_CODE[byteCode & 0xFF];
+		if (command != null) {
+			return command;
 		}
 		throw new JMemcachedException("Unsuported byteCode for Command: " + byteCode);
 	}
@@ -0,0 +1,121 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+/**
+ * Component responsible for the raw form of the counters, updated by the
+ * {@link Command#INCR} and {@link Command#DECR} requests. Counter is stored as
+ * unsigned 64-bit big-endian number, so that server can update it in place
+ * without deserialization, and {@link Response} to the counter request carries
+ * new value of the counter in the same form.
+ * <p>
+ * As in memcached, incrementing wraps around at 2^64 and decrementing never
+ * goes below zero.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public final class Counter {
+	/**
+	 * Number of bytes the counter takes
+	 */
+	public static final int BYTES = Long.BYTES;
+
+	private Counter() {
+	}
+
+	/**
+	 * Returns raw form of the counter with the specified {@code value}.
+	 */
+	public static byte[] toBytes(long value) {
+		return ByteBuffer.allocate(BYTES).putLong(value).array();
+	}
+
+	/**
+	 * Returns value of the counter stored in raw form in the specified
+	 * {@code data}.
+	 * 
+	 * @throws NullPointerException if {@code data} is null
+	 * @throws JMemcachedException  if {@code data} is not a counter
+	 */
+	public static long fromBytes(byte[] data) {
+		checkCounter(data);
+		return ByteBuffer.wrap(data).getLong();
+	}
+
+	/**
+	 * Checks whether the specified {@code data} can hold counter, that is
+	 * whether it has exactly {@link #BYTES} bytes.
+	 */
+	public static boolean isCounter(byte[] data) {
+		return data != null && data.length == BYTES;
+	}
+
+	/**
+	 * Returns new value of the counter with {@code current} value after the
+	 * specified counter {@code command} with {@code delta} is applied.
+	 * 
+	 * @throws NullPointerException if {@code command} is null
+	 * @throws JMemcachedException  if {@code command} is not a counter command
+	 */
+	public static long apply(Command command, long current, long delta) {
+		requireNonNull(command, "command can not be null");
+		switch (command) {
+		case INCR:
+			return current + delta;
+		case DECR:
+			return Long.compareUnsigned(current, delta) > 0 ? current - delta : 0;
+		default:
+			throw new JMemcachedException("Command " + command + " is not a counter command");
+		}
+	}
+
+	/**
+	 * Applies the specified counter {@code command} with {@code delta} to the
+	 * counter stored in raw form in the specified {@code data} in place.
+	 * 
+	 * @return new value of the counter
+	 * @throws NullPointerException if {@code command} or {@code data} is null
+	 * @throws JMemcachedException  if {@code command} is not a counter command
+	 *                              or {@code data} is not a counter
+	 */
+	public static long update(byte[] data, Command command, long delta) {
+		checkCounter(data);
+		return update(ByteBuffer.wrap(data), 0, command, delta);
+	}
+
+	/**
+	 * Applies the specified counter {@code command} with {@code delta} to the
+	 * counter stored in raw form in the specified {@code buffer} at the
+	 * specified {@code index} in place, regardless of buffer position and byte
+	 * order. Lets counters kept in direct buffers be updated without copying
+	 * them to heap.
+	 * 
+	 * @return new value of the counter
+	 * @throws NullPointerException      if {@code buffer} or {@code command} is
+	 *                                   null
+	 * @throws JMemcachedException       if {@code command} is not a counter
+	 *                                   command
+	 * @throws IndexOutOfBoundsException if buffer has less than {@link #BYTES}
+	 *                                   bytes starting at {@code index}
+	 */
+	public static long update(ByteBuffer buffer, int index, Command command, long delta) {
+		boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+		long current = buffer.getLong(index);
+		long value = apply(command, bigEndian ? current : Long.reverseBytes(current), delta);
+		buffer.putLong(index, bigEndian ? value : Long.reverseBytes(value));
+		return value;
+	}
+
+	private static void checkCounter(byte[] data) {
+		requireNonNull(data, "data can not be null");
+		if (!isCounter(data)) {
+			throw new JMemcachedException("Counter should take " + BYTES + " bytes, but got " + data.length);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+/**
+ * Reference-counted data of the protocol's package that is kept in direct
+ * memory outside of the Java heap, so that large values held by the cache
+ * are not scanned and copied by garbage collector. Payload is created with
+ * single reference, each {@link #retain()} adds one and each
+ * {@link #release()} removes one, and once the last reference is released
+ * memory is returned to the {@link PayloadAllocator} it was obtained from.
+ * Payload can not be accessed after it is released.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public final class DirectPayload {
+	private final ByteBuffer buffer;
+	private final Runnable recycler;
+	private final AtomicInteger refCount = new AtomicInteger(1);
+
+	/**
+	 * Allocates payload of the specified {@code length} that is not pooled, so
+	 * its memory is freed by the garbage collector once payload is released
+	 * and is no longer referenced.
+	 * 
+	 * @throws IllegalArgumentException if {@code length} is negative
+	 */
+	public static DirectPayload allocate(int length) {
+		return new DirectPayload(ByteBuffer.allocateDirect(length), null);
+	}
+
+	/**
+	 * Allocates payload with the copy of the remaining bytes of the specified
+	 * {@code source} buffer without changing its position.
+	 * 
+	 * @throws NullPointerException if {@code source} is null
+	 */
+	public static DirectPayload copyOf(ByteBuffer source) {
+		requireNonNull(source, "source can not be null");
+		DirectPayload payload = allocate(source.remaining());
+		payload.buffer.put(source.duplicate()).flip();
+		return payload;
+	}
+
+	/**
+	 * Creates payload that takes ownership of the specified direct
+	 * {@code buffer} and runs the {@code recycler} once payload is released.
+	 */
+	DirectPayload(ByteBuffer buffer, Runnable recycler) {
+		this.buffer = buffer;
+		this.recycler = recycler;
+	}
+
+	/**
+	 * Returns length of the payload in bytes.
+	 */
+	public int length() {
+		return buffer.limit();
+	}
+
+	/**
+	 * Returns read-only view of the payload positioned at its first byte.
+	 * 
+	 * @throws JMemcachedException if payload is released
+	 */
+	public ByteBuffer buffer() {
+		checkNotReleased();
+		return buffer.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns writable view of the payload positioned at its first byte, which
+	 * is used to fill the payload before it is passed to the package.
+	 * 
+	 * @throws JMemcachedException if payload is released
+	 */
+	public ByteBuffer writableBuffer() {
+		checkNotReleased();
+		return buffer.duplicate();
+	}
+
+	/**
+	 * Adds one reference to the payload.
+	 * 
+	 * @return this payload
+	 * @throws JMemcachedException if payload is released
+	 */
+	public DirectPayload retain() {
+		int count;
+		do {
+			count = refCount.get();
+			if (count == 0) {
+				throw new JMemcachedException("Payload is already released");
+			}
+		} while (!refCount.compareAndSet(count, count + 1));
+		return this;
+	}
+
+	/**
+	 * Removes one reference from the payload, returning its memory to the
+	 * allocator if it was the last one.
+	 * 
+	 * @return {@code true} if payload is released by this invocation
+	 * @throws JMemcachedException if payload is already released
+	 */
+	public boolean release() {
+		int count;
+		do {
+			count = refCount.get();
+			if (count == 0) {
+				throw new JMemcachedException("Payload is already released");
+			}
+		} while (!refCount.compareAndSet(count, count - 1));
+		if (count == 1) {
+			if (recycler != null) {
+				recycler.run();
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns current number of references to the payload.
+	 */
+	public int refCount() {
+		return refCount.get();
+	}
+
+	public boolean isReleased() {
+		return refCount.get() == 0;
+	}
+
+	private void checkNotReleased() {
+		if (isReleased()) {
+			throw new JMemcachedException("Payload is already released");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "DirectPayload[" + length() + " bytes, refCount=" + refCount() + "]";
+	}
+}
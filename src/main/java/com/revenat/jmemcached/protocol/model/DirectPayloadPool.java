@@ -0,0 +1,118 @@
+package com.revenat.jmemcached.protocol.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+
+/**
+ * {@link PayloadAllocator} implementation that keeps direct memory of the
+ * released payloads and reuses it for the new ones, so that cache which
+ * constantly replaces its values does not allocate and free direct memory on
+ * each write. Memory is pooled in size classes, which are powers of two from
+ * {@link #MIN_POOLED_LENGTH} up to the maximum pooled length, while larger
+ * payloads are not pooled. Total size of the memory kept by pool while it is
+ * not used is bounded.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class DirectPayloadPool implements PayloadAllocator {
+	/**
+	 * Size of the smallest size class
+	 */
+	public static final int MIN_POOLED_LENGTH = 64;
+	public static final int DEFAULT_MAX_POOLED_LENGTH = 1024 * 1024;
+	public static final long DEFAULT_MAX_IDLE_BYTES = 64L * 1024 * 1024;
+
+	private final int maxPooledLength;
+	private final long maxIdleBytes;
+	private final List<Queue<ByteBuffer>> sizeClasses;
+	private final AtomicLong idleBytes = new AtomicLong();
+
+	/**
+	 * Creates pool that pools payloads up to
+	 * {@link #DEFAULT_MAX_POOLED_LENGTH} bytes and keeps up to
+	 * {@link #DEFAULT_MAX_IDLE_BYTES} of unused memory.
+	 */
+	public DirectPayloadPool() {
+		this(DEFAULT_MAX_POOLED_LENGTH, DEFAULT_MAX_IDLE_BYTES);
+	}
+
+	/**
+	 * Creates pool that pools payloads up to {@code maxPooledLength} bytes and
+	 * keeps up to {@code maxIdleBytes} of unused memory.
+	 * 
+	 * @throws JMemcachedConfigException if {@code maxPooledLength} is not a
+	 *                                   power of two that is not less than
+	 *                                   {@link #MIN_POOLED_LENGTH} or
+	 *                                   {@code maxIdleBytes} is negative
+	 */
+	public DirectPayloadPool(int maxPooledLength, long maxIdleBytes) {
+		if (maxPooledLength < MIN_POOLED_LENGTH || Integer.bitCount(maxPooledLength) != 1) {
+			throw new JMemcachedConfigException(
+					"maxPooledLength should be power of two >= " + MIN_POOLED_LENGTH + ": " + maxPooledLength);
+		}
+		if (maxIdleBytes < 0) {
+			throw new JMemcachedConfigException("maxIdleBytes can not be negative: " + maxIdleBytes);
+		}
+		this.maxPooledLength = maxPooledLength;
+		this.maxIdleBytes = maxIdleBytes;
+		int sizeClassesCount = sizeClassOf(maxPooledLength) + 1;
+		this.sizeClasses = new ArrayList<>(sizeClassesCount);
+		for (int i = 0; i < sizeClassesCount; i++) {
+			sizeClasses.add(new ConcurrentLinkedQueue<>());
+		}
+	}
+
+	@Override
+	public DirectPayload allocate(int length) {
+		if (length < 0) {
+			throw new IllegalArgumentException("Negative payload length: " + length);
+		}
+		if (length > maxPooledLength) {
+			return DirectPayload.allocate(length);
+		}
+		int sizeClass = sizeClassOf(length);
+		ByteBuffer memory = obtain(sizeClass);
+		memory.limit(length);
+		return new DirectPayload(memory.slice(), () -> recycle(sizeClass, memory));
+	}
+
+	private ByteBuffer obtain(int sizeClass) {
+		ByteBuffer memory = sizeClasses.get(sizeClass).poll();
+		if (memory == null) {
+			return ByteBuffer.allocateDirect(MIN_POOLED_LENGTH << sizeClass);
+		}
+		idleBytes.addAndGet(-memory.capacity());
+		memory.clear();
+		return memory;
+	}
+
+	private void recycle(int sizeClass, ByteBuffer memory) {
+		long idle = idleBytes.addAndGet(memory.capacity());
+		if (idle <= maxIdleBytes) {
+			sizeClasses.get(sizeClass).offer(memory);
+		} else {
+			idleBytes.addAndGet(-memory.capacity());
+		}
+	}
+
+	/**
+	 * Returns total size of the memory kept by pool while it is not used.
+	 */
+	public long getIdleBytes() {
+		return idleBytes.get();
+	}
+
+	private static int sizeClassOf(int length) {
+		if (length <= MIN_POOLED_LENGTH) {
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros(length - 1) - Integer.numberOfTrailingZeros(MIN_POOLED_LENGTH);
+	}
+}
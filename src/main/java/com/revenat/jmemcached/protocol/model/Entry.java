@@ -0,0 +1,111 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * This immutable component represents single key entry of the multi-key
+ * {@link Request}, such as one key of the {@link Command#MGET} request or one
+ * key/data/ttl triple of the {@link Command#MPUT} request.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class Entry extends AbstractPackage {
+	private static final String KEY_NOT_NULL_MESSAGE = "key can not be null";
+
+	private final Key key;
+	private final Long ttl;
+
+	/**
+	 * Creates {@link Entry} that contains only {@code key}.
+	 * 
+	 * @param key string identifier
+	 * @throws NullPointerException if {@code key} is null
+	 * @throws com.revenat.jmemcached.exception.JMemcachedException if {@code key}
+	 *                                                             is too long
+	 */
+	public static Entry withKey(String key) {
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		return withRawKey(Key.of(key));
+	}
+
+	/**
+	 * Creates {@link Entry} that contains only {@link Key}.
+	 * 
+	 * @param key identifier
+	 * @throws NullPointerException if {@code key} is null
+	 */
+	public static Entry withRawKey(Key key) {
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		return new Entry(key, null, null);
+	}
+
+	/**
+	 * Creates {@link Entry} that contains required {@code key}, {@code data} and
+	 * optional {@code ttl} parameters.
+	 * 
+	 * @param key  string identifier
+	 * @param data data to put into entry, not copied, so it should not be
+	 *             modified afterwards
+	 * @param ttl  optional, represents time-to-live parameter.
+	 * @throws NullPointerException if {@code key} or {@code data} is null
+	 * @throws com.revenat.jmemcached.exception.JMemcachedException if {@code key}
+	 *                                                             is too long
+	 */
+	public static Entry withKeyAndData(String key, byte[] data, Long ttl) {
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		return withRawKeyAndData(Key.of(key), data, ttl);
+	}
+
+	/**
+	 * Creates {@link Entry} that contains required {@link Key}, {@code data}
+	 * and optional {@code ttl} parameters.
+	 * 
+	 * @param key  identifier
+	 * @param data data to put into entry, not copied, so it should not be
+	 *             modified afterwards
+	 * @param ttl  optional, represents time-to-live parameter.
+	 * @throws NullPointerException if {@code key} or {@code data} is null
+	 */
+	public static Entry withRawKeyAndData(Key key, byte[] data, Long ttl) {
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		requireNonNull(data, "data can not be null");
+		return new Entry(key, data, ttl);
+	}
+
+	Entry(Key key, byte[] data, Long ttl) {
+		super(data);
+		this.key = key;
+		this.ttl = ttl;
+	}
+
+	public String getKey() {
+		return key.toString();
+	}
+
+	public Key getRawKey() {
+		return key;
+	}
+
+	public Long getTtl() {
+		return ttl;
+	}
+
+	public boolean hasTtl() {
+		return ttl != null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(key.toString());
+
+		if (hasData()) {
+			builder.append("=").append(getDataLength()).append(" bytes");
+		}
+		if (hasTtl()) {
+			builder.append(" (").append(String.format("time-to-live=%d milliseconds", ttl)).append(')');
+		}
+
+		return builder.toString();
+	}
+}
@@ -0,0 +1,101 @@
+package com.revenat.jmemcached.protocol.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Represents optional protocol feature, which is used on the connection only
+ * if both sides advertised it in their {@link Handshake}. Each feature is
+ * represented by its own bit in the feature bits of the handshake frame.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public enum Feature {
+	/**
+	 * Data blocks may be compressed
+	 */
+	COMPRESSION(0),
+
+	/**
+	 * Top-level frames may carry correlation id
+	 */
+	CORRELATION_IDS(1),
+
+	/**
+	 * Lengths and ttl may be written in compact variable-length form
+	 */
+	COMPACT_LENGTHS(2),
+
+	/**
+	 * Frames may carry entries of the multi-key commands
+	 */
+	BATCHING(3),
+
+	/**
+	 * Data blocks may be written as a sequence of chunks
+	 */
+	CHUNKED_DATA(4),
+
+	/**
+	 * Responses may carry cas tokens and {@link Command#CAS} requests may be
+	 * sent
+	 */
+	CAS_TOKENS(5),
+
+	/**
+	 * {@link Command#INCR} and {@link Command#DECR} requests may be sent
+	 */
+	COUNTERS(6),
+
+	/**
+	 * Requests may carry ttl without data, as {@link Command#TOUCH} and
+	 * {@link Command#GAT} requests do
+	 */
+	TOUCH(7),
+
+	/**
+	 * {@link Command#isQuiet() Quiet} and {@link Command#NOOP} requests may be
+	 * sent
+	 */
+	QUIET_COMMANDS(8);
+
+	private final int mask;
+
+	Feature(int bit) {
+		this.mask = 1 << bit;
+	}
+
+	/**
+	 * Returns bit mask of this feature.
+	 */
+	public int getMask() {
+		return mask;
+	}
+
+	/**
+	 * Returns feature bits for the specified {@code features}.
+	 */
+	public static int toBits(Set<Feature> features) {
+		int bits = 0;
+		for (Feature feature : features) {
+			bits |= feature.mask;
+		}
+		return bits;
+	}
+
+	/**
+	 * Returns features for the specified feature {@code bits}. Bits of the
+	 * features unknown to this implementation, which may be advertised by a
+	 * newer peer, are ignored.
+	 */
+	public static Set<Feature> fromBits(int bits) {
+		Set<Feature> features = EnumSet.noneOf(Feature.class);
+		for (Feature feature : values()) {
+			if ((bits & feature.mask) != 0) {
+				features.add(feature);
+			}
+		}
+		return features;
+	}
+}
@@ -0,0 +1,114 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+
+/**
+ * This immutable component represents protocol {@link Version} and set of
+ * optional {@link Feature features} advertised by one side of the connection
+ * in the handshake frame, or agreed upon by both sides as a result of the
+ * {@link #negotiate(Handshake) negotiation}.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public final class Handshake {
+	/**
+	 * Handshake of the peer which doesn't send handshake frame and uses
+	 * {@link Version#VERSION_1_0} without any optional features
+	 */
+	public static final Handshake LEGACY = new Handshake(Version.VERSION_1_0, EnumSet.noneOf(Feature.class));
+
+	private final Version version;
+	private final Set<Feature> features;
+
+	/**
+	 * Creates handshake which advertises specified protocol {@code version} and
+	 * {@code features}.
+	 * 
+	 * @throws NullPointerException      if any of the parameters is
+	 *                                   {@code null}
+	 * @throws JMemcachedConfigException if {@code version} is older than
+	 *                                   {@link Version#VERSION_1_0}
+	 */
+	public static Handshake of(Version version, Set<Feature> features) {
+		requireNonNull(version, "version can not be null");
+		requireNonNull(features, "features can not be null");
+		if (version.compareTo(Version.VERSION_1_0) < 0) {
+			throw new JMemcachedConfigException("Unsupported protocol version: " + version);
+		}
+		return new Handshake(version, features.isEmpty() ? EnumSet.noneOf(Feature.class) : EnumSet.copyOf(features));
+	}
+
+	/**
+	 * Creates handshake which advertises {@link Version#latest() latest}
+	 * protocol version and specified {@code features}.
+	 * 
+	 * @throws NullPointerException if {@code features} is {@code null}
+	 */
+	public static Handshake latest(Set<Feature> features) {
+		return of(Version.latest(), features);
+	}
+
+	private Handshake(Version version, Set<Feature> features) {
+		this.version = version;
+		this.features = Collections.unmodifiableSet(features);
+	}
+
+	public Version getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns unmodifiable set of features.
+	 */
+	public Set<Feature> getFeatures() {
+		return features;
+	}
+
+	public boolean hasFeature(Feature feature) {
+		return features.contains(feature);
+	}
+
+	/**
+	 * Returns handshake with the older of two versions and only those features,
+	 * which are advertised by both this and specified {@code peer} handshakes.
+	 * 
+	 * @throws NullPointerException if {@code peer} is {@code null}
+	 */
+	public Handshake negotiate(Handshake peer) {
+		requireNonNull(peer, "peer can not be null");
+		Set<Feature> common = EnumSet.noneOf(Feature.class);
+		common.addAll(features);
+		common.retainAll(peer.features);
+		Version commonVersion = version.compareTo(peer.version) <= 0 ? version : peer.version;
+		return new Handshake(commonVersion, common);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * version.hashCode() + features.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Handshake)) {
+			return false;
+		}
+		Handshake other = (Handshake) obj;
+		return version == other.version && features.equals(other.features);
+	}
+
+	@Override
+	public String toString() {
+		return version + " " + features;
+	}
+}
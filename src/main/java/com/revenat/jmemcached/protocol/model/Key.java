@@ -0,0 +1,173 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+/**
+ * This immutable component represents key of the protocol's package as array
+ * of its ASCII bytes, the same way as it is written to the wire. Length of the
+ * key is validated and its 64-bit hash is computed once on creation, so that
+ * key can be put into hash based structures without any charset conversions.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public final class Key {
+	/**
+	 * Maximum length of the key in bytes
+	 */
+	public static final int MAX_LENGTH = 127;
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final byte[] bytes;
+	private final long hash;
+	private String string;
+
+	/**
+	 * Creates {@link Key} from the ASCII bytes of the specified string, where
+	 * each non-ASCII character is replaced with {@code '?'}.
+	 * 
+	 * @param key string identifier
+	 * @throws NullPointerException if {@code key} is null
+	 * @throws JMemcachedException  if key is longer than {@link #MAX_LENGTH}
+	 *                              bytes
+	 */
+	public static Key of(String key) {
+		requireNonNull(key, "key can not be null");
+		return new Key(key.getBytes(StandardCharsets.US_ASCII), isAscii(key) ? key : null);
+	}
+
+	private static boolean isAscii(String key) {
+		for (int i = 0; i < key.length(); i++) {
+			if (key.charAt(i) > 0x7F) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates {@link Key} that consists of the specified ASCII {@code bytes}.
+	 * 
+	 * @param bytes key bytes, not copied, so they should not be modified
+	 *              afterwards
+	 * @throws NullPointerException if {@code bytes} is null
+	 * @throws JMemcachedException  if key is longer than {@link #MAX_LENGTH}
+	 *                              bytes
+	 */
+	public static Key of(byte[] bytes) {
+		requireNonNull(bytes, "bytes can not be null");
+		return new Key(bytes, null);
+	}
+
+	private Key(byte[] bytes, String string) {
+		if (bytes.length > MAX_LENGTH) {
+			throw new JMemcachedException("Key length should be <= " + MAX_LENGTH + " bytes for key = "
+					+ (string != null ? string : new String(bytes, StandardCharsets.US_ASCII)));
+		}
+		this.bytes = bytes;
+		this.string = string;
+		this.hash = hash(bytes);
+	}
+
+	/**
+	 * Computes 64-bit FNV-1a hash of the specified bytes.
+	 */
+	private static long hash(byte[] bytes) {
+		long hash = FNV_OFFSET_BASIS;
+		for (byte b : bytes) {
+			hash ^= b & 0xFF;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	public int length() {
+		return bytes.length;
+	}
+
+	/**
+	 * Returns key byte at the specified {@code index}.
+	 * 
+	 * @throws IndexOutOfBoundsException if index is not within key bounds
+	 */
+	public byte byteAt(int index) {
+		return bytes[index];
+	}
+
+	/**
+	 * Returns 64-bit hash of the key bytes, which is well distributed across
+	 * all its bits, so it can be used for sharding as well as for hash tables.
+	 */
+	public long hash64() {
+		return hash;
+	}
+
+	/**
+	 * Returns copy of the key bytes. Prefer {@link #writeTo(OutputStream)} or
+	 * {@link #writeTo(ByteBuffer)} when key is only sent, since they do not copy
+	 * it.
+	 */
+	public byte[] getBytes() {
+		return Arrays.copyOf(bytes, bytes.length);
+	}
+
+	/**
+	 * Writes key bytes into the specified {@link OutputStream} without copying
+	 * them.
+	 * 
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream output) throws IOException {
+		output.write(bytes);
+	}
+
+	/**
+	 * Writes key bytes into the specified {@link ByteBuffer}.
+	 * 
+	 * @throws java.nio.BufferOverflowException if buffer has not enough space
+	 */
+	public void writeTo(ByteBuffer buffer) {
+		buffer.put(bytes);
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Key)) {
+			return false;
+		}
+		Key other = (Key) obj;
+		return hash == other.hash && Arrays.equals(bytes, other.bytes);
+	}
+
+	/**
+	 * Returns key as a string, which is created only once on the first call if
+	 * key was created from bytes.
+	 */
+	@Override
+	public String toString() {
+		String result = string;
+		if (result == null) {
+			result = new String(bytes, StandardCharsets.US_ASCII);
+			string = result;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,25 @@
+package com.revenat.jmemcached.protocol.model;
+
+/**
+ * Service provider interface that allocates {@link DirectPayload payloads}
+ * converters read package data into. Methods are called by any number of
+ * threads, so implementations should be thread-safe. {@link #UNPOOLED}
+ * implementation allocates new direct memory for each payload, while
+ * {@link DirectPayloadPool} reuses memory of the released payloads.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public interface PayloadAllocator {
+	/**
+	 * Implementation that allocates new direct memory for each payload
+	 */
+	PayloadAllocator UNPOOLED = DirectPayload::allocate;
+
+	/**
+	 * Allocates payload of the specified {@code length} with single reference.
+	 * 
+	 * @throws IllegalArgumentException if {@code length} is negative
+	 */
+	DirectPayload allocate(int length);
+}
@@ -2,6 +2,13 @@ package com.revenat.jmemcached.protocol.model;
 
 import static java.util.Objects.requireNonNull;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
 /**
  * This immutable component represents protocol's request package.
  * 
@@ -12,10 +19,14 @@ public class Request extends AbstractPackage {
 	private static final String KEY_NOT_NULL_MESSAGE = "key can not be null";
 	private static final String COMMAND_NOT_NULL_MESSAGE = "command can not be null";
 	private static final String DATA_NOT_NULL_MESSAGE = "data can not be null";
+	private static final String ENTRIES_NOT_NULL_MESSAGE = "entries can not be null";
 
 	private final Command command;
-	private final String key;
+	private final Key key;
 	private final Long ttl;
+	private final List<Entry> entries;
+	private final Integer correlationId;
+	private final Long casToken;
 
 	/**
 	 * Creates {@link Request} that contains only specified {@link Command}
@@ -25,7 +36,7 @@ public class Request extends AbstractPackage {
 	 */
 	public static Request empty(Command command) {
 		requireNonNull(command, COMMAND_NOT_NULL_MESSAGE);
-		return new Request(command, null, null, null);
+		return new Request(command, null, (byte[]) null, null);
 	}
 
 	/**
@@ -35,11 +46,26 @@ public class Request extends AbstractPackage {
 	 * @param command {@link Command} to create a {@link Request} with
 	 * @param key string identifier
 	 * @throws NullPointerException if either {@code command} or {@code key} is null
+	 * @throws com.revenat.jmemcached.exception.JMemcachedException if {@code key}
+	 *                                                             is too long
 	 */
 	public static Request withKey(Command command, String key) {
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		return withRawKey(command, Key.of(key));
+	}
+
+	/**
+	 * Creates {@link Request} that contains only specified {@link Command} and
+	 * {@link Key}.
+	 * 
+	 * @param command {@link Command} to create a {@link Request} with
+	 * @param key identifier
+	 * @throws NullPointerException if either {@code command} or {@code key} is null
+	 */
+	public static Request withRawKey(Command command, Key key) {
 		requireNonNull(command, COMMAND_NOT_NULL_MESSAGE);
 		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
-		return new Request(command, key, null, null);
+		return new Request(command, key, (byte[]) null, null);
 	}
 	
 	/**
@@ -48,25 +74,268 @@ public class Request extends AbstractPackage {
 	 * 
 	 * @param command {@link Command} to create a {@link Request} with
 	 * @param key string identifier
-	 * @param data data to put into request
+	 * @param data data to put into request, not copied, so it should not be
+	 *             modified afterwards
 	 * @param ttl optional, represents time-to-live parameter.
 	 * @throws NullPointerException if {@code command}, {@code key} or {@code data} is null
+	 * @throws com.revenat.jmemcached.exception.JMemcachedException if {@code key}
+	 *                                                             is too long
 	 */
 	public static Request withKeyAndData(Command command, String key, byte[] data, Long ttl) {
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		return withRawKeyAndData(command, Key.of(key), data, ttl);
+	}
+
+	/**
+	 * Creates {@link Request} that contains required {@link Command},
+	 * {@link Key}, {@code data} and optional {@code ttl} parameters.
+	 * 
+	 * @param command {@link Command} to create a {@link Request} with
+	 * @param key identifier
+	 * @param data data to put into request, not copied, so it should not be
+	 *             modified afterwards
+	 * @param ttl optional, represents time-to-live parameter.
+	 * @throws NullPointerException if {@code command}, {@code key} or {@code data} is null
+	 */
+	public static Request withRawKeyAndData(Command command, Key key, byte[] data, Long ttl) {
 		requireNonNull(command, COMMAND_NOT_NULL_MESSAGE);
 		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
 		requireNonNull(data, DATA_NOT_NULL_MESSAGE);
 		return new Request(command, key, data, ttl);
 	}
 
-	Request(Command command, String key, byte[] data, Long ttl) {
+	/**
+	 * Creates {@link Request} that contains required {@link Command},
+	 * {@link Key}, data kept in {@link DirectPayload} outside of the Java heap
+	 * and optional {@code ttl} parameters.
+	 * 
+	 * @param command {@link Command} to create a {@link Request} with
+	 * @param key     identifier
+	 * @param payload data to put into request, request takes ownership of the
+	 *                payload reference, which is released with
+	 *                {@link #release()}
+	 * @param ttl     optional, represents time-to-live parameter.
+	 * @throws NullPointerException if {@code command}, {@code key} or
+	 *                              {@code payload} is null
+	 * @throws JMemcachedException  if {@code payload} is already released
+	 */
+	public static Request withRawKeyAndPayload(Command command, Key key, DirectPayload payload, Long ttl) {
+		requireNonNull(command, COMMAND_NOT_NULL_MESSAGE);
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		requireNonNull(payload, "payload can not be null");
+		if (payload.isReleased()) {
+			throw new JMemcachedException("Payload is already released");
+		}
+		return new Request(command, key, payload, ttl);
+	}
+
+	/**
+	 * Creates {@link Request} that contains specified {@link Command},
+	 * {@code key} and {@code ttl}, but no data, such as {@link Command#TOUCH}
+	 * or {@link Command#GAT} request, which sets new ttl of the entry without
+	 * resending its data.
+	 * 
+	 * @param command {@link Command} to create a {@link Request} with
+	 * @param key     string identifier
+	 * @param ttl     new time-to-live of the entry
+	 * @throws NullPointerException if either {@code command} or {@code key} is null
+	 * @throws JMemcachedException  if {@code key} is too long
+	 */
+	public static Request withKeyAndTtl(Command command, String key, long ttl) {
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		return withRawKeyAndTtl(command, Key.of(key), ttl);
+	}
+
+	/**
+	 * Creates {@link Request} that contains specified {@link Command},
+	 * {@link Key} and {@code ttl}, but no data.
+	 * 
+	 * @param command {@link Command} to create a {@link Request} with
+	 * @param key     identifier
+	 * @param ttl     new time-to-live of the entry
+	 * @throws NullPointerException if either {@code command} or {@code key} is null
+	 */
+	public static Request withRawKeyAndTtl(Command command, Key key, long ttl) {
+		requireNonNull(command, COMMAND_NOT_NULL_MESSAGE);
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		return new Request(command, key, (byte[]) null, ttl);
+	}
+
+	/**
+	 * Creates {@link Request} that contains specified counter {@link Command},
+	 * {@code key} and {@code delta} the counter should be changed by. Server
+	 * responds with new value of the counter or with {@link Status#NOT_FOUND} if
+	 * there is no counter with such key.
+	 * 
+	 * @param command {@link Command#INCR} or {@link Command#DECR}
+	 * @param key     string identifier of the counter
+	 * @param delta   unsigned value to change counter by
+	 * @throws NullPointerException if either {@code command} or {@code key} is null
+	 * @throws JMemcachedException  if {@code command} is not a counter command or
+	 *                              {@code key} is too long
+	 * @see Counter
+	 */
+	public static Request withDelta(Command command, String key, long delta) {
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		return withRawKeyAndDelta(command, Key.of(key), delta, null, null);
+	}
+
+	/**
+	 * Creates {@link Request} that contains specified counter {@link Command},
+	 * {@code key}, {@code delta} the counter should be changed by, and
+	 * {@code initialValue} with optional {@code ttl} the counter should be
+	 * created with if there is no counter with such key. Server responds with
+	 * {@link Status#ADDED} if counter is created, in which case delta is not
+	 * applied, or with {@link Status#REPLACED} if it is changed, along with new
+	 * value of the counter.
+	 * 
+	 * @param command      {@link Command#INCR} or {@link Command#DECR}
+	 * @param key          string identifier of the counter
+	 * @param delta        unsigned value to change counter by
+	 * @param initialValue value of the created counter
+	 * @param ttl          optional, time-to-live of the created counter
+	 * @throws NullPointerException if either {@code command} or {@code key} is null
+	 * @throws JMemcachedException  if {@code command} is not a counter command or
+	 *                              {@code key} is too long
+	 * @see Counter
+	 */
+	public static Request withDelta(Command command, String key, long delta, long initialValue, Long ttl) {
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		return withRawKeyAndDelta(command, Key.of(key), delta, initialValue, ttl);
+	}
+
+	/**
+	 * Creates {@link Request} that contains specified counter {@link Command},
+	 * {@link Key}, {@code delta} the counter should be changed by, and optional
+	 * {@code initialValue} with optional {@code ttl} the counter should be
+	 * created with if there is no counter with such key. Delta and initial
+	 * value are carried as data of the request.
+	 * 
+	 * @param command      {@link Command#INCR} or {@link Command#DECR}
+	 * @param key          identifier of the counter
+	 * @param delta        unsigned value to change counter by
+	 * @param initialValue optional, value of the created counter
+	 * @param ttl          optional, time-to-live of the created counter, allowed
+	 *                     only along with {@code initialValue}
+	 * @throws NullPointerException if either {@code command} or {@code key} is null
+	 * @throws JMemcachedException  if {@code command} is not a counter command or
+	 *                              {@code ttl} is specified without
+	 *                              {@code initialValue}
+	 */
+	public static Request withRawKeyAndDelta(Command command, Key key, long delta, Long initialValue, Long ttl) {
+		requireNonNull(command, COMMAND_NOT_NULL_MESSAGE);
+		requireNonNull(key, KEY_NOT_NULL_MESSAGE);
+		if (!command.isCounter()) {
+			throw new JMemcachedException("Command " + command + " is not a counter command");
+		}
+		if (ttl != null && initialValue == null) {
+			throw new JMemcachedException("Ttl of the counter can not be specified without initial value");
+		}
+		ByteBuffer operand = ByteBuffer.allocate(initialValue != null ? 2 * Counter.BYTES : Counter.BYTES);
+		operand.putLong(delta);
+		if (initialValue != null) {
+			operand.putLong(initialValue);
+		}
+		return new Request(command, key, operand.array(), ttl);
+	}
+
+	/**
+	 * Creates {@link Request} that contains specified multi-key {@link Command},
+	 * such as {@link Command#MGET} or {@link Command#MPUT}, and list of
+	 * {@link Entry entries} it operates on.
+	 * 
+	 * @param command {@link Command} to create a {@link Request} with
+	 * @param entries keys or key/data/ttl triples to put into request
+	 * @throws NullPointerException if {@code command}, {@code entries} or any of
+	 *                              the entries is null
+	 */
+	public static Request withEntries(Command command, List<Entry> entries) {
+		requireNonNull(command, COMMAND_NOT_NULL_MESSAGE);
+		requireNonNull(entries, ENTRIES_NOT_NULL_MESSAGE);
+		List<Entry> copy = new ArrayList<>(entries);
+		copy.forEach(entry -> requireNonNull(entry, ENTRIES_NOT_NULL_MESSAGE));
+		return new Request(command, Collections.unmodifiableList(copy));
+	}
+
+	Request(Command command, Key key, byte[] data, Long ttl) {
 		super(data);
 		this.command = command;
 		this.key = key;
 		this.ttl = ttl;
+		this.entries = Collections.emptyList();
+		this.correlationId = null;
+		this.casToken = null;
+	}
+
+	private Request(Command command, Key key, DirectPayload payload, Long ttl) {
+		super(payload);
+		this.command = command;
+		this.key = key;
+		this.ttl = ttl;
+		this.entries = Collections.emptyList();
+		this.correlationId = null;
+		this.casToken = null;
+	}
+
+	private Request(Command command, List<Entry> entries) {
+		super();
+		this.command = command;
+		this.key = null;
+		this.ttl = null;
+		this.entries = entries;
+		this.correlationId = null;
+		this.casToken = null;
+	}
+
+	private Request(Request source, Integer correlationId, Long casToken) {
+		super(source);
+		this.command = source.command;
+		this.key = source.key;
+		this.ttl = source.ttl;
+		this.entries = source.entries;
+		this.correlationId = correlationId;
+		this.casToken = casToken;
 	}
 
+	/**
+	 * Creates copy of this {@link Request}, that shares its data, with the
+	 * specified {@code correlationId}. Correlation id is opaque to the protocol
+	 * and is echoed in the {@link Response} to this request, so that responses
+	 * can be matched with requests when they are sent over the same connection
+	 * out of order.
+	 * 
+	 * @param correlationId identifier of the request
+	 */
+	public Request withCorrelationId(int correlationId) {
+		return new Request(this, correlationId, casToken);
+	}
+
+	/**
+	 * Creates copy of this {@link Request}, that shares its data, with the
+	 * specified {@code casToken}, which should be the one of the
+	 * {@link Response} the entry was read with. Cas token is required for
+	 * {@link Command#CAS} request with key and data and is not allowed for
+	 * other requests.
+	 * 
+	 * @param casToken version of the entry the request expects
+	 */
+	public Request withCasToken(long casToken) {
+		return new Request(this, correlationId, casToken);
+	}
+
+	/**
+	 * Returns key of the request as string or {@code null} if request has no
+	 * key.
+	 */
 	public String getKey() {
+		return key != null ? key.toString() : null;
+	}
+
+	/**
+	 * Returns key of the request as {@link Key} or {@code null} if request has
+	 * no key.
+	 */
+	public Key getRawKey() {
 		return key;
 	}
 
@@ -78,6 +347,14 @@ public class Request extends AbstractPackage {
 		return command;
 	}
 
+	/**
+	 * Returns unmodifiable list of entries of the multi-key request or empty
+	 * list if request has no entries.
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
 	public boolean hasKey() {
 		return key != null;
 	}
@@ -86,19 +363,92 @@ public class Request extends AbstractPackage {
 		return ttl != null;
 	}
 
+	public boolean hasEntries() {
+		return !entries.isEmpty();
+	}
+
+	/**
+	 * Returns correlation id of the request or {@code null} if request has no
+	 * correlation id.
+	 */
+	public Integer getCorrelationId() {
+		return correlationId;
+	}
+
+	public boolean hasCorrelationId() {
+		return correlationId != null;
+	}
+
+	/**
+	 * Returns cas token of the request or {@code null} if request has no cas
+	 * token.
+	 */
+	public Long getCasToken() {
+		return casToken;
+	}
+
+	public boolean hasCasToken() {
+		return casToken != null;
+	}
+
+	/**
+	 * Returns delta of the counter request.
+	 * 
+	 * @throws JMemcachedException if this is not a valid counter request
+	 */
+	public long getDelta() {
+		return counterOperand().getLong(0);
+	}
+
+	/**
+	 * Returns initial value of the counter request or {@code null} if request
+	 * has no initial value.
+	 * 
+	 * @throws JMemcachedException if this is not a valid counter request
+	 */
+	public Long getInitialValue() {
+		ByteBuffer operand = counterOperand();
+		return operand.remaining() > Counter.BYTES ? operand.getLong(Counter.BYTES) : null;
+	}
+
+	/**
+	 * Checks whether this is a counter request with key and data that holds
+	 * delta and optional initial value.
+	 */
+	public boolean hasCounterOperand() {
+		return command.isCounter() && hasKey()
+				&& (getDataLength() == Counter.BYTES || getDataLength() == 2 * Counter.BYTES);
+	}
+
+	private ByteBuffer counterOperand() {
+		if (!hasCounterOperand()) {
+			throw new JMemcachedException("Request has no counter delta: " + this);
+		}
+		return getDataBuffer();
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder(getCommand().name());
 
 		if (hasKey()) {
-			builder.append('[').append(getKey()).append(']');
+			builder.append('[').append(key).append(']');
 		}
 		if (hasData()) {
-			builder.append("=").append(getData().length).append(" bytes");
+			builder.append("=").append(getDataLength()).append(" bytes");
 		}
 		if (hasTtl()) {
 			builder.append(" (").append(String.format("time-to-live=%d milliseconds", ttl)).append(')');
 		}
+		if (hasEntries()) {
+			builder.append(entries);
+		}
+		if (hasCasToken()) {
+			builder.append(" cas=").append(casToken);
+		}
+		if (hasCorrelationId()) {
+			builder.append(" #").append(correlationId);
+		}
 
 		return builder.toString();
 	}
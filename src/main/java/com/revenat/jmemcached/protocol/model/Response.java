@@ -2,6 +2,12 @@ package com.revenat.jmemcached.protocol.model;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
 /**
  * This immutable component represents protocol's response package.
  * 
@@ -10,6 +16,9 @@ import static java.util.Objects.requireNonNull;
  */
 public class Response extends AbstractPackage {
 	private final Status status;
+	private final List<Response> entries;
+	private final Integer correlationId;
+	private final Long casToken;
 
 	/**
 	 * Creates new {@link Response} object that contains only command {@link Status}
@@ -20,7 +29,7 @@ public class Response extends AbstractPackage {
 	 */
 	public static Response empty(Status status) {
 		requireNonNull(status, "status can not be null");
-		return new Response(status, null);
+		return new Response(status, (byte[]) null);
 	}
 
 	/**
@@ -28,7 +37,8 @@ public class Response extends AbstractPackage {
 	 * data of some kind.
 	 * 
 	 * @param status command {@link Status} of this response
-	 * @param data   some kind of data of this response
+	 * @param data   some kind of data of this response, not copied, so it
+	 *               should not be modified afterwards
 	 * @throws NullPointerException if either provided {@code status} or
 	 *                              {@code data} is {@code null}
 	 */
@@ -38,20 +48,189 @@ public class Response extends AbstractPackage {
 		return new Response(status, data);
 	}
 
+	/**
+	 * Creates new {@link Response} object that contains command {@link Status}
+	 * and data kept in {@link DirectPayload} outside of the Java heap.
+	 * 
+	 * @param status  command {@link Status} of this response
+	 * @param payload data of this response, response takes ownership of the
+	 *                payload reference, which is released with
+	 *                {@link #release()}
+	 * @throws NullPointerException if either provided {@code status} or
+	 *                              {@code payload} is {@code null}
+	 * @throws JMemcachedException  if {@code payload} is already released
+	 */
+	public static Response withPayload(Status status, DirectPayload payload) {
+		requireNonNull(status, "status can not be null");
+		requireNonNull(payload, "payload can not be null");
+		if (payload.isReleased()) {
+			throw new JMemcachedException("Payload is already released");
+		}
+		return new Response(status, payload);
+	}
+
+	/**
+	 * Creates new {@link Response} object for the counter request that contains
+	 * command {@link Status} and new {@code value} of the counter in raw
+	 * {@link Counter} form.
+	 * 
+	 * @param status command {@link Status} of this response
+	 * @param value  new value of the counter
+	 * @throws NullPointerException if provided {@code status} is {@code null}
+	 */
+	public static Response withCounter(Status status, long value) {
+		requireNonNull(status, "status can not be null");
+		return new Response(status, Counter.toBytes(value));
+	}
+
+	/**
+	 * Creates new {@link Response} object for the multi-key request that
+	 * contains overall command {@link Status} and one entry per requested key,
+	 * in the order keys were requested. Each entry holds per-key {@link Status}
+	 * and data, if any.
+	 * 
+	 * @param status  overall command {@link Status} of this response
+	 * @param entries per-key responses
+	 * @throws NullPointerException if either provided {@code status},
+	 *                              {@code entries} or any of the entries is
+	 *                              {@code null}
+	 * @throws JMemcachedException  if any of the entries has entries itself
+	 */
+	public static Response withEntries(Status status, List<Response> entries) {
+		requireNonNull(status, "status can not be null");
+		requireNonNull(entries, "entries can not be null");
+		List<Response> copy = new ArrayList<>(entries);
+		for (Response entry : copy) {
+			requireNonNull(entry, "entries can not be null");
+			if (entry.hasEntries()) {
+				throw new JMemcachedException("Response entry can not contain entries itself");
+			}
+		}
+		return new Response(status, null, Collections.unmodifiableList(copy));
+	}
+
 	protected Response(Status status, byte[] data) {
+		this(status, data, Collections.emptyList());
+	}
+
+	private Response(Status status, byte[] data, List<Response> entries) {
 		super(data);
 		this.status = status;
+		this.entries = entries;
+		this.correlationId = null;
+		this.casToken = null;
+	}
+
+	private Response(Status status, DirectPayload payload) {
+		super(payload);
+		this.status = status;
+		this.entries = Collections.emptyList();
+		this.correlationId = null;
+		this.casToken = null;
+	}
+
+	private Response(Response source, Integer correlationId, Long casToken) {
+		super(source);
+		this.status = source.status;
+		this.entries = source.entries;
+		this.correlationId = correlationId;
+		this.casToken = casToken;
+	}
+
+	/**
+	 * Creates copy of this {@link Response}, that shares its data, with the
+	 * specified {@code correlationId}, which should be the one of the
+	 * {@link Request} this response answers. Correlation id of the response
+	 * entry is not sent.
+	 * 
+	 * @param correlationId identifier of the request
+	 */
+	public Response withCorrelationId(int correlationId) {
+		return new Response(this, correlationId, casToken);
+	}
+
+	/**
+	 * Creates copy of this {@link Response}, that shares its data, with the
+	 * specified {@code casToken}, which identifies version of the entry the
+	 * response holds. Cas token is sent for response entries as well, so that
+	 * it can be obtained for each key of the multi-key request.
+	 * 
+	 * @param casToken version of the entry, which should be passed to
+	 *                 {@link Request#withCasToken(long)} to modify the entry
+	 *                 only if it was not modified since
+	 */
+	public Response withCasToken(long casToken) {
+		return new Response(this, correlationId, casToken);
 	}
 
 	public Status getStatus() {
 		return this.status;
 	}
 
+	/**
+	 * Returns unmodifiable list of per-key responses or empty list if this
+	 * response has no entries.
+	 */
+	public List<Response> getEntries() {
+		return entries;
+	}
+
+	public boolean hasEntries() {
+		return !entries.isEmpty();
+	}
+
+	/**
+	 * Returns correlation id of the response or {@code null} if response has
+	 * no correlation id.
+	 */
+	public Integer getCorrelationId() {
+		return correlationId;
+	}
+
+	public boolean hasCorrelationId() {
+		return correlationId != null;
+	}
+
+	/**
+	 * Returns cas token of the response or {@code null} if response has no
+	 * cas token.
+	 */
+	public Long getCasToken() {
+		return casToken;
+	}
+
+	public boolean hasCasToken() {
+		return casToken != null;
+	}
+
+	/**
+	 * Returns value of the counter carried by the response to the counter
+	 * request.
+	 * 
+	 * @throws JMemcachedException if response data is not a {@link Counter
+	 *                             counter}
+	 */
+	public long getCounterValue() {
+		if (getDataLength() != Counter.BYTES) {
+			throw new JMemcachedException("Response has no counter value: " + this);
+		}
+		return getDataBuffer().getLong();
+	}
+
 	@Override
 	public String toString() {
 		String s = status.name();
 		if (hasData()) {
-			s += String.format(" [%d bytes]", getData().length);
+			s += String.format(" [%d bytes]", getDataLength());
+		}
+		if (hasEntries()) {
+			s += " " + entries;
+		}
+		if (hasCasToken()) {
+			s += " cas=" + casToken;
+		}
+		if (hasCorrelationId()) {
+			s += " #" + correlationId;
 		}
 		
 		return s;
@@ -19,10 +19,50 @@ public enum Status {
 	
 	REMOVED(4),
 	
-	CLEARED(5)
+	CLEARED(5),
+
+	/**
+	 * Data of the {@link Command#CAS} request was not stored, since entry was
+	 * modified after the cas token of the request had been obtained
+	 */
+	EXISTS(6),
+
+	/**
+	 * Data of the {@link Command#CAS} request was stored, since entry was not
+	 * modified after the cas token of the request had been obtained
+	 */
+	MODIFIED(7),
+
+	/**
+	 * Counter was not updated by the {@link Command#INCR} or
+	 * {@link Command#DECR} request, since stored data is not a
+	 * {@link Counter counter}
+	 */
+	NOT_A_COUNTER(8),
+
+	/**
+	 * Ttl of the entry was set by the {@link Command#TOUCH} request
+	 */
+	TOUCHED(9),
+
+	/**
+	 * {@link Command#NOOP} request was processed
+	 */
+	OK(10)
 	;
 
 	private byte code;
+	/**
+	 * Lookup table indexed by unsigned byte code, so that decoding doesn't
+	 * iterate over the copy of the {@link #values()} array
+	 */
+	private static final Status[] BY_BYTE_CODE = new Status[256];
+
+	static {
+		for (Status status : values()) {
+			BY_BYTE_CODE[status.code & 0xFF] = status;
+		}
+	}
 
 	Status(int code) {
 		this.code = (byte) code;
@@ -37,14 +77,22 @@ public enum Status {
 	 *                             provided {@code byteCode} value
 	 */
 	public static Status valueOf(byte byteCode) {
-		for (Status status : values()) {
-			if (status.getByteCode() == byteCode) {
-				return status;
-			}
+		Status status = BY_BYTE_CODE[byteCode & 0xFF];
+		if (status != null) {
+			return status;
 		}
 		throw new JMemcachedException("Unsupported byteCode for Status: " + byteCode);
 	}
 	
+	/**
+	 * Returns {@code true} if this status means that command was not applied,
+	 * so that it is replied even to the {@link Command#isQuiet() quiet}
+	 * command.
+	 */
+	public boolean isFailure() {
+		return this == NOT_FOUND || this == EXISTS || this == NOT_A_COUNTER;
+	}
+
 	/**
 	 * Returns {@code byte} value representing this status.
 	 */
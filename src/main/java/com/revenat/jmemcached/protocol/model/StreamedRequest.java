@@ -0,0 +1,93 @@
+package com.revenat.jmemcached.protocol.model;
+
+import java.io.InputStream;
+
+/**
+ * This component represents protocol's request package whose data is not
+ * loaded into memory, but is read from the connection on demand. Data stream
+ * should be read or closed before reading next package from the same
+ * connection.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class StreamedRequest {
+	private final Command command;
+	private final Key key;
+	private final Long ttl;
+	private final InputStream data;
+	private final Integer correlationId;
+	private final Long casToken;
+
+	public StreamedRequest(Command command, Key key, Long ttl, InputStream data, Integer correlationId,
+			Long casToken) {
+		this.command = command;
+		this.key = key;
+		this.ttl = ttl;
+		this.data = data;
+		this.correlationId = correlationId;
+		this.casToken = casToken;
+	}
+
+	public Command getCommand() {
+		return command;
+	}
+
+	public String getKey() {
+		return key != null ? key.toString() : null;
+	}
+
+	public Key getRawKey() {
+		return key;
+	}
+
+	public Long getTtl() {
+		return ttl;
+	}
+
+	/**
+	 * Returns stream of the request data, which is empty if request has no data.
+	 */
+	public InputStream getData() {
+		return data;
+	}
+
+	public boolean hasKey() {
+		return key != null;
+	}
+
+	public boolean hasTtl() {
+		return ttl != null;
+	}
+
+	/**
+	 * Returns correlation id of the request or {@code null} if request has no
+	 * correlation id.
+	 */
+	public Integer getCorrelationId() {
+		return correlationId;
+	}
+
+	/**
+	 * Returns cas token of the {@link Command#CAS} request or {@code null} if
+	 * request has no cas token.
+	 */
+	public Long getCasToken() {
+		return casToken;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(command.name());
+
+		if (hasKey()) {
+			builder.append('[').append(key).append(']');
+		}
+		builder.append("=streamed data");
+		if (hasTtl()) {
+			builder.append(" (").append(String.format("time-to-live=%d milliseconds", ttl)).append(')');
+		}
+
+		return builder.toString();
+	}
+}
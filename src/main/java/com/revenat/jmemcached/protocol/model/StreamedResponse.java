@@ -0,0 +1,59 @@
+package com.revenat.jmemcached.protocol.model;
+
+import java.io.InputStream;
+
+/**
+ * This component represents protocol's response package whose data is not
+ * loaded into memory, but is read from the connection on demand. Data stream
+ * should be read or closed before reading next package from the same
+ * connection.
+ * 
+ * @author Vitaly Dragun
+ *
+ */
+public class StreamedResponse {
+	private final Status status;
+	private final InputStream data;
+	private final Integer correlationId;
+	private final Long casToken;
+
+	public StreamedResponse(Status status, InputStream data, Integer correlationId, Long casToken) {
+		this.status = status;
+		this.data = data;
+		this.correlationId = correlationId;
+		this.casToken = casToken;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns stream of the response data, which is empty if response has no
+	 * data.
+	 */
+	public InputStream getData() {
+		return data;
+	}
+
+	/**
+	 * Returns correlation id of the response or {@code null} if response has
+	 * no correlation id.
+	 */
+	public Integer getCorrelationId() {
+		return correlationId;
+	}
+
+	/**
+	 * Returns cas token of the response or {@code null} if response has no cas
+	 * token.
+	 */
+	public Long getCasToken() {
+		return casToken;
+	}
+
+	@Override
+	public String toString() {
+		return status.name() + " [streamed data]";
+	}
+}
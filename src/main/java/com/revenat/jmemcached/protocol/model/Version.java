@@ -16,7 +16,13 @@ import com.revenat.jmemcached.exception.JMemcachedException;
 public enum Version {
 	VERSION_0_0(0, 0),
 	
-	VERSION_1_0(1, 0);
+	VERSION_1_0(1, 0),
+
+	/**
+	 * Version which connection starts with the {@link Handshake}, so that both
+	 * sides use only mutually supported {@link Feature features}
+	 */
+	VERSION_1_1(1, 1);
 
 	/**
 	 * Stores 3 bits which represent version's MAJOR part
@@ -26,6 +32,17 @@ public enum Version {
 	 * Stores 4 bits which represent version's MINOR part
 	 */
 	private byte low;
+	/**
+	 * Lookup table indexed by unsigned byte code, so that decoding doesn't
+	 * iterate over the copy of the {@link #values()} array
+	 */
+	private static final Version[] BY_BYTE_CODE = new Version[256];
+
+	static {
+		for (Version version : values()) {
+			BY_BYTE_CODE[version.getByteCode() & 0xFF] = version;
+		}
+	}
 
 	Version(int high, int low) {
 		this.high = (byte) (high & 0x7); // retains only 3 lower bits of the byte
@@ -41,14 +58,20 @@ public enum Version {
 	 *                             provided {@code byteCode} value
 	 */
 	public static Version valueOf(byte byteCode) {
-		for (Version version : values()) {
-			if (version.getByteCode() == byteCode) {
-				return version;
-			}
+		Version version = BY_BYTE_CODE[byteCode & 0xFF];
+		if (version != null) {
+			return version;
 		}
 		throw new JMemcachedException("Unsupported byteCode for Version: " + byteCode);
 	}
 
+	/**
+	 * Returns the latest {@link Version} supported by this implementation.
+	 */
+	public static Version latest() {
+		return VERSION_1_1;
+	}
+
 	/**
 	 * Returns {@code byte} representing this {@link Version}
 	 */
@@ -0,0 +1,277 @@
+package com.revenat.jmemcached.protocol.routing;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Key;
+
+/**
+ * Immutable {@link KeyRouter} implementation that places nodes on the
+ * ketama-style consistent hash ring. Each node takes {@link #POINTS_PER_WEIGHT}
+ * virtual points per unit of its weight, and key is routed to the node that
+ * owns the first point following the hash of the key bytes, the same ASCII
+ * bytes that are written to the wire. Thus when node joins or leaves only keys
+ * between its points and the preceding ones are remapped, while the rest stay
+ * on their nodes.
+ * <p>
+ * If key contains hash tag, that is non-empty part between the first
+ * {@code '{'} and the first {@code '}'} after it, only the tag is hashed, so
+ * that keys like {@code user:{42}:name} and {@code user:{42}:email} are routed
+ * to the same node.
+ * 
+ * @author Vitaly Dragun
+ *
+ * @param <T> type of the node, such as its address
+ */
+public final class ConsistentHashRouter<T> implements KeyRouter<T> {
+	/**
+	 * Number of virtual points the node takes on the ring per unit of its
+	 * weight
+	 */
+	public static final int POINTS_PER_WEIGHT = 160;
+	/**
+	 * Maximum weight of the node
+	 */
+	public static final int MAX_WEIGHT = 1000;
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final byte TAG_START = '{';
+	private static final byte TAG_END = '}';
+
+	private static final ConsistentHashRouter<?> EMPTY = new ConsistentHashRouter<>(Collections.emptyList());
+
+	private final List<Node<T>> nodes;
+	/**
+	 * Sorted positions of the virtual points on the ring
+	 */
+	private final long[] points;
+	/**
+	 * Indexes of the nodes owning virtual points with the same index
+	 */
+	private final int[] owners;
+
+	/**
+	 * Returns router without nodes.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> ConsistentHashRouter<T> empty() {
+		return (ConsistentHashRouter<T>) EMPTY;
+	}
+
+	private ConsistentHashRouter(List<Node<T>> nodes) {
+		this.nodes = nodes;
+		List<Point> ring = new ArrayList<>();
+		for (int i = 0; i < nodes.size(); i++) {
+			Node<T> node = nodes.get(i);
+			for (int j = 0; j < node.weight * POINTS_PER_WEIGHT; j++) {
+				ring.add(new Point(pointPosition(node.name, j), i));
+			}
+		}
+		ring.sort(Comparator.<Point>comparingLong(point -> point.position)
+				.thenComparing(point -> nodes.get(point.owner).name));
+		this.points = new long[ring.size()];
+		this.owners = new int[ring.size()];
+		for (int i = 0; i < ring.size(); i++) {
+			points[i] = ring.get(i).position;
+			owners[i] = ring.get(i).owner;
+		}
+	}
+
+	/**
+	 * Creates copy of this router with additional node of weight {@code 1}.
+	 * 
+	 * @see #withNode(String, Object, int)
+	 */
+	public ConsistentHashRouter<T> withNode(String name, T node) {
+		return withNode(name, node, 1);
+	}
+
+	/**
+	 * Creates copy of this router with additional node of the specified
+	 * {@code weight}, which takes share of keys proportional to its weight.
+	 * 
+	 * @param name   unique name of the node, such as {@code host:port}, which
+	 *               determines positions of its points on the ring, so it
+	 *               should be the same on all clients and stay the same across
+	 *               restarts
+	 * @param node   node keys are routed to
+	 * @param weight weight of the node, from {@code 1} to {@link #MAX_WEIGHT}
+	 * @throws NullPointerException      if either {@code name} or {@code node}
+	 *                                   is null
+	 * @throws JMemcachedConfigException if {@code weight} is out of range or
+	 *                                   router already has node with such name
+	 */
+	public ConsistentHashRouter<T> withNode(String name, T node, int weight) {
+		requireNonNull(name, "name can not be null");
+		requireNonNull(node, "node can not be null");
+		if (weight < 1 || weight > MAX_WEIGHT) {
+			throw new JMemcachedConfigException("weight should be between 1 and " + MAX_WEIGHT + ": " + weight);
+		}
+		if (indexOf(name) >= 0) {
+			throw new JMemcachedConfigException("Router already has node with name " + name);
+		}
+		List<Node<T>> copy = new ArrayList<>(nodes);
+		copy.add(new Node<>(name, node, weight));
+		return new ConsistentHashRouter<>(Collections.unmodifiableList(copy));
+	}
+
+	/**
+	 * Creates copy of this router without node with the specified {@code name}
+	 * or returns this router if it has no such node.
+	 * 
+	 * @throws NullPointerException if {@code name} is null
+	 */
+	public ConsistentHashRouter<T> withoutNode(String name) {
+		requireNonNull(name, "name can not be null");
+		int index = indexOf(name);
+		if (index < 0) {
+			return this;
+		}
+		List<Node<T>> copy = new ArrayList<>(nodes);
+		copy.remove(index);
+		return new ConsistentHashRouter<>(Collections.unmodifiableList(copy));
+	}
+
+	private int indexOf(String name) {
+		for (int i = 0; i < nodes.size(); i++) {
+			if (nodes.get(i).name.equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public T route(Key key) {
+		requireNonNull(key, "key can not be null");
+		if (points.length == 0) {
+			throw new JMemcachedException("Router has no nodes to route key " + key + " to");
+		}
+		int index = Arrays.binarySearch(points, keyPosition(key));
+		if (index < 0) {
+			index = -index - 1;
+		}
+		return nodes.get(owners[index < points.length ? index : 0]).node;
+	}
+
+	/**
+	 * Returns node the specified string {@code key} should be sent to.
+	 * 
+	 * @throws NullPointerException if {@code key} is null
+	 * @throws JMemcachedException  if key is too long or router has no nodes
+	 */
+	public T route(String key) {
+		requireNonNull(key, "key can not be null");
+		return route(Key.of(key));
+	}
+
+	/**
+	 * Returns unmodifiable set of nodes in the order they were added.
+	 */
+	@Override
+	public Set<T> getNodes() {
+		Set<T> result = new LinkedHashSet<>();
+		for (Node<T> node : nodes) {
+			result.add(node.node);
+		}
+		return Collections.unmodifiableSet(result);
+	}
+
+	/**
+	 * Returns position of the specified {@code key} on the ring.
+	 */
+	static long keyPosition(Key key) {
+		int tagStart = indexOf(key, TAG_START, 0);
+		int tagEnd = tagStart >= 0 ? indexOf(key, TAG_END, tagStart + 1) : -1;
+		if (tagEnd > tagStart + 1) {
+			long hash = FNV_OFFSET_BASIS;
+			for (int i = tagStart + 1; i < tagEnd; i++) {
+				hash = fnv(hash, key.byteAt(i));
+			}
+			return mix(hash);
+		}
+		return mix(key.hash64());
+	}
+
+	private static int indexOf(Key key, byte b, int from) {
+		for (int i = from; i < key.length(); i++) {
+			if (key.byteAt(i) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static long pointPosition(String name, int index) {
+		long hash = FNV_OFFSET_BASIS;
+		for (byte b : (name + '-' + index).getBytes(StandardCharsets.UTF_8)) {
+			hash = fnv(hash, b);
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Applies single step of the 64-bit FNV-1a hash, which is used by
+	 * {@link Key#hash64()} as well.
+	 */
+	private static long fnv(long hash, byte b) {
+		return (hash ^ (b & 0xFF)) * FNV_PRIME;
+	}
+
+	/**
+	 * Applies finalizer of the MurmurHash3, so that FNV hashes of the similar
+	 * inputs, such as names of the virtual points, are spread across the whole
+	 * ring.
+	 */
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("ConsistentHashRouter[");
+		for (int i = 0; i < nodes.size(); i++) {
+			Node<T> node = nodes.get(i);
+			builder.append(i > 0 ? ", " : "").append(node.name).append('*').append(node.weight);
+		}
+		return builder.append(']').toString();
+	}
+
+	private static final class Node<T> {
+		private final String name;
+		private final T node;
+		private final int weight;
+
+		private Node(String name, T node, int weight) {
+			this.name = name;
+			this.node = node;
+			this.weight = weight;
+		}
+	}
+
+	private static final class Point {
+		private final long position;
+		private final int owner;
+
+		private Point(long position, int owner) {
+			this.position = position;
+			this.owner = owner;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.revenat.jmemcached.protocol.routing;
+
+import java.util.Set;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Key;
+
+/**
+ * Component responsible for choosing which of the several jmemcached nodes
+ * holds the specified {@link Key}, so that client can spread keys across
+ * nodes. Implementations should be thread-safe.
+ * 
+ * @author Vitaly Dragun
+ *
+ * @param <T> type of the node, such as its address
+ */
+public interface KeyRouter<T> {
+
+	/**
+	 * Returns node the specified {@code key} should be sent to.
+	 * 
+	 * @throws NullPointerException if {@code key} is null
+	 * @throws JMemcachedException  if router has no nodes
+	 */
+	T route(Key key);
+
+	/**
+	 * Returns unmodifiable set of nodes keys are routed to.
+	 */
+	Set<T> getNodes();
+}
@@ -0,0 +1,243 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+public class BinaryObjectConverterTest {
+	private static final Thing THING = new Thing("name", 10);
+
+	@Rule
+	public ExpectedException expected = ExpectedException.none();
+
+	private BinaryObjectConverter converter;
+
+	@Before
+	public void setUp() {
+		converter = new BinaryObjectConverter();
+	}
+
+	@Test
+	public void shouldSerializeStringAsTagAndUtf8Bytes() throws Exception {
+		String value = "caf\u00e9 \u20ac";
+
+		byte[] data = converter.toByteArray(value);
+
+		assertThat(data.length, equalTo(1 + value.getBytes(StandardCharsets.UTF_8).length));
+		assertThat(converter.fromByteArray(data).get(), equalTo(value));
+	}
+
+	@Test
+	public void shouldSerializeBoxedPrimitivesCompactly() throws Exception {
+		assertThat(converter.toByteArray(Integer.MIN_VALUE).length, equalTo(1 + Integer.BYTES));
+		assertThat(converter.toByteArray(Long.MAX_VALUE).length, equalTo(1 + Long.BYTES));
+		assertThat(converter.toByteArray(Boolean.TRUE).length, equalTo(2));
+	}
+
+	@Test
+	public void shouldRestoreSerializedJdkValues() throws Exception {
+		Serializable[] values = new Serializable[] { "", "text", -5, Long.MIN_VALUE, (short) 7, (byte) -1, true,
+				false, 'z', 1.5f, -2.25d };
+
+		for (Serializable value : values) {
+			assertThat(converter.fromByteArray(converter.toByteArray(value)).get(), equalTo(value));
+		}
+	}
+
+	@Test
+	public void shouldRestoreSerializedByteArray() throws Exception {
+		byte[] bytes = new byte[] { 1, 2, 3 };
+
+		Object restored = converter.fromByteArray(converter.toByteArray(bytes)).get();
+
+		assertThat((byte[]) restored, equalTo(bytes));
+	}
+
+	@Test
+	public void shouldSerializeRegisteredClassUsingItsCodec() throws Exception {
+		converter.register(1, Thing.class, new ThingCodec());
+
+		byte[] data = converter.toByteArray(THING);
+
+		assertThat(data.length, lessThan(new ObjectConverter().toByteArray(THING).length));
+		assertThat(converter.fromByteArray(data).get(), equalTo(THING));
+	}
+
+	@Test
+	public void shouldFallBackToJavaSerializationForOtherSerializableClasses() throws Exception {
+		BigDecimal value = new BigDecimal("10.25");
+
+		byte[] data = converter.toByteArray(value);
+
+		assertThat(data, equalTo(new ObjectConverter().toByteArray(value)));
+		assertThat(converter.fromByteArray(data).get(), equalTo(value));
+	}
+
+	@Test
+	public void shouldReadValuesWrittenByObjectConverter() throws Exception {
+		byte[] data = new ObjectConverter().toByteArray("text");
+
+		assertThat(converter.fromByteArray(data).get(), equalTo("text"));
+	}
+
+	@Test
+	public void shouldNotAllowToSerializeUnserializableObject() throws Exception {
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("should implement java.io.Serializable"));
+
+		converter.toByteArray(new Object());
+	}
+
+	@Test
+	public void shouldNotAllowToSerializeNull() throws Exception {
+		expected.expect(NullPointerException.class);
+		expected.expectMessage(containsString("Object to serialize can not be null"));
+
+		converter.toByteArray(null);
+	}
+
+	@Test
+	public void shouldReturnEmptyOptionalIfDeserializeEmptyData() throws Exception {
+		Optional<Serializable> optional = converter.fromByteArray(new byte[0]);
+
+		assertFalse("Optional should be empty", optional.isPresent());
+	}
+
+	@Test
+	public void shouldNotAllowToDeserializeTruncatedValue() throws Exception {
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("Can not deserialize object from byte array"));
+
+		converter.fromByteArray(new byte[] { 3, 0, 0 });
+	}
+
+	@Test
+	public void shouldNotAllowToDeserializeUnregisteredType() throws Exception {
+		converter.register(1, Thing.class, new ThingCodec());
+		byte[] data = converter.toByteArray(THING);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("No codec registered for typeId 1"));
+
+		new BinaryObjectConverter().fromByteArray(data);
+	}
+
+	@Test
+	public void shouldNotAllowToRegisterSameTypeIdTwice() throws Exception {
+		converter.register(1, Thing.class, new ThingCodec());
+		expected.expect(JMemcachedConfigException.class);
+
+		converter.register(1, BigDecimal.class, new BigDecimalCodec());
+	}
+
+	@Test
+	public void shouldNotAllowToRegisterSameClassTwice() throws Exception {
+		converter.register(1, Thing.class, new ThingCodec());
+		expected.expect(JMemcachedConfigException.class);
+
+		converter.register(2, Thing.class, new ThingCodec());
+	}
+
+	@Test(expected = JMemcachedConfigException.class)
+	public void shouldNotAllowToRegisterNegativeTypeId() throws Exception {
+		converter.register(-1, Thing.class, new ThingCodec());
+	}
+
+	@Test
+	public void shouldNotAllowToSerializeUnregisteredClassIfJavaSerializationIsDisabled() throws Exception {
+		converter = new BinaryObjectConverter(false);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("Class java.math.BigDecimal is not registered"));
+
+		converter.toByteArray(new BigDecimal("10.25"));
+	}
+
+	@Test
+	public void shouldNotAllowToDeserializeJavaSerializedDataIfJavaSerializationIsDisabled() throws Exception {
+		byte[] data = new ObjectConverter().toByteArray(new BigDecimal("10.25"));
+		converter = new BinaryObjectConverter(false);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("Unknown type tag"));
+
+		converter.fromByteArray(data);
+	}
+
+	@Test
+	public void shouldSerializeSupportedClassesIfJavaSerializationIsDisabled() throws Exception {
+		converter = new BinaryObjectConverter(false);
+		converter.register(1, Thing.class, new ThingCodec());
+
+		assertThat(converter.fromByteArray(converter.toByteArray("text")).get(), equalTo("text"));
+		assertThat(converter.fromByteArray(converter.toByteArray(THING)).get(), equalTo(THING));
+	}
+
+	private static class Thing implements Serializable {
+		private static final long serialVersionUID = 1L;
+		public String name;
+		public int age;
+
+		Thing(String name, int age) {
+			this.name = name;
+			this.age = age;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(age, name);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Thing other = (Thing) obj;
+			return age == other.age && Objects.equals(name, other.name);
+		}
+	}
+
+	private static class ThingCodec implements BinaryCodec<Thing> {
+
+		@Override
+		public void write(Thing value, DataOutput output) throws IOException {
+			output.writeUTF(value.name);
+			output.writeInt(value.age);
+		}
+
+		@Override
+		public Thing read(DataInput input) throws IOException {
+			return new Thing(input.readUTF(), input.readInt());
+		}
+	}
+
+	private static class BigDecimalCodec implements BinaryCodec<BigDecimal> {
+
+		@Override
+		public void write(BigDecimal value, DataOutput output) throws IOException {
+			output.writeUTF(value.toString());
+		}
+
+		@Override
+		public BigDecimal read(DataInput input) throws IOException {
+			return new BigDecimal(input.readUTF());
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Request;
+import com.revenat.jmemcached.protocol.model.Response;
+import com.revenat.jmemcached.protocol.model.Status;
+import com.revenat.jmemcached.protocol.model.Version;
+
+public class BufferedProtocolSessionTest {
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+	private static final String KEY = "Key";
+	private static final List<Request> REQUESTS = Arrays.asList(Request.withKeyAndData(Command.PUT, KEY, DATA, 1000L),
+			Request.withKey(Command.GET, KEY), Request.empty(Command.CLEAR));
+	private static final List<Response> RESPONSES = Arrays.asList(Response.empty(Status.ADDED),
+			Response.withData(Status.GOTTEN, DATA), Response.empty(Status.CLEARED));
+
+	private final CountingOutputStream output = new CountingOutputStream();
+
+	@Test
+	public void shouldBufferWrittenRequestsUntilFlush() throws Exception {
+		BufferedProtocolSession session = new BufferedProtocolSession(new ByteArrayInputStream(new byte[0]), output);
+
+		for (Request request : REQUESTS) {
+			session.writeRequest(request);
+		}
+
+		assertThat(output.size(), equalTo(0));
+		session.flush();
+		assertThat(output.writeCount, equalTo(1));
+		assertThat(output.flushCount, equalTo(1));
+		assertThat(output.toByteArray(), equalTo(encodeRequests(REQUESTS)));
+	}
+
+	@Test
+	public void shouldBufferWrittenResponsesUntilFlush() throws Exception {
+		BufferedProtocolSession session = new BufferedProtocolSession(new ByteArrayInputStream(new byte[0]), output);
+
+		for (Response response : RESPONSES) {
+			session.writeResponse(response);
+		}
+		session.flush();
+
+		assertThat(output.writeCount, equalTo(1));
+		assertThat(output.toByteArray(), equalTo(encodeResponses(RESPONSES)));
+	}
+
+	@Test
+	public void shouldWriteFramesOfNegotiatedProtocol() throws Exception {
+		Handshake handshake = Handshake.latest(EnumSet.of(Feature.CORRELATION_IDS));
+		BufferedProtocolSession session = new BufferedProtocolSession(new ByteArrayInputStream(new byte[0]), output,
+				BufferedProtocolSession.DEFAULT_BUFFER_SIZE, handshake);
+		Request request = Request.withKey(Command.GET, KEY).withCorrelationId(1);
+
+		session.writeRequest(request);
+		session.flush();
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		new RequestConverter(handshake).writeTo(expected, request);
+		assertThat(output.toByteArray(), equalTo(expected.toByteArray()));
+		assertThat(output.toByteArray()[0], equalTo(Version.VERSION_1_1.getByteCode()));
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToWriteFramesWithFeaturesThatAreNotNegotiated() throws Exception {
+		BufferedProtocolSession session = new BufferedProtocolSession(new ByteArrayInputStream(new byte[0]), output,
+				BufferedProtocolSession.DEFAULT_BUFFER_SIZE, Handshake.LEGACY);
+
+		session.writeResponse(Response.empty(Status.CLEARED).withCorrelationId(1));
+	}
+
+	@Test
+	public void shouldSendBufferedFramesBeforeReading() throws Exception {
+		byte[] responses = encodeResponses(RESPONSES);
+		BufferedProtocolSession session = new BufferedProtocolSession(new ByteArrayInputStream(responses), output);
+
+		session.writeRequest(REQUESTS.get(0));
+		session.readResponse();
+
+		assertThat(output.toByteArray(), equalTo(encodeRequests(REQUESTS.subList(0, 1))));
+	}
+
+	@Test
+	public void shouldWriteFramesLargerThanBufferDirectlyKeepingTheirOrder() throws Exception {
+		List<Request> requests = Arrays.asList(Request.withKey(Command.GET, KEY),
+				Request.withKeyAndData(Command.PUT, KEY, new byte[100], null), Request.withKey(Command.REMOVE, KEY));
+		BufferedProtocolSession session = new BufferedProtocolSession(new ByteArrayInputStream(new byte[0]), output, 32);
+
+		for (Request request : requests) {
+			session.writeRequest(request);
+		}
+		session.flush();
+
+		assertThat(output.toByteArray(), equalTo(encodeRequests(requests)));
+	}
+
+	@Test
+	public void shouldStreamResponsesLargerThanBufferThroughWriteBuffer() throws Exception {
+		List<Response> responses = Arrays.asList(Response.withData(Status.GOTTEN, new byte[100]),
+				Response.empty(Status.ADDED));
+		BufferedProtocolSession session = new BufferedProtocolSession(new ByteArrayInputStream(new byte[0]), output, 32);
+
+		for (Response response : responses) {
+			session.writeResponse(response);
+		}
+		session.flush();
+
+		assertThat(output.toByteArray(), equalTo(encodeResponses(responses)));
+		assertThat("Header, data and last frame should be sent in separate blocks", output.writeCount, equalTo(3));
+		assertThat(output.flushCount, equalTo(1));
+	}
+
+	@Test
+	public void shouldReadRequestsAheadInLargeBlocks() throws Exception {
+		CountingInputStream input = new CountingInputStream(encodeRequests(REQUESTS));
+		BufferedProtocolSession session = new BufferedProtocolSession(input, output);
+
+		for (Request request : REQUESTS) {
+			Request result = session.readRequest();
+			assertThat(result.getCommand(), equalTo(request.getCommand()));
+			assertThat(result.getKey(), equalTo(request.getKey()));
+			assertThat(result.getData(), equalTo(request.getData()));
+		}
+
+		assertThat(input.readCount, equalTo(1));
+	}
+
+	@Test
+	public void shouldReadResponsesLargerThanBuffer() throws Exception {
+		Response large = Response.withData(Status.GOTTEN, new byte[100]);
+		BufferedProtocolSession session = new BufferedProtocolSession(
+				new ByteArrayInputStream(encodeResponses(Arrays.asList(large, RESPONSES.get(0)))), output, 16);
+
+		assertThat(session.readResponse().getData(), equalTo(large.getData()));
+		assertThat(session.readResponse().getStatus(), equalTo(RESPONSES.get(0).getStatus()));
+	}
+
+	@Test(expected = EOFException.class)
+	public void shouldThrowEofExceptionIfConnectionClosedInTheMiddleOfFrame() throws Exception {
+		byte[] frame = encodeRequests(REQUESTS.subList(0, 1));
+		BufferedProtocolSession session = new BufferedProtocolSession(
+				new ByteArrayInputStream(Arrays.copyOf(frame, frame.length - 1)), output);
+
+		session.readRequest();
+	}
+
+	@Test(expected = JMemcachedConfigException.class)
+	public void shouldNotAllowToCreateSessionWithNonPositiveBufferSize() throws Exception {
+		new BufferedProtocolSession(new ByteArrayInputStream(new byte[0]), output, 0);
+	}
+
+	private static byte[] encodeRequests(List<Request> requests) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new RequestConverter().writeAll(out, requests);
+		return out.toByteArray();
+	}
+
+	private static byte[] encodeResponses(List<Response> responses) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ResponseConverter().writeAll(out, responses);
+		return out.toByteArray();
+	}
+
+	private static class CountingOutputStream extends ByteArrayOutputStream {
+		private int writeCount;
+		private int flushCount;
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			writeCount++;
+			super.write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			flushCount++;
+		}
+	}
+
+	private static class CountingInputStream extends InputStream {
+		private final ByteArrayInputStream source;
+		private int readCount;
+
+		CountingInputStream(byte[] content) {
+			this.source = new ByteArrayInputStream(content);
+		}
+
+		@Override
+		public int read() throws IOException {
+			readCount++;
+			return source.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			readCount++;
+			return source.read(b, off, len);
+		}
+	}
+}
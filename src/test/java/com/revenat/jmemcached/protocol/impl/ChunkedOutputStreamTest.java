@@ -0,0 +1,92 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ChunkedOutputStreamTest {
+	private static final int CHUNK_SIZE = 4;
+
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+	private final ChunkedOutputStream chunkedOutput = new ChunkedOutputStream(new DataOutputStream(output),
+			CHUNK_SIZE);
+
+	@Test
+	public void shouldWriteDataAsChunksOfBoundedSize() throws Exception {
+		chunkedOutput.write(new byte[] { 1, 2, 3 });
+		chunkedOutput.write(new byte[] { 4, 5, 6, 7, 8, 9, 10 });
+		chunkedOutput.write(11);
+		chunkedOutput.close();
+
+		assertThat(readChunkLengths(), contains(4, 4, 3, 0));
+	}
+
+	@Test
+	public void shouldWriteOnlyTerminatingChunkForEmptyData() throws Exception {
+		chunkedOutput.close();
+
+		assertThat(readChunkLengths(), contains(0));
+	}
+
+	@Test
+	public void shouldWriteBufferedBytesAsChunkOnFlush() throws Exception {
+		chunkedOutput.write(new byte[] { 1, 2 });
+		chunkedOutput.flush();
+		chunkedOutput.write(new byte[] { 3 });
+		chunkedOutput.close();
+
+		assertThat(readChunkLengths(), contains(2, 1, 0));
+	}
+
+	@Test
+	public void shouldKeepDataIntact() throws Exception {
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+
+		chunkedOutput.write(data, 1, 8);
+		chunkedOutput.close();
+
+		DataBlockInputStream input = DataBlockInputStream
+				.chunked(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+		byte[] result = new byte[8];
+		new DataInputStream(input).readFully(result);
+		assertThat(result, equalTo(new byte[] { 2, 3, 4, 5, 6, 7, 8, 9 }));
+		assertThat(input.read(), equalTo(-1));
+	}
+
+	@Test
+	public void shouldCompleteBlockOnlyOnceIfClosedTwice() throws Exception {
+		chunkedOutput.close();
+		chunkedOutput.close();
+
+		assertThat(output.size(), equalTo(Integer.BYTES));
+	}
+
+	@Test(expected = IOException.class)
+	public void shouldNotAllowToWriteIntoClosedStream() throws Exception {
+		chunkedOutput.close();
+
+		chunkedOutput.write(1);
+	}
+
+	private List<Integer> readChunkLengths() throws IOException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(output.toByteArray()));
+		List<Integer> lengths = new ArrayList<>();
+		int length;
+		do {
+			length = input.readInt();
+			lengths.add(length);
+			input.skipBytes(length);
+		} while (length != 0);
+		assertThat(input.available(), equalTo(0));
+		return lengths;
+	}
+}
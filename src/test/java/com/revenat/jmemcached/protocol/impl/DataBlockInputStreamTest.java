@@ -0,0 +1,83 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+public class DataBlockInputStreamTest {
+	private static final byte NEXT_FRAME_BYTE = 42;
+
+	@Test
+	public void shouldReadBlockOfKnownLengthOnly() throws Exception {
+		DataInputStream input = inputOf(new byte[] { 1, 2, 3, NEXT_FRAME_BYTE });
+
+		byte[] result = IOUtils.toByteArray(DataBlockInputStream.fixed(input, 3));
+
+		assertThat(result, equalTo(new byte[] { 1, 2, 3 }));
+		assertThat(input.read(), equalTo((int) NEXT_FRAME_BYTE));
+	}
+
+	@Test
+	public void shouldReadAllChunksOfChunkedBlock() throws Exception {
+		DataInputStream input = inputOf(chunks(new byte[] { 1, 2 }, new byte[] { 3 }));
+
+		byte[] result = IOUtils.toByteArray(DataBlockInputStream.chunked(input));
+
+		assertThat(result, equalTo(new byte[] { 1, 2, 3 }));
+		assertThat(input.read(), equalTo((int) NEXT_FRAME_BYTE));
+	}
+
+	@Test
+	public void shouldSkipUnreadPartOfBlockOnClose() throws Exception {
+		DataInputStream input = inputOf(chunks(new byte[] { 1, 2 }, new byte[] { 3, 4 }));
+		DataBlockInputStream blockInput = DataBlockInputStream.chunked(input);
+
+		assertThat(blockInput.read(), equalTo(1));
+		blockInput.close();
+
+		assertThat(input.read(), equalTo((int) NEXT_FRAME_BYTE));
+		assertThat(blockInput.read(), equalTo(-1));
+	}
+
+	@Test(expected = EOFException.class)
+	public void shouldThrowEofExceptionIfBlockIsTruncated() throws Exception {
+		IOUtils.toByteArray(DataBlockInputStream.fixed(inputOf(new byte[] { 1, 2 }), 3));
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowNegativeChunkLength() throws Exception {
+		DataBlockInputStream.chunked(inputOf(new byte[] { -1, -1, -1, -1 })).read();
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowNegativeBlockLength() throws Exception {
+		DataBlockInputStream.fixed(inputOf(new byte[0]), -1);
+	}
+
+	private static DataInputStream inputOf(byte[] content) {
+		return new DataInputStream(new ByteArrayInputStream(content));
+	}
+
+	private static byte[] chunks(byte[]... chunks) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DataOutputStream dataOutput = new DataOutputStream(output);
+		for (byte[] chunk : chunks) {
+			dataOutput.writeInt(chunk.length);
+			dataOutput.write(chunk);
+		}
+		dataOutput.writeInt(0);
+		dataOutput.writeByte(NEXT_FRAME_BYTE);
+		return output.toByteArray();
+	}
+}
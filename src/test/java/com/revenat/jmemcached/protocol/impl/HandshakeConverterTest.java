@@ -0,0 +1,144 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Request;
+import com.revenat.jmemcached.protocol.model.Version;
+
+public class HandshakeConverterTest {
+	private static final Handshake HANDSHAKE = Handshake.latest(EnumSet.of(Feature.COMPRESSION, Feature.BATCHING));
+
+	private final HandshakeConverter converter = new HandshakeConverter();
+
+	@Test
+	public void shouldWriteVersionFollowedByFeatureBits() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, HANDSHAKE);
+
+		assertThat(output.toByteArray(), equalTo(new byte[] { Version.VERSION_1_1.getByteCode(), 0, 0, 0,
+				(byte) (Feature.COMPRESSION.getMask() | Feature.BATCHING.getMask()) }));
+	}
+
+	@Test
+	public void shouldReadHandshakeFromStream() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, HANDSHAKE);
+
+		Handshake result = converter.readFrom(new ByteArrayInputStream(output.toByteArray()));
+
+		assertThat(result, equalTo(HANDSHAKE));
+	}
+
+	@Test
+	public void shouldReadHandshakeFromBuffer() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(HandshakeConverter.FRAME_SIZE);
+		converter.writeTo(buffer, HANDSHAKE);
+		buffer.flip();
+
+		assertThat(converter.readFrom(buffer), equalTo(HANDSHAKE));
+		assertFalse("Whole frame should be consumed", buffer.hasRemaining());
+	}
+
+	@Test
+	public void shouldTreatUnknownNewerVersionAsLatestVersion() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(HandshakeConverter.FRAME_SIZE);
+		buffer.put((byte) 0b00100000).putInt(Feature.COMPRESSION.getMask() | 0x40000000).flip();
+
+		Handshake result = converter.readFrom(buffer);
+
+		assertThat(result, equalTo(Handshake.latest(EnumSet.of(Feature.COMPRESSION))));
+	}
+
+	@Test
+	public void shouldLeavePositionUnchangedIfFrameIsIncomplete() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(HandshakeConverter.FRAME_SIZE - 1);
+
+		try {
+			converter.readFrom(buffer);
+			fail("BufferUnderflowException expected");
+		} catch (BufferUnderflowException e) {
+			assertThat(buffer.position(), equalTo(0));
+		}
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void shouldNotWriteHandshakeIntoTooSmallBuffer() throws Exception {
+		converter.writeTo(ByteBuffer.allocate(HandshakeConverter.FRAME_SIZE - 1), HANDSHAKE);
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToWriteHandshakeOfLegacyVersion() throws Exception {
+		converter.writeTo(new ByteArrayOutputStream(), Handshake.LEGACY);
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToReadLegacyRequestAsHandshake() throws Exception {
+		converter.readFrom(ByteBuffer.wrap(encode(Request.withKey(Command.GET, "Key"))));
+	}
+
+	@Test
+	public void shouldDistinguishHandshakeFromLegacyRequest() throws Exception {
+		assertTrue("Handshake should be recognized", HandshakeConverter.isHandshake(Version.VERSION_1_1.getByteCode()));
+		assertFalse("Legacy request should not be recognized as handshake",
+				HandshakeConverter.isHandshake(encode(Request.empty(Command.CLEAR))[0]));
+	}
+
+	@Test
+	public void shouldServeLegacyClientWithoutHandshake() throws Exception {
+		InputStream connection = new ByteArrayInputStream(encode(Request.withKey(Command.GET, "Key")));
+
+		Handshake negotiated = acceptConnection(connection, HANDSHAKE, new ByteArrayOutputStream());
+
+		assertThat(negotiated, equalTo(Handshake.LEGACY));
+		assertThat(new RequestConverter(negotiated).readFrom(connection).getKey(), equalTo("Key"));
+	}
+
+	@Test
+	public void shouldNegotiateFeaturesWithNewClient() throws Exception {
+		ByteArrayOutputStream clientOutput = new ByteArrayOutputStream();
+		converter.writeTo(clientOutput, Handshake.latest(EnumSet.of(Feature.BATCHING, Feature.CORRELATION_IDS)));
+		ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+
+		Handshake negotiated = acceptConnection(new ByteArrayInputStream(clientOutput.toByteArray()), HANDSHAKE,
+				serverOutput);
+
+		Handshake expected = Handshake.latest(EnumSet.of(Feature.BATCHING));
+		assertThat(negotiated, equalTo(expected));
+		assertThat(converter.readFrom(new ByteArrayInputStream(serverOutput.toByteArray())), equalTo(expected));
+	}
+
+	private Handshake acceptConnection(InputStream connection, Handshake local, ByteArrayOutputStream output)
+			throws Exception {
+		connection.mark(1);
+		boolean handshake = HandshakeConverter.isHandshake((byte) connection.read());
+		connection.reset();
+		if (!handshake) {
+			return Handshake.LEGACY;
+		}
+		Handshake negotiated = local.negotiate(converter.readFrom(connection));
+		converter.writeTo(output, negotiated);
+		return negotiated;
+	}
+
+	private static byte[] encode(Request request) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new RequestConverter().writeTo(output, request);
+		return output.toByteArray();
+	}
+}
@@ -0,0 +1,222 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.impl.MutationLog.FsyncPolicy;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Request;
+
+public class MutationLogTest {
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+	private static final Request PUT_REQUEST = Request.withKeyAndData(Command.PUT, "key", DATA, 1000L);
+	private static final Request REMOVE_REQUEST = Request.withKey(Command.REMOVE, "key");
+	private static final Request CLEAR_REQUEST = Request.empty(Command.CLEAR);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	@Rule
+	public ExpectedException expected = ExpectedException.none();
+
+	private Path file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = folder.getRoot().toPath().resolve("mutations.log");
+	}
+
+	@Test
+	public void shouldReplayAppendedRequestsInOrder() throws Exception {
+		try (MutationLog log = new MutationLog(file)) {
+			log.append(PUT_REQUEST);
+			log.append(REMOVE_REQUEST);
+			log.append(CLEAR_REQUEST);
+		}
+
+		assertThat(replay(), contains(PUT_REQUEST.toString(), REMOVE_REQUEST.toString(), CLEAR_REQUEST.toString()));
+	}
+
+	@Test
+	public void shouldAppendQuietMutations() throws Exception {
+		Request quietPut = Request.withKeyAndData(Command.PUTQ, "key", DATA, null);
+		try (MutationLog log = new MutationLog(file, FsyncPolicy.NEVER, 0)) {
+			log.append(quietPut);
+			log.append(Request.withKey(Command.REMOVEQ, "key"));
+		}
+
+		assertThat(replay(), contains(quietPut.toString(), Request.withKey(Command.REMOVEQ, "key").toString()));
+	}
+
+	@Test
+	public void shouldContinueLogAfterReopening() throws Exception {
+		try (MutationLog log = new MutationLog(file)) {
+			log.append(PUT_REQUEST);
+		}
+		try (MutationLog log = new MutationLog(file, FsyncPolicy.INTERVAL, 1000)) {
+			log.append(REMOVE_REQUEST);
+		}
+
+		assertThat(replay(), contains(PUT_REQUEST.toString(), REMOVE_REQUEST.toString()));
+	}
+
+	@Test
+	public void shouldCutOffTornRecordWhenOpened() throws Exception {
+		try (MutationLog log = new MutationLog(file)) {
+			log.append(PUT_REQUEST);
+			log.append(REMOVE_REQUEST);
+		}
+		try (RandomAccessFile content = new RandomAccessFile(file.toFile(), "rw")) {
+			content.setLength(content.length() - 1);
+		}
+
+		try (MutationLog log = new MutationLog(file)) {
+			log.append(CLEAR_REQUEST);
+		}
+
+		assertThat(replay(), contains(PUT_REQUEST.toString(), CLEAR_REQUEST.toString()));
+	}
+
+	@Test
+	public void shouldStopReplayAtCorruptedRecord() throws Exception {
+		try (MutationLog log = new MutationLog(file)) {
+			log.append(PUT_REQUEST);
+			log.append(REMOVE_REQUEST);
+		}
+		byte[] content = Files.readAllBytes(file);
+		content[content.length - 1] ^= 1;
+		Files.write(file, content);
+
+		assertThat(replay(), contains(PUT_REQUEST.toString()));
+	}
+
+	@Test
+	public void shouldNotCutOffRecordsFollowingCorruptedOne() throws Exception {
+		try (MutationLog log = new MutationLog(file)) {
+			log.append(PUT_REQUEST);
+			log.append(REMOVE_REQUEST);
+			log.append(CLEAR_REQUEST);
+		}
+		byte[] content = Files.readAllBytes(file);
+		int firstFrameLength = ByteBuffer.wrap(content).getInt();
+		content[MutationLog.RECORD_HEADER_SIZE + firstFrameLength - 1] ^= 1;
+		Files.write(file, content);
+
+		try {
+			new MutationLog(file).close();
+			fail("JMemcachedException expected");
+		} catch (JMemcachedException e) {
+			assertThat(e.getMessage(), containsString("Corrupted mutation log record at offset 0"));
+		}
+		assertThat(Files.readAllBytes(file), equalTo(content));
+	}
+
+	@Test
+	public void shouldCommitConcurrentAppends() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try (MutationLog log = new MutationLog(file)) {
+			List<Future<?>> appends = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				Request request = Request.withKeyAndData(Command.PUT, "key" + i, DATA, null);
+				appends.add(executor.submit(() -> {
+					log.append(request);
+					return null;
+				}));
+			}
+			for (Future<?> append : appends) {
+				append.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		List<String> replayed = replay();
+		assertThat(replayed, hasSize(200));
+		assertThat(replayed, hasItem(Request.withKeyAndData(Command.PUT, "key199", DATA, null).toString()));
+	}
+
+	@Test
+	public void shouldReplaceLogContentWithCompactedState() throws Exception {
+		Request state = Request.withKeyAndData(Command.PUT, "other", DATA, null);
+		try (MutationLog log = new MutationLog(file)) {
+			log.append(PUT_REQUEST);
+			log.append(REMOVE_REQUEST);
+
+			assertThat(log.compact(Collections.singletonList(state)), equalTo(1L));
+			log.append(CLEAR_REQUEST);
+		}
+
+		assertThat(replay(), contains(state.toString(), CLEAR_REQUEST.toString()));
+		assertFalse("Temporary file should be moved", Files.exists(file.resolveSibling("mutations.log.compact")));
+	}
+
+	@Test
+	public void shouldKeepLogContentIfCompactionFails() throws Exception {
+		try (MutationLog log = new MutationLog(file)) {
+			log.append(PUT_REQUEST);
+			try {
+				log.compact(Arrays.asList(REMOVE_REQUEST, Request.withKey(Command.GET, "key")));
+				fail("Compaction should fail");
+			} catch (JMemcachedException e) {
+				assertThat(e.getMessage(), containsString("GET"));
+			}
+		}
+
+		assertThat(replay(), contains(PUT_REQUEST.toString()));
+	}
+
+	@Test
+	public void shouldNotAllowToAppendRequestThatIsNotMutation() throws Exception {
+		try (MutationLog log = new MutationLog(file)) {
+			expected.expect(JMemcachedException.class);
+			expected.expectMessage(containsString("GET"));
+
+			log.append(Request.withKey(Command.GET, "key"));
+		}
+	}
+
+	@Test
+	public void shouldNotAllowToAppendIntoClosedLog() throws Exception {
+		MutationLog log = new MutationLog(file);
+		log.close();
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("closed"));
+
+		log.append(PUT_REQUEST);
+	}
+
+	@Test
+	public void shouldNotAllowNegativeFsyncInterval() throws Exception {
+		expected.expect(JMemcachedConfigException.class);
+
+		new MutationLog(file, FsyncPolicy.INTERVAL, -1);
+	}
+
+	private List<String> replay() throws IOException {
+		List<String> requests = new ArrayList<>();
+		try (MutationLog log = new MutationLog(file)) {
+			assertThat(log.replay(request -> requests.add(request.toString())), equalTo((long) requests.size()));
+		}
+		return requests;
+	}
+}
@@ -0,0 +1,119 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+public class PayloadCompressorTest {
+	private static final byte[] COMPRESSIBLE = repeat("{\"name\":\"value\",\"count\":10}", 100);
+
+	@Rule
+	public ExpectedException expected = ExpectedException.none();
+
+	private final PayloadCompressor compressor = new PayloadCompressor(64, Deflater.BEST_SPEED);
+
+	@Test
+	public void shouldCompressDataLongerThanThreshold() throws Exception {
+		byte[] block = compressor.compress(COMPRESSIBLE.length, output -> output.write(COMPRESSIBLE));
+
+		assertThat(block, notNullValue());
+		assertThat(block.length, lessThan(COMPRESSIBLE.length / 4));
+		assertThat(PayloadCompressor.decompress(block), equalTo(COMPRESSIBLE));
+	}
+
+	@Test
+	public void shouldNotCompressDataShorterThanThreshold() throws Exception {
+		byte[] data = Arrays.copyOf(COMPRESSIBLE, 63);
+
+		assertThat(compressor.compress(data.length, output -> output.write(data)), nullValue());
+	}
+
+	@Test
+	public void shouldNotCompressDataThatDoesNotGetSmaller() throws Exception {
+		byte[] data = new byte[256];
+		new Random(1).nextBytes(data);
+
+		assertThat(compressor.compress(data.length, output -> output.write(data)), nullValue());
+	}
+
+	@Test
+	public void shouldNotAllowToDecompressTruncatedBlock() throws Exception {
+		byte[] block = compressor.compress(COMPRESSIBLE.length, output -> output.write(COMPRESSIBLE));
+		expected.expect(JMemcachedException.class);
+
+		PayloadCompressor.decompress(Arrays.copyOf(block, block.length / 2));
+	}
+
+	@Test
+	public void shouldNotAllowToDecompressCorruptedBlock() throws Exception {
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("Can not decompress data block"));
+
+		PayloadCompressor.decompress(new byte[] { 0, 0, 0, 10, 1, 2, 3, 4, 5 });
+	}
+
+	@Test
+	public void shouldDecompressHighlyCompressedData() throws Exception {
+		byte[] zeros = new byte[1024 * 1024];
+		byte[] block = new PayloadCompressor(0, Deflater.BEST_COMPRESSION).compress(zeros.length,
+				output -> output.write(zeros));
+
+		assertThat(PayloadCompressor.decompress(block), equalTo(zeros));
+	}
+
+	@Test
+	public void shouldNotAllowToDecompressBlockDeclaringDataLengthItCanNotExpandTo() throws Exception {
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("can not expand"));
+
+		PayloadCompressor.decompress(new byte[] { 0x7F, -1, -1, -1, 1, 2, 3, 4, 5 });
+	}
+
+	@Test
+	public void shouldNotAllowToDecompressBlockWithBytesAfterItsEnd() throws Exception {
+		byte[] block = compressor.compress(COMPRESSIBLE.length, output -> output.write(COMPRESSIBLE));
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("after its end"));
+
+		PayloadCompressor.decompress(Arrays.copyOf(block, block.length + 3));
+	}
+
+	@Test
+	public void shouldNotAllowToDecompressBlockLongerThanDeclaredDataLength() throws Exception {
+		byte[] block = compressor.compress(COMPRESSIBLE.length, output -> output.write(COMPRESSIBLE));
+		ByteBuffer.wrap(block).putInt(COMPRESSIBLE.length - 1);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("longer than declared"));
+
+		PayloadCompressor.decompress(block);
+	}
+
+	@Test(expected = JMemcachedConfigException.class)
+	public void shouldNotAllowToCreateCompressorWithNegativeThreshold() throws Exception {
+		new PayloadCompressor(-1, Deflater.BEST_SPEED);
+	}
+
+	@Test(expected = JMemcachedConfigException.class)
+	public void shouldNotAllowToCreateCompressorWithInvalidLevel() throws Exception {
+		new PayloadCompressor(0, 10);
+	}
+
+	static byte[] repeat(String text, int times) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < times; i++) {
+			builder.append(text);
+		}
+		return builder.toString().getBytes();
+	}
+}
@@ -0,0 +1,154 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+public class ReflectiveBinaryCodecTest {
+
+	@Rule
+	public ExpectedException expected = ExpectedException.none();
+
+	private BinaryObjectConverter converter;
+
+	@Before
+	public void setUp() {
+		converter = new BinaryObjectConverter(false);
+		converter.register(1, Point.class);
+		converter.register(2, NamedPoint.class);
+	}
+
+	@Test
+	public void shouldRestoreAllFieldsIncludingInheritedOnes() throws Exception {
+		NamedPoint point = new NamedPoint(1, -2, "origin", new Point(3, 4));
+
+		NamedPoint restored = (NamedPoint) converter.fromByteArray(converter.toByteArray(point)).get();
+
+		assertThat(restored.x, equalTo(1));
+		assertThat(restored.y, equalTo(-2L));
+		assertThat(restored.name, equalTo("origin"));
+		assertThat(restored.next.x, equalTo(3));
+		assertThat(restored.next.y, equalTo(4L));
+	}
+
+	@Test
+	public void shouldRestoreNullFields() throws Exception {
+		NamedPoint point = new NamedPoint(1, 2, null, null);
+
+		NamedPoint restored = (NamedPoint) converter.fromByteArray(converter.toByteArray(point)).get();
+
+		assertThat(restored.name, nullValue());
+		assertThat(restored.next, nullValue());
+	}
+
+	@Test
+	public void shouldNotWriteTransientFields() throws Exception {
+		NamedPoint point = new NamedPoint(1, 2, "name", null);
+		point.cached = "cached";
+
+		NamedPoint restored = (NamedPoint) converter.fromByteArray(converter.toByteArray(point)).get();
+
+		assertThat(restored.cached, nullValue());
+	}
+
+	@Test
+	public void shouldWriteOnlyTypeIdentifierAndFieldValues() throws Exception {
+		byte[] data = converter.toByteArray(new Point(1, 2));
+
+		assertThat(data.length, equalTo(1 + Integer.BYTES + Integer.BYTES + Long.BYTES));
+	}
+
+	@Test
+	public void shouldNotAllowToDeserializeFieldValueWithLengthLargerThanRemainingBytes() throws Exception {
+		byte[] data = converter.toByteArray(new NamedPoint(1, 2, null, null));
+		forgeNameLength(data, 0x7FFFFFF0);
+
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("Invalid length of the field value: " + 0x7FFFFFF0));
+
+		converter.fromByteArray(data);
+	}
+
+	@Test
+	public void shouldNotAllowToDeserializeFieldValueWithNegativeLength() throws Exception {
+		byte[] data = converter.toByteArray(new NamedPoint(1, 2, null, null));
+		forgeNameLength(data, -2);
+
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("Invalid length of the field value: -2"));
+
+		converter.fromByteArray(data);
+	}
+
+	/**
+	 * Replaces length prefix of the {@code name} field, which follows type tag,
+	 * type identifier and fields of the {@link Point}
+	 */
+	private static void forgeNameLength(byte[] data, int length) {
+		ByteBuffer.wrap(data).putInt(1 + Integer.BYTES + Integer.BYTES + Long.BYTES, length);
+	}
+
+	@Test(expected = JMemcachedConfigException.class)
+	public void shouldNotAllowToRegisterClassWithoutDefaultConstructor() throws Exception {
+		converter.register(3, Immutable.class);
+	}
+
+	@Test(expected = JMemcachedConfigException.class)
+	public void shouldNotAllowToRegisterAbstractClass() throws Exception {
+		converter.register(3, Shape.class);
+	}
+
+	private static class Point implements Serializable {
+		private static final long serialVersionUID = 1L;
+		int x;
+		long y;
+
+		Point() {
+		}
+
+		Point(int x, long y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	private static class NamedPoint extends Point {
+		private static final long serialVersionUID = 1L;
+		String name;
+		Point next;
+		transient String cached;
+
+		NamedPoint() {
+		}
+
+		NamedPoint(int x, long y, String name, Point next) {
+			super(x, y);
+			this.name = name;
+			this.next = next;
+		}
+	}
+
+	private static class Immutable implements Serializable {
+		private static final long serialVersionUID = 1L;
+		@SuppressWarnings("unused")
+		private final int value;
+
+		Immutable(int value) {
+			this.value = value;
+		}
+	}
+
+	private abstract static class Shape implements Serializable {
+		private static final long serialVersionUID = 1L;
+	}
+}
@@ -0,0 +1,373 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.DirectPayload;
+import com.revenat.jmemcached.protocol.model.DirectPayloadPool;
+import com.revenat.jmemcached.protocol.model.Entry;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Key;
+import com.revenat.jmemcached.protocol.model.PayloadAllocator;
+import com.revenat.jmemcached.protocol.model.Request;
+import com.revenat.jmemcached.protocol.model.Version;
+
+public class RequestBufferConverterTest {
+	private static final long TTL = 1000;
+	private static final byte[] DATA = new byte[] {1, 2, 3};
+	private static final String KEY = "Key";
+	private static final Request MULTI_PUT_REQUEST = Request.withEntries(Command.MPUT,
+			Arrays.asList(Entry.withKeyAndData(KEY, DATA, TTL), Entry.withKey("Other")));
+
+	@Rule
+	public ExpectedException expected = ExpectedException.none();
+
+	private RequestBufferConverter converter;
+
+	@Before
+	public void setUp() {
+		converter = new RequestBufferConverter();
+	}
+
+	@Test
+	public void shouldWriteEmptyRequestInStreamCompatibleLayout() throws Exception {
+		assertWrittenAsStreamConverterDoes(Request.empty(Command.CLEAR), ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldWriteRequestWithKeyInStreamCompatibleLayout() throws Exception {
+		assertWrittenAsStreamConverterDoes(Request.withKey(Command.GET, KEY), ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldWriteRequestWithTtlInStreamCompatibleLayout() throws Exception {
+		assertWrittenAsStreamConverterDoes(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL), ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldWriteRequestIntoDirectBuffer() throws Exception {
+		assertWrittenAsStreamConverterDoes(Request.withKeyAndData(Command.PUT, KEY, DATA, null), ByteBuffer.allocateDirect(64));
+	}
+
+	@Test
+	public void shouldWriteRequestWithEntriesInStreamCompatibleLayout() throws Exception {
+		assertWrittenAsStreamConverterDoes(MULTI_PUT_REQUEST, ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldWriteRequestWithCorrelationIdInStreamCompatibleLayout() throws Exception {
+		assertWrittenAsStreamConverterDoes(Request.withKey(Command.GET, KEY).withCorrelationId(42),
+				ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldReturnExactEncodedSizeOfRequestWithCorrelationId() throws Exception {
+		Request request = MULTI_PUT_REQUEST.withCorrelationId(42);
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+
+		converter.writeTo(buffer, request);
+
+		assertThat(converter.encodedSize(request), equalTo(buffer.position()));
+	}
+
+	@Test
+	public void shouldAllowToReadRequestWithCorrelationId() throws Exception {
+		assertReadsRequestCorrectly(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL).withCorrelationId(42),
+				ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldWriteRequestOfNegotiatedVersionInStreamCompatibleLayout() throws Exception {
+		Handshake handshake = Handshake.latest(EnumSet.of(Feature.BATCHING));
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+
+		new RequestBufferConverter(handshake).writeTo(buffer, MULTI_PUT_REQUEST);
+
+		buffer.flip();
+		byte[] written = new byte[buffer.remaining()];
+		buffer.get(written);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new RequestConverter(handshake).writeTo(output, MULTI_PUT_REQUEST);
+		assertThat(written, equalTo(output.toByteArray()));
+		assertThat(written[0], equalTo(Version.VERSION_1_1.getByteCode()));
+	}
+
+	@Test
+	public void shouldWriteRequestInCompactLayoutAsStreamConverterDoes() throws Exception {
+		Handshake handshake = Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS, Feature.BATCHING));
+		RequestBufferConverter compactConverter = new RequestBufferConverter(handshake);
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+
+		compactConverter.writeTo(buffer, MULTI_PUT_REQUEST);
+
+		assertThat(compactConverter.encodedSize(MULTI_PUT_REQUEST), equalTo(buffer.position()));
+		buffer.flip();
+		byte[] written = new byte[buffer.remaining()];
+		buffer.get(written);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new RequestConverter(handshake).writeTo(output, MULTI_PUT_REQUEST);
+		assertThat(written, equalTo(output.toByteArray()));
+	}
+
+	@Test
+	public void shouldAllowToReadRequestInCompactLayout() throws Exception {
+		converter = new RequestBufferConverter(Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS)));
+		Request request = Request.withKeyAndData(Command.PUT, KEY, DATA, -TTL - 1);
+
+		assertReadsRequestCorrectly(request, ByteBuffer.allocate(64));
+		assertThat(converter.encodedSize(request), lessThan(new RequestBufferConverter().encodedSize(request)));
+	}
+
+	@Test
+	public void shouldNotWriteAnythingIfFeatureIsNotNegotiated() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+
+		try {
+			new RequestBufferConverter(Handshake.LEGACY).writeTo(buffer, MULTI_PUT_REQUEST);
+			fail("JMemcachedException expected");
+		} catch (JMemcachedException e) {
+			assertThat(buffer.position(), equalTo(0));
+		}
+	}
+
+	@Test
+	public void shouldWriteCasRequestInStreamCompatibleLayout() throws Exception {
+		Request request = Request.withKeyAndData(Command.CAS, KEY, DATA, TTL).withCasToken(7);
+
+		assertWrittenAsStreamConverterDoes(request, ByteBuffer.allocate(converter.encodedSize(request)));
+	}
+
+	@Test
+	public void shouldAllowToReadCasRequest() throws Exception {
+		assertReadsRequestCorrectly(Request.withKeyAndData(Command.CAS, KEY, DATA, null).withCasToken(-7),
+				ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldNotWriteCasRequestWithoutCasToken() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+
+		try {
+			converter.writeTo(buffer, Request.withKeyAndData(Command.CAS, KEY, DATA, null));
+			fail("JMemcachedException expected");
+		} catch (JMemcachedException e) {
+			assertThat(buffer.position(), equalTo(0));
+		}
+	}
+
+	@Test
+	public void shouldAllowToReadCounterRequest() throws Exception {
+		assertReadsRequestCorrectly(Request.withDelta(Command.DECR, KEY, 2, 0, TTL), ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldNotWriteCounterRequestWithoutDelta() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+
+		try {
+			converter.writeTo(buffer, Request.withKeyAndData(Command.INCR, KEY, DATA, null));
+			fail("JMemcachedException expected");
+		} catch (JMemcachedException e) {
+			assertThat(buffer.position(), equalTo(0));
+		}
+	}
+
+	@Test
+	public void shouldWriteTouchRequestInStreamCompatibleLayout() throws Exception {
+		Request request = Request.withKeyAndTtl(Command.TOUCH, KEY, TTL);
+
+		assertWrittenAsStreamConverterDoes(request, ByteBuffer.allocate(converter.encodedSize(request)));
+	}
+
+	@Test
+	public void shouldWriteRequestWithDirectPayloadInStreamCompatibleLayout() throws Exception {
+		Request request = Request.withRawKeyAndPayload(Command.PUT, Key.of(KEY),
+				DirectPayload.copyOf(ByteBuffer.wrap(DATA)), TTL);
+
+		assertWrittenAsStreamConverterDoes(request, ByteBuffer.allocateDirect(64));
+	}
+
+	@Test
+	public void shouldReadRequestDataIntoDirectPayload() throws Exception {
+		DirectPayloadPool pool = new DirectPayloadPool();
+		converter = new RequestBufferConverter(Handshake.latest(EnumSet.allOf(Feature.class)), pool);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+		new RequestBufferConverter().writeTo(buffer, Request.withKeyAndData(Command.PUT, KEY, DATA, TTL));
+		buffer.flip();
+
+		Request request = converter.readFrom(buffer);
+
+		assertTrue("Request should be direct", request.isDirect());
+		assertThat(request.getData(), equalTo(DATA));
+		assertThat(request.getTtl(), equalTo(TTL));
+		assertFalse("Whole frame should be consumed", buffer.hasRemaining());
+		request.release();
+		assertThat(pool.getIdleBytes(), equalTo((long) DirectPayloadPool.MIN_POOLED_LENGTH));
+	}
+
+	@Test
+	public void shouldReadChunkedRequestDataIntoDirectPayload() throws Exception {
+		converter = new RequestBufferConverter(Handshake.latest(EnumSet.allOf(Feature.class)),
+				PayloadAllocator.UNPOOLED);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (OutputStream dataOutput = new RequestConverter().openDataStream(output, Command.PUT, KEY, null)) {
+			dataOutput.write(DATA);
+		}
+
+		Request request = converter.readFrom(ByteBuffer.wrap(output.toByteArray()));
+
+		assertTrue("Request should be direct", request.isDirect());
+		assertThat(request.getData(), equalTo(DATA));
+	}
+
+	@Test
+	public void shouldReturnExactEncodedSizeOfRequestWithEntries() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+
+		converter.writeTo(buffer, MULTI_PUT_REQUEST);
+
+		assertThat(converter.encodedSize(MULTI_PUT_REQUEST), equalTo(buffer.position()));
+	}
+
+	@Test
+	public void shouldReturnExactEncodedSize() throws Exception {
+		Request request = Request.withKeyAndData(Command.PUT, KEY, DATA, TTL);
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+
+		converter.writeTo(buffer, request);
+
+		assertThat(converter.encodedSize(request), equalTo(buffer.position()));
+	}
+
+	@Test
+	public void shouldNotWriteAnythingIfBufferIsTooSmall() throws Exception {
+		Request request = Request.withKeyAndData(Command.PUT, KEY, DATA, TTL);
+		ByteBuffer buffer = ByteBuffer.allocate(converter.encodedSize(request) - 1);
+
+		try {
+			converter.writeTo(buffer, request);
+			fail("BufferOverflowException expected");
+		} catch (BufferOverflowException e) {
+			assertThat(buffer.position(), equalTo(0));
+		}
+	}
+
+	@Test
+	public void shouldNotAllowToWriteRequestWhereKeyHasIllegalLength() throws Exception {
+		expected.expect(JMemcachedException.class);
+
+		converter.writeTo(ByteBuffer.allocate(256), Request.withKey(Command.GET, StringUtils.repeat("a", 130)));
+	}
+
+	@Test
+	public void shouldAllowToReadEmptyRequest() throws Exception {
+		assertReadsRequestCorrectly(Request.empty(Command.CLEAR), ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldAllowToReadRequestWithKey() throws Exception {
+		assertReadsRequestCorrectly(Request.withKey(Command.GET, KEY), ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldAllowToReadRequestWithTtl() throws Exception {
+		assertReadsRequestCorrectly(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL), ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldAllowToReadRequestFromDirectBuffer() throws Exception {
+		assertReadsRequestCorrectly(Request.withKeyAndData(Command.PUT, KEY, DATA, null), ByteBuffer.allocateDirect(64));
+	}
+
+	@Test
+	public void shouldAllowToReadRequestWithEntries() throws Exception {
+		assertReadsRequestCorrectly(MULTI_PUT_REQUEST, ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldReadSeveralRequestsOneAfterAnother() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		converter.writeTo(buffer, Request.withKey(Command.GET, KEY));
+		converter.writeTo(buffer, Request.withKey(Command.REMOVE, KEY));
+		buffer.flip();
+
+		assertThat(converter.readFrom(buffer).getCommand(), equalTo(Command.GET));
+		assertThat(converter.readFrom(buffer).getCommand(), equalTo(Command.REMOVE));
+		assertFalse("Buffer should be fully consumed", buffer.hasRemaining());
+	}
+
+	@Test
+	public void shouldLeavePositionUnchangedIfFrameIsIncomplete() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		converter.writeTo(buffer, Request.withKeyAndData(Command.PUT, KEY, DATA, TTL));
+		buffer.flip();
+		buffer.limit(buffer.limit() - 1);
+
+		try {
+			converter.readFrom(buffer);
+			fail("BufferUnderflowException expected");
+		} catch (BufferUnderflowException e) {
+			assertThat(buffer.position(), equalTo(0));
+		}
+	}
+
+	@Test
+	public void shouldNotAllowToReadRequestWithUnsupportedVersion() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		converter.writeTo(buffer, Request.empty(Command.CLEAR));
+		buffer.flip();
+		buffer.put(0, (byte) 0);
+		expected.expect(JMemcachedException.class);
+
+		converter.readFrom(buffer);
+	}
+
+	private void assertWrittenAsStreamConverterDoes(Request request, ByteBuffer buffer) throws IOException {
+		converter.writeTo(buffer, request);
+		buffer.flip();
+		byte[] written = new byte[buffer.remaining()];
+		buffer.get(written);
+
+		assertThat(written, equalTo(writeWithStreamConverter(request)));
+	}
+
+	private static byte[] writeWithStreamConverter(Request request) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new RequestConverter().writeTo(output, request);
+		return output.toByteArray();
+	}
+
+	private void assertReadsRequestCorrectly(Request request, ByteBuffer buffer) {
+		converter.writeTo(buffer, request);
+		buffer.flip();
+
+		Request result = converter.readFrom(buffer);
+
+		assertThat(result.getCommand(), equalTo(request.getCommand()));
+		assertThat(result.getCorrelationId(), equalTo(request.getCorrelationId()));
+		assertThat(result.getKey(), equalTo(request.getKey()));
+		assertThat(result.getTtl(), equalTo(request.getTtl()));
+		assertThat(result.getCasToken(), equalTo(request.getCasToken()));
+		assertThat(result.getData(), equalTo(request.getData()));
+		RequestConverterTest.assertEntries(result.getEntries(), request.getEntries());
+		assertFalse("Buffer should be fully consumed", buffer.hasRemaining());
+	}
+}
@@ -1,6 +1,10 @@
 package com.revenat.jmemcached.protocol.impl;
 
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.COMPACT_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.COMPRESSED_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.CORRELATION_FLAG;
 import static com.revenat.jmemcached.protocol.impl.RequestConverter.DATA_FLAG;
+import static com.revenat.jmemcached.protocol.impl.RequestConverter.ENTRIES_FLAG;
 import static com.revenat.jmemcached.protocol.impl.RequestConverter.KEY_FLAG;
 import static com.revenat.jmemcached.protocol.impl.RequestConverter.MAX_KEY_LENGTH;
 import static com.revenat.jmemcached.protocol.impl.RequestConverter.TTL_FLAG;
@@ -11,7 +15,13 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.zip.Deflater;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -22,7 +32,12 @@ import org.junit.rules.ExpectedException;
 
 import com.revenat.jmemcached.exception.JMemcachedException;
 import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Entry;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Key;
 import com.revenat.jmemcached.protocol.model.Request;
+import com.revenat.jmemcached.protocol.model.StreamedRequest;
 import com.revenat.jmemcached.protocol.model.Version;
 
 public class RequestConverterTest {
@@ -30,6 +45,10 @@ public class RequestConverterTest {
 	private static final byte[] DATA = new byte[] {1, 2, 3};
 	private static final String KEY = "Key";
 	private static final byte SUPPORTED_VERSION_BYTECODE = Version.VERSION_1_0.getByteCode();
+	private static final Request MULTI_GET_REQUEST = Request.withEntries(Command.MGET,
+			Arrays.asList(Entry.withKey(KEY), Entry.withKey("Other")));
+	private static final Request MULTI_PUT_REQUEST = Request.withEntries(Command.MPUT,
+			Arrays.asList(Entry.withKeyAndData(KEY, DATA, TTL), Entry.withKeyAndData("Other", DATA, null)));
 	
 	@Rule
 	public ExpectedException expected = ExpectedException.none();
@@ -107,6 +126,18 @@ public class RequestConverterTest {
 		assertReadsRequestCorrectly(getRequest);
 	}
 	
+	@Test
+	public void shouldReadKeyAsKeyBytesWithoutConversionToString() throws Exception {
+		Key key = Key.of(KEY);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, Request.withRawKey(Command.GET, key));
+
+		Request request = converter.readFrom(new ByteArrayInputStream(output.toByteArray()));
+
+		assertThat(request.getRawKey(), equalTo(key));
+		assertThat(request.getRawKey().hash64(), equalTo(key.hash64()));
+	}
+
 	@Test
 	public void shouldAllowToReadRequestWithData() throws Exception {
 		Request putRequest = Request.withKeyAndData(Command.PUT, KEY, DATA, null);
@@ -119,6 +150,75 @@ public class RequestConverterTest {
 		assertReadsRequestCorrectly(putRequestWithTtl);
 	}
 	
+	@Test
+	public void shouldAllowToReadMultiGetRequest() throws Exception {
+		assertReadsRequestCorrectly(MULTI_GET_REQUEST);
+	}
+	
+	@Test
+	public void shouldAllowToReadMultiPutRequest() throws Exception {
+		assertReadsRequestCorrectly(MULTI_PUT_REQUEST);
+	}
+	
+	@Test
+	public void shouldAllowToReadRequestWithEmptyEntries() throws Exception {
+		assertReadsRequestCorrectly(Request.withEntries(Command.MGET, Arrays.asList()));
+	}
+	
+	@Test
+	public void shouldWriteOnlyEntriesFlagForRequestWithEntries() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		
+		converter.writeTo(output, MULTI_PUT_REQUEST);
+		
+		byte flagsByte = output.toByteArray()[2];
+		assertThat(flagsByte, equalTo(ENTRIES_FLAG));
+	}
+	
+	@Test
+	public void shouldAllowToReadRequestWithCorrelationId() throws Exception {
+		assertReadsRequestCorrectly(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL).withCorrelationId(42));
+	}
+
+	@Test
+	public void shouldAllowToReadRequestWithEntriesAndCorrelationId() throws Exception {
+		assertReadsRequestCorrectly(MULTI_PUT_REQUEST.withCorrelationId(-1));
+	}
+
+	@Test
+	public void shouldWriteCorrelationIdRightAfterFlags() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, Request.empty(Command.CLEAR).withCorrelationId(0x01020304));
+
+		assertThat(output.toByteArray(), equalTo(new byte[] { SUPPORTED_VERSION_BYTECODE, Command.CLEAR.getByteCode(),
+				CORRELATION_FLAG, 1, 2, 3, 4 }));
+	}
+
+	@Test
+	public void shouldNotAllowToReadRequestEntryWithCorrelationId() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, MULTI_GET_REQUEST);
+		byte[] content = output.toByteArray();
+		int firstEntryFlagsPosition = 7;
+		content[firstEntryFlagsPosition] |= CORRELATION_FLAG;
+		expected.expect(JMemcachedException.class);
+
+		converter.readFrom(new ByteArrayInputStream(content));
+	}
+
+	@Test
+	public void shouldNotAllowToReadRequestEntryWithoutKey() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, MULTI_GET_REQUEST);
+		byte[] content = output.toByteArray();
+		int firstEntryFlagsPosition = 7;
+		content[firstEntryFlagsPosition] = 0;
+		expected.expect(JMemcachedException.class);
+		
+		converter.readFrom(new ByteArrayInputStream(content));
+	}
+	
 	@Test
 	public void shouldNotAllowToReadRequestWithUnsupportedVersion() throws Exception {
 		ByteArrayInputStream input = createInputStreamWithUnsupportedVersionFor(Request.empty(Command.CLEAR));
@@ -127,6 +227,454 @@ public class RequestConverterTest {
 		converter.readFrom(input);
 	}
 	
+	@Test
+	public void shouldWriteRequestOfNegotiatedVersion() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new RequestConverter(Handshake.latest(EnumSet.noneOf(Feature.class))).writeTo(output,
+				Request.withKey(Command.GET, KEY));
+
+		assertThat(output.toByteArray()[0], equalTo(Version.VERSION_1_1.getByteCode()));
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(output.toByteArray())),
+				Request.withKey(Command.GET, KEY));
+	}
+
+	@Test
+	public void shouldNotAllowToWriteCorrelationIdIfItIsNotNegotiated() throws Exception {
+		RequestConverter legacyConverter = new RequestConverter(Handshake.LEGACY);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString(Feature.CORRELATION_IDS.name()));
+
+		legacyConverter.writeTo(new ByteArrayOutputStream(), Request.withKey(Command.GET, KEY).withCorrelationId(1));
+	}
+
+	@Test
+	public void shouldNotAllowToWriteEntriesIfBatchingIsNotNegotiated() throws Exception {
+		RequestConverter legacyConverter = new RequestConverter(Handshake.LEGACY);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString(Feature.BATCHING.name()));
+
+		legacyConverter.writeTo(new ByteArrayOutputStream(), MULTI_GET_REQUEST);
+	}
+
+	@Test
+	public void shouldNotAllowToOpenDataStreamIfChunkedDataIsNotNegotiated() throws Exception {
+		RequestConverter legacyConverter = new RequestConverter(Handshake.LEGACY);
+		expected.expect(JMemcachedException.class);
+
+		legacyConverter.openDataStream(new ByteArrayOutputStream(), Command.PUT, KEY, null);
+	}
+
+	@Test
+	public void shouldNotCompressDataIfCompressionIsNotNegotiated() throws Exception {
+		byte[] data = PayloadCompressorTest.repeat("{\"name\":\"value\"}", 100);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new RequestConverter(new PayloadCompressor(64, Deflater.BEST_SPEED), Handshake.LEGACY).writeTo(output,
+				Request.withKeyAndData(Command.PUT, KEY, data, null));
+
+		assertThat(output.toByteArray()[2] & COMPRESSED_FLAG, equalTo(0));
+		assertThat(converter.readFrom(new ByteArrayInputStream(output.toByteArray())).getData(), equalTo(data));
+	}
+
+	@Test
+	public void shouldWriteRequestInCompactLayoutIfItIsNegotiated() throws Exception {
+		Request request = Request.withKeyAndData(Command.PUT, KEY, DATA, 60_000L);
+		ByteArrayOutputStream compactOutput = new ByteArrayOutputStream();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new RequestConverter(Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS))).writeTo(compactOutput, request);
+		converter.writeTo(output, request);
+
+		byte[] content = compactOutput.toByteArray();
+		assertFlag(content[2], COMPACT_FLAG);
+		assertThat(content.length, equalTo(output.size() - (Long.BYTES - 2) - (Integer.BYTES - 1)));
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(content)), request);
+		assertReadCorrectly(decodeByteByByte(content), request);
+	}
+
+	@Test
+	public void shouldAllowToReadRequestWithEntriesInCompactLayout() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new RequestConverter(Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS, Feature.BATCHING))).writeTo(output,
+				MULTI_PUT_REQUEST);
+
+		byte[] content = output.toByteArray();
+		assertFlag(content[2], COMPACT_FLAG);
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(content)), MULTI_PUT_REQUEST);
+		assertReadCorrectly(decodeByteByByte(content), MULTI_PUT_REQUEST);
+	}
+
+	@Test
+	public void shouldWriteRequestWithTtlThatIsNotCompactInFixedLayout() throws Exception {
+		Request request = Request.withKeyAndData(Command.PUT, KEY, DATA, Long.MAX_VALUE);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new RequestConverter(Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS))).writeTo(output, request);
+
+		byte[] content = output.toByteArray();
+		assertThat(content[2] & COMPACT_FLAG, equalTo(0));
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(content)), request);
+	}
+
+	@Test
+	public void shouldAllowToReadCasRequest() throws Exception {
+		Request request = Request.withKeyAndData(Command.CAS, KEY, DATA, TTL).withCasToken(Long.MIN_VALUE + 1);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, request);
+
+		byte[] content = output.toByteArray();
+		assertThat(converter.readFrom(new ByteArrayInputStream(content)).getCasToken(), equalTo(Long.MIN_VALUE + 1));
+		assertReadCorrectly(new RequestBufferConverter().readFrom(ByteBuffer.wrap(content)), request);
+		assertReadCorrectly(decodeByteByByte(content), request);
+	}
+
+	@Test
+	public void shouldWriteCasTokenRightAfterKey() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, Request.withKeyAndData(Command.CAS, "K", new byte[] { 9 }, null).withCasToken(5));
+
+		assertThat(output.toByteArray(), equalTo(new byte[] { SUPPORTED_VERSION_BYTECODE, Command.CAS.getByteCode(),
+				KEY_FLAG | DATA_FLAG, 1, 'K', 0, 0, 0, 0, 0, 0, 0, 5, 0, 0, 0, 1, 9 }));
+	}
+
+	@Test
+	public void shouldReadCasTokenOfStreamedRequest() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, Request.withKeyAndData(Command.CAS, KEY, DATA, TTL).withCasToken(11));
+
+		StreamedRequest request = converter.readStreamed(new ByteArrayInputStream(output.toByteArray()));
+
+		assertThat(request.getCasToken(), equalTo(11L));
+		assertThat(request.getTtl(), equalTo(TTL));
+		assertThat(IOUtils.toByteArray(request.getData()), equalTo(DATA));
+	}
+
+	@Test
+	public void shouldNotAllowToWriteCasRequestWithoutCasToken() throws Exception {
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("cas token"));
+
+		converter.writeTo(new ByteArrayOutputStream(), Request.withKeyAndData(Command.CAS, KEY, DATA, null));
+	}
+
+	@Test
+	public void shouldNotAllowToWriteCasTokenOfOtherRequest() throws Exception {
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("Only CAS request"));
+
+		converter.writeTo(new ByteArrayOutputStream(), Request.withKeyAndData(Command.PUT, KEY, DATA, null).withCasToken(1));
+	}
+
+	@Test
+	public void shouldNotAllowToWriteCasRequestIfCasTokensAreNotNegotiated() throws Exception {
+		RequestConverter legacyConverter = new RequestConverter(Handshake.LEGACY);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString(Feature.CAS_TOKENS.name()));
+
+		legacyConverter.writeTo(new ByteArrayOutputStream(),
+				Request.withKeyAndData(Command.CAS, KEY, DATA, null).withCasToken(1));
+	}
+
+	@Test
+	public void shouldNotAllowToOpenDataStreamForCasRequest() throws Exception {
+		expected.expect(JMemcachedException.class);
+
+		converter.openDataStream(new ByteArrayOutputStream(), Command.CAS, KEY, null);
+	}
+
+	@Test
+	public void shouldAllowToReadCounterRequest() throws Exception {
+		Request request = Request.withDelta(Command.INCR, KEY, 3, 10, TTL).withCorrelationId(4);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, request);
+
+		byte[] content = output.toByteArray();
+		Request result = converter.readFrom(new ByteArrayInputStream(content));
+		assertThat(result.getDelta(), equalTo(3L));
+		assertThat(result.getInitialValue(), equalTo(10L));
+		assertReadCorrectly(result, request);
+		assertReadCorrectly(new RequestBufferConverter().readFrom(ByteBuffer.wrap(content)), request);
+		assertReadCorrectly(decodeByteByByte(content), request);
+	}
+
+	@Test
+	public void shouldNotAllowToWriteCounterRequestWithoutDelta() throws Exception {
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("counter delta"));
+
+		converter.writeTo(new ByteArrayOutputStream(), Request.withKey(Command.DECR, KEY));
+	}
+
+	@Test
+	public void shouldNotAllowToWriteCounterRequestIfCountersAreNotNegotiated() throws Exception {
+		RequestConverter legacyConverter = new RequestConverter(Handshake.LEGACY);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString(Feature.COUNTERS.name()));
+
+		legacyConverter.writeTo(new ByteArrayOutputStream(), Request.withDelta(Command.INCR, KEY, 1));
+	}
+
+	@Test
+	public void shouldNotAllowToOpenDataStreamForCounterRequest() throws Exception {
+		expected.expect(JMemcachedException.class);
+
+		converter.openDataStream(new ByteArrayOutputStream(), Command.INCR, KEY, null);
+	}
+
+	@Test
+	public void shouldWriteTouchRequestWithTtlAndWithoutData() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, Request.withKeyAndTtl(Command.TOUCH, "K", 5));
+
+		assertThat(output.toByteArray(), equalTo(new byte[] { SUPPORTED_VERSION_BYTECODE, Command.TOUCH.getByteCode(),
+				KEY_FLAG | TTL_FLAG, 1, 'K', 0, 0, 0, 0, 0, 0, 0, 5 }));
+	}
+
+	@Test
+	public void shouldAllowToReadGetAndTouchRequest() throws Exception {
+		Request request = Request.withKeyAndTtl(Command.GAT, KEY, TTL).withCorrelationId(2);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, request);
+
+		byte[] content = output.toByteArray();
+		assertThat(converter.readFrom(new ByteArrayInputStream(content)).getTtl(), equalTo(TTL));
+		assertThat(new RequestBufferConverter().readFrom(ByteBuffer.wrap(content)).getTtl(), equalTo(TTL));
+		assertThat(decodeByteByByte(content).getTtl(), equalTo(TTL));
+		assertThat(converter.readStreamed(new ByteArrayInputStream(content)).getTtl(), equalTo(TTL));
+		assertReadCorrectly(decodeByteByByte(content), request);
+	}
+
+	@Test
+	public void shouldNotAllowToWriteTouchRequestWithData() throws Exception {
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("without data"));
+
+		converter.writeTo(new ByteArrayOutputStream(), Request.withKeyAndData(Command.TOUCH, KEY, DATA, TTL));
+	}
+
+	@Test
+	public void shouldNotAllowToWriteTouchRequestIfTouchIsNotNegotiated() throws Exception {
+		RequestConverter legacyConverter = new RequestConverter(Handshake.LEGACY);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString(Feature.TOUCH.name()));
+
+		legacyConverter.writeTo(new ByteArrayOutputStream(), Request.withKeyAndTtl(Command.TOUCH, KEY, TTL));
+	}
+
+	@Test
+	public void shouldAllowToReadQuietRequestsFollowedByNoop() throws Exception {
+		List<Request> requests = Arrays.asList(Request.withKeyAndData(Command.PUTQ, KEY, DATA, TTL),
+				Request.withKey(Command.REMOVEQ, KEY), Request.empty(Command.NOOP));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeAll(output, requests);
+
+		List<Request> result = converter.readAll(new ByteArrayInputStream(output.toByteArray()), requests.size());
+		for (int i = 0; i < requests.size(); i++) {
+			assertReadCorrectly(result.get(i), requests.get(i));
+		}
+	}
+
+	@Test
+	public void shouldNotAllowToWriteQuietRequestIfQuietCommandsAreNotNegotiated() throws Exception {
+		RequestConverter legacyConverter = new RequestConverter(Handshake.LEGACY);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString(Feature.QUIET_COMMANDS.name()));
+
+		legacyConverter.writeTo(new ByteArrayOutputStream(), Request.withKeyAndData(Command.PUTQ, KEY, DATA, null));
+	}
+
+	@Test
+	public void shouldNotAllowToReadRequestEntryWithCompactFlag() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, MULTI_GET_REQUEST);
+		byte[] content = output.toByteArray();
+		int firstEntryFlagsPosition = 7;
+		content[firstEntryFlagsPosition] |= COMPACT_FLAG;
+		expected.expect(JMemcachedException.class);
+
+		converter.readFrom(new ByteArrayInputStream(content));
+	}
+
+	@Test
+	public void shouldWriteBatchOfRequestsBackToBackWithSingleFlush() throws Exception {
+		List<Request> requests = Arrays.asList(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL),
+				Request.withKey(Command.GET, KEY), Request.empty(Command.CLEAR));
+		FlushCountingOutputStream output = new FlushCountingOutputStream();
+
+		converter.writeAll(output, requests);
+
+		assertThat(output.flushCount, equalTo(1));
+		assertThat(output.toByteArray(), equalTo(writeOneByOne(requests)));
+	}
+
+	@Test
+	public void shouldReadBatchOfRequestsInOrder() throws Exception {
+		List<Request> requests = Arrays.asList(Request.withKey(Command.GET, KEY),
+				Request.withKeyAndData(Command.PUT, KEY, DATA, TTL), Request.withKey(Command.REMOVE, KEY));
+		ByteArrayInputStream input = new ByteArrayInputStream(writeOneByOne(requests));
+
+		List<Request> result = converter.readAll(input, requests.size());
+
+		assertThat(result, hasSize(requests.size()));
+		for (int i = 0; i < requests.size(); i++) {
+			assertReadCorrectly(result.get(i), requests.get(i));
+		}
+		assertThat(input.available(), equalTo(0));
+	}
+
+	@Test
+	public void shouldCompressLargeDataIfCompressorIsSet() throws Exception {
+		byte[] data = PayloadCompressorTest.repeat("{\"name\":\"value\"}", 100);
+		Request request = Request.withKeyAndData(Command.PUT, KEY, data, TTL);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new RequestConverter(new PayloadCompressor(64, Deflater.BEST_SPEED)).writeTo(output, request);
+
+		byte[] content = output.toByteArray();
+		assertFlag(content[2], COMPRESSED_FLAG);
+		assertThat(content.length, lessThan(data.length));
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(content)), request);
+		assertReadCorrectly(new RequestBufferConverter().readFrom(ByteBuffer.wrap(content)), request);
+		assertReadCorrectly(new RequestFrameDecoder().decode(ByteBuffer.wrap(content)).get(), request);
+	}
+
+	@Test
+	public void shouldCompressLargeDataOfEntriesIfCompressorIsSet() throws Exception {
+		byte[] data = PayloadCompressorTest.repeat("{\"name\":\"value\"}", 100);
+		Request request = Request.withEntries(Command.MPUT,
+				Arrays.asList(Entry.withKeyAndData(KEY, data, TTL), Entry.withKeyAndData("Other", DATA, null)));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new RequestConverter(new PayloadCompressor(64, Deflater.BEST_SPEED)).writeTo(output, request);
+
+		byte[] content = output.toByteArray();
+		assertThat(content.length, lessThan(data.length));
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(content)), request);
+		assertReadCorrectly(new RequestBufferConverter().readFrom(ByteBuffer.wrap(content)), request);
+		assertReadCorrectly(new RequestFrameDecoder().decode(ByteBuffer.wrap(content)).get(), request);
+	}
+
+	@Test
+	public void shouldWriteStreamedDataInChunksReadableByAllReaders() throws Exception {
+		byte[] data = new byte[3 * ChunkedOutputStream.DEFAULT_CHUNK_SIZE + 10];
+		Arrays.fill(data, (byte) 7);
+		Request request = Request.withKeyAndData(Command.PUT, KEY, data, TTL);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		try (OutputStream dataOutput = converter.openDataStream(output, Command.PUT, KEY, TTL)) {
+			dataOutput.write(data, 0, 100);
+			dataOutput.write(data, 100, data.length - 100);
+		}
+
+		byte[] content = output.toByteArray();
+		assertFlag(content[2], RequestConverter.CHUNKED_FLAG);
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(content)), request);
+		assertReadCorrectly(new RequestBufferConverter().readFrom(ByteBuffer.wrap(content)), request);
+		assertReadCorrectly(decodeByteByByte(content), request);
+	}
+
+	private static Request decodeByteByByte(byte[] content) {
+		RequestFrameDecoder decoder = new RequestFrameDecoder();
+		for (int i = 0; i < content.length - 1; i++) {
+			assertFalse(decoder.decode(ByteBuffer.wrap(content, i, 1)).isPresent());
+		}
+		return decoder.decode(ByteBuffer.wrap(content, content.length - 1, 1)).get();
+	}
+
+	@Test
+	public void shouldReadDataOfRequestAsStream() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (OutputStream dataOutput = converter.openDataStream(output, Command.PUT, KEY, null)) {
+			dataOutput.write(DATA);
+		}
+		converter.writeTo(output, Request.withKey(Command.GET, KEY));
+		ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+
+		StreamedRequest request = converter.readStreamed(input);
+
+		assertThat(request.getCommand(), equalTo(Command.PUT));
+		assertThat(request.getKey(), equalTo(KEY));
+		assertFalse("Streamed request should not contain ttl", request.hasTtl());
+		assertThat(IOUtils.toByteArray(request.getData()), equalTo(DATA));
+		assertThat(converter.readFrom(input).getCommand(), equalTo(Command.GET));
+	}
+
+	@Test
+	public void shouldReadDataOfNotChunkedRequestAsStream() throws Exception {
+		Request request = Request.withKeyAndData(Command.PUT, KEY, DATA, TTL);
+		ByteArrayInputStream input = createInputStreamFor(request);
+
+		StreamedRequest result = converter.readStreamed(input);
+
+		assertThat(result.getTtl(), equalTo(TTL));
+		assertThat(IOUtils.toByteArray(result.getData()), equalTo(DATA));
+	}
+
+	@Test
+	public void shouldReadCompressedDataOfRequestAsStream() throws Exception {
+		byte[] data = PayloadCompressorTest.repeat("{\"name\":\"value\"}", 100);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new RequestConverter(new PayloadCompressor(64, Deflater.BEST_SPEED)).writeTo(output,
+				Request.withKeyAndData(Command.PUT, KEY, data, null));
+
+		StreamedRequest result = converter.readStreamed(new ByteArrayInputStream(output.toByteArray()));
+
+		assertThat(IOUtils.toByteArray(result.getData()), equalTo(data));
+	}
+
+	@Test
+	public void shouldReadCorrelationIdOfStreamedRequest() throws Exception {
+		StreamedRequest result = converter.readStreamed(
+				createInputStreamFor(Request.withKeyAndData(Command.PUT, KEY, DATA, null).withCorrelationId(7)));
+
+		assertThat(result.getCorrelationId(), equalTo(7));
+		assertThat(IOUtils.toByteArray(result.getData()), equalTo(DATA));
+	}
+
+	@Test
+	public void shouldSkipUnreadStreamedDataOnClose() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, Request.withKeyAndData(Command.PUT, KEY, DATA, null));
+		converter.writeTo(output, Request.empty(Command.CLEAR));
+		ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+
+		converter.readStreamed(input).getData().close();
+
+		assertThat(converter.readFrom(input).getCommand(), equalTo(Command.CLEAR));
+	}
+
+	@Test
+	public void shouldNotAllowToReadRequestWithEntriesAsStream() throws Exception {
+		expected.expect(JMemcachedException.class);
+
+		converter.readStreamed(createInputStreamFor(MULTI_GET_REQUEST));
+	}
+
+	private byte[] writeOneByOne(List<Request> requests) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		for (Request request : requests) {
+			converter.writeTo(output, request);
+		}
+		return output.toByteArray();
+	}
+
+	private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+		private int flushCount;
+
+		@Override
+		public void flush() throws IOException {
+			flushCount++;
+		}
+	}
+	
 	private void assertReadsRequestCorrectly(Request request) throws IOException {
 		ByteArrayInputStream input = createInputStreamFor(request);
 
@@ -152,6 +700,8 @@ public class RequestConverterTest {
 
 	private static void assertReadCorrectly(Request result, Request source) {
 		assertThat(result.getCommand(), equalTo(source.getCommand()));
+		assertThat(result.getCorrelationId(), equalTo(source.getCorrelationId()));
+		assertThat(result.getCasToken(), equalTo(source.getCasToken()));
 		if (result.hasData()) {
 			assertThat(result.getData(), equalTo(source.getData()));
 		}
@@ -161,7 +711,16 @@ public class RequestConverterTest {
 		if (result.hasKey()) {
 			assertThat(result.getKey(), equalTo(source.getKey()));
 		}
-		
+		assertEntries(result.getEntries(), source.getEntries());
+	}
+
+	static void assertEntries(List<Entry> result, List<Entry> source) {
+		assertThat(result, hasSize(source.size()));
+		for (int i = 0; i < source.size(); i++) {
+			assertThat(result.get(i).getKey(), equalTo(source.get(i).getKey()));
+			assertThat(result.get(i).getTtl(), equalTo(source.get(i).getTtl()));
+			assertThat(result.get(i).getData(), equalTo(source.get(i).getData()));
+		}
 	}
 
 	private static void assertWrittenCorrectly(ByteArrayOutputStream output, Request request) throws IOException {
@@ -0,0 +1,232 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Entry;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Request;
+
+public class RequestFrameDecoderTest {
+	private static final long TTL = 1000;
+	private static final byte[] DATA = new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+	private static final String KEY = "Key";
+
+	private RequestFrameDecoder decoder;
+	private RequestConverter converter;
+
+	@Before
+	public void setUp() {
+		decoder = new RequestFrameDecoder();
+		converter = new RequestConverter();
+	}
+
+	@Test
+	public void shouldDecodeEmptyRequest() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.empty(Command.CLEAR));
+	}
+
+	@Test
+	public void shouldDecodeRequestWithKey() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.withKey(Command.GET, KEY));
+	}
+
+	@Test
+	public void shouldDecodeRequestWithData() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.withKeyAndData(Command.PUT, KEY, DATA, null));
+	}
+
+	@Test
+	public void shouldDecodeRequestWithTtl() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL));
+	}
+
+	@Test
+	public void shouldDecodeRequestWithNegativeTtlSplitAcrossChunks() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.withKeyAndData(Command.PUT, KEY, DATA, -TTL));
+	}
+
+	@Test
+	public void shouldDecodeMultiGetRequest() throws Exception {
+		assertDecodedInChunksOfAnySize(
+				Request.withEntries(Command.MGET, Arrays.asList(Entry.withKey(KEY), Entry.withKey("Other"))));
+	}
+
+	@Test
+	public void shouldDecodeMultiPutRequest() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.withEntries(Command.MPUT,
+				Arrays.asList(Entry.withKeyAndData(KEY, DATA, TTL), Entry.withKeyAndData("Other", DATA, null))));
+	}
+
+	@Test
+	public void shouldDecodeRequestWithEmptyEntries() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.withEntries(Command.MGET, Arrays.asList()));
+	}
+
+	@Test
+	public void shouldDecodeRequestWithCorrelationId() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL).withCorrelationId(42));
+	}
+
+	@Test
+	public void shouldDecodeEmptyRequestWithCorrelationId() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.empty(Command.CLEAR).withCorrelationId(-1));
+	}
+
+	@Test
+	public void shouldDecodeMultiGetRequestWithCorrelationId() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.withEntries(Command.MGET,
+				Arrays.asList(Entry.withKey(KEY), Entry.withKey("Other"))).withCorrelationId(7));
+	}
+
+	@Test
+	public void shouldDecodeRequestInCompactLayout() throws Exception {
+		converter = new RequestConverter(Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS)));
+
+		assertDecodedInChunksOfAnySize(Request.withKeyAndData(Command.PUT, KEY, new byte[200], 1500L));
+	}
+
+	@Test
+	public void shouldDecodeMultiPutRequestInCompactLayout() throws Exception {
+		converter = new RequestConverter(Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS, Feature.BATCHING)));
+
+		assertDecodedInChunksOfAnySize(Request.withEntries(Command.MPUT,
+				Arrays.asList(Entry.withKeyAndData(KEY, DATA, -TTL), Entry.withKeyAndData("Other", new byte[130], null))));
+	}
+
+	@Test
+	public void shouldDecodeCasRequest() throws Exception {
+		assertDecodedInChunksOfAnySize(Request.withKeyAndData(Command.CAS, KEY, DATA, TTL).withCasToken(42));
+	}
+
+	@Test
+	public void shouldDecodeCasRequestWithCorrelationIdInCompactLayout() throws Exception {
+		converter = new RequestConverter(
+				Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS, Feature.CORRELATION_IDS, Feature.CAS_TOKENS)));
+
+		assertDecodedInChunksOfAnySize(
+				Request.withKeyAndData(Command.CAS, KEY, DATA, null).withCasToken(-1).withCorrelationId(3));
+	}
+
+	@Test
+	public void shouldDecodeTouchRequestInCompactLayout() throws Exception {
+		converter = new RequestConverter(Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS, Feature.TOUCH)));
+
+		assertDecodedInChunksOfAnySize(Request.withKeyAndTtl(Command.TOUCH, KEY, 60_000L));
+	}
+
+	@Test
+	public void shouldDecodeSeveralFramesFromOneChunk() throws Exception {
+		Request first = Request.withKeyAndData(Command.PUT, KEY, DATA, TTL);
+		Request second = Request.empty(Command.CLEAR);
+		ByteBuffer chunk = ByteBuffer.wrap(concat(encode(first), encode(second)));
+
+		assertDecodedCorrectly(decoder.decode(chunk).get(), first);
+		assertDecodedCorrectly(decoder.decode(chunk).get(), second);
+		assertFalse("Chunk should be fully consumed", chunk.hasRemaining());
+		assertFalse("Decoder should not have partial frame", decoder.hasPartialFrame());
+	}
+
+	@Test
+	public void shouldDecodeFromDirectBuffer() throws Exception {
+		Request request = Request.withKeyAndData(Command.PUT, KEY, DATA, TTL);
+		byte[] frame = encode(request);
+		ByteBuffer chunk = ByteBuffer.allocateDirect(frame.length);
+		chunk.put(frame).flip();
+
+		assertDecodedCorrectly(decoder.decode(chunk).get(), request);
+	}
+
+	@Test
+	public void shouldKeepPartialFrameBetweenInvocations() throws Exception {
+		byte[] frame = encode(Request.withKey(Command.GET, KEY));
+
+		Optional<Request> result = decoder.decode(ByteBuffer.wrap(frame, 0, 4));
+
+		assertFalse("Request should not be decoded yet", result.isPresent());
+		assertTrue("Decoder should have partial frame", decoder.hasPartialFrame());
+	}
+
+	@Test
+	public void shouldDiscardPartialFrameOnReset() throws Exception {
+		Request request = Request.withKey(Command.GET, KEY);
+		decoder.decode(ByteBuffer.wrap(encode(Request.withKey(Command.REMOVE, KEY)), 0, 4));
+
+		decoder.reset();
+
+		assertFalse("Decoder should not have partial frame", decoder.hasPartialFrame());
+		assertDecodedCorrectly(decoder.decode(ByteBuffer.wrap(encode(request))).get(), request);
+	}
+
+	@Test
+	public void shouldResetStateIfFrameHasUnsupportedVersion() throws Exception {
+		byte[] frame = encode(Request.withKey(Command.GET, KEY));
+		frame[0] = 0;
+
+		try {
+			decoder.decode(ByteBuffer.wrap(frame));
+			fail("JMemcachedException expected");
+		} catch (JMemcachedException e) {
+			assertFalse("Decoder should not have partial frame", decoder.hasPartialFrame());
+		}
+	}
+
+	private void assertDecodedInChunksOfAnySize(Request request) throws IOException {
+		byte[] frame = encode(request);
+		for (int chunkSize = 1; chunkSize <= frame.length; chunkSize++) {
+			List<Request> decoded = decodeInChunks(frame, chunkSize);
+
+			assertThat(decoded, hasSize(1));
+			assertDecodedCorrectly(decoded.get(0), request);
+		}
+	}
+
+	private List<Request> decodeInChunks(byte[] frame, int chunkSize) {
+		List<Request> decoded = new ArrayList<>();
+		for (int offset = 0; offset < frame.length; offset += chunkSize) {
+			ByteBuffer chunk = ByteBuffer.wrap(frame, offset, Math.min(chunkSize, frame.length - offset));
+			while (chunk.hasRemaining()) {
+				decoder.decode(chunk).ifPresent(decoded::add);
+			}
+		}
+		return decoded;
+	}
+
+	private static void assertDecodedCorrectly(Request result, Request source) {
+		assertThat(result.getCommand(), equalTo(source.getCommand()));
+		assertThat(result.getCorrelationId(), equalTo(source.getCorrelationId()));
+		assertThat(result.getKey(), equalTo(source.getKey()));
+		assertThat(result.getTtl(), equalTo(source.getTtl()));
+		assertThat(result.getCasToken(), equalTo(source.getCasToken()));
+		assertThat(result.getData(), equalTo(source.getData()));
+		RequestConverterTest.assertEntries(result.getEntries(), source.getEntries());
+	}
+
+	private byte[] encode(Request request) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, request);
+		return output.toByteArray();
+	}
+
+	private static byte[] concat(byte[] first, byte[] second) {
+		byte[] result = new byte[first.length + second.length];
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+}
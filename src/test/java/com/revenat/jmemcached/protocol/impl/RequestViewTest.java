@@ -0,0 +1,261 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Entry;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Request;
+
+public class RequestViewTest {
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+	private static final String KEY = "Key";
+	private static final long TTL = 1000L;
+
+	private final RequestView view = new RequestView();
+
+	@Test
+	public void shouldExposePartsOfRequestWithData() throws Exception {
+		ByteBuffer buffer = encode(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL));
+
+		view.wrap(buffer);
+
+		assertThat(view.getCommand(), equalTo(Command.PUT));
+		assertThat(view.getKey(), equalTo(KEY));
+		assertThat(view.getKeyLength(), equalTo(KEY.length()));
+		assertThat(view.getKeyByte(0), equalTo((byte) 'K'));
+		assertTrue("View should contain ttl", view.hasTtl());
+		assertThat(view.getTtl(), equalTo(TTL));
+		assertThat(view.getDataLength(), equalTo(DATA.length));
+		ByteBuffer data = ByteBuffer.allocate(DATA.length);
+		view.copyDataTo(data);
+		assertThat(data.array(), equalTo(DATA));
+		assertFalse("Whole frame should be consumed", buffer.hasRemaining());
+	}
+
+	@Test
+	public void shouldExposePartsOfRequestWithKeyOnly() throws Exception {
+		view.wrap(encode(Request.withKey(Command.GET, KEY)));
+
+		assertThat(view.getCommand(), equalTo(Command.GET));
+		assertTrue("View should contain key", view.hasKey());
+		assertFalse("View should not contain ttl", view.hasTtl());
+		assertFalse("View should not contain data", view.hasData());
+		assertThat(view.getDataLength(), equalTo(0));
+	}
+
+	@Test
+	public void shouldExposeEmptyRequest() throws Exception {
+		view.wrap(encode(Request.empty(Command.CLEAR)));
+
+		assertThat(view.getCommand(), equalTo(Command.CLEAR));
+		assertFalse("View should not contain key", view.hasKey());
+		assertThat(view.getKey(), nullValue());
+	}
+
+	@Test
+	public void shouldExposeCorrelationIdOfRequest() throws Exception {
+		ByteBuffer buffer = encode(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL).withCorrelationId(42));
+
+		Request request = view.wrap(buffer).toRequest();
+
+		assertTrue("View should contain correlation id", view.hasCorrelationId());
+		assertThat(view.getCorrelationId(), equalTo(42));
+		assertThat(view.getKey(), equalTo(KEY));
+		assertThat(request.getCorrelationId(), equalTo(42));
+		assertThat(request.getData(), equalTo(DATA));
+		assertFalse("Whole frame should be consumed", buffer.hasRemaining());
+	}
+
+	@Test
+	public void shouldReturnZeroCorrelationIdIfRequestHasNone() throws Exception {
+		view.wrap(encode(Request.withKey(Command.GET, KEY)));
+
+		assertFalse("View should not contain correlation id", view.hasCorrelationId());
+		assertThat(view.getCorrelationId(), equalTo(0));
+		assertThat(view.toRequest().getCorrelationId(), nullValue());
+	}
+
+	@Test
+	public void shouldExposePartsOfRequestInCompactLayout() throws Exception {
+		RequestBufferConverter converter = new RequestBufferConverter(
+				Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS)));
+		Request request = Request.withKeyAndData(Command.PUT, KEY, new byte[200], 1500L);
+		ByteBuffer buffer = ByteBuffer.allocate(converter.encodedSize(request));
+		converter.writeTo(buffer, request);
+		buffer.flip();
+
+		view.wrap(buffer);
+
+		assertThat(view.getTtl(), equalTo(1500L));
+		assertThat(view.getDataLength(), equalTo(200));
+		assertThat(view.toRequest().getData(), equalTo(request.getData()));
+		assertFalse("Whole frame should be consumed", buffer.hasRemaining());
+	}
+
+	@Test
+	public void shouldExposeCasTokenOfCasRequest() throws Exception {
+		ByteBuffer buffer = encode(Request.withKeyAndData(Command.CAS, KEY, DATA, TTL).withCasToken(99));
+
+		Request request = view.wrap(buffer).toRequest();
+
+		assertTrue("View should contain cas token", view.hasCasToken());
+		assertThat(view.getCasToken(), equalTo(99L));
+		assertThat(view.getTtl(), equalTo(TTL));
+		assertThat(request.getCasToken(), equalTo(99L));
+		assertThat(request.getData(), equalTo(DATA));
+		assertFalse("Whole frame should be consumed", buffer.hasRemaining());
+	}
+
+	@Test
+	public void shouldReturnZeroCasTokenIfRequestHasNone() throws Exception {
+		view.wrap(encode(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL)));
+
+		assertFalse("View should not contain cas token", view.hasCasToken());
+		assertThat(view.getCasToken(), equalTo(0L));
+		assertThat(view.toRequest().getCasToken(), nullValue());
+	}
+
+	@Test
+	public void shouldExposeTtlOfRequestWithoutData() throws Exception {
+		ByteBuffer buffer = encode(Request.withKeyAndTtl(Command.GAT, KEY, TTL));
+
+		Request request = view.wrap(buffer).toRequest();
+
+		assertTrue("View should contain ttl", view.hasTtl());
+		assertFalse("View should not contain data", view.hasData());
+		assertThat(view.getTtl(), equalTo(TTL));
+		assertThat(request.getTtl(), equalTo(TTL));
+		assertFalse("Whole frame should be consumed", buffer.hasRemaining());
+	}
+
+	@Test
+	public void shouldCompareKeyWithoutCreatingString() throws Exception {
+		view.wrap(encode(Request.withKey(Command.GET, KEY)));
+
+		assertTrue("Key should be equal", view.keyEquals(KEY.getBytes(StandardCharsets.US_ASCII)));
+		assertFalse("Key should not be equal", view.keyEquals("Kez".getBytes(StandardCharsets.US_ASCII)));
+		assertFalse("Key should not be equal", view.keyEquals("Keys".getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	@Test
+	public void shouldReadFramesFromDirectBuffer() throws Exception {
+		ByteBuffer heapBuffer = encode(Request.withKeyAndData(Command.PUT, KEY, DATA, null));
+		ByteBuffer buffer = ByteBuffer.allocateDirect(heapBuffer.remaining());
+		buffer.put(heapBuffer).flip();
+
+		Request request = view.wrap(buffer).toRequest();
+
+		assertThat(request.getKey(), equalTo(KEY));
+		assertThat(request.getData(), equalTo(DATA));
+		assertThat(request.getTtl(), nullValue());
+	}
+
+	@Test
+	public void shouldBeReusableForSeveralFrames() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		RequestBufferConverter converter = new RequestBufferConverter();
+		converter.writeTo(buffer, Request.withKeyAndData(Command.PUT, KEY, DATA, TTL));
+		converter.writeTo(buffer, Request.withKey(Command.GET, "Other"));
+		buffer.flip();
+
+		assertThat(view.wrap(buffer).getTtl(), equalTo(TTL));
+		view.wrap(buffer);
+
+		assertThat(view.getKey(), equalTo("Other"));
+		assertThat(view.getTtl(), equalTo(0L));
+		assertThat(view.getDataLength(), equalTo(0));
+	}
+
+	@Test
+	public void shouldLeaveBufferPositionUnchangedForIncompleteFrame() throws Exception {
+		ByteBuffer buffer = encode(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL));
+		buffer.limit(buffer.limit() - 1);
+
+		try {
+			view.wrap(buffer);
+			fail("BufferUnderflowException expected");
+		} catch (BufferUnderflowException e) {
+			assertThat(buffer.position(), equalTo(0));
+		}
+	}
+
+	@Test
+	public void shouldResetViewIfFrameCanNotBeWrapped() throws Exception {
+		view.wrap(encode(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL)));
+		ByteBuffer buffer = encode(Request.withKeyAndData(Command.PUT, KEY, DATA, TTL));
+		buffer.put(3, (byte) -1);
+
+		try {
+			view.wrap(buffer);
+			fail("JMemcachedException expected");
+		} catch (JMemcachedException e) {
+			assertThat(buffer.position(), equalTo(0));
+			assertThat(view.getCommand(), nullValue());
+			assertFalse("View should not contain key", view.hasKey());
+			assertFalse("View should not contain ttl", view.hasTtl());
+			assertFalse("View should not contain data", view.hasData());
+			assertThat(view.getKeyLength(), equalTo(0));
+			assertThat(view.getTtl(), equalTo(0L));
+			assertThat(view.getDataLength(), equalTo(0));
+		}
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToWrapRequestWithEntries() throws Exception {
+		view.wrap(encode(Request.withEntries(Command.MGET, Arrays.asList(Entry.withKey(KEY)))));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void shouldNotAllowToGetKeyByteOutsideOfKey() throws Exception {
+		view.wrap(encode(Request.withKey(Command.GET, KEY)));
+
+		view.getKeyByte(KEY.length());
+	}
+
+	@Test
+	public void shouldNotAllocateWhileDecodingGetRequests() throws Exception {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+		ByteBuffer buffer = encode(Request.withKey(Command.GET, KEY));
+		byte[] key = KEY.getBytes(StandardCharsets.US_ASCII);
+		int iterations = 10_000;
+		for (int i = 0; i < iterations; i++) {
+			view.wrap((ByteBuffer) buffer.rewind()).keyEquals(key);
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long before = allocationBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < iterations; i++) {
+			view.wrap((ByteBuffer) buffer.rewind()).keyEquals(key);
+		}
+		long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+		assertThat(allocated, lessThan((long) iterations));
+	}
+
+	private static ByteBuffer encode(Request request) {
+		RequestBufferConverter converter = new RequestBufferConverter();
+		ByteBuffer buffer = ByteBuffer.allocate(converter.encodedSize(request));
+		converter.writeTo(buffer, request);
+		buffer.flip();
+		return buffer;
+	}
+}
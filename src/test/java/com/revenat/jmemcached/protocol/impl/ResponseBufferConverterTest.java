@@ -0,0 +1,273 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.DirectPayload;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.PayloadAllocator;
+import com.revenat.jmemcached.protocol.model.Response;
+import com.revenat.jmemcached.protocol.model.Status;
+import com.revenat.jmemcached.protocol.model.Version;
+
+public class ResponseBufferConverterTest {
+	private static final Response RESPONSE_WITH_DATA = Response.withData(Status.GOTTEN, new byte[] { 1, 2, 3 });
+	private static final Response EMPTY_RESPONSE = Response.empty(Status.CLEARED);
+	private static final Response RESPONSE_WITH_ENTRIES = Response.withEntries(Status.GOTTEN,
+			Arrays.asList(RESPONSE_WITH_DATA, Response.empty(Status.NOT_FOUND)));
+
+	private ResponseBufferConverter converter;
+
+	@Before
+	public void setUp() {
+		converter = new ResponseBufferConverter();
+	}
+
+	@Test
+	public void shouldWriteResponseWithoutDataInStreamCompatibleLayout() throws Exception {
+		assertWrittenAsStreamConverterDoes(EMPTY_RESPONSE, ByteBuffer.allocate(16));
+	}
+
+	@Test
+	public void shouldWriteResponseWithDataInStreamCompatibleLayout() throws Exception {
+		assertWrittenAsStreamConverterDoes(RESPONSE_WITH_DATA, ByteBuffer.allocateDirect(16));
+	}
+
+	@Test
+	public void shouldWriteResponseWithEntriesInStreamCompatibleLayout() throws Exception {
+		assertWrittenAsStreamConverterDoes(RESPONSE_WITH_ENTRIES, ByteBuffer.allocate(32));
+	}
+
+	@Test
+	public void shouldWriteResponseWithDirectPayloadInStreamCompatibleLayout() throws Exception {
+		Response response = Response.withPayload(Status.GOTTEN,
+				DirectPayload.copyOf(RESPONSE_WITH_DATA.getDataBuffer()));
+
+		assertWrittenAsStreamConverterDoes(response, ByteBuffer.allocateDirect(16));
+	}
+
+	@Test
+	public void shouldReadResponseDataIntoDirectPayload() throws Exception {
+		converter = new ResponseBufferConverter(Handshake.latest(EnumSet.allOf(Feature.class)),
+				PayloadAllocator.UNPOOLED);
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		converter.writeTo(buffer, RESPONSE_WITH_DATA.withCorrelationId(5));
+		buffer.flip();
+
+		Response response = converter.readFrom(buffer);
+
+		assertTrue("Response should be direct", response.isDirect());
+		assertThat(response.getData(), equalTo(RESPONSE_WITH_DATA.getData()));
+		assertThat(response.getCorrelationId(), equalTo(5));
+		assertTrue("Payload should be released", response.release());
+	}
+
+	@Test
+	public void shouldReadDataOfResponseEntriesIntoHeapArrays() throws Exception {
+		converter = new ResponseBufferConverter(Handshake.latest(EnumSet.allOf(Feature.class)),
+				PayloadAllocator.UNPOOLED);
+		ByteBuffer buffer = ByteBuffer.allocate(32);
+		converter.writeTo(buffer, RESPONSE_WITH_ENTRIES);
+		buffer.flip();
+
+		Response response = converter.readFrom(buffer);
+
+		assertFalse("Entry should not be direct", response.getEntries().get(0).isDirect());
+		assertThat(response.getEntries().get(0).getData(), equalTo(RESPONSE_WITH_DATA.getData()));
+	}
+
+	@Test
+	public void shouldReturnExactEncodedSizeOfResponseWithEntries() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(32);
+
+		converter.writeTo(buffer, RESPONSE_WITH_ENTRIES);
+
+		assertThat(converter.encodedSize(RESPONSE_WITH_ENTRIES), equalTo(buffer.position()));
+	}
+
+	@Test
+	public void shouldWriteResponseInCompactLayoutAsStreamConverterDoes() throws Exception {
+		Handshake handshake = Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS, Feature.BATCHING));
+		ResponseBufferConverter compactConverter = new ResponseBufferConverter(handshake);
+		ByteBuffer buffer = ByteBuffer.allocate(32);
+
+		compactConverter.writeTo(buffer, RESPONSE_WITH_ENTRIES);
+
+		assertThat(compactConverter.encodedSize(RESPONSE_WITH_ENTRIES), equalTo(buffer.position()));
+		buffer.flip();
+		byte[] written = new byte[buffer.remaining()];
+		buffer.get(written);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new ResponseConverter(handshake).writeTo(output, RESPONSE_WITH_ENTRIES);
+		assertThat(written, equalTo(output.toByteArray()));
+	}
+
+	@Test
+	public void shouldAllowToReadResponseInCompactLayout() throws Exception {
+		converter = new ResponseBufferConverter(Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS)));
+
+		assertReadsResponseCorrectly(RESPONSE_WITH_DATA, ByteBuffer.allocate(16));
+		assertThat(converter.encodedSize(RESPONSE_WITH_DATA),
+				equalTo(new ResponseBufferConverter().encodedSize(RESPONSE_WITH_DATA) - 3));
+	}
+
+	@Test
+	public void shouldWriteResponseWithCasTokensInStreamCompatibleLayout() throws Exception {
+		Response response = Response.withEntries(Status.GOTTEN,
+				Arrays.asList(RESPONSE_WITH_DATA.withCasToken(1), EMPTY_RESPONSE)).withCasToken(2);
+		ByteBuffer buffer = ByteBuffer.allocate(converter.encodedSize(response));
+
+		assertWrittenAsStreamConverterDoes(response, buffer);
+		assertFalse("Encoded size should be exact", buffer.hasRemaining());
+	}
+
+	@Test
+	public void shouldAllowToReadResponseWithCasTokens() throws Exception {
+		assertReadsResponseCorrectly(Response.withEntries(Status.GOTTEN,
+				Arrays.asList(EMPTY_RESPONSE.withCasToken(-1), RESPONSE_WITH_DATA.withCasToken(1))).withCasToken(5),
+				ByteBuffer.allocate(64));
+		assertReadsResponseCorrectly(RESPONSE_WITH_DATA.withCasToken(9).withCorrelationId(1), ByteBuffer.allocate(64));
+	}
+
+	@Test
+	public void shouldAllowToReadResponseWithEntries() throws Exception {
+		assertReadsResponseCorrectly(RESPONSE_WITH_ENTRIES, ByteBuffer.allocate(32));
+	}
+
+	@Test
+	public void shouldWriteResponseWithCorrelationIdInStreamCompatibleLayout() throws Exception {
+		assertWrittenAsStreamConverterDoes(RESPONSE_WITH_ENTRIES.withCorrelationId(42), ByteBuffer.allocate(32));
+	}
+
+	@Test
+	public void shouldReturnExactEncodedSizeOfResponseWithCorrelationId() throws Exception {
+		Response response = RESPONSE_WITH_ENTRIES.withCorrelationId(42);
+		ByteBuffer buffer = ByteBuffer.allocate(32);
+
+		converter.writeTo(buffer, response);
+
+		assertThat(converter.encodedSize(response), equalTo(buffer.position()));
+	}
+
+	@Test
+	public void shouldAllowToReadResponseWithCorrelationId() throws Exception {
+		assertReadsResponseCorrectly(RESPONSE_WITH_DATA.withCorrelationId(42), ByteBuffer.allocate(32));
+	}
+
+	@Test
+	public void shouldWriteResponseOfNegotiatedVersion() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+
+		new ResponseBufferConverter(Handshake.LEGACY).writeTo(buffer, RESPONSE_WITH_DATA);
+		buffer.flip();
+
+		assertThat(buffer.get(0), equalTo(Version.VERSION_1_0.getByteCode()));
+		assertThat(converter.readFrom(buffer).getData(), equalTo(RESPONSE_WITH_DATA.getData()));
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToWriteCorrelationIdIfItIsNotNegotiated() throws Exception {
+		new ResponseBufferConverter(Handshake.LEGACY).writeTo(ByteBuffer.allocate(16),
+				EMPTY_RESPONSE.withCorrelationId(1));
+	}
+
+	@Test
+	public void shouldReturnExactEncodedSize() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+
+		converter.writeTo(buffer, RESPONSE_WITH_DATA);
+
+		assertThat(converter.encodedSize(RESPONSE_WITH_DATA), equalTo(buffer.position()));
+	}
+
+	@Test
+	public void shouldNotWriteAnythingIfBufferIsTooSmall() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(converter.encodedSize(RESPONSE_WITH_DATA) - 1);
+
+		try {
+			converter.writeTo(buffer, RESPONSE_WITH_DATA);
+			fail("BufferOverflowException expected");
+		} catch (BufferOverflowException e) {
+			assertThat(buffer.position(), equalTo(0));
+		}
+	}
+
+	@Test
+	public void shouldAllowToReadResponseWithoutData() throws Exception {
+		assertReadsResponseCorrectly(EMPTY_RESPONSE, ByteBuffer.allocate(16));
+	}
+
+	@Test
+	public void shouldAllowToReadResponseWithData() throws Exception {
+		assertReadsResponseCorrectly(RESPONSE_WITH_DATA, ByteBuffer.allocateDirect(16));
+	}
+
+	@Test
+	public void shouldLeavePositionUnchangedIfFrameIsIncomplete() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		converter.writeTo(buffer, RESPONSE_WITH_DATA);
+		buffer.flip();
+		buffer.limit(buffer.limit() - 1);
+
+		try {
+			converter.readFrom(buffer);
+			fail("BufferUnderflowException expected");
+		} catch (BufferUnderflowException e) {
+			assertThat(buffer.position(), equalTo(0));
+		}
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToReadResponseWithNegativeDataLength() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		converter.writeTo(buffer, RESPONSE_WITH_DATA);
+		buffer.flip();
+		buffer.putInt(ResponseBufferConverter.HEADER_SIZE, -1);
+
+		converter.readFrom(buffer);
+	}
+
+	private void assertWrittenAsStreamConverterDoes(Response response, ByteBuffer buffer) throws IOException {
+		converter.writeTo(buffer, response);
+		buffer.flip();
+		byte[] written = new byte[buffer.remaining()];
+		buffer.get(written);
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new ResponseConverter().writeTo(output, response);
+		assertThat(written, equalTo(output.toByteArray()));
+	}
+
+	private void assertReadsResponseCorrectly(Response response, ByteBuffer buffer) {
+		converter.writeTo(buffer, response);
+		buffer.flip();
+
+		Response result = converter.readFrom(buffer);
+
+		assertThat(result.getStatus(), equalTo(response.getStatus()));
+		assertThat(result.getCorrelationId(), equalTo(response.getCorrelationId()));
+		assertThat(result.getCasToken(), equalTo(response.getCasToken()));
+		assertThat(result.getData(), equalTo(response.getData()));
+		assertThat(result.getEntries(), hasSize(response.getEntries().size()));
+		for (int i = 0; i < response.getEntries().size(); i++) {
+			assertThat(result.getEntries().get(i).getStatus(), equalTo(response.getEntries().get(i).getStatus()));
+			assertThat(result.getEntries().get(i).getData(), equalTo(response.getEntries().get(i).getData()));
+			assertThat(result.getEntries().get(i).getCasToken(),
+					equalTo(response.getEntries().get(i).getCasToken()));
+		}
+		assertFalse("Buffer should be fully consumed", buffer.hasRemaining());
+	}
+}
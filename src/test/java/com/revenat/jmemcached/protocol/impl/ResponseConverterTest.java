@@ -8,19 +8,32 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.zip.Deflater;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Counter;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
 import com.revenat.jmemcached.protocol.model.Response;
 import com.revenat.jmemcached.protocol.model.Status;
+import com.revenat.jmemcached.protocol.model.StreamedResponse;
 import com.revenat.jmemcached.protocol.model.Version;
 
 public class ResponseConverterTest {
 	private static final byte SUPPORTED_VERSION_BYTECODE = Version.VERSION_1_0.getByteCode();
 	private static final Response RESPONSE_WITH_DATA = Response.withData(Status.GOTTEN, new byte[] { 1, 2, 3 });
 	private static final Response EMPTY_RESPONSE = Response.empty(Status.CLEARED);
+	private static final Response RESPONSE_WITH_ENTRIES = Response.withEntries(Status.GOTTEN,
+			Arrays.asList(RESPONSE_WITH_DATA, Response.empty(Status.NOT_FOUND)));
 	
 	private ResponseConverter converter;
 
@@ -65,10 +78,314 @@ public class ResponseConverterTest {
 		assertReadCorrectly(result, RESPONSE_WITH_DATA);
 	}
 
+	@Test
+	public void shouldAllowToReadResponseWithEntries() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, RESPONSE_WITH_ENTRIES);
+
+		Response result = converter.readFrom(new ByteArrayInputStream(output.toByteArray()));
+
+		assertReadCorrectly(result, RESPONSE_WITH_ENTRIES);
+	}
+
+	@Test
+	public void shouldAllowToReadResponseWithCorrelationId() throws Exception {
+		Response response = RESPONSE_WITH_DATA.withCorrelationId(42);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, response);
+
+		Response result = converter.readFrom(new ByteArrayInputStream(output.toByteArray()));
+
+		assertReadCorrectly(result, response);
+	}
+
+	@Test
+	public void shouldAllowToReadResponseWithEntriesAndCorrelationId() throws Exception {
+		Response response = RESPONSE_WITH_ENTRIES.withCorrelationId(-1);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, response);
+
+		Response result = converter.readFrom(new ByteArrayInputStream(output.toByteArray()));
+
+		assertReadCorrectly(result, response);
+	}
+
+	@Test
+	public void shouldWriteCorrelationIdRightAfterFlags() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, EMPTY_RESPONSE.withCorrelationId(0x01020304));
+
+		assertThat(output.toByteArray(), equalTo(new byte[] { SUPPORTED_VERSION_BYTECODE,
+				Status.CLEARED.getByteCode(), ResponseConverter.CORRELATION_FLAG, 1, 2, 3, 4 }));
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToReadResponseEntryWithCorrelationId() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, Response.withEntries(Status.GOTTEN, Arrays.asList(EMPTY_RESPONSE)));
+		byte[] content = output.toByteArray();
+		int entryFlagsPosition = 8;
+		content[entryFlagsPosition] = ResponseConverter.CORRELATION_FLAG;
+
+		converter.readFrom(new ByteArrayInputStream(content));
+	}
+
+	@Test
+	public void shouldWriteEntriesAsStatusFlagsAndDataOfEachEntry() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, RESPONSE_WITH_ENTRIES);
+
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(output.toByteArray()));
+		assertVersionAndStatus(RESPONSE_WITH_ENTRIES, input);
+		assertThat(input.readByte(), equalTo(ResponseConverter.ENTRIES_FLAG));
+		assertThat(input.readInt(), equalTo(2));
+		assertThat(input.readByte(), equalTo(Status.GOTTEN.getByteCode()));
+		assertData(RESPONSE_WITH_DATA, input);
+		assertThat(input.readByte(), equalTo(Status.NOT_FOUND.getByteCode()));
+		assertNoData(input.readByte());
+		assertThat(input.available(), equalTo(0));
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToReadResponseWithNestedEntries() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, Response.withEntries(Status.GOTTEN, Arrays.asList(EMPTY_RESPONSE)));
+		byte[] content = output.toByteArray();
+		int entryFlagsPosition = 8;
+		content[entryFlagsPosition] = ResponseConverter.ENTRIES_FLAG;
+
+		converter.readFrom(new ByteArrayInputStream(content));
+	}
+
+	@Test
+	public void shouldWriteBatchOfResponsesBackToBackWithSingleFlush() throws Exception {
+		List<Response> responses = Arrays.asList(RESPONSE_WITH_DATA, EMPTY_RESPONSE, RESPONSE_WITH_DATA);
+		FlushCountingOutputStream out = new FlushCountingOutputStream();
+
+		converter.writeAll(out, responses);
+
+		assertThat(out.flushCount, equalTo(1));
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		for (Response response : responses) {
+			expected.write(toBytes(response));
+		}
+		assertThat(out.toByteArray(), equalTo(expected.toByteArray()));
+	}
+
+	@Test
+	public void shouldReadBatchOfResponsesInOrder() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		output.write(toBytes(EMPTY_RESPONSE));
+		output.write(toBytes(RESPONSE_WITH_DATA));
+		ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+
+		List<Response> result = converter.readAll(input, 2);
+
+		assertThat(result, hasSize(2));
+		assertReadCorrectly(result.get(0), EMPTY_RESPONSE);
+		assertReadCorrectly(result.get(1), RESPONSE_WITH_DATA);
+		assertThat(input.available(), equalTo(0));
+	}
+
+	@Test
+	public void shouldCompressLargeDataIfCompressorIsSet() throws Exception {
+		byte[] data = PayloadCompressorTest.repeat("{\"name\":\"value\"}", 100);
+		Response response = Response.withEntries(Status.GOTTEN,
+				Arrays.asList(Response.withData(Status.GOTTEN, data), RESPONSE_WITH_DATA));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new ResponseConverter(new PayloadCompressor(64, Deflater.BEST_SPEED)).writeTo(output, response);
+
+		byte[] content = output.toByteArray();
+		assertThat(content.length, lessThan(data.length));
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(content)), response);
+		assertReadCorrectly(new ResponseBufferConverter().readFrom(ByteBuffer.wrap(content)), response);
+		assertReadCorrectly(new ResponseFrameDecoder().decode(ByteBuffer.wrap(content)).get(), response);
+	}
+
+	@Test
+	public void shouldSetCompressedFlagForCompressedData() throws Exception {
+		byte[] data = PayloadCompressorTest.repeat("{\"name\":\"value\"}", 100);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new ResponseConverter(new PayloadCompressor(64, Deflater.BEST_SPEED)).writeTo(output,
+				Response.withData(Status.GOTTEN, data));
+
+		byte flags = output.toByteArray()[2];
+		assertThat(flags, equalTo((byte) (ResponseConverter.DATA_FLAG | ResponseConverter.COMPRESSED_FLAG)));
+	}
+
+	@Test
+	public void shouldWriteStreamedDataInChunksReadableByAllReaders() throws Exception {
+		byte[] data = new byte[2 * ChunkedOutputStream.DEFAULT_CHUNK_SIZE + 1];
+		Arrays.fill(data, (byte) 3);
+		Response response = Response.withData(Status.GOTTEN, data);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		try (OutputStream dataOutput = converter.openDataStream(output, Status.GOTTEN)) {
+			dataOutput.write(data);
+		}
+
+		byte[] content = output.toByteArray();
+		assertThat(content[2], equalTo((byte) (ResponseConverter.DATA_FLAG | ResponseConverter.CHUNKED_FLAG)));
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(content)), response);
+		assertReadCorrectly(new ResponseBufferConverter().readFrom(ByteBuffer.wrap(content)), response);
+		ResponseFrameDecoder decoder = new ResponseFrameDecoder();
+		assertFalse(decoder.decode(ByteBuffer.wrap(content, 0, 100)).isPresent());
+		assertReadCorrectly(decoder.decode(ByteBuffer.wrap(content, 100, content.length - 100)).get(), response);
+	}
+
+	@Test
+	public void shouldReadDataOfResponseAsStream() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (OutputStream dataOutput = converter.openDataStream(output, Status.GOTTEN)) {
+			dataOutput.write(new byte[] { 1, 2, 3 });
+		}
+		output.write(toBytes(EMPTY_RESPONSE));
+		ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+
+		StreamedResponse response = converter.readStreamed(input);
+
+		assertThat(response.getStatus(), equalTo(Status.GOTTEN));
+		assertThat(IOUtils.toByteArray(response.getData()), equalTo(new byte[] { 1, 2, 3 }));
+		assertReadCorrectly(converter.readFrom(input), EMPTY_RESPONSE);
+	}
+
+	@Test
+	public void shouldReadCorrelationIdOfStreamedResponse() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, RESPONSE_WITH_DATA.withCorrelationId(7));
+
+		StreamedResponse response = converter.readStreamed(new ByteArrayInputStream(output.toByteArray()));
+
+		assertThat(response.getCorrelationId(), equalTo(7));
+		assertThat(IOUtils.toByteArray(response.getData()), equalTo(RESPONSE_WITH_DATA.getData()));
+	}
+
+	@Test
+	public void shouldWriteResponseOfNegotiatedVersion() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new ResponseConverter(Handshake.latest(EnumSet.of(Feature.CORRELATION_IDS))).writeTo(output,
+				RESPONSE_WITH_DATA.withCorrelationId(1));
+
+		assertThat(output.toByteArray()[0], equalTo(Version.VERSION_1_1.getByteCode()));
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(output.toByteArray())),
+				RESPONSE_WITH_DATA.withCorrelationId(1));
+	}
+
+	@Test
+	public void shouldWriteLegacyResponseWithoutOptionalFeatures() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		new ResponseConverter(new PayloadCompressor(0, Deflater.BEST_SPEED), Handshake.LEGACY).writeTo(out,
+				RESPONSE_WITH_DATA);
+
+		assertWrittenCorrectly(RESPONSE_WITH_DATA, out);
+	}
+
+	@Test
+	public void shouldWriteResponseInCompactLayoutIfItIsNegotiated() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new ResponseConverter(Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS))).writeTo(output,
+				RESPONSE_WITH_DATA);
+
+		byte[] content = output.toByteArray();
+		assertThat(content[2] & ResponseConverter.COMPACT_FLAG, not(equalTo(0)));
+		assertThat(content.length, equalTo(3 + 1 + RESPONSE_WITH_DATA.getDataLength()));
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(content)), RESPONSE_WITH_DATA);
+		assertThat(IOUtils.toByteArray(converter.readStreamed(new ByteArrayInputStream(content)).getData()),
+				equalTo(RESPONSE_WITH_DATA.getData()));
+	}
+
+	@Test
+	public void shouldAllowToReadResponseWithCounterValue() throws Exception {
+		Response response = Response.withCounter(Status.REPLACED, 1_000_000L);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, response);
+
+		byte[] content = output.toByteArray();
+		assertThat(content.length, equalTo(3 + Integer.BYTES + Counter.BYTES));
+		assertThat(converter.readFrom(new ByteArrayInputStream(content)).getCounterValue(), equalTo(1_000_000L));
+	}
+
+	@Test
+	public void shouldAllowToReadResponseWithCasToken() throws Exception {
+		Response response = RESPONSE_WITH_DATA.withCasToken(Long.MAX_VALUE).withCorrelationId(3);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, response);
+
+		byte[] content = output.toByteArray();
+		assertThat(content[2] & ResponseConverter.CAS_FLAG, not(equalTo(0)));
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(content)), response);
+		assertThat(converter.readStreamed(new ByteArrayInputStream(content)).getCasToken(), equalTo(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void shouldAllowToReadCasTokensOfResponseEntries() throws Exception {
+		Response response = Response.withEntries(Status.GOTTEN,
+				Arrays.asList(RESPONSE_WITH_DATA.withCasToken(1), Response.empty(Status.NOT_FOUND),
+						RESPONSE_WITH_DATA.withCasToken(2))).withCasToken(3);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		converter.writeTo(output, response);
+
+		assertReadCorrectly(converter.readFrom(new ByteArrayInputStream(output.toByteArray())), response);
+	}
+
+	@Test
+	public void shouldNotAllowToWriteCasTokensOfEntriesIfTheyAreNotNegotiated() throws Exception {
+		ResponseConverter batchingConverter = new ResponseConverter(Handshake.latest(EnumSet.of(Feature.BATCHING)));
+
+		try {
+			batchingConverter.writeTo(new ByteArrayOutputStream(),
+					Response.withEntries(Status.GOTTEN, Arrays.asList(RESPONSE_WITH_DATA.withCasToken(1))));
+			fail("JMemcachedException expected");
+		} catch (JMemcachedException e) {
+			assertThat(e.getMessage(), containsString(Feature.CAS_TOKENS.name()));
+		}
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToWriteEntriesIfBatchingIsNotNegotiated() throws Exception {
+		new ResponseConverter(Handshake.LEGACY).writeTo(new ByteArrayOutputStream(), RESPONSE_WITH_ENTRIES);
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToOpenDataStreamIfChunkedDataIsNotNegotiated() throws Exception {
+		new ResponseConverter(Handshake.LEGACY).openDataStream(new ByteArrayOutputStream(), Status.GOTTEN);
+	}
+
+	@Test
+	public void shouldReadEmptyStreamForResponseWithoutData() throws Exception {
+		StreamedResponse response = converter.readStreamed(createInputStreamFor(EMPTY_RESPONSE));
+
+		assertThat(response.getData().read(), equalTo(-1));
+	}
+
+	private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+		private int flushCount;
+
+		@Override
+		public void flush() throws IOException {
+			flushCount++;
+		}
+	}
+
 	private static void assertReadCorrectly(Response result, Response source) {
 		assertThat(result.getStatus(), equalTo(source.getStatus()));
+		assertThat(result.getCorrelationId(), equalTo(source.getCorrelationId()));
+		assertThat(result.getCasToken(), equalTo(source.getCasToken()));
 		assertThat(result.getData(), equalTo(source.getData()));
-		
+		assertThat(result.getEntries(), hasSize(source.getEntries().size()));
+		for (int i = 0; i < source.getEntries().size(); i++) {
+			assertReadCorrectly(result.getEntries().get(i), source.getEntries().get(i));
+		}
 	}
 
 	private static ByteArrayInputStream createInputStreamFor(Response response) throws IOException {
@@ -87,6 +404,10 @@ public class ResponseConverterTest {
 		return new ByteArrayInputStream(output.toByteArray());
 	}
 
+	private static byte[] toBytes(Response response) throws IOException {
+		return IOUtils.toByteArray(createInputStreamFor(response));
+	}
+
 	private static void assertWrittenCorrectly(Response response, ByteArrayOutputStream out) throws IOException {
 		DataInputStream input = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
 
@@ -0,0 +1,161 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Response;
+import com.revenat.jmemcached.protocol.model.Status;
+
+public class ResponseFrameDecoderTest {
+	private static final Response RESPONSE_WITH_DATA = Response.withData(Status.GOTTEN, new byte[] { 1, 2, 3, 4, 5 });
+	private static final Response EMPTY_RESPONSE = Response.empty(Status.CLEARED);
+
+	private ResponseFrameDecoder decoder;
+	private ResponseConverter converter;
+
+	@Before
+	public void setUp() {
+		decoder = new ResponseFrameDecoder();
+		converter = new ResponseConverter();
+	}
+
+	@Test
+	public void shouldDecodeResponseWithoutData() throws Exception {
+		assertDecodedInChunksOfAnySize(EMPTY_RESPONSE);
+	}
+
+	@Test
+	public void shouldDecodeResponseWithData() throws Exception {
+		assertDecodedInChunksOfAnySize(RESPONSE_WITH_DATA);
+	}
+
+	@Test
+	public void shouldDecodeResponseWithEntries() throws Exception {
+		assertDecodedInChunksOfAnySize(Response.withEntries(Status.GOTTEN,
+				Arrays.asList(RESPONSE_WITH_DATA, Response.empty(Status.NOT_FOUND), RESPONSE_WITH_DATA)));
+	}
+
+	@Test
+	public void shouldDecodeResponseWithEmptyEntries() throws Exception {
+		assertDecodedInChunksOfAnySize(Response.withEntries(Status.GOTTEN, Arrays.asList()));
+	}
+
+	@Test
+	public void shouldDecodeResponseWithCorrelationId() throws Exception {
+		assertDecodedInChunksOfAnySize(RESPONSE_WITH_DATA.withCorrelationId(42));
+	}
+
+	@Test
+	public void shouldDecodeEmptyResponseWithCorrelationId() throws Exception {
+		assertDecodedInChunksOfAnySize(EMPTY_RESPONSE.withCorrelationId(-1));
+	}
+
+	@Test
+	public void shouldDecodeResponseWithEntriesAndCorrelationId() throws Exception {
+		assertDecodedInChunksOfAnySize(
+				Response.withEntries(Status.GOTTEN, Arrays.asList(RESPONSE_WITH_DATA, EMPTY_RESPONSE)).withCorrelationId(7));
+	}
+
+	@Test
+	public void shouldDecodeResponseWithCasToken() throws Exception {
+		assertDecodedInChunksOfAnySize(RESPONSE_WITH_DATA.withCasToken(42).withCorrelationId(1));
+		assertDecodedInChunksOfAnySize(EMPTY_RESPONSE.withCasToken(-42));
+	}
+
+	@Test
+	public void shouldDecodeCasTokensOfResponseEntries() throws Exception {
+		assertDecodedInChunksOfAnySize(Response.withEntries(Status.GOTTEN,
+				Arrays.asList(RESPONSE_WITH_DATA.withCasToken(1), EMPTY_RESPONSE, EMPTY_RESPONSE.withCasToken(2)))
+				.withCasToken(3));
+	}
+
+	@Test
+	public void shouldDecodeResponseWithEntriesInCompactLayout() throws Exception {
+		converter = new ResponseConverter(Handshake.latest(EnumSet.of(Feature.COMPACT_LENGTHS, Feature.BATCHING)));
+
+		assertDecodedInChunksOfAnySize(Response.withEntries(Status.GOTTEN,
+				Arrays.asList(Response.withData(Status.GOTTEN, new byte[300]), EMPTY_RESPONSE, RESPONSE_WITH_DATA)));
+	}
+
+	@Test
+	public void shouldDecodeSeveralFramesFromOneChunk() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ResponseConverter converter = new ResponseConverter();
+		converter.writeTo(output, RESPONSE_WITH_DATA);
+		converter.writeTo(output, EMPTY_RESPONSE);
+		ByteBuffer chunk = ByteBuffer.wrap(output.toByteArray());
+
+		assertDecodedCorrectly(decoder.decode(chunk).get(), RESPONSE_WITH_DATA);
+		assertDecodedCorrectly(decoder.decode(chunk).get(), EMPTY_RESPONSE);
+		assertFalse("Chunk should be fully consumed", chunk.hasRemaining());
+	}
+
+	@Test
+	public void shouldKeepPartialFrameBetweenInvocations() throws Exception {
+		byte[] frame = encode(RESPONSE_WITH_DATA);
+
+		assertFalse("Response should not be decoded yet", decoder.decode(ByteBuffer.wrap(frame, 0, 5)).isPresent());
+		assertTrue("Decoder should have partial frame", decoder.hasPartialFrame());
+		assertDecodedCorrectly(decoder.decode(ByteBuffer.wrap(frame, 5, frame.length - 5)).get(), RESPONSE_WITH_DATA);
+	}
+
+	@Test
+	public void shouldResetStateIfFrameHasUnsupportedStatus() throws Exception {
+		byte[] frame = encode(EMPTY_RESPONSE);
+		frame[1] = 100;
+
+		try {
+			decoder.decode(ByteBuffer.wrap(frame));
+			fail("JMemcachedException expected");
+		} catch (JMemcachedException e) {
+			assertFalse("Decoder should not have partial frame", decoder.hasPartialFrame());
+		}
+	}
+
+	private void assertDecodedInChunksOfAnySize(Response response) throws IOException {
+		byte[] frame = encode(response);
+		for (int chunkSize = 1; chunkSize <= frame.length; chunkSize++) {
+			List<Response> decoded = new ArrayList<>();
+			for (int offset = 0; offset < frame.length; offset += chunkSize) {
+				ByteBuffer chunk = ByteBuffer.wrap(frame, offset, Math.min(chunkSize, frame.length - offset));
+				while (chunk.hasRemaining()) {
+					decoder.decode(chunk).ifPresent(decoded::add);
+				}
+			}
+
+			assertThat(decoded, hasSize(1));
+			assertDecodedCorrectly(decoded.get(0), response);
+		}
+	}
+
+	private static void assertDecodedCorrectly(Response result, Response source) {
+		assertThat(result.getStatus(), equalTo(source.getStatus()));
+		assertThat(result.getCorrelationId(), equalTo(source.getCorrelationId()));
+		assertThat(result.getCasToken(), equalTo(source.getCasToken()));
+		assertThat(result.getData(), equalTo(source.getData()));
+		assertThat(result.getEntries(), hasSize(source.getEntries().size()));
+		for (int i = 0; i < source.getEntries().size(); i++) {
+			assertDecodedCorrectly(result.getEntries().get(i), source.getEntries().get(i));
+		}
+	}
+
+	private byte[] encode(Response response) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		converter.writeTo(output, response);
+		return output.toByteArray();
+	}
+}
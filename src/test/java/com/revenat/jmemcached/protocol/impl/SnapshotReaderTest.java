@@ -0,0 +1,140 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Key;
+
+public class SnapshotReaderTest {
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+	private static final long NOW = 1_500_000_000_000L;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	@Rule
+	public ExpectedException expected = ExpectedException.none();
+
+	private Path file;
+	private final Map<Key, byte[]> loaded = new ConcurrentHashMap<>();
+
+	@Before
+	public void setUp() throws IOException {
+		file = folder.newFile("snapshot").toPath();
+	}
+
+	@Test
+	public void shouldLoadAllWrittenEntriesFromMultipleSegments() throws Exception {
+		try (SnapshotWriter writer = new SnapshotWriter(file, 64)) {
+			for (int i = 0; i < 100; i++) {
+				writer.write(Key.of("key" + i), ByteBuffer.wrap(new byte[] { (byte) i }), NOW + i + 1);
+			}
+		}
+
+		try (SnapshotReader reader = new SnapshotReader(file)) {
+			assertThat(reader.getEntriesCount(), equalTo(100L));
+			assertThat(reader.load(this::put, NOW), equalTo(100L));
+		}
+
+		assertThat(loaded.size(), equalTo(100));
+		for (int i = 0; i < 100; i++) {
+			assertThat(loaded.get(Key.of("key" + i)), equalTo(new byte[] { (byte) i }));
+		}
+	}
+
+	@Test
+	public void shouldSkipExpiredEntries() throws Exception {
+		try (SnapshotWriter writer = new SnapshotWriter(file)) {
+			writer.write(Key.of("expired"), ByteBuffer.wrap(DATA), NOW);
+			writer.write(Key.of("alive"), ByteBuffer.wrap(DATA), NOW + 1);
+			writer.write(Key.of("eternal"), ByteBuffer.wrap(DATA), null);
+		}
+
+		try (SnapshotReader reader = new SnapshotReader(file)) {
+			assertThat(reader.load(this::put, NOW), equalTo(2L));
+		}
+
+		assertThat(loaded.keySet(), containsInAnyOrder(Key.of("alive"), Key.of("eternal")));
+	}
+
+	@Test
+	public void shouldPassAbsoluteExpirationTimeAsTtl() throws Exception {
+		try (SnapshotWriter writer = new SnapshotWriter(file)) {
+			writer.write(Key.of("key"), ByteBuffer.wrap(DATA), NOW + 1000);
+		}
+
+		try (SnapshotReader reader = new SnapshotReader(file)) {
+			reader.load(entry -> assertThat(entry.getTtl(), equalTo(NOW + 1000)), NOW);
+		}
+	}
+
+	@Test
+	public void shouldLoadEntryLargerThanSegment() throws Exception {
+		byte[] data = new byte[1000];
+		data[999] = 42;
+		try (SnapshotWriter writer = new SnapshotWriter(file, 64)) {
+			writer.write(Key.of("small"), ByteBuffer.wrap(DATA), null);
+			writer.write(Key.of("large"), ByteBuffer.wrap(data), null);
+			writer.write(Key.of("next"), ByteBuffer.wrap(DATA), null);
+		}
+
+		try (SnapshotReader reader = new SnapshotReader(file)) {
+			assertThat(reader.load(this::put, NOW), equalTo(3L));
+		}
+
+		assertThat(loaded.get(Key.of("large")), equalTo(data));
+		assertThat(loaded.get(Key.of("next")), equalTo(DATA));
+	}
+
+	@Test
+	public void shouldLoadEmptySnapshot() throws Exception {
+		new SnapshotWriter(file).close();
+
+		try (SnapshotReader reader = new SnapshotReader(file)) {
+			assertThat(reader.load(this::put, NOW), equalTo(0L));
+		}
+	}
+
+	@Test
+	public void shouldRejectSnapshotThatWasNotCompleted() throws Exception {
+		try (SnapshotWriter writer = new SnapshotWriter(file)) {
+			writer.write(Key.of("key"), ByteBuffer.wrap(DATA), null);
+		}
+		try (RandomAccessFile content = new RandomAccessFile(file.toFile(), "rw")) {
+			content.setLength(content.length() - 1);
+		}
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("not completed"));
+
+		new SnapshotReader(file);
+	}
+
+	@Test
+	public void shouldRejectFileThatIsNotSnapshot() throws Exception {
+		Files.write(file, new byte[64]);
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("Not a snapshot"));
+
+		new SnapshotReader(file);
+	}
+
+	private void put(RequestView entry) {
+		byte[] data = new byte[entry.getDataLength()];
+		entry.copyDataTo(ByteBuffer.wrap(data));
+		loaded.put(entry.getRawKey(), data);
+	}
+}
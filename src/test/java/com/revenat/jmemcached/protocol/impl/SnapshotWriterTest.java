@@ -0,0 +1,105 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Key;
+import com.revenat.jmemcached.protocol.model.Request;
+
+public class SnapshotWriterTest {
+	private static final Key KEY = Key.of("Key");
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+	private static final long EXPIRES_AT = 1_500_000_000_000L;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = folder.newFile("snapshot").toPath();
+	}
+
+	@Test
+	public void shouldWriteEntriesAsPutFramesWithAbsoluteExpirationTime() throws Exception {
+		try (SnapshotWriter writer = new SnapshotWriter(file)) {
+			writer.write(KEY, ByteBuffer.wrap(DATA), EXPIRES_AT);
+			writer.write(KEY, ByteBuffer.wrap(DATA), null);
+		}
+
+		ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+		assertThat(content.getInt(), equalTo(SnapshotWriter.MAGIC));
+		content.position(SnapshotWriter.HEADER_SIZE);
+		RequestBufferConverter converter = new RequestBufferConverter();
+		assertThat(converter.readFrom(content).toString(),
+				equalTo(Request.withRawKeyAndData(Command.PUT, KEY, DATA, EXPIRES_AT).toString()));
+		Request request = converter.readFrom(content);
+		assertThat(request.getCommand(), equalTo(Command.PUT));
+		assertFalse("Entry should not expire", request.hasTtl());
+		assertThat(request.getData(), equalTo(DATA));
+	}
+
+	@Test
+	public void shouldEndSnapshotWithIndexOffsetAndMagic() throws Exception {
+		try (SnapshotWriter writer = new SnapshotWriter(file)) {
+			writer.write(KEY, ByteBuffer.wrap(DATA), EXPIRES_AT);
+		}
+
+		ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+		content.position(content.limit() - SnapshotWriter.TRAILER_SIZE);
+		long indexOffset = content.getLong();
+		assertThat(content.getInt(), equalTo(SnapshotWriter.MAGIC));
+		assertThat(content.getInt((int) indexOffset), equalTo(1));
+		assertThat((long) content.limit(), equalTo(indexOffset + Integer.BYTES + SnapshotWriter.SEGMENT_INDEX_SIZE
+				+ SnapshotWriter.TRAILER_SIZE));
+	}
+
+	@Test
+	public void shouldNotChangePositionOfDataBuffer() throws Exception {
+		ByteBuffer data = ByteBuffer.wrap(DATA);
+
+		try (SnapshotWriter writer = new SnapshotWriter(file)) {
+			writer.write(KEY, data, null);
+		}
+
+		assertThat(data.remaining(), equalTo(DATA.length));
+	}
+
+	@Test
+	public void shouldCountWrittenEntries() throws Exception {
+		try (SnapshotWriter writer = new SnapshotWriter(file, 16)) {
+			for (int i = 0; i < 5; i++) {
+				writer.write(KEY, ByteBuffer.wrap(DATA), null);
+			}
+
+			assertThat(writer.getEntriesCount(), equalTo(5L));
+		}
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToWriteIntoClosedWriter() throws Exception {
+		SnapshotWriter writer = new SnapshotWriter(file);
+		writer.close();
+
+		writer.write(KEY, ByteBuffer.wrap(DATA), null);
+	}
+
+	@Test(expected = JMemcachedConfigException.class)
+	public void shouldNotAllowNonPositiveSegmentSize() throws Exception {
+		new SnapshotWriter(file, 0);
+	}
+}
@@ -0,0 +1,104 @@
+package com.revenat.jmemcached.protocol.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+public class VarIntTest {
+	private static final long[] NUMBERS = { 0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, Long.MAX_VALUE, -1,
+			Long.MIN_VALUE };
+	private static final long[] TTLS = { 0, 1, -1, 999, 1000, -1000, 60_000, 1_500, 30L * 24 * 3600 * 1000,
+			(1L << 62) - 1, -(1L << 62), Long.MAX_VALUE / 1000 * 1000, Long.MIN_VALUE / 1000 * 1000 };
+
+	@Rule
+	public ExpectedException expected = ExpectedException.none();
+
+	@Test
+	public void shouldWriteSmallNumbersInSingleByte() throws Exception {
+		assertThat(VarInt.sizeOf(0), equalTo(1));
+		assertThat(VarInt.sizeOf(127), equalTo(1));
+		assertThat(VarInt.sizeOf(128), equalTo(2));
+		assertThat(VarInt.sizeOf(Integer.MAX_VALUE), equalTo(5));
+		assertThat(VarInt.sizeOf(-1), equalTo(VarInt.MAX_BYTES));
+	}
+
+	@Test
+	public void shouldReadNumbersWrittenIntoStream() throws Exception {
+		for (long number : NUMBERS) {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			VarInt.write(new DataOutputStream(output), number);
+
+			assertThat(output.size(), equalTo(VarInt.sizeOf(number)));
+			assertThat(VarInt.read(new DataInputStream(new ByteArrayInputStream(output.toByteArray()))),
+					equalTo(number));
+		}
+	}
+
+	@Test
+	public void shouldReadNumbersWrittenIntoBuffer() throws Exception {
+		for (long number : NUMBERS) {
+			ByteBuffer buffer = ByteBuffer.allocate(VarInt.MAX_BYTES);
+			VarInt.write(buffer, number);
+			buffer.flip();
+
+			assertThat(buffer.remaining(), equalTo(VarInt.sizeOf(number)));
+			assertThat(VarInt.read(buffer), equalTo(number));
+		}
+	}
+
+	@Test
+	public void shouldRestoreCompactTtl() throws Exception {
+		for (long ttl : TTLS) {
+			assertTrue("Ttl should be compact: " + ttl, VarInt.isCompact(ttl));
+			assertThat(VarInt.decodeTtl(VarInt.encodeTtl(ttl)), equalTo(ttl));
+		}
+	}
+
+	@Test
+	public void shouldWriteTtlInWholeSecondsInFewerBytes() throws Exception {
+		assertThat(VarInt.sizeOf(VarInt.encodeTtl(30_000)), equalTo(1));
+		assertThat(VarInt.sizeOf(VarInt.encodeTtl(-1000)), equalTo(1));
+		assertThat(VarInt.sizeOf(VarInt.encodeTtl(30L * 24 * 3600 * 1000)), equalTo(4));
+	}
+
+	@Test
+	public void shouldNotConsiderHugeTtlInMillisecondsCompact() throws Exception {
+		assertFalse("Ttl should not be compact", VarInt.isCompact(Long.MAX_VALUE));
+		assertFalse("Ttl should not be compact", VarInt.isCompact(-(1L << 62) - 1));
+	}
+
+	@Test
+	public void shouldNotAllowToReadNumberLongerThanMaxBytes() throws Exception {
+		byte[] number = new byte[VarInt.MAX_BYTES + 1];
+		Arrays.fill(number, (byte) 0x80);
+		expected.expect(JMemcachedException.class);
+
+		VarInt.read(ByteBuffer.wrap(number));
+	}
+
+	@Test(expected = BufferUnderflowException.class)
+	public void shouldNotAllowToReadIncompleteNumber() throws Exception {
+		VarInt.read(ByteBuffer.wrap(new byte[] { (byte) 0x80 }));
+	}
+
+	@Test
+	public void shouldNotAllowToConvertNumberOutsideOfIntRangeIntoLength() throws Exception {
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("Invalid data length"));
+
+		VarInt.toLength(Integer.MAX_VALUE + 1L);
+	}
+}
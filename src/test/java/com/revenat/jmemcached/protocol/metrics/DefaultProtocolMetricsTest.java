@@ -0,0 +1,114 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Status;
+
+public class DefaultProtocolMetricsTest {
+
+	private final DefaultProtocolMetrics metrics = new DefaultProtocolMetrics();
+
+	@Test
+	public void shouldCountRequestsByDirectionAndCommand() throws Exception {
+		metrics.recordRequest(Direction.READ, Command.GET, 10, 0, 100);
+		metrics.recordRequest(Direction.READ, Command.PUT, 30, 16, 300);
+		metrics.recordRequest(Direction.WRITE, Command.GET, 10, 0, 100);
+
+		OperationSnapshot<Command> requestsRead = metrics.snapshot().getRequests(Direction.READ);
+
+		assertThat(requestsRead.getCount(), equalTo(2L));
+		assertThat(requestsRead.getCount(Command.GET), equalTo(1L));
+		assertThat(requestsRead.getCount(Command.PUT), equalTo(1L));
+		assertThat(requestsRead.getCount(Command.CLEAR), equalTo(0L));
+		assertThat(requestsRead.getCounts().size(), equalTo(Command.values().length));
+		assertThat(requestsRead.getBytes(), equalTo(40L));
+		assertThat(requestsRead.getSizes().getMax(), equalTo(16L));
+		assertThat(requestsRead.getLatency().getSum(), equalTo(400L));
+	}
+
+	@Test
+	public void shouldCountFailuresWithKnownAndUnknownKeys() throws Exception {
+		metrics.recordRequestFailure(Direction.READ, null);
+		metrics.recordRequestFailure(Direction.WRITE, Command.PUT);
+		metrics.recordResponseFailure(Direction.READ, null);
+		metrics.recordResponseFailure(Direction.WRITE, Status.GOTTEN);
+
+		MetricsSnapshot snapshot = metrics.snapshot();
+
+		assertThat(snapshot.getRequests(Direction.READ).getUnknownFailureCount(), equalTo(1L));
+		assertThat(snapshot.getRequests(Direction.READ).getFailureCount(), equalTo(1L));
+		assertThat(snapshot.getRequests(Direction.WRITE).getFailureCount(Command.PUT), equalTo(1L));
+		assertThat(snapshot.getResponses(Direction.READ).getFailureCount(), equalTo(1L));
+		assertThat(snapshot.getResponses(Direction.WRITE).getFailureCount(Status.GOTTEN), equalTo(1L));
+	}
+
+	@Test
+	public void shouldCountResponsesByStatus() throws Exception {
+		metrics.recordResponse(Direction.WRITE, Status.GOTTEN, 12, 4, 50);
+		metrics.recordResponse(Direction.WRITE, Status.NOT_FOUND, 3, 0, 50);
+
+		OperationSnapshot<Status> responsesWritten = metrics.snapshot().getResponses(Direction.WRITE);
+
+		assertThat(responsesWritten.getCount(Status.GOTTEN), equalTo(1L));
+		assertThat(responsesWritten.getCount(Status.NOT_FOUND), equalTo(1L));
+		assertThat(responsesWritten.getBytes(), equalTo(15L));
+	}
+
+	@Test
+	public void shouldCountObjectsByDirection() throws Exception {
+		metrics.recordObject(Direction.WRITE, 100, 10);
+		metrics.recordObjectFailure(Direction.READ);
+
+		MetricsSnapshot snapshot = metrics.snapshot();
+
+		assertThat(snapshot.getObjects(Direction.WRITE).getCount(Direction.WRITE), equalTo(1L));
+		assertThat(snapshot.getObjects(Direction.WRITE).getBytes(), equalTo(100L));
+		assertThat(snapshot.getObjects(Direction.READ).getCount(), equalTo(0L));
+		assertThat(snapshot.getObjects(Direction.READ).getFailureCount(Direction.READ), equalTo(1L));
+		assertThat(snapshot.toString(), containsString("failures=1"));
+	}
+
+	@Test
+	public void shouldIgnoreAllMeasurementsByNoOpMetrics() throws Exception {
+		ProtocolMetrics noOp = ProtocolMetrics.NO_OP;
+
+		noOp.recordRequest(Direction.READ, Command.GET, 1, 1, 1);
+		noOp.recordRequestFailure(Direction.READ, null);
+		noOp.recordResponse(Direction.WRITE, Status.GOTTEN, 1, 1, 1);
+		noOp.recordResponseFailure(Direction.WRITE, null);
+		noOp.recordObject(Direction.READ, 1, 1);
+		noOp.recordObjectFailure(Direction.READ);
+
+		assertThat(noOp, not(instanceOf(DefaultProtocolMetrics.class)));
+	}
+
+	@Test
+	public void shouldNotAllocateWhileRecording() throws Exception {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+		int iterations = 10_000;
+		for (int i = 0; i < iterations; i++) {
+			metrics.recordRequest(Direction.READ, Command.GET, 10, i, i);
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long before = allocationBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < iterations; i++) {
+			metrics.recordRequest(Direction.READ, Command.GET, 10, i, i);
+		}
+		long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+		assertThat(allocated, lessThan((long) iterations));
+	}
+}
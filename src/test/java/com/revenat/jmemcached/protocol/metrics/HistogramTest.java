@@ -0,0 +1,72 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+	private final Histogram histogram = new Histogram();
+
+	@Test
+	public void shouldPutValuesIntoPowerOfTwoBuckets() throws Exception {
+		assertThat(Histogram.bucketOf(0), equalTo(0));
+		assertThat(Histogram.bucketOf(1), equalTo(1));
+		assertThat(Histogram.bucketOf(3), equalTo(2));
+		assertThat(Histogram.bucketOf(4), equalTo(3));
+		assertThat(Histogram.bucketOf(Long.MAX_VALUE), equalTo(Histogram.BUCKET_COUNT - 1));
+		assertThat(Histogram.upperBoundOf(3), equalTo(7L));
+		assertThat(Histogram.upperBoundOf(Histogram.BUCKET_COUNT - 1), equalTo(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void shouldCountSumAndMaxOfRecordedValues() throws Exception {
+		histogram.record(10);
+		histogram.record(20);
+		histogram.record(30);
+
+		HistogramSnapshot snapshot = histogram.snapshot();
+
+		assertThat(snapshot.getCount(), equalTo(3L));
+		assertThat(snapshot.getSum(), equalTo(60L));
+		assertThat(snapshot.getMax(), equalTo(30L));
+		assertThat(snapshot.getMean(), equalTo(20.0));
+	}
+
+	@Test
+	public void shouldApproximatePercentilesWithinFactorOfTwo() throws Exception {
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+
+		HistogramSnapshot snapshot = histogram.snapshot();
+
+		assertThat(snapshot.getPercentile(50), allOf(greaterThanOrEqualTo(50L), lessThan(100L)));
+		assertThat(snapshot.getPercentile(99), equalTo(100L));
+		assertThat(snapshot.getPercentile(100), equalTo(100L));
+		assertThat(snapshot.getPercentile(0), equalTo(1L));
+	}
+
+	@Test
+	public void shouldRecordNegativeValuesAsZeros() throws Exception {
+		histogram.record(-5);
+
+		assertThat(histogram.snapshot().getSum(), equalTo(0L));
+		assertThat(histogram.snapshot().getPercentile(100), equalTo(0L));
+	}
+
+	@Test
+	public void shouldReturnZerosForEmptyHistogram() throws Exception {
+		HistogramSnapshot snapshot = histogram.snapshot();
+
+		assertThat(snapshot.getMean(), equalTo(0.0));
+		assertThat(snapshot.getPercentile(99), equalTo(0L));
+		assertThat(snapshot.toString(), containsString("count=0"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldNotAllowPercentileGreaterThanHundred() throws Exception {
+		histogram.snapshot().getPercentile(101);
+	}
+}
@@ -0,0 +1,48 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.impl.ObjectConverter;
+
+public class MeteredObjectDeserializerTest {
+
+	private final DefaultProtocolMetrics metrics = new DefaultProtocolMetrics();
+	private final ObjectConverter converter = new ObjectConverter();
+	private final MeteredObjectDeserializer deserializer = new MeteredObjectDeserializer(converter, metrics);
+
+	@Test
+	public void shouldRecordSizeOfDeserializedObject() throws Exception {
+		byte[] data = converter.toByteArray("value");
+
+		Optional<Serializable> object = deserializer.fromByteArray(data);
+
+		OperationSnapshot<Direction> deserialized = metrics.snapshot().getObjects(Direction.READ);
+		assertThat(object.get(), equalTo("value"));
+		assertThat(deserialized.getCount(), equalTo(1L));
+		assertThat(deserialized.getSizes().getMax(), equalTo((long) data.length));
+	}
+
+	@Test
+	public void shouldRecordNullDataAsEmpty() throws Exception {
+		deserializer.fromByteArray(null);
+
+		assertThat(metrics.snapshot().getObjects(Direction.READ).getBytes(), equalTo(0L));
+	}
+
+	@Test
+	public void shouldRecordFailure() throws Exception {
+		try {
+			deserializer.fromByteArray(new byte[] { 1, 2, 3 });
+			fail("JMemcachedException expected");
+		} catch (JMemcachedException e) {
+			assertThat(metrics.snapshot().getObjects(Direction.READ).getFailureCount(), equalTo(1L));
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.impl.ObjectConverter;
+
+public class MeteredObjectSerializerTest {
+
+	private final DefaultProtocolMetrics metrics = new DefaultProtocolMetrics();
+	private final MeteredObjectSerializer serializer = new MeteredObjectSerializer(new ObjectConverter(), metrics);
+
+	@Test
+	public void shouldRecordSizeOfSerializedObject() throws Exception {
+		byte[] data = serializer.toByteArray("value");
+
+		OperationSnapshot<Direction> serialized = metrics.snapshot().getObjects(Direction.WRITE);
+		assertThat(serialized.getCount(), equalTo(1L));
+		assertThat(serialized.getBytes(), equalTo((long) data.length));
+	}
+
+	@Test
+	public void shouldRecordFailure() throws Exception {
+		try {
+			serializer.toByteArray(new Object());
+			fail("JMemcachedException expected");
+		} catch (JMemcachedException e) {
+			assertThat(metrics.snapshot().getObjects(Direction.WRITE).getFailureCount(), equalTo(1L));
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.protocol.impl.RequestConverter;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Request;
+
+public class MeteredRequestReaderTest {
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+
+	private final DefaultProtocolMetrics metrics = new DefaultProtocolMetrics();
+	private final MeteredRequestReader reader = new MeteredRequestReader(new RequestConverter(), metrics);
+
+	@Test
+	public void shouldRecordReadRequest() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new RequestConverter().writeTo(output, Request.withKeyAndData(Command.PUT, "key", DATA, 1000L));
+
+		Request request = reader.readFrom(new ByteArrayInputStream(output.toByteArray()));
+
+		OperationSnapshot<Command> requestsRead = metrics.snapshot().getRequests(Direction.READ);
+		assertThat(request.getCommand(), equalTo(Command.PUT));
+		assertThat(requestsRead.getCount(Command.PUT), equalTo(1L));
+		assertThat(requestsRead.getBytes(), equalTo((long) output.size()));
+		assertThat(requestsRead.getSizes().getSum(), equalTo((long) DATA.length));
+	}
+
+	@Test
+	public void shouldRecordFailureWithUnknownCommand() throws Exception {
+		try {
+			reader.readFrom(new ByteArrayInputStream(new byte[0]));
+			fail("EOFException expected");
+		} catch (EOFException e) {
+			assertThat(metrics.snapshot().getRequests(Direction.READ).getUnknownFailureCount(), equalTo(1L));
+		}
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void shouldNotAllowToCreateWithoutMetrics() throws Exception {
+		new MeteredRequestReader(new RequestConverter(), null);
+	}
+}
@@ -0,0 +1,78 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.impl.RequestConverter;
+import com.revenat.jmemcached.protocol.model.Command;
+import com.revenat.jmemcached.protocol.model.Entry;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Request;
+
+public class MeteredRequestWriterTest {
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+
+	private final DefaultProtocolMetrics metrics = new DefaultProtocolMetrics();
+	private final MeteredRequestWriter writer = new MeteredRequestWriter(new RequestConverter(), metrics);
+
+	@Test
+	public void shouldRecordWrittenRequestWithEntries() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Request request = Request.withEntries(Command.MPUT,
+				Arrays.asList(Entry.withKeyAndData("a", DATA, null), Entry.withKeyAndData("b", DATA, 1000L)));
+
+		writer.writeTo(output, request);
+
+		OperationSnapshot<Command> requestsWritten = metrics.snapshot().getRequests(Direction.WRITE);
+		assertThat(requestsWritten.getCount(Command.MPUT), equalTo(1L));
+		assertThat(requestsWritten.getBytes(), equalTo((long) output.size()));
+		assertThat(requestsWritten.getSizes().getSum(), equalTo(2L * DATA.length));
+	}
+
+	@Test
+	public void shouldRecordSizeOfFrameWithNegotiatedCompactLengths() throws Exception {
+		Handshake handshake = Handshake.latest(EnumSet.allOf(Feature.class));
+		MeteredRequestWriter compactWriter = new MeteredRequestWriter(new RequestConverter(handshake), metrics,
+				handshake);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		compactWriter.writeTo(output, Request.withKeyAndData(Command.PUT, "key", DATA, 1000L));
+
+		assertThat(metrics.snapshot().getRequests(Direction.WRITE).getBytes(), equalTo((long) output.size()));
+	}
+
+	@Test
+	public void shouldRecordFailureWithCommandOfRequest() throws Exception {
+		Request request = Request.withKey(Command.GET, "key");
+		try {
+			writer.writeTo(null, request);
+			fail("NullPointerException expected");
+		} catch (NullPointerException e) {
+			assertThat(metrics.snapshot().getRequests(Direction.WRITE).getFailureCount(Command.GET), equalTo(1L));
+		}
+	}
+
+	@Test
+	public void shouldRecordFailureWithUnknownCommandForNullRequest() throws Exception {
+		try {
+			writer.writeTo(new ByteArrayOutputStream(), null);
+			fail("NullPointerException expected");
+		} catch (NullPointerException e) {
+			assertThat(metrics.snapshot().getRequests(Direction.WRITE).getUnknownFailureCount(), equalTo(1L));
+		}
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldPropagateFailuresOfDecoratedWriter() throws Exception {
+		writer.writeTo(new ByteArrayOutputStream(), Request.withKey(Command.GET, StringUtils.repeat("a", 200)));
+	}
+}
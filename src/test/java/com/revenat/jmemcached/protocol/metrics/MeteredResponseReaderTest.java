@@ -0,0 +1,61 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.protocol.impl.ResponseConverter;
+import com.revenat.jmemcached.protocol.model.Feature;
+import com.revenat.jmemcached.protocol.model.Handshake;
+import com.revenat.jmemcached.protocol.model.Response;
+import com.revenat.jmemcached.protocol.model.Status;
+
+public class MeteredResponseReaderTest {
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+
+	private final DefaultProtocolMetrics metrics = new DefaultProtocolMetrics();
+	private final MeteredResponseReader reader = new MeteredResponseReader(new ResponseConverter(), metrics);
+
+	@Test
+	public void shouldRecordReadResponseWithEntries() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new ResponseConverter().writeTo(output, Response.withEntries(Status.GOTTEN,
+				Arrays.asList(Response.withData(Status.GOTTEN, DATA), Response.empty(Status.NOT_FOUND))));
+
+		reader.readFrom(new ByteArrayInputStream(output.toByteArray()));
+
+		OperationSnapshot<Status> responsesRead = metrics.snapshot().getResponses(Direction.READ);
+		assertThat(responsesRead.getCount(Status.GOTTEN), equalTo(1L));
+		assertThat(responsesRead.getBytes(), equalTo((long) output.size()));
+		assertThat(responsesRead.getSizes().getSum(), equalTo((long) DATA.length));
+	}
+
+	@Test
+	public void shouldRecordSizeOfFrameWithNegotiatedCompactLengths() throws Exception {
+		Handshake handshake = Handshake.latest(EnumSet.allOf(Feature.class));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new ResponseConverter(handshake).writeTo(output, Response.withData(Status.GOTTEN, DATA));
+
+		new MeteredResponseReader(new ResponseConverter(handshake), metrics, handshake)
+				.readFrom(new ByteArrayInputStream(output.toByteArray()));
+
+		assertThat(metrics.snapshot().getResponses(Direction.READ).getBytes(), equalTo((long) output.size()));
+	}
+
+	@Test
+	public void shouldRecordFailureWithUnknownStatus() throws Exception {
+		try {
+			reader.readFrom(new ByteArrayInputStream(new byte[0]));
+			fail("EOFException expected");
+		} catch (EOFException e) {
+			assertThat(metrics.snapshot().getResponses(Direction.READ).getUnknownFailureCount(), equalTo(1L));
+		}
+	}
+}
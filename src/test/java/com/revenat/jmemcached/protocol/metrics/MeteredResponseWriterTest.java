@@ -0,0 +1,41 @@
+package com.revenat.jmemcached.protocol.metrics;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.protocol.impl.ResponseConverter;
+import com.revenat.jmemcached.protocol.model.Response;
+import com.revenat.jmemcached.protocol.model.Status;
+
+public class MeteredResponseWriterTest {
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+
+	private final DefaultProtocolMetrics metrics = new DefaultProtocolMetrics();
+	private final MeteredResponseWriter writer = new MeteredResponseWriter(new ResponseConverter(), metrics);
+
+	@Test
+	public void shouldRecordWrittenResponse() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		writer.writeTo(output, Response.withData(Status.GOTTEN, DATA));
+
+		OperationSnapshot<Status> responsesWritten = metrics.snapshot().getResponses(Direction.WRITE);
+		assertThat(responsesWritten.getCount(Status.GOTTEN), equalTo(1L));
+		assertThat(responsesWritten.getBytes(), equalTo((long) output.size()));
+		assertThat(responsesWritten.getLatency().getCount(), equalTo(1L));
+	}
+
+	@Test
+	public void shouldRecordFailureWithStatusOfResponse() throws Exception {
+		try {
+			writer.writeTo(null, Response.empty(Status.ADDED));
+			fail("NullPointerException expected");
+		} catch (NullPointerException e) {
+			assertThat(metrics.snapshot().getResponses(Direction.WRITE).getFailureCount(Status.ADDED), equalTo(1L));
+		}
+	}
+}
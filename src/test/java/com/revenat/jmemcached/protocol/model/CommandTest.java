@@ -31,9 +31,14 @@ public class CommandTest {
 	
 	@Test(expected = JMemcachedException.class)
 	public void shouldNotAllowToGetCommandForInvalidByteValue() throws Exception {
-		byte invalidByteCode = (byte) 10;
+		byte invalidByteCode = (byte) 100;
 		Command.valueOf(invalidByteCode);
 	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToGetCommandForNegativeByteValue() throws Exception {
+		Command.valueOf((byte) -1);
+	}
 	
 	@Test
 	public void shouldReturnByteValueZeroForClearCommand() throws Exception {
@@ -54,4 +59,83 @@ public class CommandTest {
 	public void shouldReturnByteValueThreeForRemoveCommand() throws Exception {
 		assertThat(Command.REMOVE.getByteCode(), equalTo((byte) 3));
 	}
+
+	@Test
+	public void shouldReturnMultiGetCommandForValueFour() throws Exception {
+		assertThat(Command.valueOf((byte) 4), equalTo(Command.MGET));
+	}
+
+	@Test
+	public void shouldReturnMultiPutCommandForValueFive() throws Exception {
+		assertThat(Command.valueOf((byte) 5), equalTo(Command.MPUT));
+	}
+
+	@Test
+	public void shouldReturnCasCommandForValueSix() throws Exception {
+		assertThat(Command.valueOf((byte) 6), equalTo(Command.CAS));
+	}
+
+	@Test
+	public void shouldTreatOnlyMultiGetAndMultiPutAsMultiKeyCommands() throws Exception {
+		assertTrue("MGET should be multi-key command", Command.MGET.isMultiKey());
+		assertTrue("MPUT should be multi-key command", Command.MPUT.isMultiKey());
+		assertFalse("GET should not be multi-key command", Command.GET.isMultiKey());
+		assertFalse("PUT should not be multi-key command", Command.PUT.isMultiKey());
+		assertFalse("CAS should not be multi-key command", Command.CAS.isMultiKey());
+	}
+
+	@Test
+	public void shouldReturnCounterCommandsForValuesSevenAndEight() throws Exception {
+		assertThat(Command.valueOf((byte) 7), equalTo(Command.INCR));
+		assertThat(Command.valueOf((byte) 8), equalTo(Command.DECR));
+	}
+
+	@Test
+	public void shouldTreatOnlyIncrementAndDecrementAsCounterCommands() throws Exception {
+		assertTrue("INCR should be counter command", Command.INCR.isCounter());
+		assertTrue("DECR should be counter command", Command.DECR.isCounter());
+		assertFalse("PUT should not be counter command", Command.PUT.isCounter());
+		assertFalse("CAS should not be counter command", Command.CAS.isCounter());
+	}
+
+	@Test
+	public void shouldReturnTouchCommandsForValuesNineAndTen() throws Exception {
+		assertThat(Command.valueOf((byte) 9), equalTo(Command.TOUCH));
+		assertThat(Command.valueOf((byte) 10), equalTo(Command.GAT));
+	}
+
+	@Test
+	public void shouldTreatOnlyTouchAndGetAndTouchAsTouchCommands() throws Exception {
+		assertTrue("TOUCH should be touch command", Command.TOUCH.isTouch());
+		assertTrue("GAT should be touch command", Command.GAT.isTouch());
+		assertFalse("GET should not be touch command", Command.GET.isTouch());
+	}
+
+	@Test
+	public void shouldReturnQuietCommandsForValuesElevenToThirteen() throws Exception {
+		assertThat(Command.valueOf((byte) 11), equalTo(Command.PUTQ));
+		assertThat(Command.valueOf((byte) 12), equalTo(Command.REMOVEQ));
+		assertThat(Command.valueOf((byte) 13), equalTo(Command.MPUTQ));
+		assertThat(Command.valueOf((byte) 14), equalTo(Command.NOOP));
+	}
+
+	@Test
+	public void shouldReturnBaseCommandOfQuietCommand() throws Exception {
+		assertThat(Command.PUTQ.getBaseCommand(), equalTo(Command.PUT));
+		assertThat(Command.MPUTQ.getBaseCommand(), equalTo(Command.MPUT));
+		assertThat(Command.PUT.getBaseCommand(), equalTo(Command.PUT));
+		assertTrue("REMOVEQ should be quiet command", Command.REMOVEQ.isQuiet());
+		assertFalse("REMOVE should not be quiet command", Command.REMOVE.isQuiet());
+		assertFalse("NOOP should not be quiet command", Command.NOOP.isQuiet());
+		assertTrue("MPUTQ should be multi-key command", Command.MPUTQ.isMultiKey());
+	}
+
+	@Test
+	public void shouldRequireReplyToQuietCommandOnlyIfItFails() throws Exception {
+		assertFalse("Successful PUTQ should not be replied", Command.PUTQ.isReplyRequired(Status.ADDED));
+		assertFalse("Successful REMOVEQ should not be replied", Command.REMOVEQ.isReplyRequired(Status.REMOVED));
+		assertTrue("Failed REMOVEQ should be replied", Command.REMOVEQ.isReplyRequired(Status.NOT_FOUND));
+		assertTrue("PUT should be replied", Command.PUT.isReplyRequired(Status.ADDED));
+		assertTrue("NOOP should be replied", Command.NOOP.isReplyRequired(Status.OK));
+	}
 }
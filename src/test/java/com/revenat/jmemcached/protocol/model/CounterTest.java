@@ -0,0 +1,73 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+public class CounterTest {
+
+	@Test
+	public void shouldStoreCounterAsBigEndianNumber() throws Exception {
+		assertThat(Counter.toBytes(258), equalTo(new byte[] { 0, 0, 0, 0, 0, 0, 1, 2 }));
+		assertThat(Counter.fromBytes(Counter.toBytes(-5)), equalTo(-5L));
+	}
+
+	@Test
+	public void shouldTreatOnlyDataOfEightBytesAsCounter() throws Exception {
+		assertTrue("Data should be counter", Counter.isCounter(new byte[8]));
+		assertFalse("Data should not be counter", Counter.isCounter(new byte[3]));
+		assertFalse("Null should not be counter", Counter.isCounter(null));
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToReadCounterFromDataOfOtherLength() throws Exception {
+		Counter.fromBytes(new byte[] { 1, 2, 3 });
+	}
+
+	@Test
+	public void shouldWrapAroundWhenIncrementing() throws Exception {
+		assertThat(Counter.apply(Command.INCR, 10, 5), equalTo(15L));
+		assertThat(Counter.apply(Command.INCR, -1L, 1), equalTo(0L));
+	}
+
+	@Test
+	public void shouldNotGoBelowZeroWhenDecrementing() throws Exception {
+		assertThat(Counter.apply(Command.DECR, 10, 4), equalTo(6L));
+		assertThat(Counter.apply(Command.DECR, 3, 5), equalTo(0L));
+		assertThat(Counter.apply(Command.DECR, -1L, 1), equalTo(-2L));
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToApplyNonCounterCommand() throws Exception {
+		Counter.apply(Command.PUT, 1, 1);
+	}
+
+	@Test
+	public void shouldUpdateCounterInPlace() throws Exception {
+		byte[] counter = Counter.toBytes(41);
+
+		long value = Counter.update(counter, Command.INCR, 1);
+
+		assertThat(value, equalTo(42L));
+		assertThat(counter, equalTo(Counter.toBytes(42)));
+	}
+
+	@Test
+	public void shouldUpdateCounterInBufferRegardlessOfByteOrder() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(12).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.position(4);
+		buffer.duplicate().order(ByteOrder.BIG_ENDIAN).putLong(4, 100);
+
+		long value = Counter.update(buffer, 4, Command.DECR, 30);
+
+		assertThat(value, equalTo(70L));
+		assertThat(buffer.duplicate().order(ByteOrder.BIG_ENDIAN).getLong(4), equalTo(70L));
+		assertThat(buffer.position(), equalTo(4));
+	}
+}
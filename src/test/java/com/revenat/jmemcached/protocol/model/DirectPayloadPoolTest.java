@@ -0,0 +1,82 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+
+public class DirectPayloadPoolTest {
+	private final DirectPayloadPool pool = new DirectPayloadPool(1024, 4096);
+
+	@Test
+	public void shouldAllocatePayloadOfRequestedLength() throws Exception {
+		DirectPayload payload = pool.allocate(100);
+
+		assertThat(payload.length(), equalTo(100));
+		assertThat(payload.buffer().remaining(), equalTo(100));
+		assertTrue("Payload should be direct", payload.buffer().isDirect());
+	}
+
+	@Test
+	public void shouldReuseMemoryOfReleasedPayload() throws Exception {
+		DirectPayload first = pool.allocate(100);
+		first.writableBuffer().put((byte) 42);
+		first.release();
+
+		assertThat(pool.getIdleBytes(), equalTo(128L));
+		DirectPayload second = pool.allocate(120);
+
+		assertThat(pool.getIdleBytes(), equalTo(0L));
+		assertThat(second.length(), equalTo(120));
+		assertThat(second.buffer().get(0), equalTo((byte) 42));
+	}
+
+	@Test
+	public void shouldNotPoolPayloadsLongerThanMaxPooledLength() throws Exception {
+		DirectPayload payload = pool.allocate(2000);
+
+		payload.release();
+
+		assertThat(pool.getIdleBytes(), equalTo(0L));
+	}
+
+	@Test
+	public void shouldNotKeepMoreIdleMemoryThanAllowed() throws Exception {
+		DirectPayload[] payloads = new DirectPayload[5];
+		for (int i = 0; i < payloads.length; i++) {
+			payloads[i] = pool.allocate(1024);
+		}
+
+		for (DirectPayload payload : payloads) {
+			payload.release();
+		}
+
+		assertThat(pool.getIdleBytes(), equalTo(4096L));
+	}
+
+	@Test
+	public void shouldNotLetPayloadWriteOutsideOfItsLength() throws Exception {
+		ByteBuffer buffer = pool.allocate(10).writableBuffer();
+
+		assertThat(buffer.capacity(), equalTo(10));
+	}
+
+	@Test(expected = JMemcachedConfigException.class)
+	public void shouldNotAllowMaxPooledLengthThatIsNotPowerOfTwo() throws Exception {
+		new DirectPayloadPool(1000, 4096);
+	}
+
+	@Test(expected = JMemcachedConfigException.class)
+	public void shouldNotAllowNegativeMaxIdleBytes() throws Exception {
+		new DirectPayloadPool(1024, -1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldNotAllowToAllocateNegativeLength() throws Exception {
+		pool.allocate(-1);
+	}
+}
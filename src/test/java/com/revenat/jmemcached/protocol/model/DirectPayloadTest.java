@@ -0,0 +1,92 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+public class DirectPayloadTest {
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+
+	@Rule
+	public ExpectedException expected = ExpectedException.none();
+
+	@Test
+	public void shouldKeepCopiedDataInDirectMemory() throws Exception {
+		ByteBuffer source = ByteBuffer.wrap(DATA);
+
+		DirectPayload payload = DirectPayload.copyOf(source);
+
+		assertTrue("Payload should be direct", payload.buffer().isDirect());
+		assertThat(payload.length(), equalTo(DATA.length));
+		assertThat(source.position(), equalTo(0));
+		byte[] copy = new byte[DATA.length];
+		payload.buffer().get(copy);
+		assertThat(copy, equalTo(DATA));
+	}
+
+	@Test
+	public void shouldBeCreatedWithSingleReference() throws Exception {
+		DirectPayload payload = DirectPayload.allocate(8);
+
+		assertThat(payload.refCount(), equalTo(1));
+		assertTrue("Last reference should release payload", payload.release());
+		assertTrue("Payload should be released", payload.isReleased());
+	}
+
+	@Test
+	public void shouldRecycleMemoryOnlyWhenLastReferenceIsReleased() throws Exception {
+		AtomicInteger recycled = new AtomicInteger();
+		DirectPayload payload = new DirectPayload(ByteBuffer.allocateDirect(8), recycled::incrementAndGet);
+
+		payload.retain();
+
+		assertFalse("Payload should not be released while it is retained", payload.release());
+		assertThat(recycled.get(), equalTo(0));
+		assertTrue("Payload should be released", payload.release());
+		assertThat(recycled.get(), equalTo(1));
+	}
+
+	@Test
+	public void shouldNotAllowToReleasePayloadTwice() throws Exception {
+		DirectPayload payload = DirectPayload.allocate(8);
+		payload.release();
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("released"));
+
+		payload.release();
+	}
+
+	@Test
+	public void shouldNotAllowToAccessReleasedPayload() throws Exception {
+		DirectPayload payload = DirectPayload.allocate(8);
+		payload.release();
+		expected.expect(JMemcachedException.class);
+
+		payload.buffer();
+	}
+
+	@Test
+	public void shouldNotAllowToRetainReleasedPayload() throws Exception {
+		DirectPayload payload = DirectPayload.allocate(8);
+		payload.release();
+		expected.expect(JMemcachedException.class);
+
+		payload.retain();
+	}
+
+	@Test
+	public void shouldNotAllowToModifyPayloadThroughReadOnlyBuffer() throws Exception {
+		DirectPayload payload = DirectPayload.allocate(8);
+
+		assertTrue("Buffer should be read-only", payload.buffer().isReadOnly());
+		assertFalse("Buffer should be writable", payload.writableBuffer().isReadOnly());
+	}
+}
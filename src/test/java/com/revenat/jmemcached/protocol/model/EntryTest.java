@@ -0,0 +1,50 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class EntryTest {
+	private static final byte[] DATA = new byte[] { 1, 2, 3 };
+	private static final String KEY = "key";
+	private static final long TTL = 1000L;
+
+	private Entry entry;
+
+	@Test
+	public void shouldAllowToCreateWithKeyOnly() throws Exception {
+		entry = Entry.withKey(KEY);
+
+		assertThat(entry.getKey(), equalTo(KEY));
+		assertFalse("Entry with key only should not contain ttl", entry.hasTtl());
+		assertFalse("Entry with key only should not contain data", entry.hasData());
+	}
+
+	@Test
+	public void shouldAllowToCreateWithKeyDataAndTtl() throws Exception {
+		entry = Entry.withKeyAndData(KEY, DATA, TTL);
+
+		assertThat(entry.getKey(), equalTo(KEY));
+		assertThat(entry.getData(), equalTo(DATA));
+		assertThat(entry.getTtl(), equalTo(TTL));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void shouldNotAllowToCreateWithNullKey() throws Exception {
+		Entry.withKey(null);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void shouldNotAllowToCreateWithNullData() throws Exception {
+		Entry.withKeyAndData(KEY, null, TTL);
+	}
+
+	@Test
+	public void shouldReturnStringWithKeyDataLengthAndTtl() throws Exception {
+		entry = Entry.withKeyAndData(KEY, DATA, TTL);
+
+		assertThat(entry.toString(), allOf(containsString(KEY), containsString(DATA.length + " bytes"),
+				containsString(String.format("time-to-live=%d milliseconds", TTL))));
+	}
+}
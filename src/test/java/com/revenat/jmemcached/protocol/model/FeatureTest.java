@@ -0,0 +1,38 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+public class FeatureTest {
+
+	@Test
+	public void shouldRepresentEachFeatureWithItsOwnBit() throws Exception {
+		int bits = Feature.toBits(EnumSet.allOf(Feature.class));
+
+		assertThat(Integer.bitCount(bits), equalTo(Feature.values().length));
+	}
+
+	@Test
+	public void shouldRestoreFeaturesFromBits() throws Exception {
+		EnumSet<Feature> features = EnumSet.of(Feature.COMPRESSION, Feature.BATCHING);
+
+		assertThat(Feature.fromBits(Feature.toBits(features)), equalTo(features));
+	}
+
+	@Test
+	public void shouldIgnoreBitsOfUnknownFeatures() throws Exception {
+		int bits = Feature.CORRELATION_IDS.getMask() | 0x80000000;
+
+		assertThat(Feature.fromBits(bits), equalTo(EnumSet.of(Feature.CORRELATION_IDS)));
+	}
+
+	@Test
+	public void shouldReturnZeroBitsForNoFeatures() throws Exception {
+		assertThat(Feature.toBits(EnumSet.noneOf(Feature.class)), equalTo(0));
+		assertThat(Feature.fromBits(0), empty());
+	}
+}
@@ -0,0 +1,79 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+
+public class HandshakeTest {
+	private static final Handshake ALL_FEATURES = Handshake.latest(EnumSet.allOf(Feature.class));
+
+	@Test
+	public void shouldCreateHandshakeOfLatestVersion() throws Exception {
+		assertThat(ALL_FEATURES.getVersion(), equalTo(Version.latest()));
+		assertThat(ALL_FEATURES.getFeatures(), equalTo(EnumSet.allOf(Feature.class)));
+	}
+
+	@Test
+	public void shouldNegotiateOnlyMutuallySupportedFeatures() throws Exception {
+		Handshake peer = Handshake.latest(EnumSet.of(Feature.COMPRESSION, Feature.CORRELATION_IDS));
+		Handshake local = Handshake.latest(EnumSet.of(Feature.CORRELATION_IDS, Feature.BATCHING));
+
+		Handshake negotiated = local.negotiate(peer);
+
+		assertThat(negotiated.getFeatures(), equalTo(EnumSet.of(Feature.CORRELATION_IDS)));
+		assertTrue("Correlation ids should be negotiated", negotiated.hasFeature(Feature.CORRELATION_IDS));
+		assertFalse("Compression should not be negotiated", negotiated.hasFeature(Feature.COMPRESSION));
+	}
+
+	@Test
+	public void shouldNegotiateOlderVersion() throws Exception {
+		Handshake older = Handshake.of(Version.VERSION_1_0, EnumSet.allOf(Feature.class));
+
+		assertThat(ALL_FEATURES.negotiate(older).getVersion(), equalTo(Version.VERSION_1_0));
+		assertThat(older.negotiate(ALL_FEATURES).getVersion(), equalTo(Version.VERSION_1_0));
+	}
+
+	@Test
+	public void shouldNegotiateNoFeaturesWithLegacyPeer() throws Exception {
+		Handshake negotiated = ALL_FEATURES.negotiate(Handshake.LEGACY);
+
+		assertThat(negotiated, equalTo(Handshake.LEGACY));
+	}
+
+	@Test
+	public void shouldNotBeAffectedByChangesOfSourceFeatures() throws Exception {
+		EnumSet<Feature> features = EnumSet.of(Feature.COMPRESSION);
+		Handshake handshake = Handshake.latest(features);
+
+		features.add(Feature.BATCHING);
+
+		assertThat(handshake.getFeatures(), equalTo(EnumSet.of(Feature.COMPRESSION)));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void shouldNotAllowToModifyFeatures() throws Exception {
+		ALL_FEATURES.getFeatures().clear();
+	}
+
+	@Test(expected = JMemcachedConfigException.class)
+	public void shouldNotAllowToCreateHandshakeOfVersionOlderThanOnePointZero() throws Exception {
+		Handshake.of(Version.VERSION_0_0, EnumSet.noneOf(Feature.class));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void shouldNotAllowToCreateHandshakeWithNullFeatures() throws Exception {
+		Handshake.latest(null);
+	}
+
+	@Test
+	public void shouldReturnStringWithVersionAndFeatures() throws Exception {
+		Handshake handshake = Handshake.latest(EnumSet.of(Feature.BATCHING));
+
+		assertThat(handshake.toString(), allOf(containsString("1.1"), containsString("BATCHING")));
+	}
+}
@@ -0,0 +1,95 @@
+package com.revenat.jmemcached.protocol.model;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.revenat.jmemcached.exception.JMemcachedException;
+
+public class KeyTest {
+	private static final String KEY = "key";
+
+	@Rule
+	public ExpectedException expected = ExpectedException.none();
+
+	@Test
+	public void shouldBeEqualWhenCreatedFromStringOrBytes() throws Exception {
+		Key fromString = Key.of(KEY);
+		Key fromBytes = Key.of(KEY.getBytes(StandardCharsets.US_ASCII));
+
+		assertThat(fromString, equalTo(fromBytes));
+		assertThat(fromString.hashCode(), equalTo(fromBytes.hashCode()));
+		assertThat(fromString.hash64(), equalTo(fromBytes.hash64()));
+		assertThat(fromBytes.toString(), equalTo(KEY));
+	}
+
+	@Test
+	public void shouldNotBeEqualToKeyWithDifferentBytes() throws Exception {
+		assertThat(Key.of(KEY), not(equalTo(Key.of("kez"))));
+		assertThat(Key.of(KEY).hash64(), not(equalTo(Key.of("kez").hash64())));
+	}
+
+	@Test
+	public void shouldComputeFnv1aHash() throws Exception {
+		assertThat(Key.of("").hash64(), equalTo(0xcbf29ce484222325L));
+		assertThat(Key.of("a").hash64(), equalTo(0xaf63dc4c8601ec8cL));
+	}
+
+	@Test
+	public void shouldExposeKeyBytes() throws Exception {
+		Key key = Key.of(KEY);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ByteBuffer buffer = ByteBuffer.allocate(key.length());
+
+		key.writeTo(output);
+		key.writeTo(buffer);
+
+		assertThat(key.length(), equalTo(3));
+		assertThat(key.byteAt(0), equalTo((byte) 'k'));
+		assertThat(output.toByteArray(), equalTo(KEY.getBytes(StandardCharsets.US_ASCII)));
+		assertThat(buffer.array(), equalTo(KEY.getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	@Test
+	public void shouldReturnCopyOfKeyBytes() throws Exception {
+		Key key = Key.of(KEY);
+
+		key.getBytes()[0] = 'x';
+
+		assertThat(key.toString(), equalTo(KEY));
+	}
+
+	@Test
+	public void shouldReplaceNonAsciiCharacters() throws Exception {
+		Key key = Key.of("k\u00e9y");
+
+		assertThat(key, equalTo(Key.of("k?y")));
+		assertThat(key.toString(), equalTo("k?y"));
+	}
+
+	@Test
+	public void shouldAllowKeyOfMaximumLength() throws Exception {
+		assertThat(Key.of(StringUtils.repeat("a", Key.MAX_LENGTH)).length(), equalTo(Key.MAX_LENGTH));
+	}
+
+	@Test
+	public void shouldNotAllowKeyLongerThanMaximumLength() throws Exception {
+		expected.expect(JMemcachedException.class);
+		expected.expectMessage(containsString("Key length should be <= " + Key.MAX_LENGTH + " bytes"));
+
+		Key.of(new byte[Key.MAX_LENGTH + 1]);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void shouldNotAllowNullString() throws Exception {
+		Key.of((String) null);
+	}
+}
@@ -3,11 +3,18 @@ package com.revenat.jmemcached.protocol.model;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 
+import com.revenat.jmemcached.exception.JMemcachedException;
+
 public class RequestTest {
 
 	private static final long TTL = ZonedDateTime.now(ZoneId.systemDefault()).plusHours(1).toInstant().toEpochMilli();
@@ -45,6 +52,15 @@ public class RequestTest {
 		assertFalse("Requst with only command and key should not contain any data", request.hasData());
 	}
 
+	@Test
+	public void shouldAllowToCreateWithCommandAndRawKey() throws Exception {
+		request = Request.withRawKey(Command.GET, Key.of(KEY));
+
+		assertRequestWithCommandAndKey(request);
+		assertThat(request.getKey(), equalTo(KEY));
+		assertThat(request.getRawKey(), equalTo(Key.of(KEY)));
+	}
+
 	@Test
 	public void shouldAllowToCreateRequestWithCommandAndKeyAndData() throws Exception {
 		request = Request.withKeyAndData(Command.PUT, KEY, DATA, null);
@@ -60,6 +76,53 @@ public class RequestTest {
 		assertThat(request.getData(), notNullValue());
 	}
 	
+	@Test
+	public void shouldAllowToCreateRequestWithEntries() throws Exception {
+		List<Entry> entries = Arrays.asList(Entry.withKey(KEY), Entry.withKey("other"));
+
+		request = Request.withEntries(Command.MGET, entries);
+
+		assertTrue("Request with entries should contain entries", request.hasEntries());
+		assertThat(request.getEntries(), equalTo(entries));
+		assertFalse("Request with entries should not contain key", request.hasKey());
+		assertFalse("Request with entries should not contain data", request.hasData());
+	}
+
+	@Test
+	public void shouldNotBeAffectedByChangesOfSourceEntriesList() throws Exception {
+		List<Entry> entries = new ArrayList<>(Arrays.asList(Entry.withKey(KEY)));
+		request = Request.withEntries(Command.MGET, entries);
+
+		entries.clear();
+
+		assertThat(request.getEntries(), hasSize(1));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void shouldNotAllowToModifyEntries() throws Exception {
+		request = Request.withEntries(Command.MGET, Arrays.asList(Entry.withKey(KEY)));
+
+		request.getEntries().clear();
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void shouldNotAllowToCreateRequestWithNullEntries() throws Exception {
+		Request.withEntries(Command.MGET, null);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void shouldNotAllowToCreateRequestWithNullEntry() throws Exception {
+		Request.withEntries(Command.MGET, Arrays.asList(Entry.withKey(KEY), null));
+	}
+
+	@Test
+	public void requestWithoutEntriesShouldHaveEmptyEntriesList() throws Exception {
+		request = Request.withKey(Command.GET, KEY);
+
+		assertFalse("Request should not contain entries", request.hasEntries());
+		assertThat(request.getEntries(), empty());
+	}
+	
 	@Test(expected = NullPointerException.class)
 	public void shouldNotAllowToCreateEmptyRequestWithNullCommand() throws Exception {
 		Request.empty(null);
@@ -125,4 +188,165 @@ public class RequestTest {
 		return String.format("time-to-live=%d milliseconds", ttl);
 	}
 
+	@Test
+	public void shouldReturnStringWithEntriesIfAny() throws Exception {
+		request = Request.withEntries(Command.MGET, Arrays.asList(Entry.withKey(KEY), Entry.withKey("other")));
+
+		assertThat(request.toString(), allOf(containsString(KEY), containsString("other")));
+	}
+
+	@Test
+	public void shouldReturnStringWithCorrelationIdIfAny() throws Exception {
+		request = Request.withKey(Command.GET, KEY).withCorrelationId(42);
+
+		assertThat(request.toString(), containsString("#42"));
+	}
+
+	@Test
+	public void shouldReturnStringWithCasTokenIfAny() throws Exception {
+		request = Request.withKeyAndData(Command.CAS, KEY, DATA, null).withCasToken(42);
+
+		assertThat(request.toString(), containsString("cas=42"));
+	}
+
+	@Test
+	public void shouldCreateCopyWithCasTokenThatKeepsCorrelationId() throws Exception {
+		Request source = Request.withKeyAndData(Command.CAS, KEY, DATA, TTL).withCorrelationId(7);
+
+		request = source.withCasToken(-1L);
+
+		assertThat(request.getCasToken(), equalTo(-1L));
+		assertThat(request.getCorrelationId(), equalTo(7));
+		assertThat(request.getData(), equalTo(DATA));
+		assertFalse("Source request should not be changed", source.hasCasToken());
+		assertThat(request.withCorrelationId(8).getCasToken(), equalTo(-1L));
+	}
+
+	@Test
+	public void shouldExposeDataKeptInDirectPayload() throws Exception {
+		DirectPayload payload = DirectPayload.copyOf(ByteBuffer.wrap(DATA));
+
+		request = Request.withRawKeyAndPayload(Command.PUT, Key.of(KEY), payload, TTL);
+
+		assertTrue("Request should be direct", request.isDirect());
+		assertThat(request.getData(), equalTo(DATA));
+		assertThat(request.getTtl(), equalTo(TTL));
+		assertThat(request.toString(), containsString(DATA.length + " bytes"));
+		assertTrue("Payload should be released with request", request.release());
+	}
+
+	@Test
+	public void shouldAllowToCreateRequestWithKeyAndTtlOnly() throws Exception {
+		request = Request.withKeyAndTtl(Command.TOUCH, KEY, TTL);
+
+		assertThat(request.getKey(), equalTo(KEY));
+		assertThat(request.getTtl(), equalTo(TTL));
+		assertFalse("Request should not have data", request.hasData());
+		assertThat(request.toString(), containsString("time-to-live"));
+	}
+
+	@Test
+	public void shouldCarryDeltaOfCounterRequestAsData() throws Exception {
+		request = Request.withDelta(Command.INCR, KEY, 5);
+
+		assertThat(request.getDelta(), equalTo(5L));
+		assertThat(request.getInitialValue(), nullValue());
+		assertThat(request.getDataLength(), equalTo(Counter.BYTES));
+		assertFalse("Counter request should not have ttl", request.hasTtl());
+	}
+
+	@Test
+	public void shouldCarryInitialValueAndTtlOfCounterRequest() throws Exception {
+		request = Request.withDelta(Command.DECR, KEY, 1, 100, TTL);
+
+		assertThat(request.getDelta(), equalTo(1L));
+		assertThat(request.getInitialValue(), equalTo(100L));
+		assertThat(request.getTtl(), equalTo(TTL));
+		assertThat(request.getDataLength(), equalTo(2 * Counter.BYTES));
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToCreateRequestWithDeltaForNonCounterCommand() throws Exception {
+		Request.withDelta(Command.PUT, KEY, 1);
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToCreateCounterRequestWithTtlButWithoutInitialValue() throws Exception {
+		Request.withRawKeyAndDelta(Command.INCR, Key.of(KEY), 1, null, TTL);
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToGetDeltaOfNonCounterRequest() throws Exception {
+		Request.withKeyAndData(Command.PUT, KEY, DATA, null).getDelta();
+	}
+
+	@Test
+	public void shouldTreatCounterRequestWithDataOfOtherLengthAsInvalid() throws Exception {
+		request = Request.withKeyAndData(Command.INCR, KEY, new byte[3], null);
+
+		assertFalse("Request should not have counter operand", request.hasCounterOperand());
+	}
+
+	@Test
+	public void shouldNotHaveCorrelationIdByDefault() throws Exception {
+		request = Request.withKey(Command.GET, KEY);
+
+		assertFalse("Request should not have correlation id", request.hasCorrelationId());
+		assertThat(request.getCorrelationId(), nullValue());
+	}
+
+	@Test
+	public void shouldCreateCopyWithCorrelationIdThatSharesData() throws Exception {
+		Request source = Request.withKeyAndData(Command.PUT, KEY, DATA, TTL);
+
+		request = source.withCorrelationId(7);
+
+		assertThat(request.getCorrelationId(), equalTo(7));
+		assertThat(request.getCommand(), equalTo(Command.PUT));
+		assertThat(request.getRawKey(), sameInstance(source.getRawKey()));
+		assertThat(request.getTtl(), equalTo(TTL));
+		assertThat(request.getData(), equalTo(DATA));
+		assertFalse("Source request should not be changed", source.hasCorrelationId());
+	}
+
+	@Test
+	public void shouldReturnDataLengthWithoutCopyingData() throws Exception {
+		request = Request.withKeyAndData(Command.PUT, KEY, DATA, null);
+
+		assertThat(request.getDataLength(), equalTo(DATA.length));
+		assertThat(Request.withKey(Command.GET, KEY).getDataLength(), equalTo(0));
+	}
+
+	@Test
+	public void shouldReturnReadOnlyViewOfData() throws Exception {
+		request = Request.withKeyAndData(Command.PUT, KEY, DATA, null);
+
+		ByteBuffer view = request.getDataBuffer();
+
+		assertTrue("Data view should be read-only", view.isReadOnly());
+		assertThat(view.remaining(), equalTo(DATA.length));
+		byte[] content = new byte[view.remaining()];
+		view.get(content);
+		assertThat(content, equalTo(DATA));
+		assertThat(request.getDataBuffer().position(), equalTo(0));
+	}
+
+	@Test
+	public void shouldWriteDataIntoOutputStream() throws Exception {
+		request = Request.withKeyAndData(Command.PUT, KEY, DATA, null);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		request.writeDataTo(output);
+
+		assertThat(output.toByteArray(), equalTo(DATA));
+	}
+
+	@Test
+	public void shouldReturnCopyOfData() throws Exception {
+		request = Request.withKeyAndData(Command.PUT, KEY, new byte[] { 1, 2, 3 }, null);
+
+		request.getData()[0] = 10;
+
+		assertThat(request.getData(), equalTo(DATA));
+	}
 }
@@ -3,8 +3,15 @@ package com.revenat.jmemcached.protocol.model;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Test;
 
+import com.revenat.jmemcached.exception.JMemcachedException;
+
 public class ResponseTest {
 
 	private static final byte[] DATA = new byte[] { 1, 2, 3 };
@@ -63,4 +70,120 @@ public class ResponseTest {
 		assertThat(response.toString(),
 				containsString(String.format("%d bytes", DATA.length)));
 	}
+
+	@Test
+	public void shouldReturnStringWithCorrelationIdIfAny() throws Exception {
+		response = Response.empty(Status.CLEARED).withCorrelationId(42);
+
+		assertThat(response.toString(), containsString("#42"));
+	}
+
+	@Test
+	public void shouldCreateCopyWithCorrelationIdThatKeepsStatusDataAndEntries() throws Exception {
+		Response source = Response.withEntries(Status.GOTTEN, Arrays.asList(Response.withData(Status.GOTTEN, DATA)));
+
+		response = source.withCorrelationId(7);
+
+		assertThat(response.getCorrelationId(), equalTo(7));
+		assertThat(response.getStatus(), equalTo(Status.GOTTEN));
+		assertThat(response.getEntries(), equalTo(source.getEntries()));
+		assertFalse("Source response should not be changed", source.hasCorrelationId());
+		assertThat(source.getCorrelationId(), nullValue());
+	}
+
+	@Test
+	public void shouldCreateCopyWithCasTokenThatKeepsCorrelationId() throws Exception {
+		Response source = Response.withData(Status.GOTTEN, DATA).withCorrelationId(7);
+
+		response = source.withCasToken(3L);
+
+		assertThat(response.getCasToken(), equalTo(3L));
+		assertThat(response.getCorrelationId(), equalTo(7));
+		assertThat(response.getData(), equalTo(DATA));
+		assertFalse("Source response should not be changed", source.hasCasToken());
+		assertThat(response.toString(), containsString("cas=3"));
+	}
+
+	@Test
+	public void shouldCarryCounterValueAsRawData() throws Exception {
+		response = Response.withCounter(Status.REPLACED, 42);
+
+		assertThat(response.getCounterValue(), equalTo(42L));
+		assertThat(response.getData(), equalTo(Counter.toBytes(42)));
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToGetCounterValueOfResponseWithOtherData() throws Exception {
+		Response.withData(Status.GOTTEN, DATA).getCounterValue();
+	}
+
+	@Test
+	public void shouldExposeDataKeptInDirectPayload() throws Exception {
+		response = Response.withPayload(Status.GOTTEN, DirectPayload.copyOf(ByteBuffer.wrap(DATA)));
+
+		assertTrue("Response should be direct", response.isDirect());
+		assertThat(response.getData(), equalTo(DATA));
+		assertThat(response.getDataLength(), equalTo(DATA.length));
+		assertTrue("Data buffer should be direct", response.getDataBuffer().isDirect());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		response.writeDataTo(output);
+		assertThat(output.toByteArray(), equalTo(DATA));
+	}
+
+	@Test
+	public void shouldShareDirectPayloadWithCopies() throws Exception {
+		DirectPayload payload = DirectPayload.copyOf(ByteBuffer.wrap(DATA));
+		response = Response.withPayload(Status.GOTTEN, payload).withCorrelationId(1);
+
+		assertThat(response.getPayload(), sameInstance(payload));
+		assertTrue("Last reference should be released", response.release());
+		assertTrue("Payload should be released", payload.isReleased());
+	}
+
+	@Test
+	public void shouldNotReleaseAnythingForHeapData() throws Exception {
+		response = Response.withData(Status.GOTTEN, DATA);
+
+		assertFalse("Response should not be direct", response.isDirect());
+		assertFalse("Nothing should be released", response.release());
+		assertThat(response.getPayload(), nullValue());
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToCreateResponseWithReleasedPayload() throws Exception {
+		DirectPayload payload = DirectPayload.allocate(3);
+		payload.release();
+
+		Response.withPayload(Status.GOTTEN, payload);
+	}
+
+	@Test
+	public void shouldAllowToCreateResponseWithEntries() throws Exception {
+		List<Response> entries = Arrays.asList(Response.withData(Status.GOTTEN, DATA), Response.empty(Status.NOT_FOUND));
+
+		response = Response.withEntries(Status.GOTTEN, entries);
+
+		assertTrue("Response with entries should contain entries", response.hasEntries());
+		assertThat(response.getEntries(), equalTo(entries));
+		assertFalse("Response with entries should not contain data", response.hasData());
+	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToCreateResponseWithNestedEntries() throws Exception {
+		Response nested = Response.withEntries(Status.GOTTEN, Arrays.asList(Response.empty(Status.NOT_FOUND)));
+
+		Response.withEntries(Status.GOTTEN, Arrays.asList(nested));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void shouldNotAllowToCreateResponseWithNullEntries() throws Exception {
+		Response.withEntries(Status.GOTTEN, null);
+	}
+
+	@Test
+	public void shouldReturnStringWithEntriesIfAny() throws Exception {
+		response = Response.withEntries(Status.GOTTEN, Arrays.asList(Response.empty(Status.NOT_FOUND)));
+
+		assertThat(response.toString(), containsString(Status.NOT_FOUND.name()));
+	}
 }
@@ -41,10 +41,15 @@ public class StatusTest {
 	
 	@Test(expected = JMemcachedException.class)
 	public void shouldNotAllowToGetStatusForInvalidValue() throws Exception {
-		byte invalidByteCode = (byte) 10;
+		byte invalidByteCode = (byte) 100;
 		
 		Status.valueOf(invalidByteCode);
 	}
+
+	@Test(expected = JMemcachedException.class)
+	public void shouldNotAllowToGetStatusForNegativeValue() throws Exception {
+		Status.valueOf((byte) -1);
+	}
 	
 	@Test
 	public void shouldReturnByteValueZeroForStatusAdded() throws Exception {
@@ -75,4 +80,38 @@ public class StatusTest {
 	public void shouldReturnByteValueFiveForStatusCleared() throws Exception {
 		assertThat(Status.CLEARED.getByteCode(), equalTo((byte) 5));
 	}
+
+	@Test
+	public void shouldReturnStatusExistsForValueSix() throws Exception {
+		assertThat(Status.valueOf((byte) 6), equalTo(Status.EXISTS));
+	}
+
+	@Test
+	public void shouldReturnStatusModifiedForValueSeven() throws Exception {
+		assertThat(Status.valueOf((byte) 7), equalTo(Status.MODIFIED));
+	}
+
+	@Test
+	public void shouldReturnStatusNotACounterForValueEight() throws Exception {
+		assertThat(Status.valueOf((byte) 8), equalTo(Status.NOT_A_COUNTER));
+	}
+
+	@Test
+	public void shouldReturnStatusTouchedForValueNine() throws Exception {
+		assertThat(Status.valueOf((byte) 9), equalTo(Status.TOUCHED));
+	}
+
+	@Test
+	public void shouldReturnStatusOkForValueTen() throws Exception {
+		assertThat(Status.valueOf((byte) 10), equalTo(Status.OK));
+	}
+
+	@Test
+	public void shouldTreatOnlyStatusesOfNotAppliedCommandsAsFailures() throws Exception {
+		assertTrue("NOT_FOUND should be failure", Status.NOT_FOUND.isFailure());
+		assertTrue("EXISTS should be failure", Status.EXISTS.isFailure());
+		assertTrue("NOT_A_COUNTER should be failure", Status.NOT_A_COUNTER.isFailure());
+		assertFalse("ADDED should not be failure", Status.ADDED.isFailure());
+		assertFalse("OK should not be failure", Status.OK.isFailure());
+	}
 }
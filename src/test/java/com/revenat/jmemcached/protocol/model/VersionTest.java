@@ -41,6 +41,17 @@ public class VersionTest {
 		assertThat(Version.VERSION_0_0.getByteCode(), equalTo(BYTE_0));
 	}
 	
+	@Test
+	public void shouldReturnVersionOnePointOneForByteValue17() throws Exception {
+		assertThat(Version.valueOf((byte) 0b00010001), equalTo(Version.VERSION_1_1));
+		assertThat(Version.VERSION_1_1.toString(), equalTo("1.1"));
+	}
+
+	@Test
+	public void shouldReturnVersionOnePointOneAsLatestVersion() throws Exception {
+		assertThat(Version.latest(), equalTo(Version.VERSION_1_1));
+	}
+
 	@Test
 	public void shouldReturnStringRepresentationOfTheVersion() throws Exception {
 		String version = Version.VERSION_1_0.toString();
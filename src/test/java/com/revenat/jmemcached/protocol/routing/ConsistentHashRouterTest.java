@@ -0,0 +1,145 @@
+package com.revenat.jmemcached.protocol.routing;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.revenat.jmemcached.exception.JMemcachedConfigException;
+import com.revenat.jmemcached.exception.JMemcachedException;
+import com.revenat.jmemcached.protocol.model.Key;
+
+public class ConsistentHashRouterTest {
+	private static final int KEYS = 20_000;
+
+	@Rule
+	public ExpectedException expected = ExpectedException.none();
+
+	private final ConsistentHashRouter<String> router = ConsistentHashRouter.<String>empty()
+			.withNode("node-a:11211", "A").withNode("node-b:11211", "B").withNode("node-c:11211", "C");
+
+	@Test
+	public void shouldAlwaysRouteKeyToTheSameNode() throws Exception {
+		ConsistentHashRouter<String> sameRouter = ConsistentHashRouter.<String>empty()
+				.withNode("node-a:11211", "A").withNode("node-b:11211", "B").withNode("node-c:11211", "C");
+
+		for (int i = 0; i < 1000; i++) {
+			assertThat(sameRouter.route("key" + i), equalTo(router.route(Key.of("key" + i))));
+		}
+	}
+
+	@Test
+	public void shouldSpreadKeysEvenlyAcrossNodes() throws Exception {
+		Map<String, Integer> counts = countKeys(router);
+
+		for (String node : router.getNodes()) {
+			assertThat(node, counts.get(node), allOf(greaterThan(KEYS / 3 * 8 / 10), lessThan(KEYS / 3 * 12 / 10)));
+		}
+	}
+
+	@Test
+	public void shouldGiveNodeShareOfKeysProportionalToItsWeight() throws Exception {
+		ConsistentHashRouter<String> weighted = ConsistentHashRouter.<String>empty().withNode("light", "L", 1)
+				.withNode("heavy", "H", 3);
+
+		Map<String, Integer> counts = countKeys(weighted);
+
+		assertThat(counts.get("H"), allOf(greaterThan(KEYS * 65 / 100), lessThan(KEYS * 85 / 100)));
+	}
+
+	@Test
+	public void shouldRemapOnlyKeysTakenByJoinedNode() throws Exception {
+		ConsistentHashRouter<String> grown = router.withNode("node-d:11211", "D");
+		int remapped = 0;
+
+		for (int i = 0; i < KEYS; i++) {
+			String before = router.route("key" + i);
+			String after = grown.route("key" + i);
+			if (!before.equals(after)) {
+				assertThat(after, equalTo("D"));
+				remapped++;
+			}
+		}
+
+		assertThat(remapped, allOf(greaterThan(KEYS / 4 * 7 / 10), lessThan(KEYS / 4 * 13 / 10)));
+	}
+
+	@Test
+	public void shouldRemapOnlyKeysOfLeftNode() throws Exception {
+		ConsistentHashRouter<String> shrunk = router.withoutNode("node-b:11211");
+
+		for (int i = 0; i < KEYS; i++) {
+			String before = router.route("key" + i);
+			if (!before.equals("B")) {
+				assertThat(shrunk.route("key" + i), equalTo(before));
+			}
+		}
+		assertThat(shrunk.getNodes(), contains("A", "C"));
+	}
+
+	@Test
+	public void shouldRouteKeysWithTheSameHashTagToTheSameNode() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			String node = router.route("user:{" + i + "}:name");
+
+			assertThat(router.route("user:{" + i + "}:email"), equalTo(node));
+			assertThat(router.route("{" + i + "}"), equalTo(node));
+		}
+	}
+
+	@Test
+	public void shouldHashWholeKeyIfHashTagIsEmptyOrUnclosed() throws Exception {
+		assertThat(ConsistentHashRouter.keyPosition(Key.of("a{}b")),
+				not(equalTo(ConsistentHashRouter.keyPosition(Key.of("c{}d")))));
+		assertThat(ConsistentHashRouter.keyPosition(Key.of("a{b")),
+				not(equalTo(ConsistentHashRouter.keyPosition(Key.of("c{b")))));
+	}
+
+	@Test
+	public void shouldReturnThisRouterWhenRemovingUnknownNode() throws Exception {
+		assertThat(router.withoutNode("unknown"), sameInstance(router));
+	}
+
+	@Test
+	public void shouldNotChangeRouterWhenAddingNode() throws Exception {
+		router.withNode("node-d:11211", "D");
+
+		assertThat(router.getNodes(), contains("A", "B", "C"));
+		assertThat(router.toString(), equalTo("ConsistentHashRouter[node-a:11211*1, node-b:11211*1, node-c:11211*1]"));
+	}
+
+	@Test
+	public void shouldNotAllowToAddNodeWithTheSameName() throws Exception {
+		expected.expect(JMemcachedConfigException.class);
+
+		router.withNode("node-a:11211", "A2");
+	}
+
+	@Test
+	public void shouldNotAllowToAddNodeWithNonPositiveWeight() throws Exception {
+		expected.expect(JMemcachedConfigException.class);
+		expected.expectMessage(containsString("weight"));
+
+		router.withNode("node-d:11211", "D", 0);
+	}
+
+	@Test
+	public void shouldNotAllowToRouteKeyWithoutNodes() throws Exception {
+		expected.expect(JMemcachedException.class);
+
+		ConsistentHashRouter.empty().route("key");
+	}
+
+	private static Map<String, Integer> countKeys(ConsistentHashRouter<String> router) {
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; i < KEYS; i++) {
+			counts.merge(router.route("key" + i), 1, Integer::sum);
+		}
+		return counts;
+	}
+}